@@ -0,0 +1,50 @@
+package com.paynow.accounts.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.accounts.service.AccountService;
+import com.paynow.common.rpc.RpcMethods;
+import com.paynow.common.rpc.RpcServer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Serves {@link AccountService} over the binary RPC transport on {@code rpc.server.port}, next to the
+ * REST API. Errors are the same as the REST API's: an unknown account or a hold the account cannot cover
+ * reaches payments-service as the matching PaymentException.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rpc.server", name = "enabled", havingValue = "true")
+public class AccountsRpcConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public RpcServer accountsRpcServer(AccountService accountService,
+                                       ObjectMapper objectMapper,
+                                       @Value("${rpc.server.port:9081}") int port,
+                                       @Value("${app.api.keys}") Set<String> apiKeys) {
+        return new RpcServer("accounts", port, objectMapper, apiKeys)
+                .register(RpcMethods.ACCOUNTS_GET_BALANCE,
+                        args -> accountService.getBalance((String) args[0]),
+                        String.class)
+                .register(RpcMethods.ACCOUNTS_GET_BALANCES,
+                        args -> accountService.getBalances(new LinkedHashSet<>(Arrays.asList((String[]) args[0]))),
+                        String[].class)
+                .register(RpcMethods.ACCOUNTS_RESERVE, args -> {
+                    accountService.reserveBalance((String) args[0], (BigDecimal) args[1], (String) args[2]);
+                    return null;
+                }, String.class, BigDecimal.class, String.class)
+                .register(RpcMethods.ACCOUNTS_RESERVE_IF_AVAILABLE,
+                        args -> accountService.reserveIfAvailable((String) args[0], (BigDecimal) args[1], (String) args[2]),
+                        String.class, BigDecimal.class, String.class)
+                .register(RpcMethods.ACCOUNTS_RELEASE, args -> {
+                    accountService.releaseReservation((String) args[0]);
+                    return null;
+                }, String.class);
+    }
+}
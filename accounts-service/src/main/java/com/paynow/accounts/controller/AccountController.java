@@ -2,6 +2,7 @@ package com.paynow.accounts.controller;
 
 import com.paynow.accounts.service.AccountService;
 import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
 import com.paynow.common.error.PaymentError;
 import com.paynow.common.exception.PaymentException;
 import com.paynow.common.util.CorrelationUtils;
@@ -13,11 +14,14 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 /**
  * REST controller for account operations
@@ -60,6 +64,32 @@ public class AccountController {
         }
     }
 
+    /**
+     * Multi-get balances for a batch of customers. Unknown customers are omitted from the response.
+     */
+    @PostMapping("/balances")
+    public ResponseEntity<?> getBalances(@RequestBody List<String> customerIds, HttpServletRequest request) {
+        String propagated = request.getHeader(CorrelationUtils.REQUEST_ID_HEADER);
+        String requestId = (propagated != null && !propagated.isBlank()) ? propagated : "req_missing";
+
+        try {
+            log.info("Getting balances for {} customers", customerIds.size());
+
+            List<AccountBalanceResponse> response = accountService.getBalances(new LinkedHashSet<>(customerIds));
+
+            return ResponseEntity.ok()
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(response);
+
+        } catch (Exception e) {
+            log.error("Error getting balances: {}", e.getMessage(), e);
+            PaymentError error = PaymentError.internalError("Failed to get balances", requestId, request.getRequestURI());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(error);
+        }
+    }
+
     @PostMapping("/{customerId}/reserve")
     public ResponseEntity<?> reserveBalance(
             @PathVariable String customerId,
@@ -93,6 +123,74 @@ public class AccountController {
         }
     }
 
+    /**
+     * Return the balance snapshot and, if funds allow, reserve {@code amount} in the same transaction.
+     * A payment that cannot be reserved gets 200 with {@code reserved=false} and a reason.
+     */
+    @PostMapping("/{customerId}/reserve-if-available")
+    public ResponseEntity<?> reserveIfAvailable(
+            @PathVariable String customerId,
+            @RequestParam BigDecimal amount,
+            @RequestParam String requestId,
+            HttpServletRequest request) {
+
+        try {
+            log.info("Conditionally reserving balance for customer: {}, amount: {}",
+                    CorrelationUtils.redactCustomerId(customerId), amount);
+
+            BalanceReservationResponse response = accountService.reserveIfAvailable(customerId, amount, requestId);
+
+            return ResponseEntity.ok()
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(response);
+
+        } catch (PaymentException.AccountNotFoundException e) {
+            log.warn("Account not found: {}", e.getMessage());
+            PaymentError error = PaymentError.badRequest(e.getMessage(), requestId, request.getRequestURI());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(error);
+
+        } catch (Exception e) {
+            log.error("Error reserving balance: {}", e.getMessage(), e);
+            PaymentError error = PaymentError.internalError("Failed to reserve balance", requestId, request.getRequestURI());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(error);
+        }
+    }
+
+    /**
+     * Release a pending hold, e.g. a speculative reservation for a payment that was not allowed.
+     * Releasing a hold that is no longer pending is a no-op.
+     */
+    @PostMapping("/reservations/{requestId}/release")
+    public ResponseEntity<?> releaseReservation(@PathVariable String requestId, HttpServletRequest request) {
+        try {
+            log.info("Releasing reservation: {}", requestId);
+
+            accountService.releaseReservation(requestId);
+
+            return ResponseEntity.ok()
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body("{\"status\": \"released\"}");
+
+        } catch (PaymentException e) {
+            log.warn("Failed to release reservation: {}", e.getMessage());
+            PaymentError error = PaymentError.badRequest(e.getMessage(), requestId, request.getRequestURI());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(error);
+
+        } catch (Exception e) {
+            log.error("Error releasing reservation: {}", e.getMessage(), e);
+            PaymentError error = PaymentError.internalError("Failed to release reservation", requestId, request.getRequestURI());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(error);
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("OK");
@@ -8,6 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,6 +20,8 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByCustomerId(String customerId);
 
+    List<Account> findByCustomerIdIn(Collection<String> customerIds);
+
     /**
      * Find account by customer ID with pessimistic write lock for transactional safety
      */
@@ -7,6 +7,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -23,4 +25,13 @@ public interface BalanceReservationRepository extends JpaRepository<BalanceReser
            "WHERE r.customerId = :customerId AND r.status = :status")
     BigDecimal sumByCustomerIdAndStatus(@Param("customerId") String customerId, 
                                        @Param("status") BalanceReservation.ReservationStatus status);
+
+    /**
+     * Sum reservations per customer for several customers at once.
+     * Each row is {@code [customerId, sum]}; customers without reservations are omitted.
+     */
+    @Query("SELECT r.customerId, COALESCE(SUM(r.amount), 0) FROM BalanceReservation r " +
+           "WHERE r.customerId IN :customerIds AND r.status = :status GROUP BY r.customerId")
+    List<Object[]> sumByCustomerIdsAndStatus(@Param("customerIds") Collection<String> customerIds,
+                                             @Param("status") BalanceReservation.ReservationStatus status);
 }
\ No newline at end of file
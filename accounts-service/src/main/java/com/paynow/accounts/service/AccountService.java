@@ -5,6 +5,7 @@ import com.paynow.accounts.entity.BalanceReservation;
 import com.paynow.accounts.repository.AccountRepository;
 import com.paynow.accounts.repository.BalanceReservationRepository;
 import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
 import com.paynow.common.exception.PaymentException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +15,12 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Service for account operations with transactional safety
@@ -32,22 +39,32 @@ public class AccountService {
                         "Account not found for customer: " + customerId, null));
 
         // Calculate available balance (balance - pending reservations)
-        BigDecimal pendingReservations = reservationRepository.sumByCustomerIdAndStatus(
-                customerId, BalanceReservation.ReservationStatus.PENDING);
-        
-        if (pendingReservations == null) {
-            pendingReservations = BigDecimal.ZERO;
+        return toBalanceResponse(account, pendingReservations(customerId));
+    }
+
+    /**
+     * Multi-get variant of {@link #getBalance}: two queries regardless of how many customers are requested.
+     * Unknown customers are omitted from the result.
+     */
+    public List<AccountBalanceResponse> getBalances(Collection<String> customerIds) {
+        if (customerIds.isEmpty()) {
+            return List.of();
         }
 
-        BigDecimal availableBalance = account.getBalance().subtract(pendingReservations);
+        List<Account> accounts = accountRepository.findByCustomerIdIn(customerIds);
 
-        return new AccountBalanceResponse(
-                customerId,
-                account.getBalance(),
-                availableBalance,
-                account.getCurrency(),
-                account.getStatus().toString()
-        );
+        Map<String, BigDecimal> pendingByCustomer = new HashMap<>();
+        for (Object[] row : reservationRepository.sumByCustomerIdsAndStatus(
+                customerIds, BalanceReservation.ReservationStatus.PENDING)) {
+            pendingByCustomer.put((String) row[0], (BigDecimal) row[1]);
+        }
+
+        List<AccountBalanceResponse> balances = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            BigDecimal pendingReservations = pendingByCustomer.getOrDefault(account.getCustomerId(), BigDecimal.ZERO);
+            balances.add(toBalanceResponse(account, pendingReservations));
+        }
+        return balances;
     }
 
     @Transactional(isolation = Isolation.SERIALIZABLE)
@@ -68,14 +85,7 @@ public class AccountService {
         }
 
         // Calculate current available balance
-        BigDecimal pendingReservations = reservationRepository.sumByCustomerIdAndStatus(
-                customerId, BalanceReservation.ReservationStatus.PENDING);
-        
-        if (pendingReservations == null) {
-            pendingReservations = BigDecimal.ZERO;
-        }
-
-        BigDecimal availableBalance = account.getBalance().subtract(pendingReservations);
+        BigDecimal availableBalance = account.getBalance().subtract(pendingReservations(customerId));
 
         if (availableBalance.compareTo(amount) < 0) {
             throw new PaymentException.InsufficientFundsException(
@@ -83,7 +93,52 @@ public class AccountService {
                             availableBalance, amount), requestId);
         }
 
-        // Create reservation
+        createReservation(customerId, amount, requestId);
+    }
+
+    /**
+     * Check-and-reserve in one serializable transaction: returns the balance snapshot the caller would
+     * otherwise have fetched separately, and places the hold only if the account is active and has
+     * enough available funds. Not reserving is a normal outcome, not an error. Repeating a call for the
+     * same requestId returns the original outcome without placing a second hold.
+     */
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public BalanceReservationResponse reserveIfAvailable(String customerId, BigDecimal amount, String requestId) {
+        Account account = accountRepository.findByCustomerIdForUpdate(customerId)
+                .orElseThrow(() -> new PaymentException.AccountNotFoundException(
+                        "Account not found for customer: " + customerId, requestId));
+
+        BigDecimal pendingReservations = pendingReservations(customerId);
+
+        Optional<BalanceReservation> existing = reservationRepository.findByRequestId(requestId);
+        if (existing.isPresent()) {
+            BalanceReservation reservation = existing.get();
+            log.warn("Duplicate reservation request: {}", requestId);
+            if (reservation.getStatus() == BalanceReservation.ReservationStatus.RELEASED) {
+                return BalanceReservationResponse.notReserved(
+                        toBalanceResponse(account, pendingReservations), "reservation_released", requestId);
+            }
+            // Report the snapshot as it was before this request's own hold
+            if (reservation.getStatus() == BalanceReservation.ReservationStatus.PENDING) {
+                pendingReservations = pendingReservations.subtract(reservation.getAmount());
+            }
+            return BalanceReservationResponse.reserved(toBalanceResponse(account, pendingReservations), requestId);
+        }
+
+        AccountBalanceResponse snapshot = toBalanceResponse(account, pendingReservations);
+
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return BalanceReservationResponse.notReserved(snapshot, "account_not_active", requestId);
+        }
+        if (snapshot.getAvailableBalance().compareTo(amount) < 0) {
+            return BalanceReservationResponse.notReserved(snapshot, "insufficient_funds", requestId);
+        }
+
+        createReservation(customerId, amount, requestId);
+        return BalanceReservationResponse.reserved(snapshot, requestId);
+    }
+
+    private void createReservation(String customerId, BigDecimal amount, String requestId) {
         BalanceReservation reservation = new BalanceReservation();
         reservation.setCustomerId(customerId);
         reservation.setAmount(amount);
@@ -98,6 +153,22 @@ public class AccountService {
                 customerId, amount, requestId);
     }
 
+    private BigDecimal pendingReservations(String customerId) {
+        BigDecimal pendingReservations = reservationRepository.sumByCustomerIdAndStatus(
+                customerId, BalanceReservation.ReservationStatus.PENDING);
+        return pendingReservations != null ? pendingReservations : BigDecimal.ZERO;
+    }
+
+    private static AccountBalanceResponse toBalanceResponse(Account account, BigDecimal pendingReservations) {
+        return new AccountBalanceResponse(
+                account.getCustomerId(),
+                account.getBalance(),
+                account.getBalance().subtract(pendingReservations),
+                account.getCurrency(),
+                account.getStatus().toString()
+        );
+    }
+
     @Transactional(isolation = Isolation.SERIALIZABLE)
     public void commitReservation(String requestId) {
         BalanceReservation reservation = reservationRepository.findByRequestId(requestId)
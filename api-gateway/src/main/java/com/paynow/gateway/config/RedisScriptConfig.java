@@ -1,13 +1,21 @@
 package com.paynow.gateway.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.scripting.support.ResourceScriptSource;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+@Slf4j
 @Configuration
 public class RedisScriptConfig {
 
@@ -18,4 +26,30 @@ public class RedisScriptConfig {
         redisScript.setResultType(List.class);
         return redisScript;
     }
-}
\ No newline at end of file
+
+    @Bean
+    public DefaultRedisScript<List> tokenBucketBatchScript() {
+        DefaultRedisScript<List> redisScript = new DefaultRedisScript<>();
+        redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/token-bucket-batch.lua")));
+        redisScript.setResultType(List.class);
+        return redisScript;
+    }
+
+    /**
+     * Load the scripts into Redis at startup so the first calls already go by SHA. Failures are only
+     * logged: a call for a script Redis does not have falls back to sending the source.
+     */
+    @Bean
+    public ApplicationRunner redisScriptPreloader(ReactiveStringRedisTemplate redisTemplate,
+                                                  List<DefaultRedisScript<?>> scripts) {
+        return args -> Flux.fromIterable(scripts)
+                .flatMap(script -> redisTemplate.execute(connection -> connection.scriptingCommands()
+                        .scriptLoad(ByteBuffer.wrap(script.getScriptAsString().getBytes(StandardCharsets.UTF_8)))))
+                .doOnNext(sha -> log.debug("Loaded Redis script {}", sha))
+                .onErrorResume(e -> {
+                    log.warn("Could not preload Redis scripts: {}", e.toString());
+                    return Mono.empty();
+                })
+                .subscribe();
+    }
+}
@@ -0,0 +1,58 @@
+package com.paynow.gateway.filters;
+
+import com.paynow.common.util.CorrelationUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Stamps every forwarded request with the time it has left ({@code X-Request-Timeout-Ms}). Clients
+ * may ask for a shorter budget with the same header, never a longer one than {@code gateway.deadline.budget}
+ * nor a shorter one than {@code gateway.deadline.min-budget}.
+ * Downstream services bound all their own calls and retries by it.
+ */
+@Component
+@Slf4j
+public class DeadlineFilter implements GlobalFilter, Ordered {
+
+    @Value("${gateway.deadline.budget:5s}")
+    private Duration budget;
+
+    // Below this, every downstream call would time out before it could answer
+    @Value("${gateway.deadline.min-budget:200ms}")
+    private Duration minBudget;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        long budgetMillis = budget.toMillis();
+        String requested = exchange.getRequest().getHeaders().getFirst(CorrelationUtils.REQUEST_TIMEOUT_HEADER);
+        if (requested != null && !requested.isBlank()) {
+            try {
+                budgetMillis = Math.max(Math.min(minBudget.toMillis(), budgetMillis),
+                        Math.min(budgetMillis, Long.parseLong(requested.trim())));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring invalid {} header: {}", CorrelationUtils.REQUEST_TIMEOUT_HEADER, requested);
+            }
+        }
+
+        ServerHttpRequest mutated = exchange.getRequest().mutate()
+                .header(CorrelationUtils.REQUEST_TIMEOUT_HEADER, Long.toString(budgetMillis))
+                .build();
+
+        return chain.filter(exchange.mutate().request(mutated).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Run after correlation and API key checks
+        return 2;
+    }
+}
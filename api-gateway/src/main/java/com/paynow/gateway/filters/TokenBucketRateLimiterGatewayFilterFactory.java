@@ -2,9 +2,13 @@ package com.paynow.gateway.filters;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.paynow.common.error.PaymentError;
+import com.paynow.common.service.HybridRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -12,6 +16,7 @@ import org.springframework.core.Ordered;
 import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -24,37 +29,69 @@ import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Custom Redis Lua token-bucket rate limiter.
- * Keyed by customerId extracted from path or request body.
+ * Keyed by customerId extracted from path or request body; a batch decision takes a token per payment
+ * from each of its customers' buckets, all customers or none. A batch with more payments for one customer
+ * than a full bucket holds could never be admitted, so it is rejected with 400 rather than 429.
+ * In {@code hybrid} mode requests are decided from in-memory buckets reconciled with Redis in the
+ * background ({@link HybridRateLimiter}); in {@code redis} mode every request runs the Lua script.
  */
 @Component("TokenBucketRateLimiter")
 @Slf4j
-public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayFilterFactory<TokenBucketRateLimiterGatewayFilterFactory.Config> implements Ordered {
+public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayFilterFactory<TokenBucketRateLimiterGatewayFilterFactory.Config> implements Ordered, DisposableBean {
 
     @Autowired
     private ReactiveStringRedisTemplate redisTemplate;
 
     @Autowired
+    private StringRedisTemplate blockingRedisTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("tokenBucketRateLimiterScript")
     private DefaultRedisScript<List> redisScript;
+
+    @Autowired
+    @Qualifier("tokenBucketBatchScript")
+    private DefaultRedisScript<List> batchScript;
+
+    // One hybrid limiter per bucket key prefix; routes may only share a prefix if they share its settings
+    private final Map<String, HybridLimiter> hybridLimiters = new ConcurrentHashMap<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     // Pattern to extract customerId from URL paths like /accounts/{customerId}/...
     private static final Pattern CUSTOMER_ID_PATTERN = Pattern.compile("/(?:accounts|payments)/([^/]+)");
 
+    private static final Set<String> DECISION_PATHS = Set.of("/payments/decide", "/payments/decide/reactive");
+    // Charged per payment in the batch, so a batch costs what its payments would one by one
+    private static final String BATCH_DECISION_PATH = "/payments/decide/batch";
+
     public TokenBucketRateLimiterGatewayFilterFactory() {
         super(Config.class);
     }
 
     @Override
     public GatewayFilter apply(Config config) {
+        if (config.getMode() == Config.Mode.HYBRID) {
+            // Created with the route, so a conflicting configuration fails when routes load, not on a request
+            hybridLimiter(config);
+        }
         return (exchange, chain) -> {
             // First try to extract customerId from the path
             String customerId = extractCustomerIdFromPath(exchange.getRequest());
@@ -71,8 +108,9 @@ public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayF
                 return applyRateLimit(customerId, exchange, chain, config);
             }
 
-            // If it's a POST to /payments/decide, try to extract from body
-            if (exchange.getRequest().getPath().value().equals("/payments/decide") &&
+            // If it's a POST to /payments/decide (blocking, reactive or batch), try to extract from body
+            String path = exchange.getRequest().getPath().value();
+            if ((DECISION_PATHS.contains(path) || BATCH_DECISION_PATH.equals(path)) &&
                     exchange.getRequest().getMethod().name().equals("POST")) {
 
                 // Use DataBufferUtils.join() to avoid multiple subscriptions
@@ -102,7 +140,12 @@ public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayF
                                 // Try to extract customerId from the body
                                 try {
                                     Map<String, Object> requestBody = objectMapper.readValue(bytes, Map.class);
-                                    if (requestBody.containsKey("customerId")) {
+                                    if (BATCH_DECISION_PATH.equals(path)) {
+                                        Map<String, Integer> paymentsByCustomer = countPaymentsByCustomer(requestBody);
+                                        if (!paymentsByCustomer.isEmpty()) {
+                                            return applyRateLimit(paymentsByCustomer, mutatedExchange, chain, config);
+                                        }
+                                    } else if (requestBody.containsKey("customerId")) {
                                         String id = requestBody.get("customerId").toString();
                                         log.info("fetched customerid {} from post request body", id);
                                         return applyRateLimit(id, mutatedExchange, chain, config);
@@ -144,7 +187,94 @@ public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayF
         return null;
     }
 
+    /**
+     * Payments per customer in a batch decision body; entries without a customerId are left to validation
+     */
+    private static Map<String, Integer> countPaymentsByCustomer(Map<String, Object> requestBody) {
+        Map<String, Integer> paymentsByCustomer = new LinkedHashMap<>();
+        if (requestBody.get("payments") instanceof List<?> payments) {
+            for (Object payment : payments) {
+                if (payment instanceof Map<?, ?> fields && fields.get("customerId") != null) {
+                    paymentsByCustomer.merge(fields.get("customerId").toString(), 1, Integer::sum);
+                }
+            }
+        }
+        return paymentsByCustomer;
+    }
+
     private Mono<Void> applyRateLimit(String customerId, ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        return tryAcquire(customerId, config.getTokensPerRequest(), exchange, config)
+                .flatMap(allowed -> allowed ? chain.filter(exchange) : tooManyRequests(exchange, customerId));
+    }
+
+    /**
+     * Take {@code tokensPerRequest} per payment from each customer's bucket, every customer or none, so a
+     * batch refused for one customer costs the others nothing
+     */
+    private Mono<Void> applyRateLimit(Map<String, Integer> paymentsByCustomer, ServerWebExchange exchange,
+                                      GatewayFilterChain chain, Config config) {
+        Map<String, Double> tokensByCustomer = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : paymentsByCustomer.entrySet()) {
+            double tokens = entry.getValue() * config.getTokensPerRequest();
+            if (tokens > config.getCapacity()) {
+                int maxPayments = (int) Math.floor(config.getCapacity() / config.getTokensPerRequest());
+                return badRequest(exchange, "A batch may hold at most " + maxPayments + " payments per customer");
+            }
+            tokensByCustomer.put(entry.getKey(), tokens);
+        }
+        return tryAcquireAll(tokensByCustomer, exchange, config)
+                .flatMap(denied -> denied.isPresent()
+                        ? tooManyRequests(exchange, denied.get())
+                        : chain.filter(exchange));
+    }
+
+    /**
+     * The first customer without enough tokens, or empty if every customer was charged
+     */
+    private Mono<Optional<String>> tryAcquireAll(Map<String, Double> tokensByCustomer, ServerWebExchange exchange,
+                                                 Config config) {
+        exchange.getResponse().getHeaders().set("X-RateLimit-Limit", String.valueOf((int) config.getCapacity()));
+        if (config.getMode() == Config.Mode.HYBRID) {
+            return Mono.just(Optional.ofNullable(hybridLimiter(config).tryAcquireAll(tokensByCustomer)));
+        }
+
+        List<String> customerIds = new ArrayList<>(tokensByCustomer.keySet());
+        List<String> keys = new ArrayList<>(customerIds.size() * 2);
+        List<String> args = new ArrayList<>(customerIds.size() + 4);
+        int ttl = Math.max((int) (config.getCapacity() / Math.max(1.0, config.getRefillRatePerSecond()) * 3), 60);
+        args.add(String.valueOf(config.getCapacity()));
+        args.add(String.valueOf(config.getRefillRatePerSecond()));
+        args.add(String.valueOf(Instant.now().getEpochSecond()));
+        args.add(String.valueOf(ttl));
+        for (String customerId : customerIds) {
+            String keyBase = config.getKeyPrefix() + ":" + customerId;
+            keys.add(keyBase + ":tokens");
+            keys.add(keyBase + ":ts");
+            args.add(String.valueOf(tokensByCustomer.get(customerId)));
+        }
+
+        return redisTemplate.execute(batchScript, keys, args)
+                .single()
+                .cast(List.class)
+                .map(res -> Integer.parseInt(String.valueOf(res.get(0))) == 1
+                        ? Optional.<String>empty()
+                        : Optional.of(customerIds.get(Integer.parseInt(String.valueOf(res.get(1))) - 1)))
+                .onErrorResume(Throwable.class, ex -> {
+                    log.warn("Rate limiter error for {} customers, allowing batch: {}", customerIds.size(), ex.toString());
+                    return Mono.just(Optional.empty());
+                });
+    }
+
+    private Mono<Boolean> tryAcquire(String customerId, double tokens, ServerWebExchange exchange, Config config) {
+        if (config.getMode() == Config.Mode.HYBRID) {
+            HybridRateLimiter limiter = hybridLimiter(config);
+            boolean allowed = limiter.tryAcquire(customerId, tokens);
+            exchange.getResponse().getHeaders().set("X-RateLimit-Limit", String.valueOf((int) config.getCapacity()));
+            exchange.getResponse().getHeaders().set("X-RateLimit-Remaining",
+                    String.valueOf((int) limiter.available(customerId)));
+            return Mono.just(allowed);
+        }
+
         String keyBase = config.getKeyPrefix() + ":" + customerId;
         String tokensKey = keyBase + ":tokens";
         String tsKey = keyBase + ":ts";
@@ -156,28 +286,24 @@ public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayF
         String capacity = String.valueOf(config.getCapacity());
         String refill = String.valueOf(config.getRefillRatePerSecond());
         String now = String.valueOf(nowSeconds);
-        String requested = String.valueOf(config.getTokensPerRequest());
+        String requested = String.valueOf(tokens);
         String ttlArg = String.valueOf(ttl);
 
         return redisTemplate.execute(redisScript, keys, Arrays.asList(capacity, refill, now, requested, ttlArg))
                 .single()
                 .cast(List.class)
-                .flatMap(res -> {
+                .map(res -> {
                     int allowed = Integer.parseInt(String.valueOf(res.get(0)));
                     int remaining = Integer.parseInt(String.valueOf(res.get(1)));
 
                     exchange.getResponse().getHeaders().set("X-RateLimit-Limit", String.valueOf((int) config.getCapacity()));
                     exchange.getResponse().getHeaders().set("X-RateLimit-Remaining", String.valueOf(Math.max(remaining, 0)));
 
-                    if (allowed == 1) {
-                        return chain.filter(exchange);
-                    } else {
-                        return tooManyRequests(exchange, customerId);
-                    }
+                    return allowed == 1;
                 })
                 .onErrorResume(Throwable.class, ex -> {
                     log.warn("Rate limiter error for customerId {}, allowing request: {}", customerId, ex.toString());
-                    return chain.filter(exchange);
+                    return Mono.just(true);
                 });
     }
 
@@ -193,15 +319,27 @@ public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayF
                 "Too many requests for this customer",
                 requestId,
                 exchange.getRequest().getURI().getPath());
+        return writeError(exchange, HttpStatus.TOO_MANY_REQUESTS, error, requestId);
+    }
+
+    private Mono<Void> badRequest(ServerWebExchange exchange, String message) {
+        String requestId = exchange.getResponse().getHeaders().getFirst("X-Request-ID");
+        if (requestId == null) requestId = "req_rejected";
 
+        PaymentError error = PaymentError.badRequest(message, requestId, exchange.getRequest().getURI().getPath());
+        return writeError(exchange, HttpStatus.BAD_REQUEST, error, requestId);
+    }
+
+    private Mono<Void> writeError(ServerWebExchange exchange, HttpStatus status, PaymentError error, String requestId) {
         byte[] bytes;
         try {
             bytes = objectMapper.writeValueAsBytes(error);
         } catch (Exception e) {
-            bytes = ("{\"error\":\"RATE_LIMITED\",\"message\":\"Too many requests\",\"requestId\":\"" + requestId + "\"}").getBytes(StandardCharsets.UTF_8);
+            bytes = ("{\"error\":\"" + error.getError() + "\",\"message\":\"" + status.getReasonPhrase()
+                    + "\",\"requestId\":\"" + requestId + "\"}").getBytes(StandardCharsets.UTF_8);
         }
 
-        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().setStatusCode(status);
         exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
         exchange.getResponse().getHeaders().set(HttpHeaders.CACHE_CONTROL, "no-store");
         exchange.getResponse().getHeaders().set("X-Request-ID", requestId);
@@ -216,6 +354,33 @@ public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayF
         return customerId.substring(0, 2) + "****" + customerId.substring(customerId.length() - 2);
     }
 
+    /**
+     * The shared limiter for the route's key prefix. Routes using the same prefix share its buckets, so
+     * they must agree on capacity, refill rate and sync interval; a route that does not is rejected.
+     */
+    private HybridRateLimiter hybridLimiter(Config config) {
+        HybridLimiter shared = hybridLimiters.computeIfAbsent(config.getKeyPrefix(), prefix -> new HybridLimiter(
+                new HybridRateLimiter(prefix, blockingRedisTemplate, config.getCapacity(),
+                        config.getRefillRatePerSecond(), prefix, config.getSyncInterval(), meterRegistry),
+                config.getCapacity(), config.getRefillRatePerSecond(), config.getSyncInterval()));
+        if (shared.capacity() != config.getCapacity()
+                || shared.refillRatePerSecond() != config.getRefillRatePerSecond()
+                || !shared.syncInterval().equals(config.getSyncInterval())) {
+            throw new IllegalStateException("TokenBucketRateLimiter routes sharing keyPrefix " + config.getKeyPrefix()
+                    + " must use the same capacity, refillRatePerSecond and syncInterval");
+        }
+        return shared.limiter();
+    }
+
+    @Override
+    public void destroy() {
+        hybridLimiters.values().forEach(shared -> shared.limiter().close());
+    }
+
+    private record HybridLimiter(HybridRateLimiter limiter, double capacity, double refillRatePerSecond,
+                                 Duration syncInterval) {
+    }
+
     @Override
     public int getOrder() {
         // After auth
@@ -224,6 +389,15 @@ public class TokenBucketRateLimiterGatewayFilterFactory extends AbstractGatewayF
 
     @Data
     public static class Config {
+        public enum Mode {
+            /** Decide from in-memory buckets, reconciled with Redis every syncInterval */
+            HYBRID,
+            /** Run the Redis script for every request */
+            REDIS
+        }
+
+        private Mode mode = Mode.HYBRID;
+        private Duration syncInterval = Duration.ofMillis(100); // bounds the overshoot across gateway nodes
         private double capacity = 5; // bucket size
         private double refillRatePerSecond = 5; // tokens per second (5 req/sec per customer)
         private double tokensPerRequest = 1; // tokens consumed per request
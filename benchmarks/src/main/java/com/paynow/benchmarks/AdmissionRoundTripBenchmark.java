@@ -0,0 +1,115 @@
+package com.paynow.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.codec.SmileResponseCodec;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.service.AdmissionService;
+import com.paynow.common.service.DirectRedisCommandExecutor;
+import com.paynow.common.service.IdempotencyService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of admitting one decision against a live Redis: the gateway's token-bucket script followed by
+ * the idempotency check-and-set, as today, against the combined admission script. Each invocation uses
+ * a new idempotency key, so both paths mark the key in progress. The bucket never runs out.
+ * <p>
+ * Needs a scratch Redis, since every invocation leaves a key with a 10-minute TTL:
+ * {@code java -jar benchmarks/target/benchmarks.jar AdmissionRoundTripBenchmark -p redisHost=localhost}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AdmissionRoundTripBenchmark {
+
+    private static final String CAPACITY = "1000000000";
+
+    @Param("localhost")
+    public String redisHost;
+
+    @Param("6379")
+    public int redisPort;
+
+    private JedisConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private DefaultRedisScript<List> tokenBucketScript;
+    private IdempotencyService idempotencyService;
+    private AdmissionService admissionService;
+    private String keyPrefix;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        connectionFactory = new JedisConnectionFactory(new RedisStandaloneConfiguration(redisHost, redisPort));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        // The gateway's script, copied onto the benchmark classpath by the pom
+        tokenBucketScript = new DefaultRedisScript<>();
+        tokenBucketScript.setScriptSource(
+                new ResourceScriptSource(new ClassPathResource("scripts/token-bucket-rate-limiter.lua")));
+        tokenBucketScript.setResultType(List.class);
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DirectRedisCommandExecutor commandExecutor = new DirectRedisCommandExecutor(redisTemplate);
+        idempotencyService = new IdempotencyService(redisTemplate, commandExecutor, objectMapper,
+                new SmileResponseCodec(objectMapper, true), 0, Duration.ZERO, Duration.ofMillis(200), meterRegistry);
+        admissionService = new AdmissionService(redisTemplate, commandExecutor, idempotencyService, true,
+                Double.parseDouble(CAPACITY), Double.parseDouble(CAPACITY), 1, "bench:rate", meterRegistry);
+        idempotencyService.preloadScripts();
+        admissionService.preloadScripts();
+
+        keyPrefix = "bench-" + UUID.randomUUID() + "-";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public void separateScripts(Blackhole blackhole) {
+        String idempotencyKey = keyPrefix + sequence++;
+        blackhole.consume(redisTemplate.execute(tokenBucketScript,
+                List.of("bench:rate:c-bench:tokens", "bench:rate:c-bench:ts"),
+                CAPACITY, CAPACITY, String.valueOf(Instant.now().getEpochSecond()), "1", "60"));
+        blackhole.consume(idempotencyService.checkAndMarkInProgress(
+                idempotencyKey, "in-progress", PaymentDecisionResponse.class));
+    }
+
+    @Benchmark
+    public void combinedScript(Blackhole blackhole) {
+        String idempotencyKey = keyPrefix + sequence++;
+        blackhole.consume(admissionService.admit("c-bench", idempotencyKey, "in-progress",
+                PaymentDecisionResponse.class, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,73 @@
+package com.paynow.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.common.dto.TraceVerbosity;
+import com.paynow.payments.agent.AgentTrace;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Payloads shared by the benchmarks, shaped like those of a typical ALLOW decision
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A mapper configured like Spring Boot's: java.time support and ISO-8601 timestamps
+     */
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static PaymentDecisionRequest request() {
+        return new PaymentDecisionRequest("c_123", new BigDecimal("125.50"), "USD", "p_789", "uuid-bench");
+    }
+
+    static AccountBalanceResponse balance() {
+        return new AccountBalanceResponse("c_123", new BigDecimal("1000.00"), new BigDecimal("1000.00"), "USD", "ACTIVE");
+    }
+
+    static RiskSignalsResponse risk() {
+        return new RiskSignalsResponse("c_123", 29,
+                List.of(new RiskSignalsResponse.RiskFactor("high_velocity", "multiple recent transactions", 5)),
+                RiskSignalsResponse.RiskLevel.LOW);
+    }
+
+    /**
+     * The trace the agent records for an ALLOW decision with a speculative hold
+     */
+    static AgentTrace allowTrace(TraceVerbosity verbosity, PaymentDecisionRequest request,
+                                 AccountBalanceResponse balance, RiskSignalsResponse risk) {
+        AgentTrace trace = new AgentTrace(verbosity);
+        trace.plan(() -> "Analyzing payment: " + request.getAmount() + " " + request.getCurrency() +
+                " - will check balance with a speculative hold, risk signals, and apply decision rules");
+        trace.tool("reserveIfAvailable", () -> String.format("balance=%.2f, available=%.2f, status=%s, reserved=true",
+                balance.getBalance(), balance.getAvailableBalance(), balance.getAccountStatus()), 31L);
+        trace.tool("getRiskSignals", () -> String.format("riskScore=%d, level=%s, factors=%s",
+                risk.getRiskScore(), risk.getRiskLevel(),
+                risk.getRiskFactors().stream().map(RiskSignalsResponse.RiskFactor::toString).toList()), 29L);
+        trace.plan("Evaluating decision factors");
+        trace.decision("Low risk transaction - ALLOW");
+        trace.tool("reserveBalance",
+                () -> String.format("reserved=%.2f (speculative hold kept)", request.getAmount()));
+        trace.finalDecision(PaymentDecisionResponse.DecisionType.ALLOW, 1);
+        return trace;
+    }
+
+    static PaymentDecisionResponse response() {
+        PaymentDecisionRequest request = request();
+        AgentTrace trace = allowTrace(TraceVerbosity.FULL, request, balance(), risk());
+        return new PaymentDecisionResponse(PaymentDecisionResponse.DecisionType.ALLOW,
+                List.of("low_risk_transaction"), trace.steps(), "req_a2ea3fad4a46");
+    }
+}
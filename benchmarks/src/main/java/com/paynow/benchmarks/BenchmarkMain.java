@@ -0,0 +1,42 @@
+package com.paynow.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}: runs JMH with the given arguments, writing results as JSON to
+ * {@code benchmark-results/jmh-<version>.json} unless {@code -rf} or {@code -rff} is passed. Files from two
+ * releases can be compared to spot regressions.
+ */
+public final class BenchmarkMain {
+
+    private static final Path RESULTS_DIRECTORY = Path.of("benchmark-results");
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff") && !isInformational(arguments)) {
+            arguments.addAll(List.of("-rf", "json", "-rff", resultFile().toString()));
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(String[]::new));
+    }
+
+    /**
+     * Listing or help options run nothing, so there is no result file to write
+     */
+    private static boolean isInformational(List<String> arguments) {
+        return arguments.stream().anyMatch(argument -> argument.equals("-h") || argument.startsWith("-l"));
+    }
+
+    private static Path resultFile() throws IOException {
+        String version = BenchmarkMain.class.getPackage().getImplementationVersion();
+        Files.createDirectories(RESULTS_DIRECTORY);
+        return RESULTS_DIRECTORY.resolve("jmh-" + (version != null ? version : "dev") + ".json");
+    }
+}
@@ -0,0 +1,38 @@
+package com.paynow.benchmarks;
+
+import com.paynow.common.util.CorrelationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CorrelationUtils#redactCustomerId}, which runs for every customer and payee id that is logged
+ * or printed through {@code PaymentDecisionRequest.toString()}.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar CustomerIdRedactionBenchmark -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerIdRedactionBenchmark {
+
+    @Param({"c_1", "c_123", "cust-7f3a9c2e-41d8-4b6e-9a0f-1c2d3e4f5a6b"})
+    public String customerId;
+
+    @Benchmark
+    public String redactCustomerId() {
+        return CorrelationUtils.redactCustomerId(customerId);
+    }
+}
@@ -0,0 +1,79 @@
+package com.paynow.benchmarks;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.common.dto.TraceVerbosity;
+import com.paynow.payments.agent.AgentTrace;
+import com.paynow.payments.agent.rules.DecisionRuleEngine;
+import com.paynow.payments.agent.rules.RuleOutcome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-process part of a decision, with no downstream calls: {@code makeDecision} repeats what
+ * {@code PaymentAgent.makeDecision} does (a plan step, the default rule set, the decision step), and
+ * {@code buildTrace} records and snapshots the trace of an ALLOW decision at each verbosity.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar DecisionHotPathBenchmark -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionHotPathBenchmark {
+
+    @Param({"NONE", "SUMMARY", "FULL"})
+    public TraceVerbosity verbosity;
+
+    private DecisionRuleEngine ruleEngine;
+    private PaymentDecisionRequest request;
+    private AccountBalanceResponse balance;
+    private RiskSignalsResponse risk;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ruleEngine = new DecisionRuleEngine(DecisionRulePlanBenchmark.loadDefaultRules());
+        request = BenchmarkFixtures.request();
+        balance = BenchmarkFixtures.balance();
+        risk = BenchmarkFixtures.risk();
+    }
+
+    @Benchmark
+    public PaymentDecisionResponse.DecisionType makeDecision(Blackhole blackhole) {
+        AgentTrace agentTrace = new AgentTrace(verbosity);
+        List<String> reasons = new ArrayList<>();
+
+        agentTrace.plan("Evaluating decision factors");
+        RuleOutcome outcome = ruleEngine.evaluate(request, balance, risk, reasons);
+        agentTrace.decision(outcome.trace());
+
+        blackhole.consume(reasons);
+        blackhole.consume(agentTrace);
+        return outcome.decision();
+    }
+
+    @Benchmark
+    public Object buildTrace() {
+        return BenchmarkFixtures.allowTrace(verbosity, request, balance, risk).steps();
+    }
+}
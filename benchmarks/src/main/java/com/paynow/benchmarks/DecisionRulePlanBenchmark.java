@@ -0,0 +1,125 @@
+package com.paynow.benchmarks;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.payments.agent.rules.CompiledRulePlan;
+import com.paynow.payments.agent.rules.DecisionRulesProperties;
+import com.paynow.payments.agent.rules.RuleField;
+import com.paynow.payments.agent.rules.RuleOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-decision cost of a compiled rule plan as the rule set grows. The plan is the shipped default
+ * rule set from payments-service's application.yml, with {@code extraRules} filler rules placed in
+ * front of it so every one of them is visited on every evaluation.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar DecisionRulePlanBenchmark}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecisionRulePlanBenchmark {
+
+    @Param({"0", "50", "200", "1000"})
+    public int extraRules;
+
+    private CompiledRulePlan plan;
+    private Scenario[] scenarios;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        DecisionRulesProperties defaults = loadDefaultRules();
+
+        List<DecisionRulesProperties.RuleDefinition> rules = new ArrayList<>(extraRules + defaults.getRules().size());
+        for (int i = 0; i < extraRules; i++) {
+            rules.add(fillerRule(i));
+        }
+        rules.addAll(defaults.getRules());
+        defaults.setRules(rules);
+        defaults.setVersion("benchmark-" + extraRules);
+        plan = CompiledRulePlan.compile(defaults);
+
+        scenarios = new Scenario[] {
+                scenario("120.00", "5000.00", 15, RiskSignalsResponse.RiskLevel.LOW),
+                scenario("750.00", "5000.00", 45, RiskSignalsResponse.RiskLevel.MEDIUM),
+                scenario("1500.00", "5000.00", 85, RiskSignalsResponse.RiskLevel.HIGH,
+                        new RiskSignalsResponse.RiskFactor("high_amount", "amount > 1000", 9),
+                        new RiskSignalsResponse.RiskFactor("proxy_usage", "transaction via proxy/VPN", 8)),
+                scenario("900.00", "100.00", 20, RiskSignalsResponse.RiskLevel.LOW)
+        };
+    }
+
+    @Benchmark
+    public void evaluate(Blackhole blackhole) {
+        Scenario scenario = scenarios[next++ & (scenarios.length - 1)];
+        List<String> reasons = new ArrayList<>(4);
+        blackhole.consume(plan.evaluate(scenario.request, scenario.balance, scenario.risk, reasons));
+        blackhole.consume(reasons);
+    }
+
+    static DecisionRulesProperties loadDefaultRules() throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        for (PropertySource<?> source : new YamlPropertySourceLoader()
+                .load("payments-service", new ClassPathResource("application.yml"))) {
+            environment.getPropertySources().addLast(source);
+        }
+        return Binder.get(environment).bind("payments.rules", DecisionRulesProperties.class)
+                .orElseThrow(() -> new IllegalStateException("payments.rules missing from application.yml"));
+    }
+
+    /**
+     * Alternates rules that never match with rules that match and set a flag no outcome rule reads,
+     * so the filler changes cost but not decisions
+     */
+    private static DecisionRulesProperties.RuleDefinition fillerRule(int i) {
+        DecisionRulesProperties.RuleDefinition rule = new DecisionRulesProperties.RuleDefinition();
+        rule.setId("filler-" + i);
+        rule.setField(i % 2 == 0 ? RuleField.AMOUNT : RuleField.RISK_SCORE);
+        rule.setOperator(i % 2 == 0 ? RuleOperator.GT : RuleOperator.GTE);
+        rule.setValue(i % 2 == 0 ? "1000000" : "0");
+        rule.setSets(List.of("FILLER_" + (i % 8)));
+        return rule;
+    }
+
+    private static Scenario scenario(String amount, String available, int riskScore,
+                                     RiskSignalsResponse.RiskLevel level, RiskSignalsResponse.RiskFactor... factors) {
+        PaymentDecisionRequest request = new PaymentDecisionRequest(
+                "c-bench", new BigDecimal(amount), "USD", "p-bench", "bench-key");
+        AccountBalanceResponse balance = new AccountBalanceResponse(
+                "c-bench", new BigDecimal(available), new BigDecimal(available), "USD", "ACTIVE");
+        RiskSignalsResponse risk = new RiskSignalsResponse("c-bench", riskScore, List.of(factors), level);
+        return new Scenario(request, balance, risk);
+    }
+
+    private record Scenario(PaymentDecisionRequest request, AccountBalanceResponse balance,
+                            RiskSignalsResponse risk) {
+    }
+}
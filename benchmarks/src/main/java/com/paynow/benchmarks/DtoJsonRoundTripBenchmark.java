@@ -0,0 +1,78 @@
+package com.paynow.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.RiskSignalsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson round trip (serialize, then deserialize) of the DTOs on the decision path: the request as
+ * received, the risk-service reply, and the response with a full trace.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar DtoJsonRoundTripBenchmark -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoJsonRoundTripBenchmark {
+
+    private Codec<PaymentDecisionRequest> request;
+    private Codec<RiskSignalsResponse> risk;
+    private Codec<PaymentDecisionResponse> response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        request = new Codec<>(objectMapper, BenchmarkFixtures.request(), PaymentDecisionRequest.class);
+        risk = new Codec<>(objectMapper, BenchmarkFixtures.risk(), RiskSignalsResponse.class);
+        response = new Codec<>(objectMapper, BenchmarkFixtures.response(), PaymentDecisionResponse.class);
+    }
+
+    @Benchmark
+    public PaymentDecisionRequest paymentDecisionRequest() throws IOException {
+        return request.roundTrip();
+    }
+
+    @Benchmark
+    public RiskSignalsResponse riskSignalsResponse() throws IOException {
+        return risk.roundTrip();
+    }
+
+    @Benchmark
+    public PaymentDecisionResponse paymentDecisionResponse() throws IOException {
+        return response.roundTrip();
+    }
+
+    /**
+     * Writer and reader bound to one type up front, as Spring's message converters cache them
+     */
+    private record Codec<T>(ObjectWriter writer, ObjectReader reader, T value) {
+
+        Codec(ObjectMapper objectMapper, T value, Class<T> type) {
+            this(objectMapper.writerFor(type), objectMapper.readerFor(type), value);
+        }
+
+        T roundTrip() throws IOException {
+            return reader.readValue(writer.writeValueAsBytes(value));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.paynow.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.codec.JsonResponseCodec;
+import com.paynow.common.codec.ResponseCodec;
+import com.paynow.common.codec.SmileResponseCodec;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding a cached decision response with each codec {@code IdempotencyService} can be
+ * configured with ({@code idempotency.codec.format} and {@code .compression}).
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar IdempotencyCodecBenchmark -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdempotencyCodecBenchmark {
+
+    @Param({"json", "smile", "smile-deflate"})
+    public String codecName;
+
+    private ResponseCodec codec;
+    private PaymentDecisionResponse response;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        codec = switch (codecName) {
+            case "json" -> new JsonResponseCodec(objectMapper);
+            case "smile" -> new SmileResponseCodec(objectMapper, false);
+            case "smile-deflate" -> new SmileResponseCodec(objectMapper, true);
+            default -> throw new IllegalArgumentException("Unknown codec: " + codecName);
+        };
+        response = BenchmarkFixtures.response();
+        encoded = codec.encode(response);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(response);
+    }
+
+    @Benchmark
+    public PaymentDecisionResponse decode() throws IOException {
+        return codec.decode(encoded, PaymentDecisionResponse.class);
+    }
+}
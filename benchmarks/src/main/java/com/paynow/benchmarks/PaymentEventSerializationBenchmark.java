@@ -0,0 +1,85 @@
+package com.paynow.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.payments.events.PaymentDecidedEvent;
+import com.paynow.payments.events.PaymentEventWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of serializing one payment.decided event: the previous path (two HashMaps, {@code Instant.toString()}
+ * and ObjectMapper) against {@link PaymentEventWriter}. Both produce the same JSON document.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar PaymentEventSerializationBenchmark -prof gc};
+ * {@code gc.alloc.rate.norm} is the bytes allocated per event.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PaymentEventSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private PaymentEventWriter writer;
+    private PaymentDecisionRequest request;
+    private PaymentDecisionResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        writer = new PaymentEventWriter(objectMapper.getFactory());
+        request = new PaymentDecisionRequest("c-bench", new BigDecimal("125.50"), "USD", "p-bench", "bench-key");
+        response = new PaymentDecisionResponse(PaymentDecisionResponse.DecisionType.REVIEW,
+                List.of("amount_above_daily_threshold", "risk_medium"), List.of(), "req_3f6c1a2b9d");
+    }
+
+    @Benchmark
+    public void mapAndObjectMapper(Blackhole blackhole) throws IOException {
+        Map<String, Object> event = new HashMap<>();
+        event.put("eventType", "payment.decided");
+        event.put("eventId", "evt_" + response.getRequestId().substring(4));
+        event.put("timestamp", Instant.now().toString());
+        event.put("requestId", response.getRequestId());
+
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("customerId", request.getCustomerId());
+        payload.put("amount", request.getAmount());
+        payload.put("currency", request.getCurrency());
+        payload.put("payeeId", request.getPayeeId());
+        payload.put("decision", response.getDecision());
+        payload.put("reasons", response.getReasons());
+        payload.put("idempotencyKey", request.getIdempotencyKey());
+        event.put("payload", payload);
+
+        blackhole.consume(objectMapper.writeValueAsBytes(event));
+    }
+
+    @Benchmark
+    public void streamingWriter(Blackhole blackhole) throws IOException {
+        writer.write(new PaymentDecidedEvent(System.currentTimeMillis(), request, response));
+        blackhole.consume(writer.buffer());
+        blackhole.consume(writer.size());
+    }
+}
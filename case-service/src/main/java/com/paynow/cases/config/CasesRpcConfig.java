@@ -0,0 +1,53 @@
+package com.paynow.cases.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.cases.service.CaseService;
+import com.paynow.common.dto.BatchCaseCreationRequest;
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.common.exception.PaymentException;
+import com.paynow.common.rpc.RpcMethods;
+import com.paynow.common.rpc.RpcServer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Serves {@link CaseService} over the binary RPC transport on {@code rpc.server.port}, next to the REST
+ * API, when {@code rpc.server.enabled}. A batch with an invalid case is rejected as a whole with a
+ * {@link PaymentException.ValidationException}, as the REST API rejects it with a 400.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rpc.server", name = "enabled", havingValue = "true")
+public class CasesRpcConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public RpcServer casesRpcServer(CaseService caseService,
+                                    ObjectMapper objectMapper,
+                                    Validator validator,
+                                    @Value("${rpc.server.port:9083}") int port,
+                                    @Value("${app.api.keys}") Set<String> apiKeys) {
+        return new RpcServer("cases", port, objectMapper, apiKeys)
+                .register(RpcMethods.CASES_CREATE_BATCH, args -> {
+                    CaseCreationRequest[] requests = (CaseCreationRequest[]) args[0];
+                    BatchCaseCreationRequest batch =
+                            new BatchCaseCreationRequest(requests != null ? Arrays.asList(requests) : null);
+                    // The same constraints @Valid applies on the REST endpoint, reported the same way
+                    Set<ConstraintViolation<BatchCaseCreationRequest>> violations = validator.validate(batch);
+                    if (!violations.isEmpty()) {
+                        throw new PaymentException.ValidationException(violations.stream()
+                                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                                .sorted()
+                                .collect(Collectors.joining(", ")), null);
+                    }
+                    caseService.createCases(batch.getCases());
+                    return null;
+                }, CaseCreationRequest[].class);
+    }
+}
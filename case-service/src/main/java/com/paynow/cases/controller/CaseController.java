@@ -1,6 +1,7 @@
 package com.paynow.cases.controller;
 
 import com.paynow.cases.service.CaseService;
+import com.paynow.common.dto.BatchCaseCreationRequest;
 import com.paynow.common.dto.CaseCreationRequest;
 import com.paynow.common.error.PaymentError;
 import com.paynow.common.util.CorrelationUtils;
@@ -16,6 +17,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * REST controller for case management operations
  */
@@ -54,6 +58,36 @@ public class CaseController {
         }
     }
 
+    /**
+     * Create up to {@value BatchCaseCreationRequest#MAX_BATCH_SIZE} cases in one call. Cases that
+     * already exist for their requestId are not created again; their existing IDs are returned.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createCases(
+            @Valid @RequestBody BatchCaseCreationRequest request,
+            HttpServletRequest httpRequest) {
+
+        String requestId = httpRequest.getHeader(CorrelationUtils.REQUEST_ID_HEADER) != null
+                ? httpRequest.getHeader(CorrelationUtils.REQUEST_ID_HEADER) : "req_missing";
+
+        try {
+            log.info("Creating batch of {} cases", request.getCases().size());
+
+            List<String> caseIds = caseService.createCases(request.getCases());
+
+            return ResponseEntity.ok()
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(Map.of("caseIds", caseIds, "status", "created"));
+
+        } catch (Exception e) {
+            log.error("Error creating case batch: {}", e.getMessage(), e);
+            PaymentError error = PaymentError.internalError("Failed to create cases", requestId, httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(error);
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("OK");
@@ -10,7 +10,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "payment_cases", indexes = {
     @Index(name = "idx_customer_id", columnList = "customer_id"),
-    @Index(name = "idx_request_id", columnList = "request_id", unique = true),
+    @Index(name = "idx_case_request_id", columnList = "request_id", unique = true),
     @Index(name = "idx_case_id", columnList = "case_id", unique = true),
     @Index(name = "idx_status", columnList = "status")
 })
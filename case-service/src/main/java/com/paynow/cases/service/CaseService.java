@@ -9,6 +9,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -57,4 +59,17 @@ public class CaseService {
 
         return caseId;
     }
-}
\ No newline at end of file
+
+    /**
+     * Create several cases in one transaction. Each is deduped by requestId exactly as in
+     * {@link #createCase}, so redelivering a batch is safe. Case IDs are returned in request order.
+     */
+    @Transactional
+    public List<String> createCases(List<CaseCreationRequest> requests) {
+        List<String> caseIds = new ArrayList<>(requests.size());
+        for (CaseCreationRequest request : requests) {
+            caseIds.add(createCase(request));
+        }
+        return caseIds;
+    }
+}
@@ -0,0 +1,38 @@
+package com.paynow.common.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Plain JSON, the format every entry was stored in before binary codecs existed. Used as the fallback
+ * reader for anything no other codec claims.
+ */
+public class JsonResponseCodec implements ResponseCodec {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonResponseCodec(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        return objectMapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(byte[] data, Class<T> type) throws IOException {
+        return objectMapper.readValue(data, type);
+    }
+
+    @Override
+    public boolean canDecode(byte[] data) {
+        return true;
+    }
+}
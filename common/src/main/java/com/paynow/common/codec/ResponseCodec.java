@@ -0,0 +1,24 @@
+package com.paynow.common.codec;
+
+import java.io.IOException;
+
+/**
+ * Encoding of cached responses stored in Redis. Each codec recognises its own entries, so the reader
+ * can pick the right codec for an entry written under a different configuration.
+ */
+public interface ResponseCodec {
+
+    /**
+     * Short name used in logs and metric tags
+     */
+    String name();
+
+    byte[] encode(Object value) throws IOException;
+
+    <T> T decode(byte[] data, Class<T> type) throws IOException;
+
+    /**
+     * Whether {@code data} looks like an entry written by this codec
+     */
+    boolean canDecode(byte[] data);
+}
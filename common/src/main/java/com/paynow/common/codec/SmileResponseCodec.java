@@ -0,0 +1,155 @@
+package com.paynow.common.codec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary encoding of cached responses: Smile, with repeated field names and string values such as
+ * reason codes and trace step names written once per document and back-referenced after that.
+ * Timestamps are written as epoch milliseconds and null fields are left out.
+ * <p>
+ * With compression on, the Smile bytes are raw-deflated with a preset dictionary of the field names,
+ * reason codes, step names and trace phrases that appear in almost every response, so even the first
+ * occurrence in a document is a back-reference. Compression is skipped when it would not shrink the entry.
+ * <p>
+ * Entries start with {@code 0xFE}, which never starts a JSON document, followed by a format byte. The
+ * dictionary is part of the format: changing it needs a new format byte, and the old one must stay readable
+ * for as long as entries written with it can live in Redis.
+ */
+public class SmileResponseCodec implements ResponseCodec {
+
+    static final byte MAGIC = (byte) 0xFE;
+    private static final byte FORMAT_SMILE = 1;
+    private static final byte FORMAT_SMILE_DEFLATE_V1 = 2;
+    private static final int MAX_INFLATED_BYTES = 4 << 20;
+
+    // Most frequent strings last: deflate finds recent matches with shorter distances
+    private static final byte[] DICTIONARY_V1 = String.join("",
+            "account_not_active", "insufficient_funds", "critical_risk_level", "high_risk_level",
+            "high_risk_score", "risk_factor_", "very_high_amount_transaction", "high_amount_transaction",
+            "medium_risk_high_amount", "reserve_failed", "deadline_exceeded", "agent_processing_error",
+            "accounts_service_unavailable", "risk_service_unavailable", "case_service_unavailable",
+            "tool:releaseReservation", "tool:createCase", "Queued REVIEW case for requestId: ",
+            "Queued BLOCK case for requestId: ", "reserved=", " (speculative hold kept)",
+            "Reservation failed after ALLOW - BLOCK", "error", "released speculative hold", " (batched)",
+            "riskScore=", ", level=", ", factors=[", "balance=", ", available=", ", status=ACTIVE",
+            "low_risk_transaction", "Final decision: ALLOW", "Final decision: REVIEW", "Final decision: BLOCK",
+            " based on ", " factors", "Evaluating decision factors", "Analyzing payment: ",
+            "tool:reserveIfAvailable", "tool:reserveBalance", "tool:getRiskSignals", "tool:getBalance",
+            "plan", "decision", "allow", "review", "block", "req_",
+            "durationMs", "timestamp", "detail", "step", "agentTrace", "reasons", "requestId")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper smileMapper;
+    private final boolean compress;
+
+    /**
+     * @param objectMapper JSON mapper whose modules and settings are reused for Smile
+     */
+    public SmileResponseCodec(ObjectMapper objectMapper, boolean compress) {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        this.smileMapper = objectMapper.copyWith(factory)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS);
+        this.compress = compress;
+    }
+
+    @Override
+    public String name() {
+        return compress ? "smile-deflate" : "smile";
+    }
+
+    @Override
+    public byte[] encode(Object value) throws IOException {
+        byte[] smile = smileMapper.writeValueAsBytes(value);
+        if (compress) {
+            byte[] deflated = deflate(smile);
+            if (deflated.length < smile.length + Integer.BYTES) {
+                return ByteBuffer.allocate(2 + Integer.BYTES + deflated.length)
+                        .put(MAGIC).put(FORMAT_SMILE_DEFLATE_V1).putInt(smile.length).put(deflated)
+                        .array();
+            }
+        }
+        return ByteBuffer.allocate(2 + smile.length).put(MAGIC).put(FORMAT_SMILE).put(smile).array();
+    }
+
+    @Override
+    public <T> T decode(byte[] data, Class<T> type) throws IOException {
+        if (!canDecode(data) || data.length < 2) {
+            throw new IOException("Not a binary cached response");
+        }
+        return switch (data[1]) {
+            case FORMAT_SMILE -> smileMapper.readValue(data, 2, data.length - 2, type);
+            case FORMAT_SMILE_DEFLATE_V1 -> {
+                int length = ByteBuffer.wrap(data, 2, Integer.BYTES).getInt();
+                byte[] smile = inflate(data, 2 + Integer.BYTES, length);
+                yield smileMapper.readValue(smile, type);
+            }
+            default -> throw new IOException("Unknown cached response format " + data[1]);
+        };
+    }
+
+    @Override
+    public boolean canDecode(byte[] data) {
+        return data.length > 0 && data[0] == MAGIC;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setDictionary(DICTIONARY_V1);
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length);
+            byte[] buffer = new byte[512];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(buffer);
+                out.write(buffer, 0, written);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset, int length) throws IOException {
+        if (length < 0 || length > MAX_INFLATED_BYTES) {
+            throw new IOException("Invalid inflated length " + length);
+        }
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setDictionary(DICTIONARY_V1);
+            inflater.setInput(data, offset, data.length - offset);
+            byte[] output = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int n = inflater.inflate(output, read, length - read);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated compressed cached response");
+                }
+                read += n;
+            }
+            return output;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed cached response", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,22 +1,104 @@
 package com.paynow.common.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.codec.JsonResponseCodec;
+import com.paynow.common.codec.ResponseCodec;
+import com.paynow.common.codec.SmileResponseCodec;
+import com.paynow.common.service.AdmissionService;
+import com.paynow.common.service.DirectRedisCommandExecutor;
 import com.paynow.common.service.IdempotencyService;
+import com.paynow.common.service.RedisCommandExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
 
 @Configuration
 @ConditionalOnClass(RedisTemplate.class)
 public class IdempotencyConfig {
 
-    @Bean
+    @Bean(initMethod = "preloadScripts")
     @ConditionalOnBean(RedisTemplate.class)
     public IdempotencyService idempotencyService(
             RedisTemplate<String, String> redisTemplate,
-            ObjectMapper objectMapper) {
-        return new IdempotencyService(redisTemplate, objectMapper);
+            ObjectProvider<RedisCommandExecutor> commandExecutor,
+            ObjectMapper objectMapper,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${idempotency.codec.format:smile}") String codecFormat,
+            @Value("${idempotency.codec.compression:true}") boolean compression,
+            @Value("${idempotency.local-cache.maximum-size:10000}") long localCacheSize,
+            @Value("${idempotency.local-cache.ttl:60s}") Duration localCacheTtl,
+            @Value("${idempotency.wait.poll-interval:200ms}") Duration pollInterval) {
+        return new IdempotencyService(redisTemplate, commandExecutor(commandExecutor, redisTemplate), objectMapper,
+                responseCodec(codecFormat, compression, objectMapper), localCacheSize, localCacheTtl,
+                pollInterval, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Rate limit and idempotency check in one script; with {@code admission.enabled=false} it only checks
+     * idempotency and the gateway keeps rate limiting
+     */
+    @Bean(initMethod = "preloadScripts")
+    @ConditionalOnBean(RedisTemplate.class)
+    public AdmissionService admissionService(
+            RedisTemplate<String, String> redisTemplate,
+            ObjectProvider<RedisCommandExecutor> commandExecutor,
+            IdempotencyService idempotencyService,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${admission.enabled:false}") boolean enabled,
+            @Value("${admission.capacity:5}") double capacity,
+            @Value("${admission.refill-rate-per-second:5}") double refillRatePerSecond,
+            @Value("${admission.tokens-per-request:1}") double tokensPerRequest,
+            @Value("${admission.key-prefix:rate:token}") String keyPrefix) {
+        return new AdmissionService(redisTemplate, commandExecutor(commandExecutor, redisTemplate),
+                idempotencyService, enabled, capacity, refillRatePerSecond,
+                tokensPerRequest, keyPrefix, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Wakes duplicates waiting on this instance when any instance finishes or gives up their key
+     */
+    @Bean
+    @ConditionalOnBean(RedisTemplate.class)
+    public RedisMessageListenerContainer idempotencyCompletionListener(
+            RedisConnectionFactory connectionFactory, IdempotencyService idempotencyService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> idempotencyService.onCompleted(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(IdempotencyService.COMPLETED_CHANNEL));
+        return container;
+    }
+
+    /**
+     * The service's own executor, such as a pipelining one, or one connection per command
+     */
+    private static RedisCommandExecutor commandExecutor(ObjectProvider<RedisCommandExecutor> commandExecutor,
+                                                        RedisTemplate<String, String> redisTemplate) {
+        return commandExecutor.getIfAvailable(() -> new DirectRedisCommandExecutor(redisTemplate));
+    }
+
+    /**
+     * Codec for newly cached responses: {@code json} or {@code smile}, optionally deflate-compressed
+     */
+    private static ResponseCodec responseCodec(String format, boolean compression, ObjectMapper objectMapper) {
+        return switch (format.trim().toLowerCase(Locale.ROOT)) {
+            case "json" -> new JsonResponseCodec(objectMapper);
+            case "smile" -> new SmileResponseCodec(objectMapper, compression);
+            default -> throw new IllegalArgumentException("Unknown idempotency.codec.format: " + format);
+        };
     }
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.Instant;
 import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Represents a single step in the agent's decision trace
@@ -22,6 +23,10 @@ public class AgentTraceStep {
     @JsonProperty("durationMs")
     private Long durationMs;
 
+    // Set on deferred steps only; resolved on first read of detail/timestamp
+    private Supplier<String> detailSupplier;
+    private long epochMillis;
+
     // Default constructor
     public AgentTraceStep() {}
 
@@ -38,6 +43,19 @@ public class AgentTraceStep {
         this.durationMs = durationMs;
     }
 
+    /**
+     * A step whose detail text is only built, and whose timestamp is only turned into an
+     * {@link Instant}, when the step is read (typically at serialization time)
+     */
+    public static AgentTraceStep deferred(String step, Supplier<String> detail, long epochMillis, Long durationMs) {
+        AgentTraceStep traceStep = new AgentTraceStep();
+        traceStep.step = step;
+        traceStep.detailSupplier = detail;
+        traceStep.epochMillis = epochMillis;
+        traceStep.durationMs = durationMs;
+        return traceStep;
+    }
+
     // Static factory methods for common steps
     public static AgentTraceStep plan(String detail) {
         return new AgentTraceStep("plan", detail);
@@ -69,14 +87,22 @@ public class AgentTraceStep {
     }
 
     public String getDetail() {
+        if (detail == null && detailSupplier != null) {
+            detail = detailSupplier.get();
+            detailSupplier = null;
+        }
         return detail;
     }
 
     public void setDetail(String detail) {
         this.detail = detail;
+        this.detailSupplier = null;
     }
 
     public Instant getTimestamp() {
+        if (timestamp == null && epochMillis != 0) {
+            timestamp = Instant.ofEpochMilli(epochMillis);
+        }
         return timestamp;
     }
 
@@ -98,22 +124,22 @@ public class AgentTraceStep {
         if (o == null || getClass() != o.getClass()) return false;
         AgentTraceStep that = (AgentTraceStep) o;
         return Objects.equals(step, that.step) &&
-                Objects.equals(detail, that.detail) &&
-                Objects.equals(timestamp, that.timestamp) &&
+                Objects.equals(getDetail(), that.getDetail()) &&
+                Objects.equals(getTimestamp(), that.getTimestamp()) &&
                 Objects.equals(durationMs, that.durationMs);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(step, detail, timestamp, durationMs);
+        return Objects.hash(step, getDetail(), getTimestamp(), durationMs);
     }
 
     @Override
     public String toString() {
         return "AgentTraceStep{" +
                 "step='" + step + '\'' +
-                ", detail='" + detail + '\'' +
-                ", timestamp=" + timestamp +
+                ", detail='" + getDetail() + '\'' +
+                ", timestamp=" + getTimestamp() +
                 ", durationMs=" + durationMs +
                 '}';
     }
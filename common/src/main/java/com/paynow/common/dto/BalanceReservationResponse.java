@@ -0,0 +1,103 @@
+package com.paynow.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * Result of a conditional check-and-reserve call. The balance snapshot is taken before the hold,
+ * so it matches what a plain balance lookup would have returned.
+ */
+public class BalanceReservationResponse {
+
+    @JsonProperty("balance")
+    private AccountBalanceResponse balance;
+
+    @JsonProperty("reserved")
+    private boolean reserved;
+
+    @JsonProperty("reason")
+    private String reason; // why nothing was reserved; null when reserved
+
+    @JsonProperty("requestId")
+    private String requestId;
+
+    // Default constructor
+    public BalanceReservationResponse() {}
+
+    public BalanceReservationResponse(AccountBalanceResponse balance, boolean reserved,
+                                      String reason, String requestId) {
+        this.balance = balance;
+        this.reserved = reserved;
+        this.reason = reason;
+        this.requestId = requestId;
+    }
+
+    public static BalanceReservationResponse reserved(AccountBalanceResponse balance, String requestId) {
+        return new BalanceReservationResponse(balance, true, null, requestId);
+    }
+
+    public static BalanceReservationResponse notReserved(AccountBalanceResponse balance, String reason,
+                                                         String requestId) {
+        return new BalanceReservationResponse(balance, false, reason, requestId);
+    }
+
+    // Getters and Setters
+    public AccountBalanceResponse getBalance() {
+        return balance;
+    }
+
+    public void setBalance(AccountBalanceResponse balance) {
+        this.balance = balance;
+    }
+
+    public boolean isReserved() {
+        return reserved;
+    }
+
+    public void setReserved(boolean reserved) {
+        this.reserved = reserved;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BalanceReservationResponse that = (BalanceReservationResponse) o;
+        return reserved == that.reserved &&
+                Objects.equals(balance, that.balance) &&
+                Objects.equals(reason, that.reason) &&
+                Objects.equals(requestId, that.requestId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(balance, reserved, reason, requestId);
+    }
+
+    @Override
+    public String toString() {
+        return "BalanceReservationResponse{" +
+                "balance=" + balance +
+                ", reserved=" + reserved +
+                ", reason='" + reason + '\'' +
+                ", requestId='" + requestId + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package com.paynow.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Request DTO for creating several cases in one call, as the payments-service case outbox does
+ */
+public class BatchCaseCreationRequest {
+
+    public static final int MAX_BATCH_SIZE = 500;
+
+    @Valid
+    @NotEmpty(message = "cases is required")
+    @Size(max = MAX_BATCH_SIZE, message = "cases must contain at most 500 entries")
+    @JsonProperty("cases")
+    private List<@NotNull(message = "cases must not contain null entries") CaseCreationRequest> cases;
+
+    // Default constructor for Jackson
+    public BatchCaseCreationRequest() {}
+
+    public BatchCaseCreationRequest(List<CaseCreationRequest> cases) {
+        this.cases = cases;
+    }
+
+    // Getters and Setters
+    public List<CaseCreationRequest> getCases() {
+        return cases;
+    }
+
+    public void setCases(List<CaseCreationRequest> cases) {
+        this.cases = cases;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchCaseCreationRequest that = (BatchCaseCreationRequest) o;
+        return Objects.equals(cases, that.cases);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(cases);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCaseCreationRequest{" +
+                "cases=" + (cases == null ? 0 : cases.size()) +
+                '}';
+    }
+}
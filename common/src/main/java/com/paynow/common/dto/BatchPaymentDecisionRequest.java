@@ -0,0 +1,59 @@
+package com.paynow.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Request DTO for the batch payment decision API
+ */
+public class BatchPaymentDecisionRequest {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    @Valid
+    @NotEmpty(message = "payments is required")
+    @Size(max = MAX_BATCH_SIZE, message = "payments must contain at most 1000 entries")
+    @JsonProperty("payments")
+    private List<PaymentDecisionRequest> payments;
+
+    // Default constructor for Jackson
+    public BatchPaymentDecisionRequest() {}
+
+    public BatchPaymentDecisionRequest(List<PaymentDecisionRequest> payments) {
+        this.payments = payments;
+    }
+
+    // Getters and Setters
+    public List<PaymentDecisionRequest> getPayments() {
+        return payments;
+    }
+
+    public void setPayments(List<PaymentDecisionRequest> payments) {
+        this.payments = payments;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchPaymentDecisionRequest that = (BatchPaymentDecisionRequest) o;
+        return Objects.equals(payments, that.payments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(payments);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPaymentDecisionRequest{" +
+                "payments=" + (payments == null ? 0 : payments.size()) +
+                '}';
+    }
+}
@@ -0,0 +1,66 @@
+package com.paynow.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Response DTO for the batch payment decision API.
+ * Results are returned in the same order as the submitted payments.
+ */
+public class BatchPaymentDecisionResponse {
+
+    @JsonProperty("results")
+    private List<PaymentDecisionResponse> results;
+
+    @JsonProperty("requestId")
+    private String requestId;
+
+    // Default constructor
+    public BatchPaymentDecisionResponse() {}
+
+    public BatchPaymentDecisionResponse(List<PaymentDecisionResponse> results, String requestId) {
+        this.results = results;
+        this.requestId = requestId;
+    }
+
+    // Getters and Setters
+    public List<PaymentDecisionResponse> getResults() {
+        return results;
+    }
+
+    public void setResults(List<PaymentDecisionResponse> results) {
+        this.results = results;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public void setRequestId(String requestId) {
+        this.requestId = requestId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchPaymentDecisionResponse that = (BatchPaymentDecisionResponse) o;
+        return Objects.equals(results, that.results) &&
+                Objects.equals(requestId, that.requestId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(results, requestId);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPaymentDecisionResponse{" +
+                "results=" + results +
+                ", requestId='" + requestId + '\'' +
+                '}';
+    }
+}
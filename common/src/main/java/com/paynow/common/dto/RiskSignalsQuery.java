@@ -0,0 +1,69 @@
+package com.paynow.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Single lookup in a batched risk signals request
+ */
+public class RiskSignalsQuery {
+
+    @NotBlank(message = "customerId is required")
+    @JsonProperty("customerId")
+    private String customerId;
+
+    @NotNull(message = "amount is required")
+    @JsonProperty("amount")
+    private BigDecimal amount;
+
+    // Default constructor
+    public RiskSignalsQuery() {}
+
+    public RiskSignalsQuery(String customerId, BigDecimal amount) {
+        this.customerId = customerId;
+        this.amount = amount;
+    }
+
+    // Getters and Setters
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        RiskSignalsQuery that = (RiskSignalsQuery) o;
+        return Objects.equals(customerId, that.customerId) &&
+                Objects.equals(amount, that.amount);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(customerId, amount);
+    }
+
+    @Override
+    public String toString() {
+        return "RiskSignalsQuery{" +
+                "customerId='" + customerId + '\'' +
+                ", amount=" + amount +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package com.paynow.common.dto;
+
+import java.util.Locale;
+
+/**
+ * How much of the agent's decision trace to record and return.
+ * <ul>
+ *   <li>{@code NONE} - no trace; {@code agentTrace} is an empty list</li>
+ *   <li>{@code SUMMARY} - tool calls with timings, errors and the final decision</li>
+ *   <li>{@code FULL} - every planning, tool and decision step with details</li>
+ * </ul>
+ */
+public enum TraceVerbosity {
+    NONE,
+    SUMMARY,
+    FULL;
+
+    public static final String HEADER = "X-Trace-Verbosity";
+
+    /**
+     * Parse a header or config value case-insensitively, falling back when it is missing or unknown
+     */
+    public static TraceVerbosity from(String value, TraceVerbosity fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -70,4 +70,20 @@ public class PaymentException extends RuntimeException {
             super("VALIDATION_ERROR", message, requestId);
         }
     }
+
+    /**
+     * A downstream tool was not called because its circuit breaker is open or its bulkhead is full
+     */
+    public static class ToolUnavailableException extends PaymentException {
+        private final String tool;
+
+        public ToolUnavailableException(String tool, String message, Throwable cause) {
+            super("TOOL_UNAVAILABLE", message, cause);
+            this.tool = tool;
+        }
+
+        public String getTool() {
+            return tool;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+package com.paynow.common.rpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.error.PaymentError;
+import com.paynow.common.exception.PaymentException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Calls an {@link RpcServer} over a fixed number of persistent connections, spreading calls across them
+ * round-robin. Each connection carries many calls at once; replies are matched to calls by stream id, so a
+ * slow call does not hold up the others. Connections are opened on first use and reopened on the next call
+ * after one is lost; calls in flight on a lost connection fail with {@link RpcException}.
+ * <p>
+ * Replies are decoded and delivered on the connection's reader thread, as WebClient delivers on its event
+ * loop, so subscribers must not block. Cancelling a call, e.g. on timeout, only stops waiting for its reply.
+ */
+@Slf4j
+public class RpcClient implements AutoCloseable {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final String name;
+    private final InetSocketAddress address;
+    private final RpcCodec codec;
+    private final byte[] apiKey;
+    private final Slot[] slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param name    names the client's threads and appears in errors
+     * @param address {@code host:port} of the server
+     */
+    public RpcClient(String name, String address, int connections, String apiKey, ObjectMapper objectMapper) {
+        int separator = address.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("RPC address must be host:port, was " + address);
+        }
+        this.name = name;
+        this.address = InetSocketAddress.createUnresolved(address.substring(0, separator),
+                Integer.parseInt(address.substring(separator + 1)));
+        this.codec = new RpcCodec(objectMapper);
+        this.apiKey = apiKey.getBytes(StandardCharsets.UTF_8);
+        this.slots = new Slot[Math.max(1, connections)];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Send a call to {@code method} now. A {@code Void} result completes with null; cancelling the future
+     * stops waiting for the reply. Wrap in {@code Mono.fromFuture(() -> call(...))} for a lazy call.
+     */
+    public <T> CompletableFuture<T> call(String method, Class<T> resultType, Object... args) {
+        Slot slot = slots[Math.floorMod(nextSlot.getAndIncrement(), slots.length)];
+        return slot.send(method, resultType, args);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Slot slot : slots) {
+            Connection connection = slot.current;
+            if (connection != null) {
+                connection.close(new RpcException("RPC client " + name + " closed"));
+            }
+        }
+    }
+
+    private static PaymentException toPaymentException(PaymentError error) {
+        return switch (error.getError() != null ? error.getError() : "") {
+            case "INSUFFICIENT_FUNDS" ->
+                    new PaymentException.InsufficientFundsException(error.getMessage(), error.getRequestId());
+            case "ACCOUNT_NOT_FOUND" ->
+                    new PaymentException.AccountNotFoundException(error.getMessage(), error.getRequestId());
+            case "VALIDATION_ERROR" ->
+                    new PaymentException.ValidationException(error.getMessage(), error.getRequestId());
+            default -> new PaymentException(error.getError(), error.getMessage(), error.getRequestId());
+        };
+    }
+
+    /**
+     * One connection position: the live connection, replaced when it is lost
+     */
+    private final class Slot {
+
+        private final ReentrantLock connectLock = new ReentrantLock();
+        private volatile Connection current;
+
+        <T> CompletableFuture<T> send(String method, Class<T> resultType, Object[] args) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            if (closed) {
+                result.completeExceptionally(new RpcException("RPC client " + name + " closed"));
+                return result;
+            }
+            try {
+                byte[] payload = codec.encodeArguments(args);
+                connection().send(method, resultType, payload, result);
+            } catch (IOException e) {
+                result.completeExceptionally(new RpcException("RPC " + method + " to " + name + " failed to send", e));
+            }
+            return result;
+        }
+
+        private Connection connection() throws IOException {
+            Connection connection = current;
+            if (connection != null && connection.open) {
+                return connection;
+            }
+            connectLock.lock();
+            try {
+                if (current == null || !current.open) {
+                    current = new Connection();
+                }
+                return current;
+            } finally {
+                connectLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * One socket, its calls in flight and the thread reading its replies
+     */
+    private final class Connection {
+
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final Map<Integer, Pending<?>> pending = new ConcurrentHashMap<>();
+        private final AtomicInteger streams = new AtomicInteger();
+        private volatile boolean open = true;
+
+        Connection() throws IOException {
+            socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()), CONNECT_TIMEOUT_MILLIS);
+                socket.setTcpNoDelay(true);
+                socket.setKeepAlive(true);
+                out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                new RpcFrame(0, RpcFrame.HELLO, null, apiKey).write(out);
+                out.flush();
+            } catch (IOException e) {
+                socket.close();
+                throw e;
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            Thread.ofVirtual().name("rpc-" + name + "-reader").start(() -> read(in));
+            log.debug("Opened RPC connection to {} at {}", name, address);
+        }
+
+        <T> void send(String method, Class<T> resultType, byte[] payload, CompletableFuture<T> result) {
+            int stream = streams.incrementAndGet();
+            pending.put(stream, new Pending<>(method, resultType, result));
+            result.whenComplete((value, error) -> pending.remove(stream));
+
+            // A lock rather than synchronized, so a virtual thread blocked writing does not pin its carrier
+            writeLock.lock();
+            try {
+                new RpcFrame(stream, RpcFrame.REQUEST, method, payload).write(out);
+                out.flush();
+            } catch (IOException e) {
+                close(new RpcException("RPC connection to " + name + " lost", e));
+            } finally {
+                writeLock.unlock();
+            }
+            // Closed while registering: the reader may already have failed everything it knew about
+            if (!open) {
+                result.completeExceptionally(new RpcException("RPC connection to " + name + " lost"));
+            }
+        }
+
+        private void read(DataInputStream in) {
+            try {
+                while (true) {
+                    RpcFrame frame = RpcFrame.read(in);
+                    Pending<?> call = pending.get(frame.stream());
+                    // Absent if the caller has already given up
+                    if (call != null) {
+                        call.complete(frame);
+                    }
+                }
+            } catch (IOException e) {
+                close(new RpcException("RPC connection to " + name + " lost", e));
+            }
+        }
+
+        void close(RpcException cause) {
+            if (open) {
+                open = false;
+                if (!closed) {
+                    log.warn("RPC connection to {} closed: {}", name,
+                            cause.getCause() != null ? cause.getCause().toString() : cause.getMessage());
+                }
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+            pending.values().forEach(call -> call.fail(cause));
+        }
+    }
+
+    private final class Pending<T> {
+
+        private final String method;
+        private final Class<T> resultType;
+        private final CompletableFuture<T> result;
+
+        Pending(String method, Class<T> resultType, CompletableFuture<T> result) {
+            this.method = method;
+            this.resultType = resultType;
+            this.result = result;
+        }
+
+        void complete(RpcFrame frame) {
+            try {
+                switch (frame.type()) {
+                    case RpcFrame.RESPONSE -> result.complete(
+                            resultType == Void.class ? null : codec.decode(frame.payload(), resultType));
+                    case RpcFrame.ERROR -> result.completeExceptionally(
+                            toPaymentException(codec.decode(frame.payload(), PaymentError.class)));
+                    case RpcFrame.FAILURE -> result.completeExceptionally(new RpcException(
+                            name + ": " + new String(frame.payload(), StandardCharsets.UTF_8)));
+                    default -> result.completeExceptionally(
+                            new RpcException("Unexpected RPC frame type " + frame.type() + " for " + method));
+                }
+            } catch (IOException e) {
+                result.completeExceptionally(new RpcException("Could not decode the reply to " + method, e));
+            }
+        }
+
+        void fail(RpcException cause) {
+            result.completeExceptionally(cause);
+        }
+    }
+}
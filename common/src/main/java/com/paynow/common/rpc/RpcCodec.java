@@ -0,0 +1,56 @@
+package com.paynow.common.rpc;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+
+/**
+ * Payload encoding of the RPC transport. The schema is the {@code com.paynow.common.dto} classes
+ * themselves, written as Smile by the same Jackson mapping the REST APIs use, so there is no separate
+ * definition to keep in step. Arguments go as one Smile array, decoded straight into the types the
+ * server registered for the method.
+ */
+class RpcCodec {
+
+    private final ObjectMapper smileMapper;
+
+    /**
+     * @param objectMapper JSON mapper whose modules and settings are reused for Smile
+     */
+    RpcCodec(ObjectMapper objectMapper) {
+        this.smileMapper = objectMapper.copyWith(new SmileFactory())
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    byte[] encode(Object value) throws IOException {
+        return smileMapper.writeValueAsBytes(value);
+    }
+
+    <T> T decode(byte[] payload, Class<T> type) throws IOException {
+        return smileMapper.readValue(payload, type);
+    }
+
+    byte[] encodeArguments(Object[] args) throws IOException {
+        return smileMapper.writeValueAsBytes(args);
+    }
+
+    Object[] decodeArguments(byte[] payload, Class<?>[] types) throws IOException {
+        try (JsonParser parser = smileMapper.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("RPC arguments are not an array");
+            }
+            Object[] args = new Object[types.length];
+            for (int i = 0; i < types.length; i++) {
+                if (parser.nextToken() == JsonToken.END_ARRAY) {
+                    throw new IOException("Expected " + types.length + " RPC arguments, got " + i);
+                }
+                args[i] = smileMapper.readValue(parser, types[i]);
+            }
+            return args;
+        }
+    }
+}
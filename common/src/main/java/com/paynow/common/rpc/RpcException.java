@@ -0,0 +1,17 @@
+package com.paynow.common.rpc;
+
+/**
+ * An RPC call that failed for a reason other than a {@code PaymentException} on the server: the
+ * connection could not be made or was lost, or the handler failed unexpectedly. Worth retrying, like a
+ * 5xx or a connection error over HTTP.
+ */
+public class RpcException extends RuntimeException {
+
+    public RpcException(String message) {
+        super(message);
+    }
+
+    public RpcException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
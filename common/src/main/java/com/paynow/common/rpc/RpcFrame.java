@@ -0,0 +1,79 @@
+package com.paynow.common.rpc;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One frame of the internal RPC transport:
+ * <pre>
+ * int    length   bytes that follow
+ * int    stream   chosen by the client per call and echoed in the reply, so replies can arrive in any order
+ * byte   type     HELLO, REQUEST, RESPONSE, ERROR or FAILURE
+ * short  method   REQUEST only: length of the UTF-8 method name that follows
+ * byte[] payload  Smile (see {@link RpcCodec}); for HELLO the API key, for FAILURE a UTF-8 message
+ * </pre>
+ * A connection opens with one HELLO from the client, after which it carries any number of calls at once.
+ */
+record RpcFrame(int stream, byte type, String method, byte[] payload) {
+
+    static final byte HELLO = 0;
+    static final byte REQUEST = 1;
+    static final byte RESPONSE = 2;
+    // A PaymentException, as a PaymentError
+    static final byte ERROR = 3;
+    // Anything else the handler threw
+    static final byte FAILURE = 4;
+
+    private static final int HEADER_BYTES = Integer.BYTES + 1;
+    private static final int MAX_FRAME_BYTES = 16 << 20;
+    // Before a connection has presented its API key, nothing larger than a HELLO is read from it
+    static final int MAX_HELLO_BYTES = 1024;
+
+    static RpcFrame read(DataInputStream in) throws IOException {
+        return read(in, MAX_FRAME_BYTES);
+    }
+
+    static RpcFrame read(DataInputStream in, int maxBytes) throws IOException {
+        int length = in.readInt();
+        if (length < HEADER_BYTES || length > maxBytes) {
+            throw new IOException("Invalid RPC frame length " + length);
+        }
+        int stream = in.readInt();
+        byte type = in.readByte();
+        int remaining = length - HEADER_BYTES;
+
+        String method = null;
+        if (type == REQUEST) {
+            int methodLength = in.readUnsignedShort();
+            remaining -= Short.BYTES + methodLength;
+            if (remaining < 0) {
+                throw new IOException("Invalid RPC method length " + methodLength);
+            }
+            byte[] name = new byte[methodLength];
+            in.readFully(name);
+            method = new String(name, StandardCharsets.UTF_8);
+        }
+
+        byte[] payload = new byte[remaining];
+        in.readFully(payload);
+        return new RpcFrame(stream, type, method, payload);
+    }
+
+    /**
+     * Write without flushing; callers hold the connection's write lock
+     */
+    void write(DataOutputStream out) throws IOException {
+        byte[] name = method != null ? method.getBytes(StandardCharsets.UTF_8) : null;
+        int length = HEADER_BYTES + (name != null ? Short.BYTES + name.length : 0) + payload.length;
+        out.writeInt(length);
+        out.writeInt(stream);
+        out.writeByte(type);
+        if (name != null) {
+            out.writeShort(name.length);
+            out.write(name);
+        }
+        out.write(payload);
+    }
+}
@@ -0,0 +1,29 @@
+package com.paynow.common.rpc;
+
+/**
+ * Methods served over the RPC transport, with their arguments and result. Lists travel as arrays.
+ */
+public final class RpcMethods {
+
+    /** {@code (String customerId) -> AccountBalanceResponse} */
+    public static final String ACCOUNTS_GET_BALANCE = "accounts.getBalance";
+    /** {@code (String[] customerIds) -> AccountBalanceResponse[]}, unknown customers omitted */
+    public static final String ACCOUNTS_GET_BALANCES = "accounts.getBalances";
+    /** {@code (String customerId, BigDecimal amount, String requestId) -> void} */
+    public static final String ACCOUNTS_RESERVE = "accounts.reserve";
+    /** {@code (String customerId, BigDecimal amount, String requestId) -> BalanceReservationResponse} */
+    public static final String ACCOUNTS_RESERVE_IF_AVAILABLE = "accounts.reserveIfAvailable";
+    /** {@code (String requestId) -> void} */
+    public static final String ACCOUNTS_RELEASE = "accounts.release";
+
+    /** {@code (String customerId, BigDecimal amount) -> RiskSignalsResponse} */
+    public static final String RISK_GET_SIGNALS = "risk.getSignals";
+    /** {@code (RiskSignalsQuery[] queries) -> RiskSignalsResponse[]}, in query order */
+    public static final String RISK_GET_SIGNALS_BATCH = "risk.getSignalsBatch";
+
+    /** {@code (CaseCreationRequest[] requests) -> void} */
+    public static final String CASES_CREATE_BATCH = "cases.createBatch";
+
+    private RpcMethods() {
+    }
+}
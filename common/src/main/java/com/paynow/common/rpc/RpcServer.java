@@ -0,0 +1,188 @@
+package com.paynow.common.rpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.error.PaymentError;
+import com.paynow.common.exception.PaymentException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serves registered methods over the RPC transport (see {@link RpcFrame}). Each connection is
+ * authenticated once, by the API key in its HELLO (which must arrive promptly and be small), then carries any number of concurrent calls: every
+ * request runs on its own virtual thread and its reply is written as soon as it is ready, whatever the
+ * order the requests came in.
+ * <p>
+ * A {@link PaymentException} thrown by a method reaches the caller as the same exception; anything else
+ * is logged here and reported as a failure.
+ */
+@Slf4j
+public class RpcServer implements AutoCloseable {
+
+    /**
+     * A registered method; {@code args} are already decoded to the registered parameter types
+     */
+    @FunctionalInterface
+    public interface Handler {
+        Object handle(Object[] args) throws Exception;
+    }
+
+    private static final int HELLO_TIMEOUT_MILLIS = 5000;
+
+    private record Method(Handler handler, Class<?>[] parameterTypes) {
+    }
+
+    private final String name;
+    private final int port;
+    private final RpcCodec codec;
+    private final Set<String> apiKeys;
+    private final Map<String, Method> methods = new ConcurrentHashMap<>();
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocket serverSocket;
+
+    /**
+     * @param name    names the server's threads
+     * @param apiKeys keys a client may present in its HELLO
+     */
+    public RpcServer(String name, int port, ObjectMapper objectMapper, Set<String> apiKeys) {
+        this.name = name;
+        this.port = port;
+        this.codec = new RpcCodec(objectMapper);
+        this.apiKeys = Set.copyOf(apiKeys);
+    }
+
+    public RpcServer register(String method, Handler handler, Class<?>... parameterTypes) {
+        methods.put(method, new Method(handler, parameterTypes));
+        return this;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port);
+        Thread.ofPlatform().name("rpc-" + name + "-accept").daemon().start(this::accept);
+        log.info("RPC server {} listening on port {} with {} methods", name, port, methods.size());
+    }
+
+    @Override
+    public void close() {
+        ServerSocket socket = serverSocket;
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.debug("Error closing RPC server {}: {}", name, e.toString());
+        }
+        connections.forEach(RpcServer::closeQuietly);
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread.ofVirtual().name("rpc-" + name + "-connection").start(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("RPC server {} failed to accept a connection: {}", name, e.toString());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            ReentrantLock writeLock = new ReentrantLock();
+
+            // Until the HELLO has authenticated the connection, read only a small frame, and not forever
+            socket.setSoTimeout(HELLO_TIMEOUT_MILLIS);
+            RpcFrame hello = RpcFrame.read(in, RpcFrame.MAX_HELLO_BYTES);
+            socket.setSoTimeout(0);
+            if (hello.type() != RpcFrame.HELLO
+                    || !apiKeys.contains(new String(hello.payload(), StandardCharsets.UTF_8))) {
+                log.warn("RPC server {} rejected a connection from {}: missing or unknown API key",
+                        name, socket.getRemoteSocketAddress());
+                return;
+            }
+
+            while (true) {
+                RpcFrame request = RpcFrame.read(in);
+                Thread.ofVirtual().name("rpc-" + name + "-call").start(() -> reply(out, writeLock, handle(request)));
+            }
+        } catch (EOFException e) {
+            log.debug("RPC client disconnected from {}", name);
+        } catch (IOException e) {
+            if (!socket.isClosed()) {
+                log.warn("RPC connection to {} failed: {}", name, e.toString());
+            }
+        } finally {
+            connections.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private RpcFrame handle(RpcFrame request) {
+        try {
+            Method method = methods.get(request.method());
+            if (method == null) {
+                throw new PaymentException("UNKNOWN_METHOD", "Unknown RPC method: " + request.method());
+            }
+            Object result = method.handler().handle(codec.decodeArguments(request.payload(), method.parameterTypes()));
+            return new RpcFrame(request.stream(), RpcFrame.RESPONSE, null, codec.encode(result));
+
+        } catch (PaymentException e) {
+            try {
+                PaymentError error = new PaymentError(e.getErrorCode(), e.getMessage(), e.getRequestId(), request.method());
+                return new RpcFrame(request.stream(), RpcFrame.ERROR, null, codec.encode(error));
+            } catch (IOException encodingFailure) {
+                return failure(request, encodingFailure);
+            }
+
+        } catch (Exception e) {
+            return failure(request, e);
+        }
+    }
+
+    private RpcFrame failure(RpcFrame request, Exception e) {
+        log.error("RPC {} failed: {}", request.method(), e.getMessage(), e);
+        byte[] message = ("Failed: " + request.method()).getBytes(StandardCharsets.UTF_8);
+        return new RpcFrame(request.stream(), RpcFrame.FAILURE, null, message);
+    }
+
+    private static void reply(DataOutputStream out, ReentrantLock writeLock, RpcFrame frame) {
+        // A lock rather than synchronized, so a virtual thread blocked writing does not pin its carrier
+        writeLock.lock();
+        try {
+            frame.write(out);
+            out.flush();
+        } catch (IOException e) {
+            // The connection is gone; its reader cleans up
+            log.debug("Could not send RPC reply: {}", e.toString());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // Already closed
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.paynow.common.service;
+
+import com.paynow.common.exception.PaymentException;
+import com.paynow.common.util.CorrelationUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Admission of a decision request in one Redis call: the customer's token bucket and the idempotency
+ * check-and-set run together in {@code scripts/admission.lua}.
+ * <p>
+ * A key that already exists, in progress or completed, is answered without taking a token, so retries
+ * and duplicates don't count against the customer's rate. Otherwise a token is taken and, if one was
+ * available, the key is marked in progress by the same script. The bucket has the same keys and arithmetic
+ * as the gateway's token-bucket filter, so limits carry over when rate limiting moves here.
+ * <p>
+ * A batch of decisions is charged per payment by {@link #admitBatch}, across all its customers at once.
+ * <p>
+ * When disabled, only the idempotency check runs and rate limiting is left to the gateway. The scripts are
+ * loaded at startup and called by SHA.
+ */
+@Slf4j
+public class AdmissionService {
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisCommandExecutor commandExecutor;
+    private final IdempotencyService idempotencyService;
+    private final DefaultRedisScript<List> admissionScript;
+    // Charges a batch's customers all or none, with the gateway's bucket keys and arithmetic
+    private final DefaultRedisScript<List> tokenBucketBatchScript;
+    private final boolean enabled;
+    private final double capacity;
+    private final double refillRatePerSecond;
+    private final double tokensPerRequest;
+    private final String keyPrefix;
+    private final byte[] bucketTtlSeconds;
+
+    private final Counter admitted;
+    private final Counter rateLimited;
+    private final Counter existing;
+    private final Counter failedOpen;
+
+    /**
+     * @param enabled   whether to rate limit here; when false only the idempotency check runs
+     * @param keyPrefix bucket key prefix; the gateway's decide route uses {@code rate:token}
+     */
+    public AdmissionService(RedisTemplate<String, String> redisTemplate,
+                            RedisCommandExecutor commandExecutor,
+                            IdempotencyService idempotencyService,
+                            boolean enabled,
+                            double capacity,
+                            double refillRatePerSecond,
+                            double tokensPerRequest,
+                            String keyPrefix,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.commandExecutor = commandExecutor;
+        this.idempotencyService = idempotencyService;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.refillRatePerSecond = refillRatePerSecond;
+        this.tokensPerRequest = tokensPerRequest;
+        this.keyPrefix = keyPrefix;
+        this.bucketTtlSeconds = bytes(String.valueOf(
+                Math.max((int) (capacity / Math.max(1.0, refillRatePerSecond) * 3), 60)));
+
+        this.admissionScript = new DefaultRedisScript<>();
+        admissionScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/admission.lua")));
+        admissionScript.setResultType(List.class);
+        this.tokenBucketBatchScript = new DefaultRedisScript<>();
+        tokenBucketBatchScript.setScriptSource(
+                new ResourceScriptSource(new ClassPathResource("scripts/token-bucket-batch.lua")));
+        tokenBucketBatchScript.setResultType(List.class);
+
+        this.admitted = outcomeCounter(meterRegistry, "admitted");
+        this.rateLimited = outcomeCounter(meterRegistry, "rate_limited");
+        this.existing = outcomeCounter(meterRegistry, "existing");
+        this.failedOpen = outcomeCounter(meterRegistry, "failed_open");
+    }
+
+    /**
+     * Admit a decision request. Returns the cached response for a completed key, waiting up to
+     * {@code maxWait} for one in progress as {@link IdempotencyService#checkAndMarkInProgress(String, String, Class, Duration)}
+     * does. Returns empty when the request was admitted and its key marked in progress.
+     *
+     * @throws PaymentException.RateLimitException       if the customer has no tokens left
+     * @throws PaymentException.DuplicateRequestException if the key is still in progress after {@code maxWait}
+     */
+    public <T> Optional<T> admit(String customerId, String idempotencyKey, String inProgressMarker,
+                                 Class<T> responseType, Duration maxWait) {
+        if (!enabled) {
+            return idempotencyService.checkAndMarkInProgress(idempotencyKey, inProgressMarker, responseType, maxWait);
+        }
+
+        Optional<T> local = idempotencyService.getLocal(idempotencyKey, responseType);
+        if (local.isPresent()) {
+            existing.increment();
+            return local;
+        }
+
+        List<?> result;
+        try {
+            result = runScript(customerId, idempotencyKey, inProgressMarker);
+        } catch (Exception e) {
+            // Fail open on the rate limit, as the gateway filter does; idempotency is still checked
+            log.warn("Admission script failed for idempotencyKey {}, checking idempotency only: {}",
+                    idempotencyKey, e.toString());
+            failedOpen.increment();
+            return idempotencyService.checkAndMarkInProgress(idempotencyKey, inProgressMarker, responseType, maxWait);
+        }
+
+        long status = (Long) result.get(0);
+        if (status == 0) {
+            rateLimited.increment();
+            log.info("Rate limit exceeded for customer: {}", CorrelationUtils.redactCustomerId(customerId));
+            throw new PaymentException.RateLimitException("Too many requests for this customer", null);
+        }
+
+        IdempotencyService.Check<T> check;
+        if (status == 1) {
+            admitted.increment();
+            check = idempotencyService.resolveCheckResult(idempotencyKey, 0L, inProgressMarker, responseType);
+        } else {
+            existing.increment();
+            check = idempotencyService.resolveCheckResult(idempotencyKey, result.get(2), inProgressMarker, responseType);
+        }
+
+        if (check.state() == IdempotencyService.State.IN_PROGRESS) {
+            return idempotencyService.await(idempotencyKey, inProgressMarker, responseType,
+                    System.nanoTime() + maxWait.toNanos());
+        }
+        return check.toOptional();
+    }
+
+    /**
+     * Rate limit a batch of decisions: takes {@code tokensPerRequest} per payment from each customer's
+     * bucket, in one script call that charges every customer or none. Unlike {@link #admit}, payments whose
+     * keys already exist are charged too, as the batch checks idempotency afterwards. A customer may have at
+     * most a full bucket's worth of payments in one batch; more could never be admitted. Does nothing when
+     * disabled.
+     *
+     * @param paymentsByCustomer number of payments in the batch for each customer
+     * @throws PaymentException.ValidationException if a customer has more payments than their bucket holds
+     * @throws PaymentException.RateLimitException  if a customer has too few tokens left for their payments
+     */
+    public void admitBatch(Map<String, Integer> paymentsByCustomer) {
+        if (!enabled || paymentsByCustomer.isEmpty()) {
+            return;
+        }
+
+        List<String> customerIds = new ArrayList<>(paymentsByCustomer.keySet());
+        int keyCount = customerIds.size() * 2;
+        byte[][] params = new byte[keyCount + 4 + customerIds.size()][];
+        for (int i = 0; i < customerIds.size(); i++) {
+            double requested = paymentsByCustomer.get(customerIds.get(i)) * tokensPerRequest;
+            if (requested > capacity) {
+                throw new PaymentException.ValidationException("A batch may hold at most "
+                        + maxPaymentsPerCustomer() + " payments per customer", null);
+            }
+            String bucketKey = keyPrefix + ":" + customerIds.get(i);
+            params[2 * i] = bytes(bucketKey + ":tokens");
+            params[2 * i + 1] = bytes(bucketKey + ":ts");
+            params[keyCount + 4 + i] = bytes(String.valueOf(requested));
+        }
+        params[keyCount] = bytes(String.valueOf(capacity));
+        params[keyCount + 1] = bytes(String.valueOf(refillRatePerSecond));
+        params[keyCount + 2] = bytes(String.valueOf(Instant.now().getEpochSecond()));
+        params[keyCount + 3] = bucketTtlSeconds;
+
+        Object result;
+        try {
+            result = IdempotencyService.evalScript(commandExecutor, tokenBucketBatchScript, keyCount, params);
+        } catch (Exception e) {
+            // Fail open, as for a single decision
+            log.warn("Batch rate limit failed for {} customers, allowing the batch: {}",
+                    customerIds.size(), e.toString());
+            failedOpen.increment();
+            return;
+        }
+
+        if (result instanceof List<?> reply && reply.size() == 2 && toLong(reply.get(0)) == 0) {
+            String customerId = customerIds.get((int) toLong(reply.get(1)) - 1);
+            rateLimited.increment();
+            log.info("Rate limit exceeded for customer: {} ({} payments in batch)",
+                    CorrelationUtils.redactCustomerId(customerId), paymentsByCustomer.get(customerId));
+            throw new PaymentException.RateLimitException("Too many requests for this customer", null);
+        }
+        admitted.increment(paymentsByCustomer.values().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    /**
+     * Most payments one customer may have in a batch: a full bucket
+     */
+    private int maxPaymentsPerCustomer() {
+        return (int) Math.floor(capacity / tokensPerRequest);
+    }
+
+    /**
+     * Load the admission scripts into Redis so calls go by SHA without sending the source
+     */
+    public void preloadScripts() {
+        if (enabled) {
+            RedisScripts.load(redisTemplate, admissionScript);
+            RedisScripts.load(redisTemplate, tokenBucketBatchScript);
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number
+                ? number.longValue()
+                : Long.parseLong(value instanceof byte[] raw ? new String(raw, StandardCharsets.UTF_8) : String.valueOf(value));
+    }
+
+    private List<?> runScript(String customerId, String idempotencyKey, String inProgressMarker) {
+        String bucketKey = keyPrefix + ":" + customerId;
+
+        // Executed by SHA, with the source sent only if Redis no longer has the script
+        Object result = IdempotencyService.evalScript(commandExecutor, admissionScript, 3,
+                bytes(IdempotencyService.IDEMPOTENCY_PREFIX + idempotencyKey),
+                bytes(bucketKey + ":tokens"),
+                bytes(bucketKey + ":ts"),
+                bytes(inProgressMarker),
+                bytes(String.valueOf(IdempotencyService.IDEMPOTENCY_TTL.getSeconds())),
+                bytes(String.valueOf(capacity)),
+                bytes(String.valueOf(refillRatePerSecond)),
+                bytes(String.valueOf(Instant.now().getEpochSecond())),
+                bytes(String.valueOf(tokensPerRequest)),
+                bucketTtlSeconds);
+        if (!(result instanceof List<?> reply) || reply.isEmpty()) {
+            throw new IllegalStateException("Unexpected reply from admission script: " + result);
+        }
+        return reply;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("admission.requests")
+                .description("Decision requests by admission outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
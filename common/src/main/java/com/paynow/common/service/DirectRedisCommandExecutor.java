@@ -0,0 +1,31 @@
+package com.paynow.common.service;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * Runs each command on a connection of its own, borrowed from the template's pool for the call
+ */
+public class DirectRedisCommandExecutor implements RedisCommandExecutor {
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public DirectRedisCommandExecutor(RedisTemplate<String, String> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public <T> T execute(Command<T> command) {
+        return redisTemplate.execute((RedisCallback<T>) connection -> {
+            Jedis jedis = (Jedis) connection.getNativeConnection();
+            Response<T> response;
+            try (Pipeline pipeline = jedis.pipelined()) {
+                response = command.issue(pipeline);
+            }
+            return response.get();
+        });
+    }
+}
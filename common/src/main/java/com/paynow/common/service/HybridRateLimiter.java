@@ -0,0 +1,358 @@
+package com.paynow.common.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scripting.support.ResourceScriptSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-customer token buckets kept in memory and reconciled with a shared bucket in Redis in the background.
+ * <p>
+ * {@link #tryAcquire} decides from the local bucket and never calls Redis. Every {@code syncInterval}, one
+ * pipeline sends the tokens consumed on this node for each customer active since the last sync. Redis
+ * applies them to the shared bucket, which has the same keys as the gateway's token-bucket script, and
+ * returns what is left, and the local bucket is reset to that.
+ * <p>
+ * The limit is approximate: between syncs each node spends from its own copy of the shared bucket, so a
+ * cluster of N nodes can admit up to about N x refill rate x sync interval more than the limit, plus up to
+ * one full bucket per node when a node first sees a customer. Overshoot leaves the shared bucket negative
+ * and is paid back from later refills. A shorter sync interval tightens the bound at the cost of more
+ * Redis calls. If Redis is unreachable, the local buckets keep limiting on their own and unsent
+ * consumption is retried on the next sync.
+ */
+@Slf4j
+public class HybridRateLimiter implements AutoCloseable {
+
+    private final String name;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final DefaultRedisScript<String> syncScript;
+    private final double capacity;
+    private final double refillRatePerSecond;
+    private final String keyPrefix;
+    private final byte[] capacityArg;
+    private final byte[] refillArg;
+    private final byte[] ttlArg;
+    private final long idleNanos;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter allowed;
+    private final Counter denied;
+    private final Counter syncFailures;
+    private final Timer syncTimer;
+    private volatile boolean redisAvailable = true;
+
+    /**
+     * @param name         tags the limiter's metrics and names its sync thread
+     * @param keyPrefix    shared bucket keys are {@code <keyPrefix>:<customerId>:tokens} and {@code :ts}
+     * @param syncInterval how often consumption is reconciled with Redis; bounds the overshoot
+     */
+    public HybridRateLimiter(String name,
+                             RedisTemplate<String, String> redisTemplate,
+                             double capacity,
+                             double refillRatePerSecond,
+                             String keyPrefix,
+                             Duration syncInterval,
+                             MeterRegistry meterRegistry) {
+        this.name = name;
+        this.redisTemplate = redisTemplate;
+        this.capacity = capacity;
+        this.refillRatePerSecond = refillRatePerSecond;
+        this.keyPrefix = keyPrefix;
+        this.capacityArg = bytes(String.valueOf(capacity));
+        this.refillArg = bytes(String.valueOf(refillRatePerSecond));
+        int ttlSeconds = Math.max((int) (capacity / Math.max(1.0, refillRatePerSecond) * 3), 60);
+        this.ttlArg = bytes(String.valueOf(ttlSeconds));
+        this.idleNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+
+        this.syncScript = new DefaultRedisScript<>();
+        syncScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/rate-limit-sync.lua")));
+        syncScript.setResultType(String.class);
+
+        this.allowed = decisionCounter(meterRegistry, "allowed");
+        this.denied = decisionCounter(meterRegistry, "denied");
+        this.syncFailures = Counter.builder("rate_limiter.sync.failures")
+                .description("Failed reconciliations with Redis; consumption is retried on the next sync")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder("rate_limiter.sync.duration")
+                .description("Time to reconcile all active buckets with Redis")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("rate_limiter.buckets", buckets, Map::size)
+                .description("Customers with a local bucket")
+                .tag("limiter", name)
+                .register(meterRegistry);
+        Gauge.builder("rate_limiter.redis.available", () -> redisAvailable ? 1 : 0)
+                .description("Whether the last sync reached Redis")
+                .tag("limiter", name)
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("rate-limit-sync-" + name).daemon().factory());
+        // Off the caller's thread, which may be an event loop
+        scheduler.execute(() -> RedisScripts.load(redisTemplate, syncScript));
+        long intervalNanos = syncInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::sync, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Take {@code tokens} from the customer's local bucket if it has them
+     */
+    public boolean tryAcquire(String customerId, double tokens) {
+        boolean granted = buckets.computeIfAbsent(customerId, id -> new Bucket())
+                .tryAcquire(tokens, System.nanoTime());
+        (granted ? allowed : denied).increment();
+        return granted;
+    }
+
+    /**
+     * Take tokens from several customers' local buckets, all or none: either every bucket has enough and
+     * all are charged, or none is. The buckets are locked together, in customer order so that concurrent
+     * calls cannot deadlock.
+     *
+     * @return the first customer, in that order, without enough tokens, or {@code null} if all were charged
+     */
+    public String tryAcquireAll(Map<String, Double> tokensByCustomer) {
+        List<String> customerIds = new ArrayList<>(tokensByCustomer.keySet());
+        Collections.sort(customerIds);
+        Bucket[] locked = new Bucket[customerIds.size()];
+        double[] requested = new double[customerIds.size()];
+        for (int i = 0; i < locked.length; i++) {
+            locked[i] = buckets.computeIfAbsent(customerIds.get(i), id -> new Bucket());
+            requested[i] = tokensByCustomer.get(customerIds.get(i));
+        }
+
+        int refused = acquireAll(locked, requested, 0, System.nanoTime());
+        if (refused >= 0) {
+            denied.increment();
+            return customerIds.get(refused);
+        }
+        allowed.increment(locked.length);
+        return null;
+    }
+
+    /**
+     * Hold the monitors of {@code locked[from..]}, then charge them all if every one has enough tokens
+     *
+     * @return index of the first bucket without enough tokens, or -1 if all were charged
+     */
+    private static int acquireAll(Bucket[] locked, double[] requested, int from, long now) {
+        if (from < locked.length) {
+            synchronized (locked[from]) {
+                return acquireAll(locked, requested, from + 1, now);
+            }
+        }
+        for (int i = 0; i < locked.length; i++) {
+            if (!locked[i].hasTokens(requested[i], now)) {
+                return i;
+            }
+        }
+        for (int i = 0; i < locked.length; i++) {
+            locked[i].tryAcquire(requested[i], now);
+        }
+        return -1;
+    }
+
+    /**
+     * Tokens left in the customer's local bucket, as of its last use
+     */
+    public double available(String customerId) {
+        Bucket bucket = buckets.get(customerId);
+        return bucket != null ? bucket.available() : capacity;
+    }
+
+    /**
+     * Stop syncing after one last attempt to send unsynced consumption
+     */
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+    }
+
+    private void sync() {
+        long now = System.nanoTime();
+        List<String> customerIds = new ArrayList<>();
+        List<Bucket> due = new ArrayList<>();
+        buckets.forEach((customerId, bucket) -> {
+            if (bucket.isIdle(now, idleNanos)) {
+                buckets.remove(customerId, bucket);
+            } else if (bucket.needsSync()) {
+                customerIds.add(customerId);
+                due.add(bucket);
+            }
+        });
+        if (due.isEmpty()) {
+            return;
+        }
+
+        double[] consumed = new double[due.size()];
+        for (int i = 0; i < due.size(); i++) {
+            consumed[i] = due.get(i).beginSync();
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            List<Object> replies;
+            try {
+                replies = pipelineSync(customerIds, consumed);
+            } catch (Exception e) {
+                if (!RedisScripts.isNoScript(e)) {
+                    throw e;
+                }
+                RedisScripts.load(redisTemplate, syncScript);
+                replies = pipelineSync(customerIds, consumed);
+            }
+            long syncedAt = System.nanoTime();
+            for (int i = 0; i < due.size(); i++) {
+                due.get(i).applyShared(Double.parseDouble(new String((byte[]) replies.get(i), StandardCharsets.UTF_8)),
+                        syncedAt);
+            }
+            if (!redisAvailable) {
+                log.info("Rate limiter {} reconnected to Redis", name);
+                redisAvailable = true;
+            }
+        } catch (Exception e) {
+            due.forEach(Bucket::syncFailed);
+            syncFailures.increment();
+            if (redisAvailable) {
+                log.warn("Rate limiter {} cannot reach Redis, limiting with local buckets only: {}", name, e.toString());
+                redisAvailable = false;
+            }
+        } finally {
+            sample.stop(syncTimer);
+        }
+    }
+
+    private List<Object> pipelineSync(List<String> customerIds, double[] consumed) {
+        byte[] sha = bytes(syncScript.getSha1());
+        byte[] now = bytes(String.valueOf(Instant.now().toEpochMilli() / 1000.0));
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < customerIds.size(); i++) {
+                String bucketKey = keyPrefix + ":" + customerIds.get(i);
+                connection.scriptingCommands().evalSha(sha, ReturnType.VALUE, 2,
+                        bytes(bucketKey + ":tokens"), bytes(bucketKey + ":ts"),
+                        capacityArg, refillArg, now, bytes(String.valueOf(consumed[i])), ttlArg);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Counter decisionCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("rate_limiter.decisions")
+                .description("Rate limit decisions made from local buckets")
+                .tag("limiter", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * This node's copy of one customer's shared bucket
+     */
+    private final class Bucket {
+
+        private double tokens = capacity;
+        private long refilledNanos = System.nanoTime();
+        private long usedNanos = refilledNanos;
+        // Consumed here and not yet sent; and sent with the sync in progress
+        private double unsynced;
+        private double inFlight;
+        private boolean usedSinceSync = true;
+
+        synchronized boolean tryAcquire(double requested, long now) {
+            refill(now);
+            usedNanos = now;
+            usedSinceSync = true;
+            if (tokens >= requested) {
+                tokens -= requested;
+                unsynced += requested;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Whether {@link #tryAcquire} would succeed now, without taking anything
+         */
+        synchronized boolean hasTokens(double requested, long now) {
+            refill(now);
+            usedNanos = now;
+            usedSinceSync = true;
+            return tokens >= requested;
+        }
+
+        synchronized double available() {
+            return Math.max(0, tokens);
+        }
+
+        synchronized boolean isIdle(long now, long idleNanos) {
+            return now - usedNanos > idleNanos && unsynced == 0 && inFlight == 0;
+        }
+
+        /**
+         * Buckets used since the last sync are synced even without consumption, to learn what other
+         * nodes consumed
+         */
+        synchronized boolean needsSync() {
+            return usedSinceSync || unsynced > 0;
+        }
+
+        synchronized double beginSync() {
+            inFlight = unsynced;
+            unsynced = 0;
+            usedSinceSync = false;
+            return inFlight;
+        }
+
+        /**
+         * Take the shared bucket's tokens, which already include what was sent, less what was consumed
+         * here while the sync was in flight
+         */
+        synchronized void applyShared(double sharedTokens, long now) {
+            tokens = Math.min(capacity, sharedTokens - unsynced);
+            refilledNanos = now;
+            inFlight = 0;
+        }
+
+        synchronized void syncFailed() {
+            unsynced += inFlight;
+            inFlight = 0;
+        }
+
+        private void refill(long now) {
+            double elapsedSeconds = (now - refilledNanos) / 1e9;
+            tokens = Math.min(capacity, tokens + elapsedSeconds * refillRatePerSecond);
+            refilledNanos = now;
+        }
+    }
+}
@@ -1,25 +1,90 @@
 package com.paynow.common.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paynow.common.codec.JsonResponseCodec;
+import com.paynow.common.codec.ResponseCodec;
+import com.paynow.common.codec.SmileResponseCodec;
 import com.paynow.common.exception.PaymentException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.SetParams;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Idempotency cache for payment decisions. Redis is the source of truth shared by all instances; a
+ * bounded in-process L1 holds completed responses, already deserialized, so retries of a finished
+ * request are answered without a Redis round trip or JSON parse. Only completed responses are kept in
+ * L1, never the in-progress marker, so concurrent-request detection still always goes through Redis.
+ * <p>
+ * Responses are written to Redis with the configured {@link ResponseCodec}. Reads detect the format of
+ * each entry, so JSON entries written before a binary codec was enabled, or by instances with a
+ * different codec, stay readable.
+ * <p>
+ * A duplicate of a request that is still in progress can wait for its response instead of being
+ * processed again. Finishing or giving up a key publishes it on {@value #COMPLETED_CHANNEL}; every
+ * instance subscribes and wakes its local waiters for that key, which then read the response from Redis.
+ */
 @Slf4j
 public class IdempotencyService {
 
-    private static final String IDEMPOTENCY_PREFIX = "idempotency:";
-    private static final Duration IDEMPOTENCY_TTL = Duration.ofMinutes(10);
+    public static final String COMPLETED_CHANNEL = "idempotency:completed";
+
+    static final String IDEMPOTENCY_PREFIX = "idempotency:";
+    private static final byte[] COMPLETED_CHANNEL_BYTES = COMPLETED_CHANNEL.getBytes(StandardCharsets.UTF_8);
+    static final Duration IDEMPOTENCY_TTL = Duration.ofMinutes(10);
+    // One write in this many is also encoded as JSON to measure the bytes the codec saves
+    private static final int SAVINGS_SAMPLE_EVERY = 64;
 
     private final RedisTemplate<String, String> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final RedisCommandExecutor commandExecutor;
+    private final ResponseCodec codec;
+    private final List<ResponseCodec> readers;
+    private final JsonResponseCodec jsonCodec;
+    private final Cache<String, Object> localCache; // null when the L1 is disabled
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+    private final DistributionSummary encodedBytes;
+    private final DistributionSummary savedBytes;
+    private final AtomicLong writes = new AtomicLong();
+
+    // One future per key awaited on this instance, completed when the key is finished or given up
+    private final Map<String, CompletableFuture<Void>> waiters = new ConcurrentHashMap<>();
+    private final Duration pollInterval;
+    private final Counter waitCompleted;
+    private final Counter waitClaimed;
+    private final Counter waitTimedOut;
 
     // Lua script for atomic check-and-set operation
     private static final String CHECK_AND_SET_SCRIPT =
@@ -33,11 +98,57 @@ public class IdempotencyService {
 
     private final RedisScript<Object> checkAndSetScript;
 
+    /**
+     * @param commandExecutor runs the per-request commands; batch operations use their own pipelines
+     * @param codec           encoding of newly cached responses; entries in any known format are read
+     * @param localCacheSize  maximum completed responses kept in the L1; 0 disables it
+     * @param localCacheTtl   how long an L1 entry lives, capped at the Redis TTL
+     * @param pollInterval    how often a waiting duplicate re-checks Redis in case a notification was lost
+     */
     public IdempotencyService(RedisTemplate<String, String> redisTemplate,
-                              ObjectMapper objectMapper) {
+                              RedisCommandExecutor commandExecutor,
+                              ObjectMapper objectMapper,
+                              ResponseCodec codec,
+                              long localCacheSize,
+                              Duration localCacheTtl,
+                              Duration pollInterval,
+                              MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
-        this.objectMapper = objectMapper;
+        this.commandExecutor = commandExecutor;
+        this.codec = codec;
+        this.pollInterval = pollInterval;
+        this.jsonCodec = new JsonResponseCodec(objectMapper);
+        this.readers = List.of(codec, new SmileResponseCodec(objectMapper, true), jsonCodec);
         this.checkAndSetScript = new DefaultRedisScript<>(CHECK_AND_SET_SCRIPT, Object.class);
+
+        if (localCacheSize > 0) {
+            Duration ttl = localCacheTtl.compareTo(IDEMPOTENCY_TTL) < 0 ? localCacheTtl : IDEMPOTENCY_TTL;
+            this.localCache = Caffeine.newBuilder()
+                    .maximumSize(localCacheSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, localCache, "idempotency");
+        } else {
+            this.localCache = null;
+        }
+        this.localHits = lookupCounter(meterRegistry, "l1", "hit");
+        this.localMisses = lookupCounter(meterRegistry, "l1", "miss");
+        this.redisHits = lookupCounter(meterRegistry, "l2", "hit");
+        this.redisMisses = lookupCounter(meterRegistry, "l2", "miss");
+        this.encodedBytes = DistributionSummary.builder("idempotency.cache.value.bytes")
+                .description("Size of cached responses written to Redis")
+                .baseUnit("bytes")
+                .tag("codec", codec.name())
+                .register(meterRegistry);
+        this.savedBytes = DistributionSummary.builder("idempotency.cache.value.saved.bytes")
+                .description("Bytes saved per key compared with JSON, sampled")
+                .baseUnit("bytes")
+                .tag("codec", codec.name())
+                .register(meterRegistry);
+        this.waitCompleted = waitCounter(meterRegistry, "completed");
+        this.waitClaimed = waitCounter(meterRegistry, "claimed");
+        this.waitTimedOut = waitCounter(meterRegistry, "timeout");
     }
 
     /**
@@ -45,49 +156,272 @@ public class IdempotencyService {
      * If not, it atomically marks the request as in-progress.
      */
     public <T> Optional<T> checkAndMarkInProgress(String idempotencyKey, String inProgressMarker, Class<T> responseType) {
+        return check(idempotencyKey, inProgressMarker, responseType).toOptional();
+    }
+
+    /**
+     * Like {@link #checkAndMarkInProgress}, but when another request, on any instance, holds the key
+     * in progress, waits up to {@code maxWait} for it to finish and returns its response. If that request
+     * gives the key up instead, this one claims it and gets an empty result, just like a new request.
+     *
+     * @throws PaymentException.DuplicateRequestException if the key is still in progress after {@code maxWait}
+     */
+    public <T> Optional<T> checkAndMarkInProgress(String idempotencyKey, String inProgressMarker,
+                                                  Class<T> responseType, Duration maxWait) {
+        Check<T> check = check(idempotencyKey, inProgressMarker, responseType);
+        if (check.state() != State.IN_PROGRESS) {
+            return check.toOptional();
+        }
+        return await(idempotencyKey, inProgressMarker, responseType, System.nanoTime() + maxWait.toNanos());
+    }
+
+    /**
+     * Batch variant of {@link #checkAndMarkInProgress}: runs the check-and-set script for every key
+     * in a single pipelined round trip. Keys are expected to be distinct; the result map preserves
+     * the iteration order of {@code idempotencyKeys}. Keys answered by the L1 are left out of the pipeline.
+     */
+    public <T> Map<String, Optional<T>> checkAndMarkInProgressBatch(List<String> idempotencyKeys,
+                                                                  String inProgressMarker,
+                                                                  Class<T> responseType) {
+        Map<String, Optional<T>> results = new LinkedHashMap<>();
+        checkBatch(idempotencyKeys, inProgressMarker, responseType)
+                .forEach((idempotencyKey, check) -> results.put(idempotencyKey, check.toOptional()));
+        return results;
+    }
+
+    /**
+     * Batch variant of the waiting {@link #checkAndMarkInProgress(String, String, Class, Duration)}. Keys
+     * in progress elsewhere are awaited one after the other, all within the same {@code maxWait}. If one
+     * of them times out, the keys this batch had already claimed are given up before throwing, so their
+     * retries are not held off for the rest of the TTL.
+     *
+     * @throws PaymentException.DuplicateRequestException if a key is still in progress after {@code maxWait}
+     */
+    public <T> Map<String, Optional<T>> checkAndMarkInProgressBatch(List<String> idempotencyKeys,
+                                                                  String inProgressMarker,
+                                                                  Class<T> responseType,
+                                                                  Duration maxWait) {
+        long deadlineNanos = System.nanoTime() + maxWait.toNanos();
+        Map<String, Check<T>> checks = checkBatch(idempotencyKeys, inProgressMarker, responseType);
+        Map<String, Optional<T>> results = new LinkedHashMap<>();
         try {
-            String key = IDEMPOTENCY_PREFIX + idempotencyKey;
+            for (Map.Entry<String, Check<T>> entry : checks.entrySet()) {
+                Check<T> check = entry.getValue();
+                results.put(entry.getKey(), check.state() == State.IN_PROGRESS
+                        ? await(entry.getKey(), inProgressMarker, responseType, deadlineNanos)
+                        : check.toOptional());
+            }
+            return results;
+
+        } catch (RuntimeException e) {
+            // Claimed up front, or claimed while waiting after their holder gave them up
+            checks.forEach((idempotencyKey, check) -> {
+                Optional<T> result = results.get(idempotencyKey);
+                if (check.state() == State.CLAIMED || (result != null && result.isEmpty())) {
+                    removeIdempotencyKey(idempotencyKey);
+                }
+            });
+            throw e;
+        }
+    }
+
+    /**
+     * Wake local waiters for a key whose request finished or gave the key up. Called for
+     * {@value #COMPLETED_CHANNEL} messages from every instance, including this one.
+     */
+    public void onCompleted(String idempotencyKey) {
+        CompletableFuture<Void> completion = waiters.remove(idempotencyKey);
+        if (completion != null) {
+            completion.complete(null);
+        }
+    }
+
+    private <T> Check<T> check(String idempotencyKey, String inProgressMarker, Class<T> responseType) {
+        Optional<T> local = getLocal(idempotencyKey, responseType);
+        if (local.isPresent()) {
+            return Check.completed(local.get());
+        }
+
+        try {
+            byte[] key = (IDEMPOTENCY_PREFIX + idempotencyKey).getBytes(StandardCharsets.UTF_8);
 
             // Execute Lua script for atomic check-and-set
-            Object result = redisTemplate.execute(
-                    checkAndSetScript,
-                    Collections.singletonList(key),
-                    inProgressMarker,
-                    String.valueOf(IDEMPOTENCY_TTL.getSeconds())
-            );
-
-            if (result instanceof Long && (Long)result == 0) {
-                // Key didn't exist and was set to in-progress
-                log.debug("New request, marked as in-progress: {}", idempotencyKey);
-                return Optional.empty();
-            } else if (result instanceof String) {
-                // Key existed, got cached value
-                String cachedJson = (String) result;
-                if (cachedJson.equals(inProgressMarker)) {
-                    // Request is already being processed
-                    log.debug("Concurrent request detected for key: {}", idempotencyKey);
+            Object result = evalScript(commandExecutor, checkAndSetScript, 1,
+                    key,
+                    inProgressMarker.getBytes(StandardCharsets.UTF_8),
+                    String.valueOf(IDEMPOTENCY_TTL.getSeconds()).getBytes(StandardCharsets.UTF_8));
+
+            return resolveCheckResult(idempotencyKey, result, inProgressMarker, responseType);
+
+        } catch (Exception e) {
+            log.warn("Error in idempotency check for key: {}", idempotencyKey, e);
+            return Check.claimed();
+        }
+    }
+
+    private <T> Map<String, Check<T>> checkBatch(List<String> idempotencyKeys, String inProgressMarker,
+                                                 Class<T> responseType) {
+        Map<String, Check<T>> results = new LinkedHashMap<>();
+        List<String> remoteKeys = new ArrayList<>(idempotencyKeys.size());
+        for (String idempotencyKey : idempotencyKeys) {
+            Optional<T> local = getLocal(idempotencyKey, responseType);
+            results.put(idempotencyKey, local.map(Check::completed).orElseGet(Check::claimed));
+            if (local.isEmpty()) {
+                remoteKeys.add(idempotencyKey);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return results;
+        }
+
+        try {
+            List<Object> replies;
+            try {
+                replies = pipelineChecks(remoteKeys, inProgressMarker);
+            } catch (Exception e) {
+                if (!RedisScripts.isNoScript(e)) {
+                    throw e;
+                }
+                // Redis restarted or flushed its script cache since startup
+                preloadScripts();
+                replies = pipelineChecks(remoteKeys, inProgressMarker);
+            }
+
+            for (int i = 0; i < remoteKeys.size(); i++) {
+                String idempotencyKey = remoteKeys.get(i);
+                Object reply = i < replies.size() ? replies.get(i) : null;
+                results.put(idempotencyKey, resolveCheckResult(idempotencyKey, reply, inProgressMarker, responseType));
+            }
+            return results;
+
+        } catch (Exception e) {
+            log.warn("Error in batch idempotency check for {} keys", remoteKeys.size(), e);
+            return results;
+        }
+    }
+
+    /**
+     * Run the check-and-set script for every key by SHA, in one pipeline
+     */
+    private List<Object> pipelineChecks(List<String> idempotencyKeys, String inProgressMarker) {
+        String sha = checkAndSetScript.getSha1();
+        byte[] marker = inProgressMarker.getBytes(StandardCharsets.UTF_8);
+        byte[] ttl = String.valueOf(IDEMPOTENCY_TTL.getSeconds()).getBytes(StandardCharsets.UTF_8);
+
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String idempotencyKey : idempotencyKeys) {
+                byte[] key = (IDEMPOTENCY_PREFIX + idempotencyKey).getBytes(StandardCharsets.UTF_8);
+                connection.scriptingCommands().evalSha(sha, ReturnType.VALUE, 1, key, marker, ttl);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+    }
+
+    /**
+     * Load the check-and-set script into Redis so calls can go by SHA without sending the source.
+     * Called at startup; a failure is only logged, since calls reload the script if Redis does not have it.
+     */
+    public void preloadScripts() {
+        RedisScripts.load(redisTemplate, checkAndSetScript);
+    }
+
+    /**
+     * Run a script by SHA through the executor, sending the source only if Redis does not have it
+     */
+    static Object evalScript(RedisCommandExecutor executor, RedisScript<?> script, int keyCount, byte[]... params) {
+        byte[] sha = script.getSha1().getBytes(StandardCharsets.UTF_8);
+        try {
+            return executor.execute(pipeline -> pipeline.evalsha(sha, keyCount, params));
+        } catch (RuntimeException e) {
+            if (!RedisScripts.isNoScript(e)) {
+                throw e;
+            }
+            byte[] source = script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+            return executor.execute(pipeline -> pipeline.eval(source, keyCount, params));
+        }
+    }
+
+    /**
+     * Wait for the request holding {@code idempotencyKey} to finish. The waiter is registered before
+     * each check, so a completion published between the check and the wait is not missed; the key is
+     * also re-checked every poll interval in case a notification was lost.
+     */
+    <T> Optional<T> await(String idempotencyKey, String inProgressMarker, Class<T> responseType,
+                          long deadlineNanos) {
+        log.debug("Waiting for in-progress request with idempotencyKey: {}", idempotencyKey);
+        CompletableFuture<Void> completion = null;
+        try {
+            while (true) {
+                completion = waiters.computeIfAbsent(idempotencyKey, key -> new CompletableFuture<>());
+                Check<T> check = check(idempotencyKey, inProgressMarker, responseType);
+                if (check.state() == State.COMPLETED) {
+                    waitCompleted.increment();
+                    return check.toOptional();
+                }
+                if (check.state() == State.CLAIMED) {
+                    // The first request gave the key up; this one now owns it
+                    waitClaimed.increment();
                     return Optional.empty();
                 }
 
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    waitTimedOut.increment();
+                    throw new PaymentException.DuplicateRequestException(
+                            "Request with idempotency key " + idempotencyKey + " is still in progress", null);
+                }
                 try {
-                    T cachedResponse = objectMapper.readValue(cachedJson, responseType);
-                    log.debug("Found cached response for idempotencyKey: {}", idempotencyKey);
-                    return Optional.of(cachedResponse);
-                } catch (JsonProcessingException e) {
-                    log.error("Error deserializing cached response: {}", idempotencyKey, e);
-                    redisTemplate.delete(key);
-                    return Optional.empty();
+                    completion.get(Math.min(remaining, pollInterval.toNanos()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Poll Redis again
+                } catch (ExecutionException e) {
+                    // Waiters are only ever completed normally
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PaymentException.DuplicateRequestException(
+                    "Interrupted waiting for idempotency key " + idempotencyKey, null);
+        } finally {
+            if (completion != null) {
+                waiters.remove(idempotencyKey, completion);
+            }
+        }
+    }
 
-            // Unexpected result type
-            log.warn("Unexpected result from Redis script: {}", result);
-            return Optional.empty();
+    <T> Check<T> resolveCheckResult(String idempotencyKey, Object result,
+                                    String inProgressMarker, Class<T> responseType) {
+        if (result instanceof Long && (Long) result == 0) {
+            // Key didn't exist and was set to in-progress
+            log.debug("New request, marked as in-progress: {}", idempotencyKey);
+            redisMisses.increment();
+            return Check.claimed();
+        } else if (result instanceof byte[] cached) {
+            // Key existed, got cached value
+            if (Arrays.equals(cached, inProgressMarker.getBytes(StandardCharsets.UTF_8))) {
+                // Request is already being processed
+                log.debug("Concurrent request detected for key: {}", idempotencyKey);
+                redisMisses.increment();
+                return Check.inProgress();
+            }
 
-        } catch (Exception e) {
-            log.warn("Error in idempotency check for key: {}", idempotencyKey, e);
-            return Optional.empty();
+            try {
+                T cachedResponse = decode(cached, responseType);
+                log.debug("Found cached response for idempotencyKey: {}", idempotencyKey);
+                redisHits.increment();
+                putLocal(idempotencyKey, cachedResponse);
+                return Check.completed(cachedResponse);
+            } catch (IOException e) {
+                log.error("Error deserializing cached response: {}", idempotencyKey, e);
+                redisTemplate.delete(IDEMPOTENCY_PREFIX + idempotencyKey);
+                return Check.claimed();
+            }
         }
+
+        // Unexpected result type
+        log.warn("Unexpected result from Redis script: {}", result);
+        redisMisses.increment();
+        return Check.claimed();
     }
 
     /**
@@ -95,13 +429,22 @@ public class IdempotencyService {
      */
     public <T> void cacheResponse(String idempotencyKey, T response) {
         try {
-            String key = IDEMPOTENCY_PREFIX + idempotencyKey;
-            String responseJson = objectMapper.writeValueAsString(response);
+            byte[] key = (IDEMPOTENCY_PREFIX + idempotencyKey).getBytes(StandardCharsets.UTF_8);
+            byte[] value = encode(response);
 
-            redisTemplate.opsForValue().set(key, responseJson, IDEMPOTENCY_TTL);
+            byte[] notification = idempotencyKey.getBytes(StandardCharsets.UTF_8);
+
+            SetParams expiration = SetParams.setParams().ex(IDEMPOTENCY_TTL.getSeconds());
+            commandExecutor.execute(pipeline -> {
+                Response<String> reply = pipeline.set(key, value, expiration);
+                pipeline.publish(COMPLETED_CHANNEL_BYTES, notification);
+                return reply;
+            });
+            putLocal(idempotencyKey, response);
+            onCompleted(idempotencyKey);
             log.debug("Cached response for idempotencyKey: {}", idempotencyKey);
 
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             log.error("Error serializing response for caching: {}", idempotencyKey, e);
             throw new PaymentException("CACHING_ERROR", "Failed to cache response", e);
         } catch (Exception e) {
@@ -110,15 +453,150 @@ public class IdempotencyService {
     }
 
     /**
-     * Remove idempotency key (useful for error cases or testing)
+     * Cache several responses in one pipelined round trip, keyed by idempotency key
+     */
+    public <T> void cacheResponses(Map<String, T> responsesByKey) {
+        if (responsesByKey.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<byte[][]> entries = new ArrayList<>(responsesByKey.size());
+            for (Map.Entry<String, T> entry : responsesByKey.entrySet()) {
+                byte[] key = (IDEMPOTENCY_PREFIX + entry.getKey()).getBytes(StandardCharsets.UTF_8);
+                byte[] value = encode(entry.getValue());
+                entries.add(new byte[][]{key, value, entry.getKey().getBytes(StandardCharsets.UTF_8)});
+            }
+
+            Expiration expiration = Expiration.from(IDEMPOTENCY_TTL);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (byte[][] entry : entries) {
+                    connection.stringCommands().set(entry[0], entry[1], expiration,
+                            RedisStringCommands.SetOption.upsert());
+                    connection.publish(COMPLETED_CHANNEL_BYTES, entry[2]);
+                }
+                return null;
+            });
+            responsesByKey.forEach(this::putLocal);
+            responsesByKey.keySet().forEach(this::onCompleted);
+            log.debug("Cached {} responses in one pipeline", entries.size());
+
+        } catch (IOException e) {
+            log.error("Error serializing batch responses for caching", e);
+            throw new PaymentException("CACHING_ERROR", "Failed to cache response", e);
+        } catch (Exception e) {
+            log.warn("Error caching {} batch responses", responsesByKey.size(), e);
+        }
+    }
+
+    /**
+     * Remove idempotency key (useful for error cases or testing). A request that fails without a
+     * response must call this to give its key up; requests waiting on the key are woken and one of
+     * them claims it.
      */
     public void removeIdempotencyKey(String idempotencyKey) {
+        if (localCache != null) {
+            localCache.invalidate(idempotencyKey);
+        }
         try {
-            String key = IDEMPOTENCY_PREFIX + idempotencyKey;
-            redisTemplate.delete(key);
+            byte[] key = (IDEMPOTENCY_PREFIX + idempotencyKey).getBytes(StandardCharsets.UTF_8);
+            byte[] notification = idempotencyKey.getBytes(StandardCharsets.UTF_8);
+            commandExecutor.execute(pipeline -> {
+                Response<Long> reply = pipeline.del(key);
+                pipeline.publish(COMPLETED_CHANNEL_BYTES, notification);
+                return reply;
+            });
+            onCompleted(idempotencyKey);
             log.debug("Removed idempotency key: {}", idempotencyKey);
         } catch (Exception e) {
             log.warn("Error removing idempotency key: {}", idempotencyKey, e);
         }
     }
-}
\ No newline at end of file
+
+    private byte[] encode(Object response) throws IOException {
+        byte[] value = codec.encode(response);
+        encodedBytes.record(value.length);
+        if (codec != jsonCodec && writes.incrementAndGet() % SAVINGS_SAMPLE_EVERY == 0) {
+            savedBytes.record(Math.max(0, jsonCodec.encode(response).length - value.length));
+        }
+        return value;
+    }
+
+    /**
+     * Decode with the first codec that recognises the entry; plain JSON is the fallback
+     */
+    private <T> T decode(byte[] value, Class<T> responseType) throws IOException {
+        for (ResponseCodec reader : readers) {
+            if (reader.canDecode(value)) {
+                return reader.decode(value, responseType);
+            }
+        }
+        throw new IOException("No codec for cached response");
+    }
+
+    /**
+     * Completed response from the L1, if present and of the requested type
+     */
+    <T> Optional<T> getLocal(String idempotencyKey, Class<T> responseType) {
+        if (localCache == null) {
+            return Optional.empty();
+        }
+        Object cached = localCache.getIfPresent(idempotencyKey);
+        if (responseType.isInstance(cached)) {
+            localHits.increment();
+            log.debug("Found cached response in L1 for idempotencyKey: {}", idempotencyKey);
+            return Optional.of(responseType.cast(cached));
+        }
+        localMisses.increment();
+        return Optional.empty();
+    }
+
+    private void putLocal(String idempotencyKey, Object response) {
+        if (localCache != null && response != null) {
+            localCache.put(idempotencyKey, response);
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("idempotency.cache.lookups")
+                .description("Idempotency lookups by cache level (l1 in-process, l2 Redis) and result")
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter waitCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("idempotency.duplicate.waits")
+                .description("Duplicates that waited for the in-progress request with the same key, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    enum State {
+        /** The key was free and is now marked in progress for this request */
+        CLAIMED,
+        /** Another request holds the key */
+        IN_PROGRESS,
+        /** A response is cached */
+        COMPLETED
+    }
+
+    record Check<T>(State state, T response) {
+
+        static <T> Check<T> claimed() {
+            return new Check<>(State.CLAIMED, null);
+        }
+
+        static <T> Check<T> inProgress() {
+            return new Check<>(State.IN_PROGRESS, null);
+        }
+
+        static <T> Check<T> completed(T response) {
+            return new Check<>(State.COMPLETED, response);
+        }
+
+        Optional<T> toOptional() {
+            return Optional.ofNullable(response);
+        }
+    }
+}
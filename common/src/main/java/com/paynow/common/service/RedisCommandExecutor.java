@@ -0,0 +1,27 @@
+package com.paynow.common.service;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+/**
+ * Runs the per-request Redis commands of the idempotency and admission services. Commands are written
+ * against a Jedis {@link Pipeline}, so an implementation may send commands from many threads together
+ * in one pipeline on a shared connection. {@link DirectRedisCommandExecutor} runs each on its own pooled
+ * connection.
+ */
+public interface RedisCommandExecutor {
+
+    /**
+     * Queue the command's calls on the pipeline and return the reply the caller needs. Runs on whichever
+     * thread sends the pipeline, so it must only issue calls.
+     */
+    @FunctionalInterface
+    interface Command<T> {
+        Response<T> issue(Pipeline pipeline);
+    }
+
+    /**
+     * Run the command and wait for its reply. An error reply is thrown as the Jedis exception for it.
+     */
+    <T> T execute(Command<T> command);
+}
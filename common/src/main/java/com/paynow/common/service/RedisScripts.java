@@ -0,0 +1,45 @@
+package com.paynow.common.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loading Lua scripts into Redis so they can be called by SHA
+ */
+@Slf4j
+final class RedisScripts {
+
+    private RedisScripts() {
+    }
+
+    /**
+     * Load the script into Redis. A failure is only logged: callers reload the script when a call by SHA
+     * gets NOSCRIPT.
+     */
+    static void load(RedisTemplate<String, String> redisTemplate, RedisScript<?> script) {
+        try {
+            byte[] source = script.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+            String sha = redisTemplate.execute(
+                    (RedisCallback<String>) connection -> connection.scriptingCommands().scriptLoad(source));
+            log.debug("Loaded Redis script {}", sha);
+        } catch (Exception e) {
+            log.warn("Could not preload Redis script {}: {}", script.getSha1(), e.toString());
+        }
+    }
+
+    /**
+     * Whether the failure was Redis not having the script, as after a restart or SCRIPT FLUSH
+     */
+    static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -10,6 +10,8 @@ import java.util.UUID;
 public class CorrelationUtils {
 
     public static final String REQUEST_ID_HEADER = "X-Request-ID";
+    // Time left for the whole request in milliseconds, relative so it does not depend on synchronized clocks
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout-Ms";
     public static final String REQUEST_ID_MDC_KEY = "requestId";
     public static final String CUSTOMER_ID_MDC_KEY = "customerId";
 
@@ -0,0 +1,50 @@
+-- Admission of one decision: idempotency check-and-set and the customer's token bucket in one call.
+-- A key that already exists (in progress or completed) is returned without taking a token.
+-- Otherwise a token is taken and, if one was available, the key is marked in progress.
+-- Returns {1, tokens} when admitted, {0, tokens} when rate limited, {2, -1, value} for an existing key.
+local idempotency_key = KEYS[1]
+local tokens_key = KEYS[2]
+local ts_key = KEYS[3]
+local marker = ARGV[1]
+local idempotency_ttl = tonumber(ARGV[2])
+local capacity = tonumber(ARGV[3])
+local refill_rate = tonumber(ARGV[4])
+local now = tonumber(ARGV[5])
+local requested = tonumber(ARGV[6])
+local ttl_seconds = tonumber(ARGV[7])
+
+local existing = redis.call('get', idempotency_key)
+if existing then
+  return {2, -1, existing}
+end
+
+-- Same bucket as the gateway's token-bucket-rate-limiter.lua
+local last_tokens = tonumber(redis.call('get', tokens_key))
+if last_tokens == nil then last_tokens = capacity end
+
+local last_refreshed = tonumber(redis.call('get', ts_key))
+if last_refreshed == nil then last_refreshed = now end
+
+local delta = math.max(0, now - last_refreshed)
+local refill = delta * refill_rate
+local tokens = math.min(capacity, last_tokens + refill)
+local allowed = 0
+
+if tokens >= requested then
+  allowed = 1
+  tokens = tokens - requested
+end
+
+redis.call('set', tokens_key, tokens)
+redis.call('set', ts_key, now)
+
+if ttl_seconds and ttl_seconds > 0 then
+  redis.call('expire', tokens_key, ttl_seconds)
+  redis.call('expire', ts_key, ttl_seconds)
+end
+
+if allowed == 1 then
+  redis.call('set', idempotency_key, marker, 'EX', idempotency_ttl)
+end
+
+return {allowed, math.floor(tokens)}
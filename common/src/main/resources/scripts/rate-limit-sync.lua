@@ -0,0 +1,28 @@
+-- Apply the tokens one node consumed since its last sync to the shared bucket and return what is left.
+-- Same keys and refill arithmetic as token-bucket-rate-limiter.lua. Tokens may go below zero when the
+-- nodes together admitted more than the bucket held; the overshoot is then paid back from later refills.
+local tokens_key = KEYS[1]
+local ts_key = KEYS[2]
+local capacity = tonumber(ARGV[1])
+local refill_rate = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local consumed = tonumber(ARGV[4])
+local ttl_seconds = tonumber(ARGV[5])
+
+local last_tokens = tonumber(redis.call('get', tokens_key))
+if last_tokens == nil then last_tokens = capacity end
+
+local last_refreshed = tonumber(redis.call('get', ts_key))
+if last_refreshed == nil then last_refreshed = now end
+
+local delta = math.max(0, now - last_refreshed)
+local tokens = math.min(capacity, last_tokens + delta * refill_rate)
+tokens = math.max(-capacity, tokens - consumed)
+
+redis.call('set', tokens_key, tokens)
+redis.call('set', ts_key, now)
+redis.call('expire', tokens_key, ttl_seconds)
+redis.call('expire', ts_key, ttl_seconds)
+
+-- As a string: Redis would truncate a Lua number reply to an integer
+return tostring(tokens)
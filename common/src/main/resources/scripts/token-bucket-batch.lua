@@ -0,0 +1,36 @@
+-- Charge several customers' buckets for one batch, all or none. KEYS are the tokens and ts keys of each
+-- bucket in turn; ARGV[5..] the tokens requested from each. Same keys and refill arithmetic as
+-- token-bucket-rate-limiter.lua. Returns {1, -1} when every bucket was charged, or {0, i} with the
+-- 1-based index of the first bucket without enough tokens, in which case nothing is written.
+local capacity = tonumber(ARGV[1])
+local refill_rate = tonumber(ARGV[2])
+local now = tonumber(ARGV[3])
+local ttl_seconds = tonumber(ARGV[4])
+
+local buckets = #KEYS / 2
+local tokens = {}
+
+for i = 1, buckets do
+  local last_tokens = tonumber(redis.call('get', KEYS[2 * i - 1]))
+  if last_tokens == nil then last_tokens = capacity end
+
+  local last_refreshed = tonumber(redis.call('get', KEYS[2 * i]))
+  if last_refreshed == nil then last_refreshed = now end
+
+  local delta = math.max(0, now - last_refreshed)
+  tokens[i] = math.min(capacity, last_tokens + delta * refill_rate)
+  if tokens[i] < tonumber(ARGV[4 + i]) then
+    return {0, i}
+  end
+end
+
+for i = 1, buckets do
+  redis.call('set', KEYS[2 * i - 1], tokens[i] - tonumber(ARGV[4 + i]))
+  redis.call('set', KEYS[2 * i], now)
+  if ttl_seconds and ttl_seconds > 0 then
+    redis.call('expire', KEYS[2 * i - 1], ttl_seconds)
+    redis.call('expire', KEYS[2 * i], ttl_seconds)
+  end
+end
+
+return {1, -1}
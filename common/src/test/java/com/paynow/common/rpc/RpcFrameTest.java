@@ -0,0 +1,82 @@
+package com.paynow.common.rpc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RpcFrameTest {
+
+    @Test
+    void roundTripsARequest() throws Exception {
+        RpcFrame frame = new RpcFrame(7, RpcFrame.REQUEST, "cases.create", new byte[]{1, 2, 3});
+
+        RpcFrame read = RpcFrame.read(input(bytes(frame)));
+
+        assertThat(read.stream()).isEqualTo(7);
+        assertThat(read.type()).isEqualTo(RpcFrame.REQUEST);
+        assertThat(read.method()).isEqualTo("cases.create");
+        assertThat(read.payload()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void roundTripsAResponseWithoutMethod() throws Exception {
+        RpcFrame read = RpcFrame.read(input(bytes(new RpcFrame(3, RpcFrame.RESPONSE, null, new byte[]{9}))));
+
+        assertThat(read.method()).isNull();
+        assertThat(read.payload()).containsExactly(9);
+    }
+
+    @Test
+    void rejectsAFrameLargerThanTheLimit() throws Exception {
+        byte[] key = "k".repeat(RpcFrame.MAX_HELLO_BYTES).getBytes(StandardCharsets.UTF_8);
+        byte[] hello = bytes(new RpcFrame(0, RpcFrame.HELLO, null, key));
+
+        assertThatThrownBy(() -> RpcFrame.read(input(hello), RpcFrame.MAX_HELLO_BYTES))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid RPC frame length");
+        assertThat(RpcFrame.read(input(hello)).payload()).hasSize(key.length);
+    }
+
+    @Test
+    void rejectsALengthTooShortForTheHeader() {
+        byte[] truncated = {0, 0, 0, 2, 0, 0};
+
+        assertThatThrownBy(() -> RpcFrame.read(input(truncated)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid RPC frame length 2");
+    }
+
+    @Test
+    void rejectsAMethodLongerThanTheFrame() throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(Integer.BYTES + 1 + Short.BYTES);
+        out.writeInt(1);
+        out.writeByte(RpcFrame.REQUEST);
+        out.writeShort(100);
+
+        assertThatThrownBy(() -> RpcFrame.read(input(buffer.toByteArray())))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid RPC method length 100");
+    }
+
+    private static byte[] bytes(RpcFrame frame) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        frame.write(out);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static DataInputStream input(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+}
@@ -0,0 +1,67 @@
+package com.paynow.common.service;
+
+import com.paynow.common.exception.PaymentException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class AdmissionServiceTest {
+
+    private final RedisCommandExecutor commandExecutor = mock(RedisCommandExecutor.class);
+
+    @SuppressWarnings("unchecked")
+    private final AdmissionService admissionService = new AdmissionService(mock(RedisTemplate.class),
+            commandExecutor, mock(IdempotencyService.class), true, 5, 5, 1, "rate:token",
+            new SimpleMeterRegistry());
+
+    @Test
+    void rejectsABatchWithMorePaymentsForOneCustomerThanABucketHolds() {
+        assertThatThrownBy(() -> admissionService.admitBatch(Map.of("cust_a", 2, "cust_b", 6)))
+                .isInstanceOf(PaymentException.ValidationException.class)
+                .hasMessageContaining("at most 5 payments per customer");
+
+        verifyNoInteractions(commandExecutor);
+    }
+
+    @Test
+    void chargesAllCustomersInOneScriptCall() {
+        when(commandExecutor.execute(any())).thenReturn(List.of(1L, -1L));
+
+        assertThatCode(() -> admissionService.admitBatch(Map.of("cust_a", 5, "cust_b", 1)))
+                .doesNotThrowAnyException();
+
+        verify(commandExecutor).execute(any());
+    }
+
+    @Test
+    void rateLimitsTheBatchWhenTheScriptRefusesACustomer() {
+        // The script refuses the second customer and leaves every bucket as it was
+        when(commandExecutor.execute(any())).thenReturn(List.of(0L, 2L));
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        batch.put("cust_a", 1);
+        batch.put("cust_b", 3);
+
+        assertThatThrownBy(() -> admissionService.admitBatch(batch))
+                .isInstanceOf(PaymentException.RateLimitException.class);
+    }
+
+    @Test
+    void failsOpenWhenRedisIsUnavailable() {
+        when(commandExecutor.execute(any())).thenThrow(new IllegalStateException("connection refused"));
+
+        assertThatCode(() -> admissionService.admitBatch(Map.of("cust_a", 5)))
+                .doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,49 @@
+package com.paynow.common.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+
+class HybridRateLimiterTest {
+
+    @SuppressWarnings("unchecked")
+    private final HybridRateLimiter limiter = new HybridRateLimiter("test", mock(RedisTemplate.class),
+            5, 0.001, "rate:test", Duration.ofHours(1), new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        limiter.close();
+    }
+
+    @Test
+    void tryAcquireAllChargesEveryCustomer() {
+        assertThat(limiter.tryAcquireAll(Map.of("cust_a", 3.0, "cust_b", 5.0))).isNull();
+
+        assertThat(limiter.available("cust_a")).isCloseTo(2.0, within(0.01));
+        assertThat(limiter.available("cust_b")).isCloseTo(0.0, within(0.01));
+    }
+
+    @Test
+    void tryAcquireAllChargesNobodyWhenOneCustomerIsShort() {
+        assertThat(limiter.tryAcquire("cust_b", 4.0)).isTrue();
+        Map<String, Double> batch = new LinkedHashMap<>();
+        batch.put("cust_a", 3.0);
+        batch.put("cust_b", 3.0);
+        batch.put("cust_c", 1.0);
+
+        assertThat(limiter.tryAcquireAll(batch)).isEqualTo("cust_b");
+
+        assertThat(limiter.available("cust_a")).isCloseTo(5.0, within(0.01));
+        assertThat(limiter.available("cust_b")).isCloseTo(1.0, within(0.01));
+        assertThat(limiter.available("cust_c")).isCloseTo(5.0, within(0.01));
+    }
+}
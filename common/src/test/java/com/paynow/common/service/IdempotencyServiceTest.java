@@ -0,0 +1,91 @@
+package com.paynow.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.codec.JsonResponseCodec;
+import com.paynow.common.exception.PaymentException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final String MARKER = "IN_PROGRESS";
+    private static final byte[] MARKER_BYTES = MARKER.getBytes(StandardCharsets.UTF_8);
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+    private final RedisCommandExecutor commandExecutor = mock(RedisCommandExecutor.class);
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        idempotencyService = spy(new IdempotencyService(redisTemplate, commandExecutor, objectMapper,
+                new JsonResponseCodec(objectMapper), 0, Duration.ofMinutes(1), Duration.ofMillis(10),
+                new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void releasesClaimedKeysWhenAWaitTimesOut() {
+        // "a" is claimed by this batch, "b" is in progress elsewhere and stays so
+        pipelineReplies(0L, MARKER_BYTES);
+        when(commandExecutor.execute(any())).thenReturn(MARKER_BYTES);
+
+        assertThatThrownBy(() -> idempotencyService.checkAndMarkInProgressBatch(
+                List.of("a", "b"), MARKER, String.class, Duration.ofMillis(50)))
+                .isInstanceOf(PaymentException.DuplicateRequestException.class);
+
+        verify(idempotencyService).removeIdempotencyKey("a");
+        verify(idempotencyService, never()).removeIdempotencyKey("b");
+    }
+
+    @Test
+    void releasesKeysClaimedWhileWaiting() {
+        // "a" and "b" are in progress; "a"'s holder gives it up, so this batch claims it, then "b" times out
+        pipelineReplies(MARKER_BYTES, MARKER_BYTES);
+        when(commandExecutor.execute(any())).thenReturn(0L).thenReturn(MARKER_BYTES);
+
+        assertThatThrownBy(() -> idempotencyService.checkAndMarkInProgressBatch(
+                List.of("a", "b"), MARKER, String.class, Duration.ofMillis(50)))
+                .isInstanceOf(PaymentException.DuplicateRequestException.class);
+
+        verify(idempotencyService).removeIdempotencyKey("a");
+        verify(idempotencyService, never()).removeIdempotencyKey("b");
+    }
+
+    @Test
+    void returnsTheResponseOfAKeyThatCompletesWhileWaiting() {
+        pipelineReplies(0L, MARKER_BYTES);
+        when(commandExecutor.execute(any())).thenReturn("\"approved\"".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Optional<String>> results = idempotencyService.checkAndMarkInProgressBatch(
+                List.of("a", "b"), MARKER, String.class, Duration.ofSeconds(1));
+
+        assertThat(results).containsExactly(Map.entry("a", Optional.empty()), Map.entry("b", Optional.of("approved")));
+        verify(idempotencyService, never()).removeIdempotencyKey(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pipelineReplies(Object... replies) {
+        when(redisTemplate.executePipelined(any(RedisCallback.class), any(RedisSerializer.class)))
+                .thenReturn(List.of(replies));
+    }
+}
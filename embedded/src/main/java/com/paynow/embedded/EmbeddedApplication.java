@@ -0,0 +1,41 @@
+package com.paynow.embedded;
+
+import com.paynow.accounts.AccountsServiceApplication;
+import com.paynow.cases.CaseServiceApplication;
+import com.paynow.payments.PaymentsServiceApplication;
+import com.paynow.risk.RiskServiceApplication;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Payments, accounts, risk and case services in one JVM, serving all their endpoints on the payments port.
+ * The agent's tools call the other services' beans directly (see {@link InProcessAccountsClient}) instead
+ * of going over HTTP; accounts and cases share one in-memory database.
+ * <p>
+ * Configuration is payments-service's {@code application.yml} with {@code embedded.yml} on top.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@ComponentScan(
+        basePackages = {"com.paynow.payments", "com.paynow.accounts", "com.paynow.risk", "com.paynow.cases",
+                "com.paynow.common", "com.paynow.embedded"},
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+                PaymentsServiceApplication.class, AccountsServiceApplication.class,
+                RiskServiceApplication.class, CaseServiceApplication.class}))
+@ConfigurationPropertiesScan("com.paynow.payments")
+@EntityScan({"com.paynow.accounts.entity", "com.paynow.cases.entity"})
+@EnableJpaRepositories({"com.paynow.accounts.repository", "com.paynow.cases.repository"})
+public class EmbeddedApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(EmbeddedApplication.class)
+                .properties("spring.config.name=application,embedded")
+                .run(args);
+    }
+}
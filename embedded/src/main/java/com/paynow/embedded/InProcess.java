@@ -0,0 +1,25 @@
+package com.paynow.embedded;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs an in-process service call as a lazy {@link Mono}. The services block on their database, so calls
+ * run on the bounded elastic scheduler rather than the subscriber's thread: the balance and risk lookups
+ * still overlap, and the tool's timeout can fire while a call is stuck.
+ */
+final class InProcess {
+
+    private InProcess() {
+    }
+
+    static <T> Mono<T> call(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    static Mono<Void> run(Runnable call) {
+        return Mono.<Void>fromRunnable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
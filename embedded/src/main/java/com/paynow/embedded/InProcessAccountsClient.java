@@ -0,0 +1,53 @@
+package com.paynow.embedded;
+
+import com.paynow.accounts.service.AccountService;
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
+import com.paynow.payments.agent.tools.AccountsClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * {@link AccountsClient} bound to the {@link AccountService} bean. The service already throws the
+ * exceptions the client contract asks for, so they are passed on unchanged.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "in-process")
+@RequiredArgsConstructor
+public class InProcessAccountsClient implements AccountsClient {
+
+    private final AccountService accountService;
+
+    @Override
+    public Mono<AccountBalanceResponse> getBalance(String customerId) {
+        return InProcess.call(() -> accountService.getBalance(customerId));
+    }
+
+    @Override
+    public Mono<List<AccountBalanceResponse>> getBalances(List<String> customerIds) {
+        // Deduped like the REST endpoint does
+        return InProcess.call(() -> accountService.getBalances(new LinkedHashSet<>(customerIds)));
+    }
+
+    @Override
+    public Mono<Void> reserveBalance(String customerId, BigDecimal amount, String requestId) {
+        return InProcess.run(() -> accountService.reserveBalance(customerId, amount, requestId));
+    }
+
+    @Override
+    public Mono<BalanceReservationResponse> reserveIfAvailable(String customerId, BigDecimal amount,
+                                                               String requestId) {
+        return InProcess.call(() -> accountService.reserveIfAvailable(customerId, amount, requestId));
+    }
+
+    @Override
+    public Mono<Void> releaseReservation(String requestId) {
+        return InProcess.run(() -> accountService.releaseReservation(requestId));
+    }
+}
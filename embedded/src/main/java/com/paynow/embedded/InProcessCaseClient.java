@@ -0,0 +1,27 @@
+package com.paynow.embedded;
+
+import com.paynow.cases.service.CaseService;
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.payments.agent.tools.CaseClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link CaseClient} bound to the {@link CaseService} bean
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "in-process")
+@RequiredArgsConstructor
+public class InProcessCaseClient implements CaseClient {
+
+    private final CaseService caseService;
+
+    @Override
+    public Mono<Void> createCases(List<CaseCreationRequest> requests) {
+        return InProcess.call(() -> caseService.createCases(requests)).then();
+    }
+}
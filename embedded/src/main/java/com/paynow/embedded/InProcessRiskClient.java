@@ -0,0 +1,34 @@
+package com.paynow.embedded;
+
+import com.paynow.common.dto.RiskSignalsQuery;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.payments.agent.tools.RiskClient;
+import com.paynow.risk.service.RiskService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * {@link RiskClient} bound to the {@link RiskService} bean
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "in-process")
+@RequiredArgsConstructor
+public class InProcessRiskClient implements RiskClient {
+
+    private final RiskService riskService;
+
+    @Override
+    public Mono<RiskSignalsResponse> getRiskSignals(String customerId, BigDecimal amount) {
+        return InProcess.call(() -> riskService.getRiskSignals(customerId, amount));
+    }
+
+    @Override
+    public Mono<List<RiskSignalsResponse>> getRiskSignalsBatch(List<RiskSignalsQuery> queries) {
+        return InProcess.call(() -> riskService.getRiskSignalsBatch(queries));
+    }
+}
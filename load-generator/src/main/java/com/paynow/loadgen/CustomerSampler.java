@@ -0,0 +1,41 @@
+package com.paynow.loadgen;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks customer ids {@code c_lg_1..c_lg_n} with Zipf-distributed popularity: customer of rank k is chosen
+ * with probability proportional to 1/k^skew. A skew of 0 is uniform; around 1 a few customers take most of
+ * the load, which is what per-customer rate limits, caches and locks see from hot accounts.
+ */
+final class CustomerSampler {
+
+    private static final String PREFIX = "c_lg_";
+
+    private final double[] cumulative;
+
+    CustomerSampler(int customers, double skew) {
+        this.cumulative = new double[customers];
+        double total = 0;
+        for (int rank = 1; rank <= customers; rank++) {
+            total += 1.0 / Math.pow(rank, skew);
+            cumulative[rank - 1] = total;
+        }
+        for (int i = 0; i < customers; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    String next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        int rank = (index >= 0 ? index : -index - 1) + 1;
+        return PREFIX + Math.min(rank, cumulative.length);
+    }
+
+    /**
+     * Share of requests that go to the most popular {@code top} customers
+     */
+    double shareOfTop(int top) {
+        return cumulative[Math.min(top, cumulative.length) - 1];
+    }
+}
@@ -0,0 +1,103 @@
+package com.paynow.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Open-loop load generator for the payment decision API.
+ * <p>
+ * Replays decision requests at one or more fixed arrival rates (see {@link OpenLoopRunner}) and prints,
+ * for each rate, the achieved throughput, coordinated-omission-corrected latency percentiles and response
+ * status counts. Stepping the rate up until latency or errors take off finds the saturation point. With
+ * {@code --stubs} it also serves stand-ins for the downstream services (see {@link StubServices}).
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            if (!e.getMessage().isEmpty()) {
+                System.err.println(e.getMessage());
+            }
+            System.err.print(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        if (options.stubsOnly()) {
+            try (StubServices ignored = StubServices.start(objectMapper, options.stubLatency())) {
+                new CountDownLatch(1).await();
+            }
+            return;
+        }
+
+        StubServices stubs = options.stubs() ? StubServices.start(objectMapper, options.stubLatency()) : null;
+        try {
+            run(options, objectMapper);
+        } finally {
+            if (stubs != null) {
+                stubs.close();
+            }
+        }
+    }
+
+    private static void run(LoadOptions options, ObjectMapper objectMapper) throws Exception {
+        CustomerSampler customers = null;
+        if (options.customers() > 0) {
+            customers = new CustomerSampler(options.customers(), options.skew());
+            System.out.printf("%d customers, Zipf skew %.2f: the top 1%% get %.0f%% of requests%n",
+                    options.customers(), options.skew(),
+                    100 * customers.shareOfTop(Math.max(1, options.customers() / 100)));
+        }
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        PayloadSource payloads = PayloadSource.load(objectMapper, options.payloads(), customers, runId);
+
+        System.out.printf("Target %s, rates %s/s, %ds warmup + %ds per rate%n", options.target(), options.rates(),
+                options.warmup().toSeconds(), options.duration().toSeconds());
+
+        List<StepResult> results = new ArrayList<>();
+        try (OpenLoopRunner runner = new OpenLoopRunner(options.target(), options.apiKey(), options.timeout(),
+                options.maxInFlight(), payloads)) {
+            for (int rate : options.rates()) {
+                StepResult result = runner.run(rate, options.warmup(), options.duration());
+                results.add(result);
+                if (options.output() != null) {
+                    Path file = distributionFile(options.output(), rate, options.rates().size() > 1);
+                    result.writeDistribution(file);
+                    System.out.println("Wrote " + file);
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.println("Latency from each request's scheduled send time (corrected for coordinated omission)");
+        System.out.println(StepResult.HEADER);
+        results.forEach(result -> System.out.println(result.row()));
+    }
+
+    /**
+     * {@code out.hgrm} for a single rate; {@code out-400.hgrm} and so on when stepping through several
+     */
+    private static Path distributionFile(Path output, int rate, boolean perRate) {
+        if (!perRate) {
+            return output;
+        }
+        String name = output.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stepName = dot > 0
+                ? name.substring(0, dot) + "-" + rate + name.substring(dot)
+                : name + "-" + rate;
+        return output.resolveSibling(stepName);
+    }
+}
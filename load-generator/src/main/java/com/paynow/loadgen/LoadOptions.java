@@ -0,0 +1,125 @@
+package com.paynow.loadgen;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Command-line options of the load generator; see {@link #USAGE}
+ */
+record LoadOptions(URI target,
+                   String apiKey,
+                   Path payloads,
+                   List<Integer> rates,
+                   Duration warmup,
+                   Duration duration,
+                   int customers,
+                   double skew,
+                   int maxInFlight,
+                   Duration timeout,
+                   Path output,
+                   boolean stubs,
+                   boolean stubsOnly,
+                   Duration stubLatency) {
+
+    static final String USAGE = """
+            Usage: java -jar load-generator/target/load-generator.jar [options]
+
+              --target <url>          endpoint to load (default http://localhost:8089/payments/decide)
+              --api-key <key>         X-API-Key header (default payment-api-key)
+              --payloads <file>       eval_test_cases.json, or JSON lines of requests (default eval_test_cases.json)
+              --rate <n>[,<n>...]     arrivals per second; several values run one step each (default 100)
+              --warmup <duration>     unrecorded load before each step (default 10s)
+              --duration <duration>   recorded load per step (default 60s)
+              --customers <n>         spread load over n synthetic customers; 0 keeps the payloads' (default 0)
+              --skew <s>              Zipf exponent over those customers; 0 is uniform (default 1.0)
+              --max-in-flight <n>     outstanding requests before arrivals queue (default 10000)
+              --timeout <duration>    per-request timeout (default 5s)
+              --output <file>         write each step's corrected latency distribution (.hgrm) here
+              --stubs                 serve stub accounts, risk and case services on 8081-8083 during the run
+              --stubs-only            only serve the stubs, until interrupted
+              --stub-latency <dur>    delay added to every stub response (default 2ms)
+
+            Durations are written like 500ms, 10s or 2m.
+            """;
+
+    static LoadOptions parse(String[] args) {
+        URI target = URI.create("http://localhost:8089/payments/decide");
+        String apiKey = "payment-api-key";
+        Path payloads = Path.of("eval_test_cases.json");
+        List<Integer> rates = List.of(100);
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(60);
+        int customers = 0;
+        double skew = 1.0;
+        int maxInFlight = 10_000;
+        Duration timeout = Duration.ofSeconds(5);
+        Path output = null;
+        boolean stubs = false;
+        boolean stubsOnly = false;
+        Duration stubLatency = Duration.ofMillis(2);
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            switch (option) {
+                case "--stubs" -> stubs = true;
+                case "--stubs-only" -> stubsOnly = true;
+                case "-h", "--help" -> throw new IllegalArgumentException("");
+                default -> {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Missing value for " + option);
+                    }
+                    String value = args[++i];
+                    switch (option) {
+                        case "--target" -> target = URI.create(value);
+                        case "--api-key" -> apiKey = value;
+                        case "--payloads" -> payloads = Path.of(value);
+                        case "--rate" -> rates = parseRates(value);
+                        case "--warmup" -> warmup = parseDuration(value);
+                        case "--duration" -> duration = parseDuration(value);
+                        case "--customers" -> customers = Integer.parseInt(value);
+                        case "--skew" -> skew = Double.parseDouble(value);
+                        case "--max-in-flight" -> maxInFlight = Integer.parseInt(value);
+                        case "--timeout" -> timeout = parseDuration(value);
+                        case "--output" -> output = Path.of(value);
+                        case "--stub-latency" -> stubLatency = parseDuration(value);
+                        default -> throw new IllegalArgumentException("Unknown option " + option);
+                    }
+                }
+            }
+        }
+        if (customers < 0 || skew < 0 || maxInFlight < 1 || duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("--customers, --skew and --max-in-flight must not be negative, "
+                    + "--duration must be positive");
+        }
+        return new LoadOptions(target, apiKey, payloads, rates, warmup, duration, customers, skew, maxInFlight,
+                timeout, output, stubs, stubsOnly, stubLatency);
+    }
+
+    private static List<Integer> parseRates(String value) {
+        List<Integer> rates = new ArrayList<>();
+        for (String rate : value.split(",")) {
+            int parsed = Integer.parseInt(rate.trim());
+            if (parsed < 1) {
+                throw new IllegalArgumentException("Rates must be at least 1 per second: " + value);
+            }
+            rates.add(parsed);
+        }
+        return List.copyOf(rates);
+    }
+
+    static Duration parseDuration(String value) {
+        String text = value.trim().toLowerCase(Locale.ROOT);
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        } else if (text.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(text.substring(0, text.length() - 1)));
+        } else if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        throw new IllegalArgumentException("Durations need a unit (ms, s or m): " + value);
+    }
+}
@@ -0,0 +1,189 @@
+package com.paynow.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate, whatever the target's response times.
+ * <p>
+ * Request i of a step is due at {@code start + i / rate}. Latency is recorded twice: from when the request
+ * was due (corrected) and from when it was actually sent (uncorrected). When the target slows down and
+ * sending falls behind schedule, for example because {@code maxInFlight} requests are outstanding, the
+ * corrected latency includes the time the request should already have been waiting. That is what a user
+ * arriving at that moment would have seen, and it is the figure that shows saturation: a closed-loop client
+ * would instead slow down with the target and under-report it (coordinated omission).
+ */
+final class OpenLoopRunner implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final HttpClient client;
+    private final URI target;
+    private final String apiKey;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final PayloadSource payloads;
+    private long sequence;
+
+    OpenLoopRunner(URI target, String apiKey, Duration timeout, int maxInFlight, PayloadSource payloads) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.target = target;
+        this.apiKey = apiKey;
+        this.timeout = timeout;
+        this.maxInFlight = maxInFlight;
+        this.payloads = payloads;
+    }
+
+    /**
+     * Run one step: {@code warmup} of unrecorded load, then {@code duration} of recorded load, both at
+     * {@code rate} arrivals per second, then wait for outstanding requests
+     */
+    StepResult run(int rate, Duration warmup, Duration duration) throws InterruptedException {
+        Step step = new Step(rate);
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("load-reporter").daemon().factory());
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        reporter.scheduleAtFixedRate(() -> step.report(start, measureFrom), 1, 1, TimeUnit.SECONDS);
+
+        double intervalNanos = 1e9 / rate;
+        try {
+            for (long i = 0; ; i++) {
+                long due = start + (long) (i * intervalNanos);
+                if (due >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                step.inFlight.acquire();
+                step.lagNanos.accumulateAndGet(System.nanoTime() - due, Math::max);
+                send(step, due, due >= measureFrom);
+            }
+            // Outstanding requests still count towards the step
+            if (!step.inFlight.tryAcquire(maxInFlight, timeout.toMillis() + 1000, TimeUnit.MILLISECONDS)) {
+                System.out.println("Some requests were still outstanding when the step ended");
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+        return step.result(duration);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    private void send(Step step, long due, boolean measured) {
+        byte[] body;
+        try {
+            body = payloads.body(sequence++);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        HttpRequest request = HttpRequest.newBuilder(target)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("X-API-Key", apiKey)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long done = System.nanoTime();
+                    step.live.recordValue(micros(done - due));
+                    if (measured) {
+                        step.corrected.recordValue(micros(done - due));
+                        step.uncorrected.recordValue(micros(done - sent));
+                        step.outcomes.computeIfAbsent(outcome(response, error), key -> new LongAdder()).increment();
+                    }
+                    step.inFlight.release();
+                });
+    }
+
+    private static String outcome(HttpResponse<?> response, Throwable error) {
+        if (response != null) {
+            return String.valueOf(response.statusCode());
+        }
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause instanceof HttpTimeoutException ? "timeout" : "error";
+    }
+
+    private static long micros(long nanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS);
+    }
+
+    /**
+     * Recording state of one step
+     */
+    private final class Step {
+
+        private final int rate;
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+        private final Recorder live = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Recorder corrected = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Recorder uncorrected = new Recorder(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        private final AtomicLong lagNanos = new AtomicLong();
+        private Histogram interval;
+
+        private Step(int rate) {
+            this.rate = rate;
+        }
+
+        /**
+         * One line per second: completions, latency from due time, and how far sending fell behind schedule
+         */
+        private void report(long start, long measureFrom) {
+            interval = live.getIntervalHistogram(interval);
+            long now = System.nanoTime();
+            System.out.printf("[%d/s] %s %4ds  done %6d  in flight %5d  p50 %8.2fms  p99 %8.2fms  max %8.2fms  "
+                            + "send lag %7.2fms%n",
+                    rate, now < measureFrom ? "warmup " : "measure",
+                    Math.round((now - start) / 1e9),
+                    interval.getTotalCount(), maxInFlight - inFlight.availablePermits(),
+                    millis(interval.getValueAtPercentile(50)), millis(interval.getValueAtPercentile(99)),
+                    millis(interval.getMaxValue()), lagNanos.getAndSet(0) / 1e6);
+        }
+
+        private StepResult result(Duration duration) {
+            Map<String, Long> counts = new TreeMap<>();
+            outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+            return new StepResult(rate, duration, counts,
+                    corrected.getIntervalHistogram(), uncorrected.getIntervalHistogram());
+        }
+    }
+
+    static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,76 @@
+package com.paynow.loadgen;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decision request bodies to replay, read from {@code eval_test_cases.json} (an array of test cases with a
+ * {@code request} field) or from JSON lines, each either a request or a test case. Entries without a
+ * {@code customerId} and {@code amount} are skipped.
+ * <p>
+ * Payloads are replayed round-robin. Every request gets a fresh idempotency key, so none is answered from
+ * the idempotency cache, and a customer id from the {@link CustomerSampler} when one is configured.
+ */
+final class PayloadSource {
+
+    private final ObjectMapper objectMapper;
+    private final List<ObjectNode> payloads;
+    private final CustomerSampler customers;
+    private final String keyPrefix;
+
+    private PayloadSource(ObjectMapper objectMapper, List<ObjectNode> payloads, CustomerSampler customers,
+                          String keyPrefix) {
+        this.objectMapper = objectMapper;
+        this.payloads = payloads;
+        this.customers = customers;
+        this.keyPrefix = keyPrefix;
+    }
+
+    /**
+     * @param customers {@code null} to keep each payload's customer id
+     */
+    static PayloadSource load(ObjectMapper objectMapper, Path file, CustomerSampler customers, String runId)
+            throws IOException {
+        List<JsonNode> entries = new ArrayList<>();
+        String content = Files.readString(file).strip();
+        if (content.startsWith("[")) {
+            objectMapper.readTree(content).forEach(entries::add);
+        } else {
+            for (String line : content.split("\\R")) {
+                if (!line.isBlank()) {
+                    entries.add(objectMapper.readTree(line));
+                }
+            }
+        }
+
+        List<ObjectNode> payloads = new ArrayList<>();
+        for (JsonNode entry : entries) {
+            JsonNode request = entry.has("request") ? entry.get("request") : entry;
+            if (request instanceof ObjectNode body && body.hasNonNull("customerId") && body.hasNonNull("amount")) {
+                payloads.add(body);
+            }
+        }
+        if (payloads.isEmpty()) {
+            throw new IllegalArgumentException("No decision requests (with customerId and amount) in " + file);
+        }
+        System.out.printf("Loaded %d of %d entries from %s%n", payloads.size(), entries.size(), file);
+        return new PayloadSource(objectMapper, List.copyOf(payloads), customers, "lg-" + runId + "-");
+    }
+
+    byte[] body(long sequence) throws JsonProcessingException {
+        ObjectNode body = payloads.get((int) (sequence % payloads.size())).deepCopy();
+        body.put("idempotencyKey", keyPrefix + sequence);
+        if (customers != null) {
+            body.put("customerId", customers.next());
+        }
+        return objectMapper.writeValueAsBytes(body);
+    }
+}
@@ -0,0 +1,58 @@
+package com.paynow.loadgen;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Outcome of one load step: status counts and latency histograms in microseconds, both over the
+ * recorded part of the step
+ */
+record StepResult(int rate, Duration duration, Map<String, Long> outcomes, Histogram corrected,
+                  Histogram uncorrected) {
+
+    static final String HEADER = String.format("%8s %10s %9s %9s %9s %9s %9s %9s  %s",
+            "rate/s", "achieved/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "raw p99", "outcomes");
+
+    long completed() {
+        return corrected.getTotalCount();
+    }
+
+    double achievedRate() {
+        return completed() / (duration.toNanos() / 1e9);
+    }
+
+    /**
+     * One summary row; latencies are corrected, except {@code raw p99} which is measured from the actual send
+     */
+    String row() {
+        return String.format("%8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f  %s",
+                rate, achievedRate(),
+                OpenLoopRunner.millis(corrected.getValueAtPercentile(50)),
+                OpenLoopRunner.millis(corrected.getValueAtPercentile(90)),
+                OpenLoopRunner.millis(corrected.getValueAtPercentile(99)),
+                OpenLoopRunner.millis(corrected.getValueAtPercentile(99.9)),
+                OpenLoopRunner.millis(corrected.getMaxValue()),
+                OpenLoopRunner.millis(uncorrected.getValueAtPercentile(99)),
+                outcomes);
+    }
+
+    /**
+     * Write the corrected distribution in milliseconds, in HdrHistogram's percentile format, which the
+     * HdrHistogram plotter reads
+     */
+    void writeDistribution(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            corrected.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.paynow.loadgen;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
+import com.paynow.common.dto.RiskSignalsQuery;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Stand-ins for accounts-service (8081), risk-service (8082) and case-service (8083) on the ports
+ * payments-service calls by default, so the gateway and payments-service can be loaded on one box without
+ * the databases behind the real services.
+ * <p>
+ * Every account exists, is active and has 10,000.00 available; holds always succeed and are not tracked.
+ * Risk is low below 1,000.00 and medium with a {@code high_amount} factor above. Cases are accepted and
+ * dropped. Each response waits {@code latency} first, standing in for the real services' own work.
+ */
+final class StubServices implements AutoCloseable {
+
+    static final int ACCOUNTS_PORT = 8081;
+    static final int RISK_PORT = 8082;
+    static final int CASE_PORT = 8083;
+
+    private static final BigDecimal AVAILABLE = new BigDecimal("10000.00");
+    private static final BigDecimal HIGH_AMOUNT = new BigDecimal("1000");
+    // The request body, read before the handler runs
+    private static final String BODY_ATTRIBUTE = "stub.body";
+
+    private final ObjectMapper objectMapper;
+    private final Duration latency;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    private StubServices(ObjectMapper objectMapper, Duration latency) {
+        this.objectMapper = objectMapper;
+        this.latency = latency;
+    }
+
+    static StubServices start(ObjectMapper objectMapper, Duration latency) throws IOException {
+        StubServices stubs = new StubServices(objectMapper, latency);
+        stubs.serve(ACCOUNTS_PORT, "/accounts", stubs::accounts);
+        stubs.serve(RISK_PORT, "/risk", stubs::risk);
+        stubs.serve(CASE_PORT, "/cases", exchange -> stubs.respond(exchange, 200, Map.of()));
+        System.out.printf("Stub accounts, risk and case services on ports %d-%d, %dms per response%n",
+                ACCOUNTS_PORT, CASE_PORT, latency.toMillis());
+        return stubs;
+    }
+
+    @Override
+    public void close() {
+        servers.forEach(server -> server.stop(0));
+        executor.close();
+    }
+
+    private void serve(int port, String path, Handler handler) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext(path, exchange -> {
+            try {
+                exchange.setAttribute(BODY_ATTRIBUTE, exchange.getRequestBody().readAllBytes());
+                Thread.sleep(latency);
+                handler.handle(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | RuntimeException e) {
+                if (exchange.getResponseCode() == -1) {
+                    exchange.sendResponseHeaders(500, -1);
+                }
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+        servers.add(server);
+    }
+
+    /**
+     * GET /accounts/{id}/balance, POST /accounts/balances, POST /accounts/{id}/reserve,
+     * POST /accounts/{id}/reserve-if-available and POST /accounts/reservations/{requestId}/release
+     */
+    private void accounts(HttpExchange exchange) throws IOException {
+        String[] path = segments(exchange);
+        if (path.length == 2 && path[1].equals("balances")) {
+            List<String> customerIds = objectMapper.readValue(body(exchange), new TypeReference<>() {});
+            respond(exchange, 200, customerIds.stream().map(StubServices::balance).toList());
+        } else if (path.length == 3 && path[2].equals("balance")) {
+            respond(exchange, 200, balance(path[1]));
+        } else if (path.length == 3 && path[2].equals("reserve-if-available")) {
+            respond(exchange, 200, BalanceReservationResponse.reserved(balance(path[1]),
+                    query(exchange).get("requestId")));
+        } else if (path.length == 3 && path[2].equals("reserve")
+                || path.length == 4 && path[1].equals("reservations")) {
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+        }
+    }
+
+    /**
+     * GET /risk/{id}/signals?amount= and POST /risk/signals/batch
+     */
+    private void risk(HttpExchange exchange) throws IOException {
+        String[] path = segments(exchange);
+        if (path.length == 3 && path[1].equals("signals") && path[2].equals("batch")) {
+            List<RiskSignalsQuery> queries = objectMapper.readValue(body(exchange), new TypeReference<>() {});
+            respond(exchange, 200, queries.stream().map(query -> risk(query.getCustomerId(), query.getAmount())).toList());
+        } else if (path.length == 3 && path[2].equals("signals")) {
+            respond(exchange, 200, risk(path[1], new BigDecimal(query(exchange).getOrDefault("amount", "0"))));
+        } else {
+            exchange.sendResponseHeaders(404, -1);
+        }
+    }
+
+    private static AccountBalanceResponse balance(String customerId) {
+        return new AccountBalanceResponse(customerId, AVAILABLE, AVAILABLE, "USD", "ACTIVE");
+    }
+
+    private static RiskSignalsResponse risk(String customerId, BigDecimal amount) {
+        if (amount.compareTo(HIGH_AMOUNT) > 0) {
+            return new RiskSignalsResponse(customerId, 45,
+                    List.of(new RiskSignalsResponse.RiskFactor("high_amount", "amount > 1000", 9)),
+                    RiskSignalsResponse.RiskLevel.MEDIUM);
+        }
+        return new RiskSignalsResponse(customerId, 10, List.of(), RiskSignalsResponse.RiskLevel.LOW);
+    }
+
+    private void respond(HttpExchange exchange, int status, Object value) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(value);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static byte[] body(HttpExchange exchange) {
+        return (byte[]) exchange.getAttribute(BODY_ATTRIBUTE);
+    }
+
+    private static String[] segments(HttpExchange exchange) {
+        return exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    parameters.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                            URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return parameters;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+}
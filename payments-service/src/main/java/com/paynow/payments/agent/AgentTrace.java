@@ -0,0 +1,84 @@
+package com.paynow.payments.agent;
+
+import com.paynow.common.dto.AgentTraceStep;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.TraceVerbosity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Append-only decision trace for one payment, safe to record into from concurrent tool calls.
+ * <p>
+ * Steps keep raw fields only: detail text is built from a supplier and timestamps are converted to
+ * {@link java.time.Instant} when the response is serialized, so callers that never read the trace
+ * don't pay for formatting. What gets recorded depends on the {@link TraceVerbosity}.
+ */
+public final class AgentTrace {
+
+    private final TraceVerbosity verbosity;
+    private final Queue<AgentTraceStep> steps = new ConcurrentLinkedQueue<>();
+
+    public AgentTrace(TraceVerbosity verbosity) {
+        this.verbosity = verbosity;
+    }
+
+    public void plan(String detail) {
+        if (verbosity == TraceVerbosity.FULL) {
+            record("plan", () -> detail, null);
+        }
+    }
+
+    public void plan(Supplier<String> detail) {
+        if (verbosity == TraceVerbosity.FULL) {
+            record("plan", detail, null);
+        }
+    }
+
+    public void tool(String toolName, Supplier<String> detail) {
+        tool(toolName, detail, null);
+    }
+
+    /**
+     * Tool calls are kept in the summary, but without their detail text
+     */
+    public void tool(String toolName, Supplier<String> detail, Long durationMs) {
+        switch (verbosity) {
+            case FULL -> record("tool:" + toolName, detail, durationMs);
+            case SUMMARY -> record("tool:" + toolName, null, durationMs);
+            case NONE -> { }
+        }
+    }
+
+    public void decision(String detail) {
+        if (verbosity == TraceVerbosity.FULL) {
+            record("decision", () -> detail, null);
+        }
+    }
+
+    public void error(Supplier<String> detail) {
+        if (verbosity != TraceVerbosity.NONE) {
+            record("error", detail, null);
+        }
+    }
+
+    public void finalDecision(PaymentDecisionResponse.DecisionType decision, int factorCount) {
+        if (verbosity != TraceVerbosity.NONE) {
+            record("decision", () -> "Final decision: " + decision + " based on " + factorCount + " factors", null);
+        }
+    }
+
+    /**
+     * Snapshot of the steps in the order they were recorded
+     */
+    public List<AgentTraceStep> steps() {
+        return new ArrayList<>(steps);
+    }
+
+    private void record(String step, Supplier<String> detail, Long durationMs) {
+        steps.add(AgentTraceStep.deferred(step, detail, System.currentTimeMillis(), durationMs));
+    }
+}
@@ -0,0 +1,67 @@
+package com.paynow.payments.agent;
+
+import com.paynow.common.exception.PaymentException;
+
+import java.time.Duration;
+
+/**
+ * Absolute point in time by which a payment decision must be done. Tool calls, hedges and retries
+ * all draw their timeouts from the time remaining instead of each having a fixed timeout of its own.
+ */
+public final class Deadline {
+
+    public static final String EXCEEDED = "DEADLINE_EXCEEDED";
+
+    private final long deadlineNanos;
+    private final Duration budget;
+
+    private Deadline(long deadlineNanos, Duration budget) {
+        this.deadlineNanos = deadlineNanos;
+        this.budget = budget;
+    }
+
+    public static Deadline after(Duration budget) {
+        return new Deadline(System.nanoTime() + budget.toNanos(), budget);
+    }
+
+    /**
+     * Time left, never negative
+     */
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, deadlineNanos - System.nanoTime()));
+    }
+
+    public long remainingMillis() {
+        return remaining().toMillis();
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * The budget this deadline was created with
+     */
+    public Duration getBudget() {
+        return budget;
+    }
+
+    /**
+     * Remaining time to use as a timeout for the next call.
+     *
+     * @throws PaymentException with code DEADLINE_EXCEEDED if nothing is left
+     */
+    public Duration timeout(String operation) {
+        Duration remaining = remaining();
+        if (remaining.isZero()) {
+            throw new PaymentException(EXCEEDED,
+                    "Deadline of " + budget.toMillis() + "ms exceeded before " + operation);
+        }
+        return remaining;
+    }
+
+    @Override
+    public String toString() {
+        return "Deadline{remainingMs=" + remainingMillis() + ", budgetMs=" + budget.toMillis() + '}';
+    }
+}
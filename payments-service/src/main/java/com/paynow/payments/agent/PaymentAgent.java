@@ -1,25 +1,37 @@
 package com.paynow.payments.agent;
 
 import com.paynow.common.dto.AccountBalanceResponse;
-import com.paynow.common.dto.AgentTraceStep;
+import com.paynow.common.dto.BalanceReservationResponse;
 import com.paynow.common.dto.CaseCreationRequest;
 import com.paynow.common.dto.PaymentDecisionRequest;
 import com.paynow.common.dto.PaymentDecisionResponse;
 import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.common.dto.TraceVerbosity;
 import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.rules.DecisionRuleEngine;
+import com.paynow.payments.agent.rules.RuleOutcome;
 import com.paynow.payments.agent.tools.AccountTool;
-import com.paynow.payments.agent.tools.CaseTool;
+import com.paynow.payments.agent.tools.ResilienceProperties;
 import com.paynow.payments.agent.tools.RiskTool;
+import com.paynow.payments.agent.tools.ToolGuard;
+import com.paynow.payments.config.ToolExecutor;
+import com.paynow.payments.metrics.LatencyStage;
+import com.paynow.payments.metrics.PaymentMetrics;
+import com.paynow.payments.outbox.CaseOutbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * AI Agent orchestrator for payment decisions
@@ -28,212 +40,532 @@ import java.util.concurrent.CompletableFuture;
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentAgent {
-    
-    private static final BigDecimal HIGH_AMOUNT_THRESHOLD = new BigDecimal("500.00");
-    private static final BigDecimal VERY_HIGH_AMOUNT_THRESHOLD = new BigDecimal("1000.00");
+
+    // Reservations a batch has in flight at once
+    private static final int RESERVE_CONCURRENCY = 16;
 
     private final AccountTool accountTool;
     private final RiskTool riskTool;
-    private final CaseTool caseTool;
+    private final CaseOutbox caseOutbox;
+    private final ToolExecutor toolExecutor;
+    private final DecisionRuleEngine ruleEngine;
+    private final ToolGuard toolGuard;
+    private final ResilienceProperties resilienceProperties;
+    private final PaymentMetrics paymentMetrics;
 
-    @Retryable(value = {Exception.class}, maxAttempts = 2, backoff = @Backoff(delay = 500))
-    public PaymentDecisionResponse processPayment(PaymentDecisionRequest request, String requestId) {
-        List<AgentTraceStep> agentTrace = new ArrayList<>();
+    /**
+     * Decide one payment within {@code deadline}. There is no retry at this level: each tool call
+     * retries on its own, and only while the deadline leaves room for it.
+     */
+    public PaymentDecisionResponse processPayment(PaymentDecisionRequest request, String requestId,
+                                                  TraceVerbosity verbosity, Deadline deadline) {
+        AgentTrace agentTrace = new AgentTrace(verbosity);
         List<String> reasons = new ArrayList<>();
+        CompletableFuture<BalanceReservationResponse> reservationFuture = null;
+
+        // Fail fast while a required service's circuit is open, before any tool call is made
+        String openTool = toolGuard.firstOpen(ToolGuard.ACCOUNTS, ToolGuard.RISK);
+        if (openTool != null) {
+            return toolFallback(openTool, requestId, reasons, agentTrace);
+        }
 
         try {
             // Step 1: Planning
-            agentTrace.add(AgentTraceStep.plan(
+            agentTrace.plan(() ->
                     "Analyzing payment: " + request.getAmount() + " " + request.getCurrency() + 
-                    " - will check balance, risk signals, and apply decision rules"));
+                    " - will check balance with a speculative hold, risk signals, and apply decision rules");
 
-            // Step 2: Gather information in parallel
+            // Step 2: Gather information in parallel. The balance lookup also places the hold an ALLOW
+            // needs, so the common path makes no second accounts call; the hold is released otherwise.
             long toolStartTime = System.currentTimeMillis();
             
-            CompletableFuture<AccountBalanceResponse> balanceFuture = CompletableFuture
+            reservationFuture = toolExecutor
                     .supplyAsync(() -> {
-                        long start = System.currentTimeMillis();
-                        AccountBalanceResponse balance = accountTool.getBalance(request.getCustomerId());
-                        long duration = System.currentTimeMillis() - start;
-                        agentTrace.add(AgentTraceStep.tool("getBalance", 
-                                String.format("balance=%.2f, available=%.2f, status=%s", 
-                                        balance.getBalance(), balance.getAvailableBalance(), 
-                                        balance.getAccountStatus()), duration));
-                        return balance;
+                        long start = System.nanoTime();
+                        BalanceReservationResponse reservation = accountTool.reserveIfAvailable(
+                                request.getCustomerId(), request.getAmount(), requestId, deadline);
+                        long duration = System.nanoTime() - start;
+                        paymentMetrics.recordStage(LatencyStage.GET_BALANCE, duration);
+                        agentTrace.tool("reserveIfAvailable", () -> reservationDetail(reservation),
+                                TimeUnit.NANOSECONDS.toMillis(duration));
+                        return reservation;
                     });
 
-            CompletableFuture<RiskSignalsResponse> riskFuture = CompletableFuture
+            CompletableFuture<RiskSignalsResponse> riskFuture = toolExecutor
                     .supplyAsync(() -> {
-                        long start = System.currentTimeMillis();
-                        RiskSignalsResponse risk = riskTool.getRiskSignals(request.getCustomerId(), request.getAmount());
-                        long duration = System.currentTimeMillis() - start;
-                        
-                        String riskDetails = String.format("riskScore=%d, level=%s, factors=%s",
-                                risk.getRiskScore(), risk.getRiskLevel(), 
-                                risk.getRiskFactors().stream()
-                                        .map(RiskSignalsResponse.RiskFactor::toString)
-                                        .toList());
-                        
-                        agentTrace.add(AgentTraceStep.tool("getRiskSignals", riskDetails, duration));
+                        long start = System.nanoTime();
+                        RiskSignalsResponse risk = riskTool.getRiskSignals(
+                                request.getCustomerId(), request.getAmount(), deadline);
+                        long duration = System.nanoTime() - start;
+                        paymentMetrics.recordStage(LatencyStage.GET_RISK_SIGNALS, duration);
+
+                        agentTrace.tool("getRiskSignals", () -> riskDetail(risk),
+                                TimeUnit.NANOSECONDS.toMillis(duration));
                         return risk;
                     });
 
             // Wait for both tools to complete
-            CompletableFuture.allOf(balanceFuture, riskFuture).join();
+            CompletableFuture.allOf(reservationFuture, riskFuture).join();
             
-            AccountBalanceResponse balance = balanceFuture.get();
+            BalanceReservationResponse reservation = reservationFuture.get();
             RiskSignalsResponse risk = riskFuture.get();
 
             long toolsCompletedTime = System.currentTimeMillis();
             log.info("Agent tools completed in {}ms", toolsCompletedTime - toolStartTime);
 
-            // Step 3: Decision logic
-            PaymentDecisionResponse.DecisionType decision = makeDecision(
-                    request, balance, risk, reasons, agentTrace);
-
-            // Step 3.1: Concurrency safety - reserve balance on ALLOW
-            if (decision == PaymentDecisionResponse.DecisionType.ALLOW) {
-                long reserveStart = System.currentTimeMillis();
-                try {
-                    accountTool.reserveBalance(request.getCustomerId(), request.getAmount(), requestId);
-                    long reserveDuration = System.currentTimeMillis() - reserveStart;
-                    agentTrace.add(AgentTraceStep.tool("reserveBalance",
-                            String.format("reserved=%.2f", request.getAmount()),
-                            reserveDuration));
-                } catch (PaymentException e) {
-                    reasons.add("reserve_failed");
-                    agentTrace.add(AgentTraceStep.error("reserveBalance failed: " + e.getMessage()));
-                    agentTrace.add(AgentTraceStep.decision("Reservation failed after ALLOW - BLOCK"));
-                    decision = PaymentDecisionResponse.DecisionType.BLOCK;
-                } catch (Exception e) {
-                    reasons.add("reserve_failed");
-                    agentTrace.add(AgentTraceStep.error("reserveBalance unexpected error: " + e.getMessage()));
-                    agentTrace.add(AgentTraceStep.decision("Reservation failed after ALLOW - BLOCK"));
-                    decision = PaymentDecisionResponse.DecisionType.BLOCK;
-                }
+            return completeSpeculativeDecision(request, requestId, reservation, risk, reasons, agentTrace);
+
+        } catch (Exception e) {
+            // The failed decision falls back to REVIEW, so a hold placed (or still being placed) must go
+            if (reservationFuture != null) {
+                releaseWhenHeld(reservationFuture, request.getCustomerId(), requestId, agentTrace);
             }
+            PaymentException.ToolUnavailableException unavailable = findToolUnavailable(e);
+            if (unavailable != null) {
+                return toolFallback(unavailable.getTool(), requestId, reasons, agentTrace);
+            }
+            return agentFailure(e, requestId, reasons, agentTrace);
+        }
+    }
 
-            // Step 4: Create case if needed (for review or block)
-            if (decision != PaymentDecisionResponse.DecisionType.ALLOW) {
-                long caseStartTime = System.currentTimeMillis();
-                
-                CaseCreationRequest caseRequest = new CaseCreationRequest(
-                        request.getCustomerId(), request.getAmount(), request.getCurrency(),
-                        request.getPayeeId(), 
-                        decision == PaymentDecisionResponse.DecisionType.REVIEW ? 
-                                CaseCreationRequest.CaseType.REVIEW : CaseCreationRequest.CaseType.BLOCK,
-                        new ArrayList<>(reasons), risk.getRiskScore(), requestId);
-
-                caseTool.createCase(caseRequest);
-                
-                long caseDuration = System.currentTimeMillis() - caseStartTime;
-                agentTrace.add(AgentTraceStep.tool("createCase", 
-                        "Created " + decision.toString().toLowerCase() + " case with ID: " + 
-                        "case_" + requestId.substring(4), caseDuration));
+    /**
+     * Decide a batch of payments using balance and risk snapshots that were fetched up front, as the batch
+     * endpoint does after coalescing downstream lookups. A {@code null} snapshot means the account was
+     * not found or the lookup failed; either ends in the safe REVIEW fallback, as it would on the
+     * single-payment path.
+     * <p>
+     * Rules run for every payment first. The ALLOWs then reserve their balance, up to
+     * {@value #RESERVE_CONCURRENCY} at a time, and the REVIEW and BLOCK cases are appended to the outbox
+     * with one fsync for the whole batch.
+     *
+     * @param requestIds the ID each payment's reservation and case are recorded under, in request order
+     * @param risks      risk signals in request order, or {@code null} if the lookup failed
+     * @return one decision per payment, in request order
+     */
+    public List<PaymentDecisionResponse> processWithSnapshots(List<PaymentDecisionRequest> requests,
+                                                              List<String> requestIds,
+                                                              Map<String, AccountBalanceResponse> balances,
+                                                              List<RiskSignalsResponse> risks,
+                                                              TraceVerbosity verbosity, Deadline deadline) {
+        List<BatchItem> items = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            PaymentDecisionRequest request = requests.get(i);
+            BatchItem item = new BatchItem(request, requestIds.get(i), risks != null ? risks.get(i) : null,
+                    new AgentTrace(verbosity));
+            decideWithSnapshots(item, balances.get(request.getCustomerId()));
+            items.add(item);
+        }
+
+        // Step 3.1: Concurrency safety - reserve balance on ALLOW, a bounded number at a time
+        List<BatchItem> allowed = items.stream()
+                .filter(item -> item.response == null && item.decision == PaymentDecisionResponse.DecisionType.ALLOW)
+                .toList();
+        if (!allowed.isEmpty()) {
+            Flux.fromIterable(allowed)
+                    .flatMap(item -> reserveReactive(item, deadline), RESERVE_CONCURRENCY)
+                    .then()
+                    .block();
+        }
+
+        // Step 4: Create cases for review and block, with one fsync; delivered from the outbox
+        List<BatchItem> flagged = items.stream()
+                .filter(item -> item.response == null && item.decision != PaymentDecisionResponse.DecisionType.ALLOW)
+                .toList();
+        if (!flagged.isEmpty()) {
+            long caseStartTime = System.nanoTime();
+            try {
+                caseOutbox.appendAll(flagged.stream()
+                        .map(item -> buildCaseRequest(item.request, item.requestId, item.decision, item.risk,
+                                item.reasons))
+                        .toList());
+                flagged.forEach(item ->
+                        recordCaseCreated(item.decision, item.requestId, caseStartTime, item.agentTrace));
+            } catch (Exception e) {
+                flagged.forEach(item -> item.response = agentFailure(e, item.requestId, item.reasons, item.agentTrace));
+            }
+        }
+
+        // Step 5: Final decision traces
+        List<PaymentDecisionResponse> responses = new ArrayList<>(items.size());
+        for (BatchItem item : items) {
+            responses.add(item.response != null
+                    ? item.response
+                    : finalResponse(item.decision, item.reasons, item.agentTrace, item.requestId));
+        }
+        return responses;
+    }
+
+    private void decideWithSnapshots(BatchItem item, AccountBalanceResponse balance) {
+        PaymentDecisionRequest request = item.request;
+        AgentTrace agentTrace = item.agentTrace;
+        try {
+            agentTrace.plan(() ->
+                    "Analyzing payment: " + request.getAmount() + " " + request.getCurrency() +
+                    " - using batched balance and risk lookups, then applying decision rules");
+
+            if (balance == null) {
+                throw new PaymentException("ACCOUNTS_SERVICE_ERROR", "Account balance unavailable for customer",
+                        item.requestId);
             }
+            agentTrace.tool("getBalance", () -> balanceDetail(balance) + " (batched)");
 
-            // Step 5: Final decision trace
-            agentTrace.add(AgentTraceStep.decision(
-                    String.format("Final decision: %s based on %d factors", 
-                            decision, reasons.size())));
+            RiskSignalsResponse risk = item.risk;
+            if (risk == null) {
+                throw new PaymentException("RISK_SERVICE_ERROR", "Risk signals unavailable", item.requestId);
+            }
+            agentTrace.tool("getRiskSignals", () -> riskDetail(risk) + " (batched)");
 
-            return new PaymentDecisionResponse(decision, reasons, agentTrace, requestId);
+            // Step 3: Decision logic
+            item.decision = makeDecision(request, balance, risk, item.reasons, agentTrace);
 
         } catch (Exception e) {
-            log.error("Agent processing failed: {}", e.getMessage(), e);
-            agentTrace.add(AgentTraceStep.error("Agent processing failed: " + e.getMessage()));
-            
-            // Return a safe decision on agent failure
-            reasons.add("agent_processing_error");
-            return new PaymentDecisionResponse(
-                    PaymentDecisionResponse.DecisionType.REVIEW, 
-                    reasons, agentTrace, requestId);
+            item.response = agentFailure(e, item.requestId, item.reasons, agentTrace);
         }
     }
 
-    private PaymentDecisionResponse.DecisionType makeDecision(
-            PaymentDecisionRequest request,
-            AccountBalanceResponse balance,
-            RiskSignalsResponse risk,
-            List<String> reasons,
-            List<AgentTraceStep> agentTrace) {
+    private Mono<Void> reserveReactive(BatchItem item, Deadline deadline) {
+        return Mono.defer(() -> {
+            long reserveStart = System.nanoTime();
+            return accountTool.reserveBalanceReactive(item.request.getCustomerId(), item.request.getAmount(),
+                            item.requestId, deadline)
+                    .then(Mono.<Void>fromRunnable(() -> recordReserved(item.request, reserveStart, item.agentTrace)))
+                    .onErrorResume(e -> {
+                        item.decision = recordReserveFailure(e, item.request, item.requestId, item.reasons,
+                                item.agentTrace);
+                        return Mono.empty();
+                    });
+        });
+    }
 
-        agentTrace.add(AgentTraceStep.plan("Evaluating decision factors"));
+    /**
+     * Non-blocking variant of {@link #processPayment}, with the same flow: the speculative hold and the
+     * risk lookup run concurrently on the WebClient event loop, and no thread is parked while a downstream
+     * call is in flight. Only a REVIEW or BLOCK moves to the bounded elastic scheduler, to release the hold
+     * and wait for the outbox fsync.
+     */
+    public Mono<PaymentDecisionResponse> processPaymentReactive(PaymentDecisionRequest request, String requestId,
+                                                                TraceVerbosity verbosity, Deadline deadline) {
+        AgentTrace agentTrace = new AgentTrace(verbosity);
+        List<String> reasons = new ArrayList<>();
+        AtomicReference<BalanceReservationResponse> placed = new AtomicReference<>();
 
-        // Check account status first
-        if (!"ACTIVE".equals(balance.getAccountStatus())) {
-            reasons.add("account_not_active");
-            agentTrace.add(AgentTraceStep.decision("Account not active - BLOCK"));
-            return PaymentDecisionResponse.DecisionType.BLOCK;
-        }
+        // Step 1: Planning
+        agentTrace.plan(() ->
+                "Analyzing payment: " + request.getAmount() + " " + request.getCurrency() +
+                " - will check balance with a speculative hold, risk signals, and apply decision rules");
 
-        // Check insufficient funds
-        if (balance.getAvailableBalance().compareTo(request.getAmount()) < 0) {
-            reasons.add("insufficient_funds");
-            agentTrace.add(AgentTraceStep.decision("Insufficient funds - BLOCK"));
-            return PaymentDecisionResponse.DecisionType.BLOCK;
+        // Fail fast while a required service's circuit is open, before any tool call is made
+        String openTool = toolGuard.firstOpen(ToolGuard.ACCOUNTS, ToolGuard.RISK);
+        if (openTool != null) {
+            return Mono.just(toolFallback(openTool, requestId, reasons, agentTrace));
         }
 
-        // Risk-based decisions
-        boolean hasHighRisk = false;
-        
-        if (risk.getRiskLevel() == RiskSignalsResponse.RiskLevel.CRITICAL) {
-            reasons.add("critical_risk_level");
-            hasHighRisk = true;
-        } else if (risk.getRiskLevel() == RiskSignalsResponse.RiskLevel.HIGH) {
-            reasons.add("high_risk_level");
-            hasHighRisk = true;
+        // Step 2: Gather information in parallel. The balance lookup also places the hold an ALLOW
+        // needs; a failed risk lookup still waits for it, so a placed hold is known and released.
+        long toolStartTime = System.currentTimeMillis();
+
+        return Mono.zipDelayError(
+                        timed(accountTool.reserveIfAvailableReactive(
+                                request.getCustomerId(), request.getAmount(), requestId, deadline),
+                                LatencyStage.GET_BALANCE).doOnNext(placed::set).elapsed(),
+                        timed(riskTool.getRiskSignalsReactive(request.getCustomerId(), request.getAmount(), deadline),
+                                LatencyStage.GET_RISK_SIGNALS).elapsed())
+                .flatMap(tools -> {
+                    BalanceReservationResponse reservation = tools.getT1().getT2();
+                    RiskSignalsResponse risk = tools.getT2().getT2();
+                    agentTrace.tool("reserveIfAvailable", () -> reservationDetail(reservation), tools.getT1().getT1());
+                    agentTrace.tool("getRiskSignals", () -> riskDetail(risk), tools.getT2().getT1());
+
+                    log.info("Agent tools completed in {}ms", System.currentTimeMillis() - toolStartTime);
+
+                    PaymentDecisionResponse.DecisionType decision = speculativeDecision(
+                            request, requestId, reservation, risk, reasons, agentTrace);
+                    if (decision == PaymentDecisionResponse.DecisionType.ALLOW) {
+                        return Mono.just(finalResponse(decision, reasons, agentTrace, requestId));
+                    }
+                    // The release and the outbox fsync block, so they must not run on the event loop
+                    return Mono.fromCallable(() -> flagSpeculativeDecision(
+                                    request, requestId, decision, reservation, risk, reasons, agentTrace))
+                            .subscribeOn(Schedulers.boundedElastic());
+                })
+                .onErrorResume(e -> {
+                    // The failed decision falls back to REVIEW, so a hold placed must go
+                    BalanceReservationResponse reservation = placed.get();
+                    if (reservation != null && reservation.isReserved()) {
+                        toolExecutor.runAsync(() -> releaseHold(request.getCustomerId(), requestId, agentTrace));
+                    }
+                    PaymentException.ToolUnavailableException unavailable = findToolUnavailable(e);
+                    return Mono.just(unavailable != null
+                            ? toolFallback(unavailable.getTool(), requestId, reasons, agentTrace)
+                            : agentFailure(e, requestId, reasons, agentTrace));
+                });
+    }
+
+    private PaymentDecisionResponse completeSpeculativeDecision(PaymentDecisionRequest request, String requestId,
+                                                                BalanceReservationResponse reservation,
+                                                                RiskSignalsResponse risk, List<String> reasons,
+                                                                AgentTrace agentTrace) {
+        PaymentDecisionResponse.DecisionType decision = speculativeDecision(
+                request, requestId, reservation, risk, reasons, agentTrace);
+        if (decision == PaymentDecisionResponse.DecisionType.ALLOW) {
+            return finalResponse(decision, reasons, agentTrace, requestId);
         }
+        return flagSpeculativeDecision(request, requestId, decision, reservation, risk, reasons, agentTrace);
+    }
 
-        if (risk.getRiskScore() > 80) {
-            reasons.add("high_risk_score");
-            hasHighRisk = true;
+    private PaymentDecisionResponse.DecisionType speculativeDecision(PaymentDecisionRequest request, String requestId,
+                                                                     BalanceReservationResponse reservation,
+                                                                     RiskSignalsResponse risk, List<String> reasons,
+                                                                     AgentTrace agentTrace) {
+        // Step 3: Decision logic, on the snapshot taken before the hold
+        PaymentDecisionResponse.DecisionType decision = makeDecision(
+                request, reservation.getBalance(), risk, reasons, agentTrace);
+
+        // Step 3.1: Concurrency safety - an ALLOW keeps the speculative hold
+        if (decision == PaymentDecisionResponse.DecisionType.ALLOW) {
+            if (reservation.isReserved()) {
+                agentTrace.tool("reserveBalance",
+                        () -> String.format("reserved=%.2f (speculative hold kept)", request.getAmount()));
+            } else {
+                decision = recordReserveFailure(new PaymentException("RESERVE_NOT_PLACED",
+                        "hold not placed: " + reservation.getReason(), requestId), request, requestId, reasons,
+                        agentTrace);
+            }
         }
+        return decision;
+    }
+
+    /**
+     * Finish a REVIEW or BLOCK: create its case, releasing the hold alongside. Blocks until the case is
+     * on disk.
+     */
+    private PaymentDecisionResponse flagSpeculativeDecision(PaymentDecisionRequest request, String requestId,
+                                                            PaymentDecisionResponse.DecisionType decision,
+                                                            BalanceReservationResponse reservation,
+                                                            RiskSignalsResponse risk, List<String> reasons,
+                                                            AgentTrace agentTrace) {
+        // Step 4: Create case (for review or block), releasing the hold alongside; the case is delivered
+        // from the outbox
+        CompletableFuture<Void> release = reservation.isReserved()
+                ? toolExecutor.runAsync(() -> releaseHold(request.getCustomerId(), requestId, agentTrace))
+                : CompletableFuture.completedFuture(null);
+
+        long caseStartTime = System.nanoTime();
 
-        // Check individual risk factors
-        for (RiskSignalsResponse.RiskFactor factor : risk.getRiskFactors()) {
-            if (factor.getWeight() >= 8) { // High weight factors
-                reasons.add("risk_factor_" + factor.getType());
-                if (factor.getWeight() >= 9) {
-                    hasHighRisk = true;
-                }
+        caseOutbox.append(buildCaseRequest(request, requestId, decision, risk, reasons));
+
+        recordCaseCreated(decision, requestId, caseStartTime, agentTrace);
+        release.join();
+
+        // Step 5: Final decision trace
+        return finalResponse(decision, reasons, agentTrace, requestId);
+    }
+
+    private void releaseWhenHeld(CompletableFuture<BalanceReservationResponse> reservationFuture, String customerId,
+                                 String requestId, AgentTrace agentTrace) {
+        reservationFuture.thenAccept(reservation -> {
+            if (reservation != null && reservation.isReserved()) {
+                releaseHold(customerId, requestId, agentTrace);
             }
+        });
+    }
+
+    /**
+     * Release a speculative hold. A failure is logged rather than failing the decision; the hold is
+     * keyed by requestId so it can be released later.
+     */
+    private void releaseHold(String customerId, String requestId, AgentTrace agentTrace) {
+        long start = System.currentTimeMillis();
+        try {
+            accountTool.releaseReservation(customerId, requestId);
+            agentTrace.tool("releaseReservation", () -> "released speculative hold",
+                    System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to release speculative hold for requestId {}: {}", requestId, e.getMessage());
+            agentTrace.error(() -> "releaseReservation failed: " + e.getMessage());
         }
+    }
+
+    private static String balanceDetail(AccountBalanceResponse balance) {
+        return String.format("balance=%.2f, available=%.2f, status=%s",
+                balance.getBalance(), balance.getAvailableBalance(), balance.getAccountStatus());
+    }
+
+    private static String reservationDetail(BalanceReservationResponse reservation) {
+        return balanceDetail(reservation.getBalance()) + ", reserved=" + reservation.isReserved() +
+                (reservation.isReserved() ? "" : " (" + reservation.getReason() + ")");
+    }
+
+    private static String riskDetail(RiskSignalsResponse risk) {
+        return String.format("riskScore=%d, level=%s, factors=%s",
+                risk.getRiskScore(), risk.getRiskLevel(),
+                risk.getRiskFactors().stream()
+                        .map(RiskSignalsResponse.RiskFactor::toString)
+                        .toList());
+    }
 
-        // Amount-based rules
-        boolean highAmountTransaction = request.getAmount().compareTo(HIGH_AMOUNT_THRESHOLD) > 0;
-        boolean veryHighAmountTransaction = request.getAmount().compareTo(VERY_HIGH_AMOUNT_THRESHOLD) > 0;
+    private void recordReserved(PaymentDecisionRequest request, long startNanos, AgentTrace agentTrace) {
+        long duration = System.nanoTime() - startNanos;
+        paymentMetrics.recordStage(LatencyStage.RESERVE, duration);
+        agentTrace.tool("reserveBalance",
+                () -> String.format("reserved=%.2f", request.getAmount()),
+                TimeUnit.NANOSECONDS.toMillis(duration));
+    }
 
-        if (veryHighAmountTransaction) {
-            reasons.add("very_high_amount_transaction");
-            hasHighRisk = true;
-        } else if (highAmountTransaction) {
-            reasons.add("high_amount_transaction");
+    /**
+     * Decision after a failed reservation: BLOCK, or REVIEW if the deadline ran out first, since the
+     * payment was allowed and only time was missing. A hold may still have been placed after the call
+     * was cut off, so it is released in the background.
+     */
+    private PaymentDecisionResponse.DecisionType recordReserveFailure(Throwable e, PaymentDecisionRequest request,
+                                                                     String requestId, List<String> reasons,
+                                                                     AgentTrace agentTrace) {
+        if (isDeadlineExceeded(e)) {
+            reasons.add("deadline_exceeded");
+            agentTrace.error(() -> "reserveBalance did not finish within the deadline: " + e.getMessage());
+            agentTrace.decision("Reservation timed out after ALLOW - REVIEW");
+            toolExecutor.runAsync(() -> releaseHold(request.getCustomerId(), requestId, agentTrace));
+            return PaymentDecisionResponse.DecisionType.REVIEW;
+        }
+        reasons.add("reserve_failed");
+        if (e instanceof PaymentException) {
+            agentTrace.error(() -> "reserveBalance failed: " + e.getMessage());
+        } else {
+            agentTrace.error(() -> "reserveBalance unexpected error: " + e.getMessage());
         }
+        agentTrace.decision("Reservation failed after ALLOW - BLOCK");
+        return PaymentDecisionResponse.DecisionType.BLOCK;
+    }
 
-        // Final decision logic
-        if (hasHighRisk) {
-            if (veryHighAmountTransaction || risk.getRiskLevel() == RiskSignalsResponse.RiskLevel.CRITICAL) {
-                agentTrace.add(AgentTraceStep.decision("High risk + critical factors - BLOCK"));
-                return PaymentDecisionResponse.DecisionType.BLOCK;
-            } else {
-                agentTrace.add(AgentTraceStep.decision("High risk detected - REVIEW"));
-                return PaymentDecisionResponse.DecisionType.REVIEW;
+    private static CaseCreationRequest buildCaseRequest(PaymentDecisionRequest request, String requestId,
+                                                        PaymentDecisionResponse.DecisionType decision,
+                                                        RiskSignalsResponse risk, List<String> reasons) {
+        return new CaseCreationRequest(
+                request.getCustomerId(), request.getAmount(), request.getCurrency(),
+                request.getPayeeId(),
+                decision == PaymentDecisionResponse.DecisionType.REVIEW ?
+                        CaseCreationRequest.CaseType.REVIEW : CaseCreationRequest.CaseType.BLOCK,
+                new ArrayList<>(reasons), risk.getRiskScore(), requestId);
+    }
+
+    private void recordCaseCreated(PaymentDecisionResponse.DecisionType decision, String requestId,
+                                   long startNanos, AgentTrace agentTrace) {
+        long duration = System.nanoTime() - startNanos;
+        paymentMetrics.recordStage(LatencyStage.CASE_CREATION, duration);
+        agentTrace.tool("createCase",
+                () -> "Queued " + decision.toString().toLowerCase() + " case for requestId: " + requestId,
+                TimeUnit.NANOSECONDS.toMillis(duration));
+    }
+
+    /**
+     * Record a reactive tool call's latency, from subscription to its value, as {@code stage}
+     */
+    private <T> Mono<T> timed(Mono<T> call, LatencyStage stage) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call.doOnSuccess(value -> paymentMetrics.recordStage(stage, System.nanoTime() - start));
+        });
+    }
+
+    private static PaymentDecisionResponse finalResponse(PaymentDecisionResponse.DecisionType decision,
+                                                         List<String> reasons, AgentTrace agentTrace,
+                                                         String requestId) {
+        agentTrace.finalDecision(decision, reasons.size());
+
+        return new PaymentDecisionResponse(decision, reasons, agentTrace.steps(), requestId);
+    }
+
+    private PaymentDecisionResponse agentFailure(Throwable e, String requestId,
+                                                 List<String> reasons, AgentTrace agentTrace) {
+        log.error("Agent processing failed: {}", e.getMessage(), e);
+        agentTrace.error(() -> "Agent processing failed: " + e.getMessage());
+
+        // Return a safe decision on agent failure
+        reasons.add(isDeadlineExceeded(e) ? "deadline_exceeded" : "agent_processing_error");
+        return new PaymentDecisionResponse(
+                PaymentDecisionResponse.DecisionType.REVIEW,
+                reasons, agentTrace.steps(), requestId);
+    }
+
+    /**
+     * Answer with the configured fallback decision when a tool is unavailable, instead of waiting on
+     * a service that is known to be down
+     */
+    private PaymentDecisionResponse toolFallback(String tool, String requestId, List<String> reasons,
+                                                 AgentTrace agentTrace) {
+        PaymentDecisionResponse.DecisionType decision = resilienceProperties.getFallback().getDecision();
+        log.warn("{} service unavailable, answering {} for requestId {}", tool, decision, requestId);
+        paymentMetrics.recordFallbackDecision(tool);
+
+        reasons.add(tool + "_service_unavailable");
+        agentTrace.decision(tool + " service unavailable (circuit open or bulkhead full) - " + decision);
+        return finalResponse(decision, reasons, agentTrace, requestId);
+    }
+
+    /**
+     * Whether the deadline ran out: no time was left for a call, or a call was cut off at its timeout,
+     * which is the time left in the deadline
+     */
+    private static boolean isDeadlineExceeded(Throwable e) {
+        for (Throwable current = e; current != null && current.getCause() != current; current = current.getCause()) {
+            if (current instanceof TimeoutException) {
+                return true;
+            }
+            if (current instanceof PaymentException paymentException
+                    && Deadline.EXCEEDED.equals(paymentException.getErrorCode())) {
+                return true;
             }
         }
+        return false;
+    }
 
-        if (highAmountTransaction && risk.getRiskLevel() == RiskSignalsResponse.RiskLevel.MEDIUM) {
-            reasons.add("medium_risk_high_amount");
-            agentTrace.add(AgentTraceStep.decision("Medium risk + high amount - REVIEW"));
-            return PaymentDecisionResponse.DecisionType.REVIEW;
+    private static PaymentException.ToolUnavailableException findToolUnavailable(Throwable e) {
+        for (Throwable current = e; current != null && current.getCause() != current; current = current.getCause()) {
+            if (current instanceof PaymentException.ToolUnavailableException unavailable) {
+                return unavailable;
+            }
         }
+        return null;
+    }
+
+    private PaymentDecisionResponse.DecisionType makeDecision(
+            PaymentDecisionRequest request,
+            AccountBalanceResponse balance,
+            RiskSignalsResponse risk,
+            List<String> reasons,
+            AgentTrace agentTrace) {
+
+        agentTrace.plan("Evaluating decision factors");
+
+        // Thresholds and reason codes live in the active rule set (payments.rules)
+        long start = System.nanoTime();
+        RuleOutcome outcome = ruleEngine.evaluate(request, balance, risk, reasons);
+        paymentMetrics.recordStage(LatencyStage.DECISION, System.nanoTime() - start);
+        agentTrace.decision(outcome.trace());
+        return outcome.decision();
+    }
+
+    /**
+     * One payment of a batch as it moves through the phases. The decision and reasons may be set by a
+     * reservation callback; they are read only after all reservations are done.
+     */
+    private static final class BatchItem {
+
+        private final PaymentDecisionRequest request;
+        private final String requestId;
+        private final RiskSignalsResponse risk;
+        private final AgentTrace agentTrace;
+        private final List<String> reasons = new ArrayList<>();
+        private PaymentDecisionResponse.DecisionType decision;
+        // Set when the payment has failed and fell back to REVIEW
+        private PaymentDecisionResponse response;
 
-        // If we get here, allow the transaction
-        if (reasons.isEmpty()) {
-            reasons.add("low_risk_transaction");
+        private BatchItem(PaymentDecisionRequest request, String requestId, RiskSignalsResponse risk,
+                          AgentTrace agentTrace) {
+            this.request = request;
+            this.requestId = requestId;
+            this.risk = risk;
+            this.agentTrace = agentTrace;
         }
-        
-        agentTrace.add(AgentTraceStep.decision("Low risk transaction - ALLOW"));
-        return PaymentDecisionResponse.DecisionType.ALLOW;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,247 @@
+package com.paynow.payments.agent.rules;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.RiskSignalsResponse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link DecisionRulesProperties} rule set compiled into parallel arrays. Flags become bits of a
+ * {@code long}, thresholds and risk levels become doubles, and reasons and outcomes are resolved up
+ * front. Evaluation is a single pass over the arrays with no parsing, lookups or string building,
+ * apart from the first time a risk factor type is seen by a FACTOR_WEIGHT rule.
+ * <p>
+ * Plans are immutable and safe to share between threads.
+ */
+public final class CompiledRulePlan {
+
+    private static final int MAX_FLAGS = Long.SIZE;
+    private static final int MAX_CACHED_FACTOR_REASONS = 256;
+
+    private final DecisionRulesProperties definition;
+    private final int size;
+    private final String[] ids;
+    private final int[] fields;
+    private final RuleOperator[] operators;
+    private final double[] thresholds;
+    private final long[] requires;
+    private final long[] requiresAny;
+    private final long[] excludes;
+    private final long[] sets;
+    private final String[] reasons;
+    private final RuleOutcome[] outcomes;
+    private final String defaultReason;
+    private final RuleOutcome defaultOutcome;
+    // Per-rule "prefix + factor type" reasons, built once per type rather than on every decision
+    private final Map<String, String>[] factorReasons;
+
+    private CompiledRulePlan(DecisionRulesProperties definition, List<DecisionRulesProperties.RuleDefinition> rules,
+                             Map<String, Integer> flagBits) {
+        this.definition = definition;
+        this.size = rules.size();
+        this.ids = new String[size];
+        this.fields = new int[size];
+        this.operators = new RuleOperator[size];
+        this.thresholds = new double[size];
+        this.requires = new long[size];
+        this.requiresAny = new long[size];
+        this.excludes = new long[size];
+        this.sets = new long[size];
+        this.reasons = new String[size];
+        this.outcomes = new RuleOutcome[size];
+        @SuppressWarnings("unchecked")
+        Map<String, String>[] factorReasonCaches = new Map[size];
+        this.factorReasons = factorReasonCaches;
+        this.defaultReason = definition.getDefaultReason();
+        this.defaultOutcome = new RuleOutcome(PaymentDecisionResponse.DecisionType.ALLOW, definition.getDefaultTrace());
+
+        for (int i = 0; i < size; i++) {
+            DecisionRulesProperties.RuleDefinition rule = rules.get(i);
+            ids[i] = rule.getId();
+            fields[i] = rule.getField() == null ? -1 : rule.getField().ordinal();
+            operators[i] = rule.getOperator();
+            thresholds[i] = rule.getField() == null ? 0 : threshold(rule);
+            requires[i] = mask(rule.getRequires(), flagBits);
+            requiresAny[i] = mask(rule.getRequiresAny(), flagBits);
+            excludes[i] = mask(rule.getExcludes(), flagBits);
+            sets[i] = mask(rule.getSets(), flagBits);
+            reasons[i] = rule.getReason() == null || rule.getReason().isBlank() ? null : rule.getReason();
+            outcomes[i] = rule.getOutcome() == null ? null : new RuleOutcome(rule.getOutcome(),
+                    rule.getTrace() != null ? rule.getTrace() : rule.getId() + " - " + rule.getOutcome());
+            if (rule.getField() == RuleField.FACTOR_WEIGHT && reasons[i] != null) {
+                factorReasons[i] = new ConcurrentHashMap<>();
+            }
+        }
+    }
+
+    /**
+     * Validate and compile a rule set.
+     *
+     * @throws IllegalArgumentException if the rule set is empty or a rule is malformed
+     */
+    public static CompiledRulePlan compile(DecisionRulesProperties properties) {
+        List<DecisionRulesProperties.RuleDefinition> rules = properties.getRules();
+        if (rules == null || rules.isEmpty()) {
+            throw new IllegalArgumentException("Rule set '" + properties.getVersion() + "' has no rules");
+        }
+
+        Set<String> ids = new HashSet<>();
+        Map<String, Integer> flagBits = new LinkedHashMap<>();
+        for (DecisionRulesProperties.RuleDefinition rule : rules) {
+            if (rule.getId() == null || rule.getId().isBlank()) {
+                throw new IllegalArgumentException("Every rule needs an id");
+            }
+            if (!ids.add(rule.getId())) {
+                throw new IllegalArgumentException("Duplicate rule id: " + rule.getId());
+            }
+            if (rule.getField() != null && (rule.getOperator() == null || rule.getValue() == null)) {
+                throw new IllegalArgumentException("Rule " + rule.getId() + " needs an operator and a value");
+            }
+            if (rule.getField() == RuleField.FACTOR_WEIGHT && rule.getOutcome() != null) {
+                throw new IllegalArgumentException("FACTOR_WEIGHT rule " + rule.getId() + " cannot have an outcome");
+            }
+            for (List<String> flags : List.of(nullToEmpty(rule.getSets()), nullToEmpty(rule.getRequires()),
+                    nullToEmpty(rule.getRequiresAny()), nullToEmpty(rule.getExcludes()))) {
+                for (String flag : flags) {
+                    flagBits.putIfAbsent(flag, flagBits.size());
+                }
+            }
+        }
+        if (flagBits.size() > MAX_FLAGS) {
+            throw new IllegalArgumentException("At most " + MAX_FLAGS + " distinct flags are supported");
+        }
+
+        return new CompiledRulePlan(properties, new ArrayList<>(rules), flagBits);
+    }
+
+    /**
+     * Run the plan for one payment, appending reason codes to {@code reasonsOut}
+     */
+    public RuleOutcome evaluate(PaymentDecisionRequest request, AccountBalanceResponse balance,
+                                RiskSignalsResponse risk, List<String> reasonsOut) {
+        double amount = request.getAmount().doubleValue();
+        // Indexed by RuleField ordinal; FACTOR_WEIGHT is read per factor instead
+        double[] values = {
+                "ACTIVE".equals(balance.getAccountStatus()) ? 1 : 0,
+                balance.getAvailableBalance().doubleValue() - amount,
+                amount,
+                risk.getRiskScore(),
+                risk.getRiskLevel().ordinal(),
+                0
+        };
+        List<RiskSignalsResponse.RiskFactor> factors = risk.getRiskFactors();
+        int factorWeightField = RuleField.FACTOR_WEIGHT.ordinal();
+
+        long flags = 0;
+        for (int i = 0; i < size; i++) {
+            if ((flags & requires[i]) != requires[i]
+                    || (requiresAny[i] != 0 && (flags & requiresAny[i]) == 0)
+                    || (flags & excludes[i]) != 0) {
+                continue;
+            }
+
+            int field = fields[i];
+            if (field == factorWeightField) {
+                boolean matched = false;
+                for (int f = 0, n = factors.size(); f < n; f++) {
+                    RiskSignalsResponse.RiskFactor factor = factors.get(f);
+                    if (operators[i].test(factor.getWeight(), thresholds[i])) {
+                        matched = true;
+                        if (reasons[i] != null) {
+                            reasonsOut.add(factorReason(i, factor.getType()));
+                        }
+                    }
+                }
+                if (matched) {
+                    flags |= sets[i];
+                }
+                continue;
+            }
+
+            if (field >= 0 && !operators[i].test(values[field], thresholds[i])) {
+                continue;
+            }
+            if (reasons[i] != null) {
+                reasonsOut.add(reasons[i]);
+            }
+            flags |= sets[i];
+            if (outcomes[i] != null) {
+                return outcomes[i];
+            }
+        }
+
+        if (reasonsOut.isEmpty() && defaultReason != null) {
+            reasonsOut.add(defaultReason);
+        }
+        return defaultOutcome;
+    }
+
+    public String getVersion() {
+        return definition.getVersion();
+    }
+
+    /**
+     * The rule set this plan was compiled from
+     */
+    public DecisionRulesProperties getDefinition() {
+        return definition;
+    }
+
+    public int getRuleCount() {
+        return size;
+    }
+
+    public List<String> getRuleIds() {
+        return List.of(ids);
+    }
+
+    private String factorReason(int rule, String factorType) {
+        Map<String, String> cache = factorReasons[rule];
+        String reason = cache.get(factorType);
+        if (reason == null) {
+            reason = reasons[rule] + factorType;
+            // Factor types come from risk-service; stop caching if it ever sends unbounded values
+            if (cache.size() < MAX_CACHED_FACTOR_REASONS) {
+                cache.put(factorType, reason);
+            }
+        }
+        return reason;
+    }
+
+    private static double threshold(DecisionRulesProperties.RuleDefinition rule) {
+        String value = rule.getValue().trim();
+        if (rule.getField() == RuleField.RISK_LEVEL) {
+            try {
+                return RiskSignalsResponse.RiskLevel.valueOf(value.toUpperCase(Locale.ROOT)).ordinal();
+            } catch (IllegalArgumentException e) {
+                // fall through to a numeric ordinal
+            }
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Rule " + rule.getId() + " has an invalid value: " + value);
+        }
+    }
+
+    private static long mask(List<String> flags, Map<String, Integer> flagBits) {
+        long mask = 0;
+        for (String flag : nullToEmpty(flags)) {
+            mask |= 1L << flagBits.get(flag);
+        }
+        return mask;
+    }
+
+    private static List<String> nullToEmpty(List<String> values) {
+        return values == null ? List.of() : values;
+    }
+}
@@ -0,0 +1,49 @@
+package com.paynow.payments.agent.rules;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.RiskSignalsResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the active {@link CompiledRulePlan}. A new rule set is compiled off to the side and swapped
+ * in with a single reference write, so in-flight decisions finish on the plan they started with and
+ * no decision ever sees a half-applied rule set.
+ */
+@Component
+@Slf4j
+public class DecisionRuleEngine {
+
+    private final AtomicReference<CompiledRulePlan> plan;
+
+    public DecisionRuleEngine(DecisionRulesProperties properties) {
+        CompiledRulePlan initial = CompiledRulePlan.compile(properties);
+        this.plan = new AtomicReference<>(initial);
+        log.info("Loaded decision rule set '{}' with {} rules", initial.getVersion(), initial.getRuleCount());
+    }
+
+    public RuleOutcome evaluate(PaymentDecisionRequest request, AccountBalanceResponse balance,
+                                RiskSignalsResponse risk, List<String> reasons) {
+        return plan.get().evaluate(request, balance, risk, reasons);
+    }
+
+    /**
+     * Compile and activate a new rule set.
+     *
+     * @throws IllegalArgumentException if the rule set does not compile; the active plan is kept
+     */
+    public CompiledRulePlan replace(DecisionRulesProperties properties) {
+        CompiledRulePlan compiled = CompiledRulePlan.compile(properties);
+        plan.set(compiled);
+        log.info("Activated decision rule set '{}' with {} rules", compiled.getVersion(), compiled.getRuleCount());
+        return compiled;
+    }
+
+    public CompiledRulePlan getPlan() {
+        return plan.get();
+    }
+}
@@ -0,0 +1,44 @@
+package com.paynow.payments.agent.rules;
+
+import com.paynow.common.dto.PaymentDecisionResponse;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decision rule definitions, loaded from {@code payments.rules} at startup and accepted in the same
+ * shape by {@code PUT /internal/rules}.
+ * <p>
+ * Rules are evaluated in order. A rule fires when its condition holds (or it has no field), all of
+ * {@code requires} flags are set, at least one of {@code requiresAny} is set (if given) and none of
+ * {@code excludes} is set. A firing rule adds its reason, sets its flags and, if it has an
+ * {@code outcome}, ends evaluation with that decision. When no outcome fires the decision is
+ * {@code ALLOW}, with {@code defaultReason} added if no other reason was recorded.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.rules")
+public class DecisionRulesProperties {
+
+    private String version = "unversioned";
+    private String defaultReason = "low_risk_transaction";
+    private String defaultTrace = "Low risk transaction - ALLOW";
+    private List<RuleDefinition> rules = new ArrayList<>();
+
+    @Data
+    public static class RuleDefinition {
+        private String id;
+        private RuleField field;
+        private RuleOperator operator;
+        /** Number, or a risk level name when {@code field} is RISK_LEVEL */
+        private String value;
+        private String reason;
+        private List<String> sets = new ArrayList<>();
+        private List<String> requires = new ArrayList<>();
+        private List<String> requiresAny = new ArrayList<>();
+        private List<String> excludes = new ArrayList<>();
+        private PaymentDecisionResponse.DecisionType outcome;
+        private String trace;
+    }
+}
@@ -0,0 +1,17 @@
+package com.paynow.payments.agent.rules;
+
+/**
+ * Inputs a decision rule can test. Every field is read as a {@code double}; booleans are 1/0 and
+ * risk levels use their ordinal (LOW=0 .. CRITICAL=3).
+ */
+public enum RuleField {
+    /** 1 when the account status is ACTIVE, otherwise 0 */
+    ACCOUNT_ACTIVE,
+    /** Available balance minus the payment amount; negative means insufficient funds */
+    AVAILABLE_AFTER_AMOUNT,
+    AMOUNT,
+    RISK_SCORE,
+    RISK_LEVEL,
+    /** Tested once per risk factor; a reason on the rule is used as a prefix for the factor type */
+    FACTOR_WEIGHT
+}
@@ -0,0 +1,24 @@
+package com.paynow.payments.agent.rules;
+
+/**
+ * Comparison applied between a {@link RuleField} value and the rule's threshold
+ */
+public enum RuleOperator {
+    GT,
+    GTE,
+    LT,
+    LTE,
+    EQ,
+    NE;
+
+    boolean test(double actual, double threshold) {
+        return switch (this) {
+            case GT -> actual > threshold;
+            case GTE -> actual >= threshold;
+            case LT -> actual < threshold;
+            case LTE -> actual <= threshold;
+            case EQ -> actual == threshold;
+            case NE -> actual != threshold;
+        };
+    }
+}
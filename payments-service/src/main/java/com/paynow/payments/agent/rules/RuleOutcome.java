@@ -0,0 +1,10 @@
+package com.paynow.payments.agent.rules;
+
+import com.paynow.common.dto.PaymentDecisionResponse;
+
+/**
+ * Decision produced by a rule plan, with the trace line explaining it. Instances are created when a
+ * plan is compiled and shared by every evaluation.
+ */
+public record RuleOutcome(PaymentDecisionResponse.DecisionType decision, String trace) {
+}
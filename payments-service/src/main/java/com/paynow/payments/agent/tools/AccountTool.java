@@ -1,99 +1,278 @@
 package com.paynow.payments.agent.tools;
 
 import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
 import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.Deadline;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Agent tool for interacting with accounts service
+ * Agent tool for interacting with accounts service, through whichever {@link AccountsClient} is bound.
+ * Every call takes the request's {@link Deadline}: timeouts are the time left in it, and retries are only
+ * made while it leaves room for them.
  */
 @Component
 @Slf4j
 public class AccountTool {
 
-    private final WebClient webClient;
-    private final String accountsServiceUrl;
+    // Releasing a hold must not be skipped because the decision ran out of time, so it has its own budget
+    private static final Duration RELEASE_BUDGET = Duration.ofSeconds(3);
+    private static final int BATCH_CHUNK_SIZE = 200;
+    private static final int BATCH_CONCURRENCY = 4;
 
-    public AccountTool(WebClient.Builder webClientBuilder,
-                      @Value("${services.accounts.url:http://localhost:8081}") String accountsServiceUrl) {
-        this.webClient = webClientBuilder
-                .baseUrl(accountsServiceUrl)
-                .build();
-        this.accountsServiceUrl = accountsServiceUrl;
+    private final AccountsClient accountsClient;
+    private final Hedger hedger;
+    private final ToolGuard toolGuard;
+    private final BudgetedRetry budgetedRetry;
+    private final BalanceNearCache nearCache;
+    private final SingleFlight singleFlight;
+
+    public AccountTool(AccountsClient accountsClient,
+                      Hedger hedger,
+                      ToolGuard toolGuard,
+                      BudgetedRetry budgetedRetry,
+                      BalanceNearCache nearCache,
+                      SingleFlight singleFlight) {
+        this.accountsClient = accountsClient;
+        this.hedger = hedger;
+        this.toolGuard = toolGuard;
+        this.budgetedRetry = budgetedRetry;
+        this.nearCache = nearCache;
+        this.singleFlight = singleFlight;
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 2, backoff = @Backoff(delay = 200))
-    public AccountBalanceResponse getBalance(String customerId) {
-        try {
+    public AccountBalanceResponse getBalance(String customerId, Deadline deadline) {
+        return getBalanceReactive(customerId, deadline).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #getBalance}. Served from the near-cache when a recent snapshot is
+     * there, or joined to an identical lookup already in flight; otherwise the call may be hedged, and a
+     * failed call is retried once if the deadline still allows it.
+     */
+    public Mono<AccountBalanceResponse> getBalanceReactive(String customerId, Deadline deadline) {
+        return Mono.defer(() -> {
+            AccountBalanceResponse cached = nearCache.get(customerId);
+            if (cached != null) {
+                log.debug("Balance served from near-cache for customer: {}", customerId);
+                return Mono.just(cached);
+            }
+
+            // Concurrent lookups for the same customer share one call
+            return singleFlight.call("getBalance", customerId, () -> {
+                        long generation = nearCache.generation(customerId);
+                        long start = System.nanoTime();
+                        return budgetedRetry.call("getBalance", deadline, 1,
+                                        hedger.call("getBalance", deadline, timeout -> balanceRequest(customerId, timeout)))
+                                .doOnNext(response -> {
+                                    log.debug("Balance retrieved successfully for customer: {}", customerId);
+                                    nearCache.put(customerId, response, generation,
+                                            Duration.ofNanos(System.nanoTime() - start));
+                                });
+                    })
+                    .onErrorMap(this::toBalanceException);
+        });
+    }
+
+    private Mono<AccountBalanceResponse> balanceRequest(String customerId, Duration timeout) {
+        return Mono.defer(() -> {
             log.debug("Calling accounts service for customer balance: {}", customerId);
-            
-            AccountBalanceResponse response = webClient
-                    .get()
-                    .uri("/accounts/{customerId}/balance", customerId)
-                    .header("X-API-Key", "internal-service-key") // In production, use proper service auth
-                    .retrieve()
-                    .bodyToMono(AccountBalanceResponse.class)
-                    .timeout(Duration.ofSeconds(5))
+            return toolGuard.guard(ToolGuard.ACCOUNTS, accountsClient.getBalance(customerId), timeout);
+        });
+    }
+
+    private PaymentException toBalanceException(Throwable e) {
+        if (e instanceof PaymentException paymentException) {
+            return paymentException;
+        } else if (e instanceof WebClientResponseException responseException) {
+            log.error("Accounts service error: {} - {}",
+                    responseException.getStatusCode(), responseException.getResponseBodyAsString());
+            return new PaymentException("ACCOUNTS_SERVICE_ERROR",
+                    "Failed to retrieve account balance: " + e.getMessage(), e);
+        }
+        log.error("Unexpected error calling accounts service: {}", e.getMessage(), e);
+        return new PaymentException("ACCOUNTS_SERVICE_ERROR",
+                "Failed to retrieve account balance", e);
+    }
+
+    /**
+     * Multi-get balances for many customers. Near-cache hits are not looked up again; the rest are sent
+     * in chunks of {@value #BATCH_CHUNK_SIZE} with a few chunks in flight at once, each retried on its
+     * own. Unknown customers are absent from the returned map.
+     */
+    public Map<String, AccountBalanceResponse> getBalances(Collection<String> customerIds, Deadline deadline) {
+        Map<String, AccountBalanceResponse> byCustomer = new HashMap<>();
+        Map<String, Long> generations = new HashMap<>();
+        List<String> ids = new ArrayList<>();
+        for (String customerId : customerIds) {
+            AccountBalanceResponse cached = nearCache.get(customerId);
+            if (cached != null) {
+                byCustomer.put(customerId, cached);
+            } else {
+                generations.put(customerId, nearCache.generation(customerId));
+                ids.add(customerId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return byCustomer;
+        }
+
+        try {
+            log.debug("Calling accounts service for {} customer balances ({} from near-cache)",
+                    ids.size(), byCustomer.size());
+            long start = System.nanoTime();
+
+            List<List<String>> chunks = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += BATCH_CHUNK_SIZE) {
+                chunks.add(ids.subList(i, Math.min(i + BATCH_CHUNK_SIZE, ids.size())));
+            }
+
+            List<AccountBalanceResponse> balances = Flux.fromIterable(chunks)
+                    .flatMap(chunk -> budgetedRetry.call("getBalances", deadline, 1, Mono.defer(() ->
+                            toolGuard.guard(ToolGuard.ACCOUNTS, accountsClient.getBalances(chunk),
+                                    deadline.timeout("getBalances")))), BATCH_CONCURRENCY)
+                    .flatMapIterable(chunk -> chunk)
+                    .collectList()
                     .block();
 
-            log.debug("Balance retrieved successfully for customer: {}", customerId);
-            return response;
+            if (balances != null) {
+                Duration loadLatency = Duration.ofNanos(System.nanoTime() - start);
+                for (AccountBalanceResponse balance : balances) {
+                    byCustomer.put(balance.getCustomerId(), balance);
+                    Long generation = generations.get(balance.getCustomerId());
+                    if (generation != null) {
+                        nearCache.put(balance.getCustomerId(), balance, generation, loadLatency);
+                    }
+                }
+            }
+            log.debug("Retrieved {} of {} requested balances", byCustomer.size(), customerIds.size());
+            return byCustomer;
+
+        } catch (PaymentException e) {
+            throw e;
 
-        } catch (WebClientResponseException.NotFound e) {
-            log.warn("Account not found for customer: {}", customerId);
-            throw new PaymentException.AccountNotFoundException(
-                    "Account not found for customer", null);
-                    
         } catch (WebClientResponseException e) {
-            log.error("Accounts service error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new PaymentException("ACCOUNTS_SERVICE_ERROR", 
-                    "Failed to retrieve account balance: " + e.getMessage(), e);
-                    
+            log.error("Accounts service batch error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+            throw new PaymentException("ACCOUNTS_SERVICE_ERROR",
+                    "Failed to retrieve account balances: " + e.getMessage(), e);
+
         } catch (Exception e) {
-            log.error("Unexpected error calling accounts service: {}", e.getMessage(), e);
-            throw new PaymentException("ACCOUNTS_SERVICE_ERROR", 
-                    "Failed to retrieve account balance", e);
+            log.error("Unexpected error calling accounts service batch: {}", e.getMessage(), e);
+            throw new PaymentException("ACCOUNTS_SERVICE_ERROR",
+                    "Failed to retrieve account balances", e);
         }
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 200))
-    public void reserveBalance(String customerId, BigDecimal amount, String requestId) {
-        try {
+    public void reserveBalance(String customerId, BigDecimal amount, String requestId, Deadline deadline) {
+        reserveBalanceReactive(customerId, amount, requestId, deadline).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #reserveBalance}. Insufficient funds is not retried.
+     */
+    public Mono<Void> reserveBalanceReactive(String customerId, BigDecimal amount, String requestId,
+                                             Deadline deadline) {
+        return budgetedRetry.call("reserveBalance", deadline, 2,
+                        Mono.defer(() -> reserveRequest(customerId, amount, requestId, deadline.timeout("reserveBalance"))))
+                .doFirst(() -> nearCache.invalidate(customerId))
+                .doFinally(signal -> nearCache.invalidate(customerId))
+                .onErrorMap(this::toReserveException);
+    }
+
+    private Mono<Void> reserveRequest(String customerId, BigDecimal amount, String requestId, Duration timeout) {
+        return Mono.defer(() -> {
             log.debug("Reserving balance for customer: {}", customerId);
-            webClient
-                .post()
-                .uri(uriBuilder -> uriBuilder
-                        .path("/accounts/{customerId}/reserve")
-                        .queryParam("amount", amount)
-                        .queryParam("requestId", requestId)
-                        .build(customerId))
-                .header("X-API-Key", "internal-service-key")
-                .retrieve()
-                .toBodilessEntity()
-                .timeout(Duration.ofSeconds(5))
-                .block();
-        } catch (WebClientResponseException.BadRequest e) {
-            String body = e.getResponseBodyAsString();
-            if (body != null && body.contains("INSUFFICIENT_FUNDS")) {
-                throw new PaymentException.InsufficientFundsException("Insufficient funds during reservation", requestId);
-            }
-            log.error("Accounts service reserve error: {} - {}", e.getStatusCode(), body);
-            throw new PaymentException("ACCOUNTS_SERVICE_ERROR", "Failed to reserve balance: " + e.getMessage(), e);
+            return toolGuard.guard(ToolGuard.ACCOUNTS,
+                    accountsClient.reserveBalance(customerId, amount, requestId), timeout);
+        });
+    }
+
+    private PaymentException toReserveException(Throwable e) {
+        if (e instanceof PaymentException paymentException) {
+            return paymentException;
+        } else if (e instanceof WebClientResponseException responseException) {
+            log.error("Accounts service reserve error: {} - {}",
+                    responseException.getStatusCode(), responseException.getResponseBodyAsString());
+            return new PaymentException("ACCOUNTS_SERVICE_ERROR", "Failed to reserve balance: " + e.getMessage(), e);
+        }
+        log.error("Unexpected error reserving balance: {}", e.getMessage(), e);
+        return new PaymentException("ACCOUNTS_SERVICE_ERROR", "Failed to reserve balance", e);
+    }
+
+    /**
+     * Fetch the balance snapshot and, if the account can cover {@code amount}, place the hold in the
+     * same call, within the request's deadline. Safe to retry and to hedge: the accounts service keys
+     * the hold on {@code requestId}, so a duplicate call reports the existing hold. Never served from the
+     * near-cache, since the hold must be placed; the customer's entry is invalidated instead.
+     */
+    public BalanceReservationResponse reserveIfAvailable(String customerId, BigDecimal amount, String requestId,
+                                                         Deadline deadline) {
+        return reserveIfAvailableReactive(customerId, amount, requestId, deadline).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #reserveIfAvailable}
+     */
+    public Mono<BalanceReservationResponse> reserveIfAvailableReactive(String customerId, BigDecimal amount,
+                                                                       String requestId, Deadline deadline) {
+        return budgetedRetry.call("reserveIfAvailable", deadline, 1,
+                        hedger.call("reserveIfAvailable", deadline,
+                                timeout -> reserveIfAvailableRequest(customerId, amount, requestId, timeout)))
+                .doOnNext(response -> log.debug("Conditional reservation for customer {}: reserved={}",
+                        customerId, response.isReserved()))
+                .doFirst(() -> nearCache.invalidate(customerId))
+                .doFinally(signal -> nearCache.invalidate(customerId))
+                .onErrorMap(this::toBalanceException);
+    }
+
+    private Mono<BalanceReservationResponse> reserveIfAvailableRequest(String customerId, BigDecimal amount,
+                                                                       String requestId, Duration timeout) {
+        return Mono.defer(() -> {
+            log.debug("Conditionally reserving balance for customer: {}", customerId);
+            return toolGuard.guard(ToolGuard.ACCOUNTS,
+                    accountsClient.reserveIfAvailable(customerId, amount, requestId), timeout);
+        });
+    }
+
+    /**
+     * Release a hold placed by {@link #reserveIfAvailable} or {@link #reserveBalance}. Runs on its own
+     * budget of {@code RELEASE_BUDGET}, since it is often called because the decision's deadline expired.
+     */
+    public void releaseReservation(String customerId, String requestId) {
+        Deadline deadline = Deadline.after(RELEASE_BUDGET);
+        nearCache.invalidate(customerId);
+        try {
+            budgetedRetry.call("releaseReservation", deadline, 2, Mono.defer(() -> {
+                log.debug("Releasing reservation: {}", requestId);
+                return toolGuard.guard(ToolGuard.ACCOUNTS, accountsClient.releaseReservation(requestId),
+                        deadline.timeout("releaseReservation"));
+            })).block();
+
+        } catch (PaymentException e) {
+            throw e;
+
         } catch (WebClientResponseException e) {
-            log.error("Accounts service reserve error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new PaymentException("ACCOUNTS_SERVICE_ERROR", "Failed to reserve balance: " + e.getMessage(), e);
+            log.error("Accounts service release error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+            throw new PaymentException("ACCOUNTS_SERVICE_ERROR", "Failed to release reservation: " + e.getMessage(), e);
+
         } catch (Exception e) {
-            log.error("Unexpected error reserving balance: {}", e.getMessage(), e);
-            throw new PaymentException("ACCOUNTS_SERVICE_ERROR", "Failed to reserve balance", e);
+            log.error("Unexpected error releasing reservation: {}", e.getMessage(), e);
+            throw new PaymentException("ACCOUNTS_SERVICE_ERROR", "Failed to release reservation", e);
+
+        } finally {
+            nearCache.invalidate(customerId);
         }
     }
-}
\ No newline at end of file
+}
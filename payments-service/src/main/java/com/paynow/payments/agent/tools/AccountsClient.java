@@ -0,0 +1,34 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
+import com.paynow.common.exception.PaymentException;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * How {@link AccountTool} reaches the accounts service, chosen by {@code payments.tools.binding}: over HTTP
+ * ({@link HttpAccountsClient}, the default), over the binary RPC transport ({@link RpcAccountsClient}) or,
+ * in the embedded module, by calling its service bean directly. Calls are lazy and untimed; the tool adds
+ * the timeout, guard, retries and hedging.
+ * <p>
+ * An unknown customer is reported as {@link PaymentException.AccountNotFoundException} and a hold the
+ * account cannot cover as {@link PaymentException.InsufficientFundsException}, whatever the transport.
+ */
+public interface AccountsClient {
+
+    Mono<AccountBalanceResponse> getBalance(String customerId);
+
+    /**
+     * Unknown customers are absent from the result
+     */
+    Mono<List<AccountBalanceResponse>> getBalances(List<String> customerIds);
+
+    Mono<Void> reserveBalance(String customerId, BigDecimal amount, String requestId);
+
+    Mono<BalanceReservationResponse> reserveIfAvailable(String customerId, BigDecimal amount, String requestId);
+
+    Mono<Void> releaseReservation(String requestId);
+}
@@ -0,0 +1,98 @@
+package com.paynow.payments.agent.tools;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.payments.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Short-lived, size-bounded cache of account balance snapshots, so customers paying several times a
+ * minute do not cost an accounts call per decision. Caffeine evicts with W-TinyLFU, which keeps
+ * frequent payers over one-off ones.
+ * <p>
+ * A cached snapshot is only used to decide; an ALLOW still places its hold in accounts-service, which
+ * checks the available balance itself. Every hold or release by this instance invalidates the
+ * customer's entry. A lookup that was in flight when the entry was invalidated is not cached, so a
+ * snapshot from before a hold cannot be written back after it.
+ * <p>
+ * Only plain balance lookups read it: {@link AccountTool#getBalances}, which the batch endpoint uses, and
+ * {@link AccountTool#getBalanceReactive}. The single and reactive decisions fetch the balance and place
+ * the hold in one {@link AccountTool#reserveIfAvailable} call, which must reach accounts-service and so
+ * only invalidates the entry; the cache saves them nothing.
+ */
+@Component
+public class BalanceNearCache {
+
+    private static final int STRIPES = 1024;
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+    // Bumped on invalidation; a load only populates the cache if its stripe did not change meanwhile
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+    private final PaymentMetrics paymentMetrics;
+
+    public BalanceNearCache(NearCacheProperties properties, PaymentMetrics paymentMetrics,
+                            MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        this.paymentMetrics = paymentMetrics;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "account-balance");
+        paymentMetrics.registerNearCacheHitRatio(() -> cache.stats().hitRate());
+    }
+
+    /**
+     * Cached snapshot, or {@code null}. A hit is credited with the latency of the call that loaded it.
+     */
+    public AccountBalanceResponse get(String customerId) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(customerId);
+        if (entry == null) {
+            return null;
+        }
+        paymentMetrics.recordNearCacheSaved(entry.loadLatency());
+        return entry.balance();
+    }
+
+    /**
+     * Stamp to take before starting a lookup, for {@link #put}
+     */
+    public long generation(String customerId) {
+        return generations.get(stripe(customerId));
+    }
+
+    public void put(String customerId, AccountBalanceResponse balance, long generation, Duration loadLatency) {
+        if (!enabled || balance == null) {
+            return;
+        }
+        // The generation is read inside compute, which runs under the same per-key lock as the removal in
+        // invalidate: either this write happens first and is removed, or it sees the bumped generation
+        cache.asMap().compute(customerId, (key, current) -> generations.get(stripe(customerId)) == generation
+                ? new Entry(balance, loadLatency)
+                : current);
+    }
+
+    public void invalidate(String customerId) {
+        // Bump before removing, so a put serialized after the removal sees the new generation
+        generations.incrementAndGet(stripe(customerId));
+        cache.invalidate(customerId);
+    }
+
+    private static int stripe(String customerId) {
+        return (customerId.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+    private record Entry(AccountBalanceResponse balance, Duration loadLatency) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.Deadline;
+import com.paynow.payments.metrics.PaymentMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Retries for tool calls, bounded by the request deadline instead of a fixed attempt count per layer.
+ * A retry is only sent if the budget left after the backoff is at least {@code payments.deadline.min-retry-budget};
+ * otherwise the last failure is returned at once rather than starting an attempt that cannot finish.
+ * <p>
+ * Client errors (4xx) and our own {@link PaymentException}s (deadline expiry, open circuit) are never retried.
+ */
+@Component
+@Slf4j
+public class BudgetedRetry {
+
+    private static final Duration BACKOFF = Duration.ofMillis(200);
+
+    private final PaymentMetrics paymentMetrics;
+    private final Duration minRetryBudget;
+
+    public BudgetedRetry(PaymentMetrics paymentMetrics,
+                         @Value("${payments.deadline.min-retry-budget:250ms}") Duration minRetryBudget) {
+        this.paymentMetrics = paymentMetrics;
+        this.minRetryBudget = minRetryBudget;
+    }
+
+    /**
+     * @param call one attempt; it is re-subscribed for each retry, so it must be lazy
+     */
+    public <T> Mono<T> call(String operation, Deadline deadline, int maxRetries, Mono<T> call) {
+        return Mono.defer(() -> {
+            AtomicInteger attempts = new AtomicInteger();
+            return Mono.defer(() -> {
+                        attempts.incrementAndGet();
+                        return call;
+                    })
+                    .retryWhen(Retry.fixedDelay(maxRetries, BACKOFF)
+                            .filter(e -> isRetryable(e) && hasBudgetFor(operation, deadline))
+                            .doBeforeRetry(signal -> log.debug("Retrying {} after {} ({}ms left)", operation,
+                                    signal.failure().toString(), deadline.remainingMillis()))
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .doFinally(signal -> paymentMetrics.recordToolAttempts(operation, attempts.get()));
+        });
+    }
+
+    private boolean hasBudgetFor(String operation, Deadline deadline) {
+        if (deadline.remaining().compareTo(BACKOFF.plus(minRetryBudget)) >= 0) {
+            return true;
+        }
+        paymentMetrics.recordRetrySkipped(operation);
+        return false;
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof PaymentException) {
+            return false;
+        }
+        return !(e instanceof WebClientResponseException responseException)
+                || responseException.getStatusCode().is5xxServerError();
+    }
+}
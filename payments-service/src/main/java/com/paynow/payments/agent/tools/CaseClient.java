@@ -0,0 +1,14 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.CaseCreationRequest;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * How {@link CaseTool} reaches the case service. Calls are lazy and untimed; see {@link AccountsClient}.
+ */
+public interface CaseClient {
+
+    Mono<Void> createCases(List<CaseCreationRequest> requests);
+}
@@ -2,61 +2,63 @@ package com.paynow.payments.agent.tools;
 
 import com.paynow.common.dto.CaseCreationRequest;
 import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.Deadline;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
-import java.time.Duration;
+import java.util.List;
 
 /**
- * Agent tool for interacting with case service
+ * Agent tool for interacting with case service, through whichever {@link CaseClient} is bound. Decisions
+ * do not call it directly: cases go through the case outbox, whose relay delivers them here in batches.
  */
 @Component
 @Slf4j
 public class CaseTool {
 
-    private final WebClient webClient;
-    private final String caseServiceUrl;
+    private final CaseClient caseClient;
+    private final ToolGuard toolGuard;
 
-    public CaseTool(WebClient.Builder webClientBuilder,
-                   @Value("${services.case.url:http://localhost:8083}") String caseServiceUrl) {
-        this.webClient = webClientBuilder
-                .baseUrl(caseServiceUrl)
-                .build();
-        this.caseServiceUrl = caseServiceUrl;
+    public CaseTool(CaseClient caseClient, ToolGuard toolGuard) {
+        this.caseClient = caseClient;
+        this.toolGuard = toolGuard;
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 3, backoff = @Backoff(delay = 200))
-    public void createCase(CaseCreationRequest request) {
+    /**
+     * Create a batch of cases in one call. case-service dedupes by requestId, so redelivering a batch
+     * is safe. Not retried here: the case outbox relay retries the whole batch. A batch case-service
+     * rejects as invalid fails with {@link PaymentException.ValidationException}, whatever the binding.
+     */
+    public void createCases(List<CaseCreationRequest> requests, Deadline deadline) {
         try {
-            log.debug("Creating case for customer: {} with type: {}", 
-                    request.getCustomerId(), request.getCaseType());
-            
-            webClient
-                    .post()
-                    .uri("/cases")
-                    .header("X-API-Key", "internal-service-key") // In production, use proper service auth
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .timeout(Duration.ofSeconds(5))
+            log.debug("Creating {} cases", requests.size());
+
+            toolGuard.guard(ToolGuard.CASE, caseClient.createCases(requests), deadline.timeout("createCases"))
                     .block();
 
-            log.debug("Case created successfully for customer: {}", request.getCustomerId());
+            log.debug("Created {} cases successfully", requests.size());
 
-        } catch (WebClientResponseException e) {
-            log.error("Case service error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new PaymentException("CASE_SERVICE_ERROR", 
-                    "Failed to create case: " + e.getMessage(), e);
-                    
         } catch (Exception e) {
-            log.error("Unexpected error calling case service: {}", e.getMessage(), e);
-            throw new PaymentException("CASE_SERVICE_ERROR", 
-                    "Failed to create case", e);
+            throw toCaseException(e);
+        }
+    }
+
+    private PaymentException toCaseException(Throwable e) {
+        if (e instanceof PaymentException paymentException) {
+            return paymentException;
+        } else if (e instanceof WebClientResponseException.BadRequest badRequest) {
+            // The same rejection the RPC binding reports
+            return new PaymentException.ValidationException(
+                    "case-service rejected the cases: " + badRequest.getResponseBodyAsString(), null);
+        } else if (e instanceof WebClientResponseException responseException) {
+            log.error("Case service error: {} - {}",
+                    responseException.getStatusCode(), responseException.getResponseBodyAsString());
+            return new PaymentException("CASE_SERVICE_ERROR",
+                    "Failed to create case: " + e.getMessage(), e);
         }
+        log.error("Unexpected error calling case service: {}", e.getMessage(), e);
+        return new PaymentException("CASE_SERVICE_ERROR",
+                "Failed to create case", e);
     }
-}
\ No newline at end of file
+}
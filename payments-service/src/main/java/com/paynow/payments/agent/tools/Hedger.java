@@ -0,0 +1,89 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.payments.agent.Deadline;
+import com.paynow.payments.metrics.PaymentMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Runs idempotent tool calls with an optional hedge and a timeout taken from the request deadline.
+ * <p>
+ * The hedge is only armed, never sent up front: a second request goes out after the tool's observed
+ * p95, whichever attempt answers first wins and the other is cancelled, which closes its connection.
+ * Only use it for calls that are safe to send twice.
+ * Hedges are skipped when the delay would not leave any budget for the hedge itself.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class Hedger {
+
+    private final HedgingProperties properties;
+    private final PaymentMetrics paymentMetrics;
+    private final Map<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * @param call builds one attempt; it is given the per-attempt timeout
+     */
+    public <T> Mono<T> call(String tool, Deadline deadline, Function<Duration, Mono<T>> call) {
+        return Mono.defer(() -> {
+            Duration timeout = deadline.timeout(tool);
+            LatencyTracker tracker = trackers.computeIfAbsent(tool, name -> new LatencyTracker());
+            Mono<T> primary = timed(call.apply(timeout), tracker);
+
+            Duration hedgeDelay = hedgeDelay(tracker);
+            if (!properties.isEnabled() || hedgeDelay.compareTo(timeout) >= 0) {
+                return primary;
+            }
+
+            Mono<Attempt<T>> hedge = Mono.delay(hedgeDelay)
+                    .then(Mono.defer(() -> {
+                        paymentMetrics.recordHedgeSent(tool);
+                        log.debug("Hedging {} after {}ms", tool, hedgeDelay.toMillis());
+                        return timed(call.apply(deadline.timeout(tool + " hedge")), tracker);
+                    }))
+                    .map(value -> new Attempt<>(value, true));
+
+            // The first signal wins, errors included: a failing service is not hammered by the hedge,
+            // and taking the first value cancels the other attempt (or the pending hedge timer)
+            return Flux.merge(primary.map(value -> new Attempt<>(value, false)), hedge)
+                    .next()
+                    .doOnNext(attempt -> {
+                        if (attempt.hedge()) {
+                            paymentMetrics.recordHedgeWon(tool);
+                        }
+                    })
+                    .map(Attempt::value);
+        });
+    }
+
+    private Duration hedgeDelay(LatencyTracker tracker) {
+        long p95Micros = tracker.p95Micros();
+        if (p95Micros < 0 || tracker.sampleCount() < properties.getMinSamples()) {
+            return properties.getMaxDelay();
+        }
+        Duration p95 = Duration.ofNanos(p95Micros * 1000);
+        if (p95.compareTo(properties.getMinDelay()) < 0) {
+            return properties.getMinDelay();
+        }
+        return p95.compareTo(properties.getMaxDelay()) > 0 ? properties.getMaxDelay() : p95;
+    }
+
+    private static <T> Mono<T> timed(Mono<T> attempt, LatencyTracker tracker) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return attempt.doOnNext(value -> tracker.record((System.nanoTime() - start) / 1000));
+        });
+    }
+
+    private record Attempt<T>(T value, boolean hedge) {
+    }
+}
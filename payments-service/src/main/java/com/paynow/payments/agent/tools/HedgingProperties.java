@@ -0,0 +1,21 @@
+package com.paynow.payments.agent.tools;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Hedged tool calls: if the first attempt has not answered after the tool's recent p95 latency
+ * (clamped to {@code minDelay}..{@code maxDelay}), a second identical request is sent and the first
+ * answer wins. Until {@code minSamples} latencies have been seen, {@code maxDelay} is used.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.hedging")
+public class HedgingProperties {
+
+    private boolean enabled = false;
+    private Duration minDelay = Duration.ofMillis(20);
+    private Duration maxDelay = Duration.ofMillis(500);
+    private int minSamples = 50;
+}
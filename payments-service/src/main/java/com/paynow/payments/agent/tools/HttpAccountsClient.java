@@ -0,0 +1,118 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
+import com.paynow.common.exception.PaymentException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * {@link AccountsClient} over accounts-service's REST API. 404 becomes
+ * {@link PaymentException.AccountNotFoundException} and a 400 refusing a hold for lack of funds becomes
+ * {@link PaymentException.InsufficientFundsException}; other error responses are passed on as is.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "http", matchIfMissing = true)
+@Slf4j
+public class HttpAccountsClient implements AccountsClient {
+
+    private static final ParameterizedTypeReference<List<AccountBalanceResponse>> BALANCE_LIST_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+
+    public HttpAccountsClient(WebClient.Builder webClientBuilder,
+                              @Value("${services.accounts.url:http://localhost:8081}") String accountsServiceUrl) {
+        this.webClient = webClientBuilder
+                .baseUrl(accountsServiceUrl)
+                .build();
+    }
+
+    @Override
+    public Mono<AccountBalanceResponse> getBalance(String customerId) {
+        return webClient
+                .get()
+                .uri("/accounts/{customerId}/balance", customerId)
+                .header("X-API-Key", "internal-service-key") // In production, use proper service auth
+                .retrieve()
+                .bodyToMono(AccountBalanceResponse.class)
+                .onErrorMap(WebClientResponseException.NotFound.class, e -> accountNotFound(customerId));
+    }
+
+    @Override
+    public Mono<List<AccountBalanceResponse>> getBalances(List<String> customerIds) {
+        return webClient
+                .post()
+                .uri("/accounts/balances")
+                .header("X-API-Key", "internal-service-key")
+                .bodyValue(customerIds)
+                .retrieve()
+                .bodyToMono(BALANCE_LIST_TYPE);
+    }
+
+    @Override
+    public Mono<Void> reserveBalance(String customerId, BigDecimal amount, String requestId) {
+        return webClient
+                .post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/accounts/{customerId}/reserve")
+                        .queryParam("amount", amount)
+                        .queryParam("requestId", requestId)
+                        .build(customerId))
+                .header("X-API-Key", "internal-service-key")
+                .retrieve()
+                .toBodilessEntity()
+                .then()
+                .onErrorMap(WebClientResponseException.BadRequest.class,
+                        e -> isInsufficientFunds(e)
+                                ? new PaymentException.InsufficientFundsException(
+                                        "Insufficient funds during reservation", requestId)
+                                : e);
+    }
+
+    @Override
+    public Mono<BalanceReservationResponse> reserveIfAvailable(String customerId, BigDecimal amount,
+                                                               String requestId) {
+        return webClient
+                .post()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/accounts/{customerId}/reserve-if-available")
+                        .queryParam("amount", amount)
+                        .queryParam("requestId", requestId)
+                        .build(customerId))
+                .header("X-API-Key", "internal-service-key")
+                .retrieve()
+                .bodyToMono(BalanceReservationResponse.class)
+                .onErrorMap(WebClientResponseException.NotFound.class, e -> accountNotFound(customerId));
+    }
+
+    @Override
+    public Mono<Void> releaseReservation(String requestId) {
+        return webClient
+                .post()
+                .uri("/accounts/reservations/{requestId}/release", requestId)
+                .header("X-API-Key", "internal-service-key")
+                .retrieve()
+                .toBodilessEntity()
+                .then();
+    }
+
+    private static PaymentException accountNotFound(String customerId) {
+        log.warn("Account not found for customer: {}", customerId);
+        return new PaymentException.AccountNotFoundException("Account not found for customer", null);
+    }
+
+    private static boolean isInsufficientFunds(WebClientResponseException.BadRequest badRequest) {
+        String body = badRequest.getResponseBodyAsString();
+        return body != null && body.contains("INSUFFICIENT_FUNDS");
+    }
+}
@@ -0,0 +1,40 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.BatchCaseCreationRequest;
+import com.paynow.common.dto.CaseCreationRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link CaseClient} over case-service's REST API
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "http", matchIfMissing = true)
+public class HttpCaseClient implements CaseClient {
+
+    private final WebClient webClient;
+
+    public HttpCaseClient(WebClient.Builder webClientBuilder,
+                          @Value("${services.case.url:http://localhost:8083}") String caseServiceUrl) {
+        this.webClient = webClientBuilder
+                .baseUrl(caseServiceUrl)
+                .build();
+    }
+
+    @Override
+    public Mono<Void> createCases(List<CaseCreationRequest> requests) {
+        return webClient
+                .post()
+                .uri("/cases/batch")
+                .header("X-API-Key", "internal-service-key") // In production, use proper service auth
+                .bodyValue(new BatchCaseCreationRequest(requests))
+                .retrieve()
+                .toBodilessEntity()
+                .then();
+    }
+}
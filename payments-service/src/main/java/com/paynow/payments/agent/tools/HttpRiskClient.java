@@ -0,0 +1,57 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.RiskSignalsQuery;
+import com.paynow.common.dto.RiskSignalsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * {@link RiskClient} over risk-service's REST API
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "http", matchIfMissing = true)
+public class HttpRiskClient implements RiskClient {
+
+    private static final ParameterizedTypeReference<List<RiskSignalsResponse>> RISK_LIST_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+
+    public HttpRiskClient(WebClient.Builder webClientBuilder,
+                          @Value("${services.risk.url:http://localhost:8082}") String riskServiceUrl) {
+        this.webClient = webClientBuilder
+                .baseUrl(riskServiceUrl)
+                .build();
+    }
+
+    @Override
+    public Mono<RiskSignalsResponse> getRiskSignals(String customerId, BigDecimal amount) {
+        return webClient
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/risk/{customerId}/signals")
+                        .queryParam("amount", amount.toString())
+                        .build(customerId))
+                .header("X-API-Key", "internal-service-key") // In production, use proper service auth
+                .retrieve()
+                .bodyToMono(RiskSignalsResponse.class);
+    }
+
+    @Override
+    public Mono<List<RiskSignalsResponse>> getRiskSignalsBatch(List<RiskSignalsQuery> queries) {
+        return webClient
+                .post()
+                .uri("/risk/signals/batch")
+                .header("X-API-Key", "internal-service-key")
+                .bodyValue(queries)
+                .retrieve()
+                .bodyToMono(RISK_LIST_TYPE);
+    }
+}
@@ -0,0 +1,50 @@
+package com.paynow.payments.agent.tools;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Sliding window of recent call latencies with a cached p95. Recording is a single array write;
+ * the percentile is recomputed from a sorted copy at most once every {@value #RECOMPUTE_EVERY} samples.
+ */
+class LatencyTracker {
+
+    private static final int WINDOW = 512;
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final AtomicLongArray samplesMicros = new AtomicLongArray(WINDOW);
+    private final AtomicLong count = new AtomicLong();
+    private volatile long p95Micros = -1;
+    private volatile long computedAt;
+
+    void record(long micros) {
+        long n = count.getAndIncrement();
+        samplesMicros.set((int) (n % WINDOW), micros);
+    }
+
+    long sampleCount() {
+        return count.get();
+    }
+
+    /**
+     * p95 of the last {@value #WINDOW} samples in microseconds, or -1 before any sample
+     */
+    long p95Micros() {
+        long n = count.get();
+        if (n == 0) {
+            return -1;
+        }
+        if (p95Micros < 0 || n - computedAt >= RECOMPUTE_EVERY) {
+            int size = (int) Math.min(n, WINDOW);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = samplesMicros.get(i);
+            }
+            Arrays.sort(sorted);
+            p95Micros = sorted[Math.min(size - 1, (int) Math.ceil(size * 0.95) - 1)];
+            computedAt = n;
+        }
+        return p95Micros;
+    }
+}
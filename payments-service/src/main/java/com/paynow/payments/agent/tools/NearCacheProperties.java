@@ -0,0 +1,19 @@
+package com.paynow.payments.agent.tools;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * In-process cache of account balance snapshots. Entries live for {@code ttl} after being loaded and
+ * at most {@code maximumSize} customers are kept.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.near-cache")
+public class NearCacheProperties {
+
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofSeconds(2);
+    private long maximumSize = 10_000;
+}
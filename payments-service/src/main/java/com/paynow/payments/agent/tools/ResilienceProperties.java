@@ -0,0 +1,56 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.PaymentDecisionResponse;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker, bulkhead and fallback settings shared by the accounts, risk and case tools.
+ * Each tool gets its own breaker and bulkhead built from these values.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.resilience")
+public class ResilienceProperties {
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Bulkhead bulkhead = new Bulkhead();
+    private Fallback fallback = new Fallback();
+
+    @Data
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private float slowCallRateThreshold = 80;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 5;
+    }
+
+    @Data
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 50;
+        private Duration maxWaitDuration = Duration.ZERO;
+    }
+
+    /**
+     * Decision returned without calling any tool when a required tool is unavailable. The reason
+     * code is {@code <tool>_service_unavailable}. Only REVIEW or BLOCK: an ALLOW would approve payments
+     * with no balance check and no hold, so it fails startup instead.
+     */
+    @Data
+    public static class Fallback {
+        private PaymentDecisionResponse.DecisionType decision = PaymentDecisionResponse.DecisionType.REVIEW;
+
+        public void setDecision(PaymentDecisionResponse.DecisionType decision) {
+            if (decision != PaymentDecisionResponse.DecisionType.REVIEW
+                    && decision != PaymentDecisionResponse.DecisionType.BLOCK) {
+                throw new IllegalArgumentException(
+                        "payments.resilience.fallback.decision must be REVIEW or BLOCK, was " + decision);
+            }
+            this.decision = decision;
+        }
+    }
+}
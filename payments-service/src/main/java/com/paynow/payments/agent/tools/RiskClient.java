@@ -0,0 +1,21 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.RiskSignalsQuery;
+import com.paynow.common.dto.RiskSignalsResponse;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * How {@link RiskTool} reaches the risk service. Calls are lazy and untimed; see {@link AccountsClient}.
+ */
+public interface RiskClient {
+
+    Mono<RiskSignalsResponse> getRiskSignals(String customerId, BigDecimal amount);
+
+    /**
+     * Results in query order
+     */
+    Mono<List<RiskSignalsResponse>> getRiskSignalsBatch(List<RiskSignalsQuery> queries);
+}
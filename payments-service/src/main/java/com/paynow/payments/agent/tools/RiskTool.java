@@ -1,65 +1,136 @@
 package com.paynow.payments.agent.tools;
 
+import com.paynow.common.dto.RiskSignalsQuery;
 import com.paynow.common.dto.RiskSignalsResponse;
 import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.Deadline;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
- * Agent tool for interacting with risk service
+ * Agent tool for interacting with risk service, through whichever {@link RiskClient} is bound. Calls are
+ * bounded by the request's {@link Deadline}.
  */
 @Component
 @Slf4j
 public class RiskTool {
 
-    private final WebClient webClient;
-    private final String riskServiceUrl;
+    private static final int BATCH_CHUNK_SIZE = 200;
+    private static final int BATCH_CONCURRENCY = 4;
 
-    public RiskTool(WebClient.Builder webClientBuilder,
-                   @Value("${services.risk.url:http://localhost:8082}") String riskServiceUrl) {
-        this.webClient = webClientBuilder
-                .baseUrl(riskServiceUrl)
-                .build();
-        this.riskServiceUrl = riskServiceUrl;
+    private final RiskClient riskClient;
+    private final Hedger hedger;
+    private final ToolGuard toolGuard;
+    private final BudgetedRetry budgetedRetry;
+    private final SingleFlight singleFlight;
+
+    public RiskTool(RiskClient riskClient,
+                   Hedger hedger,
+                   ToolGuard toolGuard,
+                   BudgetedRetry budgetedRetry,
+                   SingleFlight singleFlight) {
+        this.riskClient = riskClient;
+        this.hedger = hedger;
+        this.toolGuard = toolGuard;
+        this.budgetedRetry = budgetedRetry;
+        this.singleFlight = singleFlight;
     }
 
-    @Retryable(value = {Exception.class}, maxAttempts = 2, backoff = @Backoff(delay = 200))
-    public RiskSignalsResponse getRiskSignals(String customerId, BigDecimal amount) {
-        try {
+    /**
+     * Risk signals for one payment. The call may be hedged, it times out when the request's deadline
+     * does, and a failed call is retried once if the deadline still allows it.
+     */
+    public RiskSignalsResponse getRiskSignals(String customerId, BigDecimal amount, Deadline deadline) {
+        return getRiskSignalsReactive(customerId, amount, deadline).block();
+    }
+
+    /**
+     * Non-blocking variant of {@link #getRiskSignals}. Joins an identical lookup already in flight
+     * rather than sending another.
+     */
+    public Mono<RiskSignalsResponse> getRiskSignalsReactive(String customerId, BigDecimal amount, Deadline deadline) {
+        // Signals depend on the amount, so only lookups for the same customer and amount are shared
+        return singleFlight.call("getRiskSignals", customerId + ':' + amount.stripTrailingZeros().toPlainString(),
+                        () -> budgetedRetry.call("getRiskSignals", deadline, 1,
+                                hedger.call("getRiskSignals", deadline, timeout -> riskRequest(customerId, amount, timeout))))
+                .doOnNext(response -> log.debug("Risk signals retrieved successfully for customer: {} - risk score: {}",
+                        customerId, response.getRiskScore()))
+                .onErrorMap(this::toRiskException);
+    }
+
+    private Mono<RiskSignalsResponse> riskRequest(String customerId, BigDecimal amount, Duration timeout) {
+        return Mono.defer(() -> {
             log.debug("Calling risk service for customer: {} with amount: {}", customerId, amount);
-            
-            RiskSignalsResponse response = webClient
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/risk/{customerId}/signals")
-                            .queryParam("amount", amount.toString())
-                            .build(customerId))
-                    .header("X-API-Key", "internal-service-key") // In production, use proper service auth
-                    .retrieve()
-                    .bodyToMono(RiskSignalsResponse.class)
-                    .timeout(Duration.ofSeconds(5))
+            return toolGuard.guard(ToolGuard.RISK, riskClient.getRiskSignals(customerId, amount), timeout);
+        });
+    }
+
+    private PaymentException toRiskException(Throwable e) {
+        if (e instanceof PaymentException paymentException) {
+            return paymentException;
+        } else if (e instanceof WebClientResponseException responseException) {
+            log.error("Risk service error: {} - {}",
+                    responseException.getStatusCode(), responseException.getResponseBodyAsString());
+            return new PaymentException("RISK_SERVICE_ERROR",
+                    "Failed to retrieve risk signals: " + e.getMessage(), e);
+        }
+        log.error("Unexpected error calling risk service: {}", e.getMessage(), e);
+        return new PaymentException("RISK_SERVICE_ERROR",
+                "Failed to retrieve risk signals", e);
+    }
+
+    /**
+     * Batched risk lookups. Queries are sent in chunks of {@value #BATCH_CHUNK_SIZE} with a few chunks
+     * in flight at once, each retried on its own; results are returned in query order.
+     */
+    public List<RiskSignalsResponse> getRiskSignalsBatch(List<RiskSignalsQuery> queries, Deadline deadline) {
+        if (queries.isEmpty()) {
+            return List.of();
+        }
+
+        try {
+            log.debug("Calling risk service for {} batched lookups", queries.size());
+
+            List<List<RiskSignalsQuery>> chunks = new ArrayList<>();
+            for (int i = 0; i < queries.size(); i += BATCH_CHUNK_SIZE) {
+                chunks.add(queries.subList(i, Math.min(i + BATCH_CHUNK_SIZE, queries.size())));
+            }
+
+            // flatMapSequential keeps chunk order so results line up with the queries
+            List<RiskSignalsResponse> responses = Flux.fromIterable(chunks)
+                    .flatMapSequential(chunk -> budgetedRetry.call("getRiskSignalsBatch", deadline, 1, Mono.defer(() ->
+                            toolGuard.guard(ToolGuard.RISK, riskClient.getRiskSignalsBatch(chunk),
+                                    deadline.timeout("getRiskSignalsBatch")))), BATCH_CONCURRENCY)
+                    .flatMapIterable(chunk -> chunk)
+                    .collectList()
                     .block();
 
-            log.debug("Risk signals retrieved successfully for customer: {} - risk score: {}", 
-                    customerId, response.getRiskScore());
-            return response;
+            if (responses == null || responses.size() != queries.size()) {
+                throw new PaymentException("RISK_SERVICE_ERROR",
+                        "Risk service returned " + (responses == null ? 0 : responses.size())
+                                + " results for " + queries.size() + " lookups");
+            }
+            return responses;
+
+        } catch (PaymentException e) {
+            throw e;
 
         } catch (WebClientResponseException e) {
-            log.error("Risk service error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
-            throw new PaymentException("RISK_SERVICE_ERROR", 
+            log.error("Risk service batch error: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+            throw new PaymentException("RISK_SERVICE_ERROR",
                     "Failed to retrieve risk signals: " + e.getMessage(), e);
-                    
+
         } catch (Exception e) {
-            log.error("Unexpected error calling risk service: {}", e.getMessage(), e);
-            throw new PaymentException("RISK_SERVICE_ERROR", 
+            log.error("Unexpected error calling risk service batch: {}", e.getMessage(), e);
+            throw new PaymentException("RISK_SERVICE_ERROR",
                     "Failed to retrieve risk signals", e);
         }
     }
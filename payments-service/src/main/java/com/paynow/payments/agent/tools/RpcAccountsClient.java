@@ -0,0 +1,69 @@
+package com.paynow.payments.agent.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
+import com.paynow.common.rpc.RpcClient;
+import com.paynow.common.rpc.RpcMethods;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link AccountsClient} over accounts-service's binary RPC endpoint. The server sends the
+ * PaymentExceptions the client contract asks for, and the RPC client rebuilds them.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "rpc")
+public class RpcAccountsClient implements AccountsClient, DisposableBean {
+
+    private final RpcClient rpcClient;
+
+    public RpcAccountsClient(@Value("${services.accounts.rpc:localhost:9081}") String address,
+                             @Value("${payments.tools.rpc.connections:2}") int connections,
+                             ObjectMapper objectMapper) {
+        this.rpcClient = new RpcClient("accounts", address, connections, "internal-service-key", objectMapper);
+    }
+
+    @Override
+    public Mono<AccountBalanceResponse> getBalance(String customerId) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.ACCOUNTS_GET_BALANCE,
+                AccountBalanceResponse.class, customerId));
+    }
+
+    @Override
+    public Mono<List<AccountBalanceResponse>> getBalances(List<String> customerIds) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.ACCOUNTS_GET_BALANCES,
+                        AccountBalanceResponse[].class, (Object) customerIds.toArray(String[]::new)))
+                .map(Arrays::asList);
+    }
+
+    @Override
+    public Mono<Void> reserveBalance(String customerId, BigDecimal amount, String requestId) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.ACCOUNTS_RESERVE,
+                Void.class, customerId, amount, requestId));
+    }
+
+    @Override
+    public Mono<BalanceReservationResponse> reserveIfAvailable(String customerId, BigDecimal amount,
+                                                               String requestId) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.ACCOUNTS_RESERVE_IF_AVAILABLE,
+                BalanceReservationResponse.class, customerId, amount, requestId));
+    }
+
+    @Override
+    public Mono<Void> releaseReservation(String requestId) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.ACCOUNTS_RELEASE, Void.class, requestId));
+    }
+
+    @Override
+    public void destroy() {
+        rpcClient.close();
+    }
+}
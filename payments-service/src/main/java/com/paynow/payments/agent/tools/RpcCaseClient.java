@@ -0,0 +1,40 @@
+package com.paynow.payments.agent.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.common.rpc.RpcClient;
+import com.paynow.common.rpc.RpcMethods;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link CaseClient} over case-service's binary RPC endpoint
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "rpc")
+public class RpcCaseClient implements CaseClient, DisposableBean {
+
+    private final RpcClient rpcClient;
+
+    public RpcCaseClient(@Value("${services.case.rpc:localhost:9083}") String address,
+                         @Value("${payments.tools.rpc.connections:2}") int connections,
+                         ObjectMapper objectMapper) {
+        this.rpcClient = new RpcClient("case", address, connections, "internal-service-key", objectMapper);
+    }
+
+    @Override
+    public Mono<Void> createCases(List<CaseCreationRequest> requests) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.CASES_CREATE_BATCH,
+                Void.class, (Object) requests.toArray(CaseCreationRequest[]::new)));
+    }
+
+    @Override
+    public void destroy() {
+        rpcClient.close();
+    }
+}
@@ -0,0 +1,50 @@
+package com.paynow.payments.agent.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.RiskSignalsQuery;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.common.rpc.RpcClient;
+import com.paynow.common.rpc.RpcMethods;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link RiskClient} over risk-service's binary RPC endpoint
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.tools", name = "binding", havingValue = "rpc")
+public class RpcRiskClient implements RiskClient, DisposableBean {
+
+    private final RpcClient rpcClient;
+
+    public RpcRiskClient(@Value("${services.risk.rpc:localhost:9082}") String address,
+                         @Value("${payments.tools.rpc.connections:2}") int connections,
+                         ObjectMapper objectMapper) {
+        this.rpcClient = new RpcClient("risk", address, connections, "internal-service-key", objectMapper);
+    }
+
+    @Override
+    public Mono<RiskSignalsResponse> getRiskSignals(String customerId, BigDecimal amount) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.RISK_GET_SIGNALS,
+                RiskSignalsResponse.class, customerId, amount));
+    }
+
+    @Override
+    public Mono<List<RiskSignalsResponse>> getRiskSignalsBatch(List<RiskSignalsQuery> queries) {
+        return Mono.fromFuture(() -> rpcClient.call(RpcMethods.RISK_GET_SIGNALS_BATCH,
+                        RiskSignalsResponse[].class, (Object) queries.toArray(RiskSignalsQuery[]::new)))
+                .map(Arrays::asList);
+    }
+
+    @Override
+    public void destroy() {
+        rpcClient.close();
+    }
+}
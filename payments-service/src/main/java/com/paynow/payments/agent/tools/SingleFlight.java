@@ -0,0 +1,52 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.payments.metrics.PaymentMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical read calls: while a call for an operation and key is in flight, later
+ * callers subscribe to it instead of sending their own, and all get its result or error. The entry is
+ * dropped when the call finishes, so nothing is cached beyond the call itself. The call is cancelled
+ * only once every caller has cancelled.
+ * <p>
+ * Only for side-effect-free lookups. A caller that joins gets the first caller's attempt, timeout included.
+ */
+@Component
+@RequiredArgsConstructor
+public class SingleFlight {
+
+    private final PaymentMetrics paymentMetrics;
+    private final Map<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> call(String operation, String key, Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            String flightKey = operation + '|' + key;
+            boolean[] leader = new boolean[1];
+            Mono<T> shared = (Mono<T>) inFlight.computeIfAbsent(flightKey, k -> {
+                leader[0] = true;
+                return share(k, call);
+            });
+            if (!leader[0]) {
+                paymentMetrics.recordCoalesced(operation);
+            }
+            return shared;
+        });
+    }
+
+    private <T> Mono<T> share(String flightKey, Supplier<Mono<T>> call) {
+        AtomicReference<Mono<T>> self = new AtomicReference<>();
+        Mono<T> shared = Mono.defer(call)
+                .doFinally(signal -> inFlight.remove(flightKey, self.get()))
+                .share();
+        self.set(shared);
+        return shared;
+    }
+}
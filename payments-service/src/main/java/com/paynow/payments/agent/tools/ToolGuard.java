@@ -0,0 +1,133 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.metrics.PaymentMetrics;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Circuit breaker and concurrency bulkhead per downstream service. Calls are admitted by the
+ * bulkhead first, so calls it rejects under load never count as breaker failures; the breaker
+ * then opens on error rate or slow-call rate.
+ * <p>
+ * Client errors (404 unknown account, 400 insufficient funds) and our own deadline expiry are
+ * answers, not outages, and are not recorded as failures.
+ */
+@Component
+@Slf4j
+public class ToolGuard {
+
+    public static final String ACCOUNTS = "accounts";
+    public static final String RISK = "risk";
+    public static final String CASE = "case";
+
+    private final Map<String, CircuitBreaker> breakers = new HashMap<>();
+    private final Map<String, Bulkhead> bulkheads = new HashMap<>();
+    private final PaymentMetrics paymentMetrics;
+
+    public ToolGuard(ResilienceProperties properties, PaymentMetrics paymentMetrics) {
+        this.paymentMetrics = paymentMetrics;
+
+        ResilienceProperties.CircuitBreaker cb = properties.getCircuitBreaker();
+        CircuitBreakerConfig breakerConfig = CircuitBreakerConfig.custom()
+                .failureRateThreshold(cb.getFailureRateThreshold())
+                .slowCallRateThreshold(cb.getSlowCallRateThreshold())
+                .slowCallDurationThreshold(cb.getSlowCallDurationThreshold())
+                .slidingWindowSize(cb.getSlidingWindowSize())
+                .minimumNumberOfCalls(cb.getMinimumNumberOfCalls())
+                .waitDurationInOpenState(cb.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(cb.getPermittedCallsInHalfOpenState())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .ignoreExceptions(WebClientResponseException.NotFound.class,
+                        WebClientResponseException.BadRequest.class,
+                        PaymentException.class)
+                .build();
+
+        BulkheadConfig bulkheadConfig = BulkheadConfig.custom()
+                .maxConcurrentCalls(properties.getBulkhead().getMaxConcurrentCalls())
+                .maxWaitDuration(properties.getBulkhead().getMaxWaitDuration())
+                .build();
+
+        for (String tool : List.of(ACCOUNTS, RISK, CASE)) {
+            CircuitBreaker breaker = CircuitBreaker.of(tool, breakerConfig);
+            breaker.getEventPublisher()
+                    .onStateTransition(event -> log.warn("Circuit breaker {}: {}", tool, event.getStateTransition()))
+                    .onCallNotPermitted(event -> paymentMetrics.recordToolRejected(tool, "circuit_open"));
+            paymentMetrics.registerCircuitState(tool, () -> stateCode(breaker.getState()));
+            breakers.put(tool, breaker);
+
+            Bulkhead bulkhead = Bulkhead.of(tool, bulkheadConfig);
+            bulkhead.getEventPublisher()
+                    .onCallRejected(event -> paymentMetrics.recordToolRejected(tool, "bulkhead_full"));
+            bulkheads.put(tool, bulkhead);
+        }
+    }
+
+    /**
+     * Run a call through the tool's bulkhead and breaker.
+     * <p>
+     * A call rejected without being made fails with {@link PaymentException.ToolUnavailableException}.
+     */
+    public <T> Mono<T> guard(String tool, Mono<T> call) {
+        return call
+                .transformDeferred(CircuitBreakerOperator.of(breakers.get(tool)))
+                .transformDeferred(BulkheadOperator.of(bulkheads.get(tool)))
+                .onErrorMap(e -> e instanceof CallNotPermittedException || e instanceof BulkheadFullException,
+                        e -> unavailable(tool, e));
+    }
+
+    /**
+     * {@link #guard(String, Mono)} with the request's deadline as the timeout. The timeout is applied
+     * outside the breaker: a call it cuts off is cancelled, which gives the permit back without recording
+     * anything, so clients with short deadlines cannot open the breaker for everyone else.
+     */
+    public <T> Mono<T> guard(String tool, Mono<T> call, Duration timeout) {
+        return guard(tool, call).timeout(timeout);
+    }
+
+    /**
+     * First of the given tools whose breaker is currently rejecting calls, or {@code null}. A plain
+     * state read, cheap enough to check before every decision.
+     */
+    public String firstOpen(String... tools) {
+        for (String tool : tools) {
+            CircuitBreaker.State state = breakers.get(tool).getState();
+            if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN) {
+                return tool;
+            }
+        }
+        return null;
+    }
+
+    private static PaymentException.ToolUnavailableException unavailable(String tool, Throwable cause) {
+        String reason = cause instanceof BulkheadFullException ? "bulkhead is full" : "circuit breaker is open";
+        return new PaymentException.ToolUnavailableException(tool, tool + " service unavailable: " + reason, cause);
+    }
+
+    /**
+     * Gauge value per state: 0 closed, 1 open, 2 half-open, 3 other (disabled, forced, metrics-only)
+     */
+    private static int stateCode(CircuitBreaker.State state) {
+        return switch (state) {
+            case CLOSED -> 0;
+            case OPEN -> 1;
+            case HALF_OPEN -> 2;
+            default -> 3;
+        };
+    }
+}
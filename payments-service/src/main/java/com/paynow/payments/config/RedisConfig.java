@@ -1,14 +1,19 @@
 package com.paynow.payments.config;
 
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.Jedis;
+
+import java.time.Duration;
 
 /**
  * Redis configuration for caching and rate limiting
@@ -25,6 +30,18 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    @Value("${spring.data.redis.timeout:2000ms}")
+    private Duration timeout;
+
+    @Value("${spring.data.redis.jedis.pool.max-active:10}")
+    private int maxActive;
+
+    @Value("${spring.data.redis.jedis.pool.max-idle:5}")
+    private int maxIdle;
+
+    @Value("${spring.data.redis.jedis.pool.min-idle:1}")
+    private int minIdle;
+
     @Bean
     public RedisConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
@@ -35,7 +52,20 @@ public class RedisConfig {
             config.setPassword(redisPassword);
         }
         
-        return new JedisConnectionFactory(config);
+        // The factory is built by hand, so the spring.data.redis pool settings have to be applied here
+        GenericObjectPoolConfig<Jedis> poolConfig = new GenericObjectPoolConfig<>();
+        poolConfig.setMaxTotal(maxActive);
+        poolConfig.setMaxIdle(maxIdle);
+        poolConfig.setMinIdle(minIdle);
+
+        JedisClientConfiguration clientConfig = JedisClientConfiguration.builder()
+                .connectTimeout(timeout)
+                .readTimeout(timeout)
+                .usePooling()
+                .poolConfig(poolConfig)
+                .build();
+
+        return new JedisConnectionFactory(config, clientConfig);
     }
 
     @Bean
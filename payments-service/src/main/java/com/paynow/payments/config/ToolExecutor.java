@@ -0,0 +1,63 @@
+package com.paynow.payments.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Executor for blocking agent work: tool fan-out and batch lookups.
+ * <p>
+ * In {@code platform} mode tasks run on {@link ForkJoinPool#commonPool()}, which is sized to the CPU
+ * count and starves once enough tasks block on downstream calls. In {@code virtual} mode every task
+ * gets its own virtual thread, so a blocked tool call only parks its virtual thread and frees the
+ * carrier. Selected with {@code payments.executor.mode}.
+ */
+@Component
+@Slf4j
+public class ToolExecutor implements DisposableBean {
+
+    public enum Mode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    private final Mode mode;
+    private final Executor executor;
+
+    public ToolExecutor(@Value("${payments.executor.mode:platform}") String mode) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.executor = this.mode == Mode.VIRTUAL
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("agent-vt-", 0).factory())
+                : ForkJoinPool.commonPool();
+        log.info("Agent tool executor running in {} mode", this.mode);
+    }
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(task, executor);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    @Override
+    public void destroy() {
+        // The common pool is JVM-owned; only the per-task executor is ours to close
+        if (executor instanceof ExecutorService executorService) {
+            executorService.close();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.paynow.payments.controller;
 
 import com.paynow.payments.metrics.PaymentMetrics;
+import com.paynow.payments.metrics.StagePercentiles;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
@@ -17,4 +18,12 @@ public class MetricsController {
     public Map<String, Double> getP95Latency() {
         return Map.of("p95_latency_ms", paymentMetrics.getP95Latency());
     }
+
+    /**
+     * p50/p90/p99/p99.9 and max per decision stage, for each sliding window
+     */
+    @GetMapping("/metrics/latency")
+    public Map<String, Map<String, StagePercentiles>> getStageLatencies() {
+        return paymentMetrics.getStageLatencies();
+    }
 }
\ No newline at end of file
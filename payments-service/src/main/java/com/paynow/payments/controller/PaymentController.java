@@ -1,18 +1,27 @@
 package com.paynow.payments.controller;
 
+import com.paynow.common.dto.BatchPaymentDecisionRequest;
+import com.paynow.common.dto.BatchPaymentDecisionResponse;
 import com.paynow.common.dto.PaymentDecisionRequest;
 import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.TraceVerbosity;
 import com.paynow.common.error.PaymentError;
 import com.paynow.common.exception.PaymentException;
 import com.paynow.common.util.CorrelationUtils;
+import com.paynow.payments.agent.Deadline;
 import com.paynow.payments.service.PaymentDecisionService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
 
 /**
  * REST controller for payment decisions
@@ -25,6 +34,26 @@ public class PaymentController {
 
     private final PaymentDecisionService paymentDecisionService;
 
+    @Value("${payments.trace.verbosity:full}")
+    private String defaultTraceVerbosity;
+
+    // Time budget for one decision when the gateway did not send one; tool calls and retries draw from it
+    @Value("${payments.deadline.default-budget:5s}")
+    private Duration defaultDeadlineBudget;
+
+    @Value("${payments.deadline.min-budget:200ms}")
+    private Duration minDeadlineBudget;
+
+    @Value("${payments.deadline.max-budget:10s}")
+    private Duration maxDeadlineBudget;
+
+    // A batch gets one decision's budget plus this much per payment, up to max-batch-budget
+    @Value("${payments.deadline.batch-item-budget:20ms}")
+    private Duration batchItemDeadlineBudget;
+
+    @Value("${payments.deadline.max-batch-budget:30s}")
+    private Duration maxBatchDeadlineBudget;
+
     @PostMapping("/decide")
     public ResponseEntity<?> decidePayment(
             @Valid @RequestBody PaymentDecisionRequest request,
@@ -38,7 +67,8 @@ public class PaymentController {
         try {
             log.info("Processing payment decision request: {}", request.toRedactedString());
 
-            PaymentDecisionResponse response = paymentDecisionService.processPayment(request, requestId);
+            PaymentDecisionResponse response = paymentDecisionService.processPayment(
+                    request, requestId, traceVerbosity(httpRequest), deadline(httpRequest));
 
             log.info("Payment decision completed: decision={}, requestId={}",
                     response.getDecision(), requestId);
@@ -47,34 +77,153 @@ public class PaymentController {
                     .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
                     .body(response);
 
-        } catch (PaymentException.RateLimitException e) {
+        } catch (Exception e) {
+            return errorResponse(e, requestId, httpRequest.getRequestURI());
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #decidePayment}. The returned Mono is subscribed asynchronously,
+     * so no request thread is held while the agent waits on downstream services. This is still Spring
+     * MVC async on Tomcat, not WebFlux: the connection and its async request context stay open until the
+     * decision is written, so concurrency is bounded by Tomcat's connection limit rather than its threads.
+     */
+    @PostMapping("/decide/reactive")
+    public Mono<ResponseEntity<?>> decidePaymentReactive(
+            @Valid @RequestBody PaymentDecisionRequest request,
+            HttpServletRequest httpRequest) {
+        String requestIdHeader = httpRequest.getHeader(CorrelationUtils.REQUEST_ID_HEADER);
+        String requestId = (requestIdHeader != null && !requestIdHeader.isBlank())
+                ? requestIdHeader
+                : "req_missing";
+        // Read before the handler returns; the servlet request must not be touched from the async pipeline
+        String path = httpRequest.getRequestURI();
+        TraceVerbosity verbosity = traceVerbosity(httpRequest);
+        Deadline deadline = deadline(httpRequest);
+
+        log.info("Processing reactive payment decision request: {}", request.toRedactedString());
+
+        return paymentDecisionService.processPaymentReactive(request, requestId, verbosity, deadline)
+                .<ResponseEntity<?>>map(response -> {
+                    log.info("Payment decision completed: decision={}, requestId={}",
+                            response.getDecision(), requestId);
+
+                    return ResponseEntity.ok()
+                            .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                            .body(response);
+                })
+                .onErrorResume(Exception.class, e -> Mono.just(errorResponse(e, requestId, path)));
+    }
+
+    /**
+     * Trace verbosity from the {@code X-Trace-Verbosity} header, defaulting to {@code payments.trace.verbosity}
+     */
+    private TraceVerbosity traceVerbosity(HttpServletRequest httpRequest) {
+        TraceVerbosity fallback = TraceVerbosity.from(defaultTraceVerbosity, TraceVerbosity.FULL);
+        return TraceVerbosity.from(httpRequest.getHeader(TraceVerbosity.HEADER), fallback);
+    }
+
+    /**
+     * Deadline from the {@code X-Request-Timeout-Ms} header set by the gateway, kept between
+     * {@code payments.deadline.min-budget} and {@code payments.deadline.max-budget};
+     * {@code payments.deadline.default-budget} when absent or invalid
+     */
+    private Deadline deadline(HttpServletRequest httpRequest) {
+        return Deadline.after(budget(httpRequest));
+    }
+
+    /**
+     * A batch's deadline: one decision's budget plus {@code payments.deadline.batch-item-budget} per
+     * payment, since its reservations and cases scale with its size, up to
+     * {@code payments.deadline.max-batch-budget}
+     */
+    private Deadline batchDeadline(HttpServletRequest httpRequest, int size) {
+        Duration budget = budget(httpRequest).plus(batchItemDeadlineBudget.multipliedBy(size));
+        return Deadline.after(budget.compareTo(maxBatchDeadlineBudget) > 0 ? maxBatchDeadlineBudget : budget);
+    }
+
+    private Duration budget(HttpServletRequest httpRequest) {
+        Duration budget = defaultDeadlineBudget;
+        String header = httpRequest.getHeader(CorrelationUtils.REQUEST_TIMEOUT_HEADER);
+        if (header != null && !header.isBlank()) {
+            try {
+                long millis = Long.parseLong(header.trim());
+                if (millis >= 0) {
+                    budget = Duration.ofMillis(millis);
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring invalid {} header: {}", CorrelationUtils.REQUEST_TIMEOUT_HEADER, header);
+            }
+        }
+        if (budget.compareTo(minDeadlineBudget) < 0) {
+            budget = minDeadlineBudget;
+        }
+        return budget.compareTo(maxDeadlineBudget) > 0 ? maxDeadlineBudget : budget;
+    }
+
+    private ResponseEntity<?> errorResponse(Exception ex, String requestId, String path) {
+        if (ex instanceof PaymentException.RateLimitException e) {
             log.warn("Rate limit exceeded for request: {}", e.getMessage());
-            PaymentError error = PaymentError.rateLimited(e.getMessage(), requestId, httpRequest.getRequestURI());
+            PaymentError error = PaymentError.rateLimited(e.getMessage(), requestId, path);
             return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
                     .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
                     .body(error);
 
-        } catch (PaymentException.DuplicateRequestException e) {
+        } else if (ex instanceof PaymentException.DuplicateRequestException e) {
             log.warn("Duplicate request detected: {}", e.getMessage());
-            PaymentError error = PaymentError.badRequest(e.getMessage(), requestId, httpRequest.getRequestURI());
+            PaymentError error = PaymentError.badRequest(e.getMessage(), requestId, path);
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
                     .body(error);
 
-        } catch (PaymentException e) {
+        } else if (ex instanceof PaymentException e) {
             log.error("Payment processing error: {}", e.getMessage(), e);
-            PaymentError error = PaymentError.badRequest(e.getMessage(), requestId, httpRequest.getRequestURI());
+            PaymentError error = PaymentError.badRequest(e.getMessage(), requestId, path);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
                     .body(error);
+        }
 
-        } catch (Exception e) {
-            log.error("Unexpected error processing payment: {}", e.getMessage(), e);
-            PaymentError error = PaymentError.internalError(
-                    "An unexpected error occurred", requestId, httpRequest.getRequestURI());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+        log.error("Unexpected error processing payment: {}", ex.getMessage(), ex);
+        PaymentError error = PaymentError.internalError(
+                "An unexpected error occurred", requestId, path);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                .body(error);
+    }
+
+    /**
+     * Decide up to {@value BatchPaymentDecisionRequest#MAX_BATCH_SIZE} payments in one call.
+     * Results are returned in request order.
+     */
+    @PostMapping("/decide/batch")
+    public ResponseEntity<?> decidePaymentBatch(
+            @Valid @RequestBody BatchPaymentDecisionRequest request,
+            HttpServletRequest httpRequest) {
+        // Identifies the batch in logs and the response; each item is recorded downstream under an ID
+        // derived from its idempotency key
+        String requestIdHeader = httpRequest.getHeader(CorrelationUtils.REQUEST_ID_HEADER);
+        String requestId = (requestIdHeader != null && !requestIdHeader.isBlank())
+                ? requestIdHeader
+                : CorrelationUtils.generateRequestId();
+
+        try {
+            log.info("Processing batch payment decision request: {} payments", request.getPayments().size());
+
+            List<PaymentDecisionResponse> results =
+                    paymentDecisionService.processBatch(
+                            request.getPayments(), requestId, traceVerbosity(httpRequest),
+                            batchDeadline(httpRequest, request.getPayments().size()));
+
+            log.info("Batch payment decision completed: {} results, requestId={}", results.size(), requestId);
+
+            return ResponseEntity.ok()
                     .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
-                    .body(error);
+                    .body(new BatchPaymentDecisionResponse(results, requestId));
+
+        } catch (Exception e) {
+            // Same statuses as a single decision: 409 for a payment still in progress, 429 when rate limited
+            return errorResponse(e, requestId, httpRequest.getRequestURI());
         }
     }
 
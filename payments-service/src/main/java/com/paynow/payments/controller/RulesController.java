@@ -0,0 +1,53 @@
+package com.paynow.payments.controller;
+
+import com.paynow.common.error.PaymentError;
+import com.paynow.common.util.CorrelationUtils;
+import com.paynow.payments.agent.rules.CompiledRulePlan;
+import com.paynow.payments.agent.rules.DecisionRuleEngine;
+import com.paynow.payments.agent.rules.DecisionRulesProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Internal endpoints for inspecting and hot-swapping the decision rule set. Not routed by the gateway.
+ */
+@RestController
+@RequestMapping("/internal/rules")
+@RequiredArgsConstructor
+@Slf4j
+public class RulesController {
+
+    private final DecisionRuleEngine ruleEngine;
+
+    @GetMapping
+    public ResponseEntity<DecisionRulesProperties> getRules() {
+        return ResponseEntity.ok(ruleEngine.getPlan().getDefinition());
+    }
+
+    @PutMapping
+    public ResponseEntity<?> replaceRules(@RequestBody DecisionRulesProperties rules, HttpServletRequest httpRequest) {
+        try {
+            CompiledRulePlan plan = ruleEngine.replace(rules);
+            return ResponseEntity.ok(Map.of(
+                    "version", plan.getVersion(),
+                    "ruleCount", plan.getRuleCount(),
+                    "ruleIds", plan.getRuleIds()));
+
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected decision rule set '{}': {}", rules.getVersion(), e.getMessage());
+            String requestId = httpRequest.getHeader(CorrelationUtils.REQUEST_ID_HEADER);
+            PaymentError error = PaymentError.badRequest(e.getMessage(), requestId, httpRequest.getRequestURI());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+    }
+}
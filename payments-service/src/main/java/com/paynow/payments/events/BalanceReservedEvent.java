@@ -0,0 +1,10 @@
+package com.paynow.payments.events;
+
+import com.paynow.common.dto.PaymentDecisionRequest;
+
+/**
+ * balance.reserved: funds were held for an allowed payment
+ */
+public record BalanceReservedEvent(long timestampMillis, PaymentDecisionRequest request,
+                                   String requestId) implements PaymentEvent {
+}
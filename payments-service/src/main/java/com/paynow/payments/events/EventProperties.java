@@ -0,0 +1,56 @@
+package com.paynow.payments.events;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Event publisher settings. Events wait in a ring buffer of {@code capacity} slots, are moved to the
+ * spool in batches of up to {@code batchSize}, and delivered from the spool to the configured sink.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.events")
+public class EventProperties {
+
+    public enum OverflowPolicy {
+        /** Reject the event being published */
+        DROP_NEWEST,
+        /** Evict the oldest queued event to make room */
+        DROP_OLDEST,
+        /** Wait up to {@code blockTimeout} for room, then reject */
+        BLOCK
+    }
+
+    public enum SinkType {
+        LOG,
+        FILE,
+        MEMORY
+    }
+
+    private int capacity = 8192;
+    private int batchSize = 256;
+    private Duration flushInterval = Duration.ofMillis(100);
+    private OverflowPolicy overflow = OverflowPolicy.DROP_NEWEST;
+    private Duration blockTimeout = Duration.ofMillis(20);
+    private Duration retryBackoff = Duration.ofSeconds(1);
+    private SinkType sink = SinkType.LOG;
+    private Spool spool = new Spool();
+    private File file = new File();
+
+    /**
+     * Memory-mapped spool holding events between the ring buffer and the sink. Mapped pages survive
+     * a process crash as they are; {@code force} also msyncs after each batch to survive power loss.
+     */
+    @Data
+    public static class Spool {
+        private String path = "data/events/events.spool";
+        private int sizeBytes = 16 * 1024 * 1024;
+        private boolean force = false;
+    }
+
+    @Data
+    public static class File {
+        private String path = "data/events/payment-events.jsonl";
+    }
+}
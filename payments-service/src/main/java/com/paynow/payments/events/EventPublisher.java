@@ -0,0 +1,257 @@
+package com.paynow.payments.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.payments.metrics.PaymentMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, batching event publisher.
+ * <p>
+ * {@link #publish} puts the event in a fixed-size ring buffer and returns; when the buffer is full the
+ * {@code payments.events.overflow} policy decides what is dropped. A single flusher thread drains the
+ * buffer in batches, serializes the events with a {@link PaymentEventWriter}, appends them to the
+ * {@link EventSpool} and delivers them from there to the {@link EventSink}. While the sink fails the spool keeps absorbing events; once the
+ * spool is full too the flusher stops draining, and the ring buffer's overflow policy applies.
+ * <p>
+ * On shutdown the buffer is drained into the spool, and anything not yet delivered is sent on the
+ * next start.
+ */
+@Component
+@Slf4j
+public class EventPublisher implements SmartLifecycle {
+
+    private static final long MAX_IDLE_WAIT_MILLIS = 1000;
+
+    private final PaymentEventWriter writer;
+    private final EventSink sink;
+    private final PaymentMetrics paymentMetrics;
+    private final EventProperties properties;
+    private final EventSpool spool;
+    private final BlockingQueue<PaymentEvent> queue;
+    private final String policy;
+
+    // Serialized events the spool had no room for; owned by the flusher thread
+    private final ArrayDeque<byte[]> unspooled = new ArrayDeque<>();
+    private long nextDeliveryNanos;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public EventPublisher(ObjectMapper objectMapper, EventSink sink, PaymentMetrics paymentMetrics,
+                          EventProperties properties) {
+        this.writer = new PaymentEventWriter(objectMapper.getFactory());
+        this.sink = sink;
+        this.paymentMetrics = paymentMetrics;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        try {
+            this.spool = new EventSpool(properties.getSpool());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open event spool " + properties.getSpool().getPath(), e);
+        }
+        this.policy = properties.getOverflow().name().toLowerCase(Locale.ROOT);
+        this.nextDeliveryNanos = System.nanoTime();
+        paymentMetrics.registerEventQueue(queue::size, properties.getCapacity(), policy);
+        paymentMetrics.registerEventSpool(spool::pendingEvents, spool::pendingBytes);
+        log.info("Event publisher using {} sink, capacity {}, overflow policy {}",
+                sink.name(), properties.getCapacity(), policy);
+    }
+
+    /**
+     * Queue an event for publishing without waiting for it to be written. Returns false if the event
+     * was dropped because the buffer was full.
+     */
+    public boolean publish(PaymentEvent event) {
+        boolean accepted = switch (properties.getOverflow()) {
+            case DROP_NEWEST -> queue.offer(event);
+            case DROP_OLDEST -> offerEvictingOldest(event);
+            case BLOCK -> offerWaiting(event);
+        };
+        if (!accepted) {
+            paymentMetrics.recordEventDropped(policy, "queue_full");
+        }
+        return accepted;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = Thread.ofPlatform().name("event-flusher").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            try {
+                flusher.join(properties.getFlushInterval().toMillis() + properties.getRetryBackoff().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private boolean offerEvictingOldest(PaymentEvent event) {
+        while (!queue.offer(event)) {
+            if (queue.poll() != null) {
+                paymentMetrics.recordEventDropped(policy, "evicted");
+            }
+        }
+        return true;
+    }
+
+    private boolean offerWaiting(PaymentEvent event) {
+        try {
+            return queue.offer(event, properties.getBlockTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void run() {
+        List<PaymentEvent> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                if (unspooled.isEmpty()) {
+                    fill(batch, waitMillis());
+                    spoolAll(batch);
+                    batch.clear();
+                } else {
+                    // Spool is full: leave events in the ring buffer so its overflow policy applies
+                    Thread.sleep(Math.min(waitMillis(), properties.getFlushInterval().toMillis()));
+                }
+                spoolUnspooled();
+                deliverIfDue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Event flusher failed: {}", e.getMessage(), e);
+            }
+        }
+        shutdown(batch);
+    }
+
+    /**
+     * Wait for at most {@code waitMillis} for a first event, then take whatever else is already queued
+     */
+    private void fill(List<PaymentEvent> batch, long waitMillis) throws InterruptedException {
+        PaymentEvent first = waitMillis > 0 ? queue.poll(waitMillis, TimeUnit.MILLISECONDS) : queue.poll();
+        if (first != null) {
+            batch.add(first);
+            queue.drainTo(batch, properties.getBatchSize() - 1);
+        }
+    }
+
+    /**
+     * How long the flusher may block on an empty queue: until the next delivery is due if the spool
+     * holds events, otherwise one flush interval
+     */
+    private long waitMillis() {
+        if (spool.isEmpty()) {
+            return Math.min(properties.getFlushInterval().toMillis(), MAX_IDLE_WAIT_MILLIS);
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(nextDeliveryNanos - System.nanoTime()));
+    }
+
+    private void spoolAll(List<PaymentEvent> batch) {
+        for (PaymentEvent event : batch) {
+            try {
+                writer.write(event);
+            } catch (Exception e) {
+                log.error("Failed to serialize event for requestId {}, dropping it: {}",
+                        event.requestId(), e.getMessage());
+                paymentMetrics.recordEventDropped(policy, "serialization");
+                continue;
+            }
+            if (!unspooled.isEmpty() || !spool.append(writer.buffer(), writer.size())) {
+                unspooled.add(Arrays.copyOf(writer.buffer(), writer.size()));
+            }
+        }
+        spool.sync();
+    }
+
+    private void spoolUnspooled() {
+        while (!unspooled.isEmpty()) {
+            if (spool.append(unspooled.peek(), unspooled.peek().length)) {
+                unspooled.poll();
+            } else if (spool.isEmpty()) {
+                // Does not fit even in an empty spool, so it never will
+                log.error("Event of {} bytes is larger than the event spool, dropping it", unspooled.poll().length);
+                paymentMetrics.recordEventDropped(policy, "too_large");
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Send one batch from the spool to the sink, unless the last attempt failed less than
+     * {@code retryBackoff} ago
+     */
+    private void deliverIfDue() {
+        if (spool.isEmpty() || System.nanoTime() - nextDeliveryNanos < 0) {
+            return;
+        }
+        EventSpool.Pending pending = spool.peek(properties.getBatchSize());
+        try {
+            sink.write(pending.events());
+        } catch (Exception e) {
+            log.warn("Event sink {} failed, retrying in {}ms with {} events spooled: {}", sink.name(),
+                    properties.getRetryBackoff().toMillis(), spool.pendingEvents(), e.getMessage());
+            paymentMetrics.recordEventSinkFailure(sink.name());
+            nextDeliveryNanos = System.nanoTime() + properties.getRetryBackoff().toNanos();
+            return;
+        }
+        spool.release(pending);
+        paymentMetrics.recordEventBatch(sink.name(), pending.events().size());
+    }
+
+    /**
+     * Move everything still buffered into the spool, make one last delivery attempt and close the
+     * spool. Whatever the spool cannot hold is lost, and counted.
+     */
+    private void shutdown(List<PaymentEvent> batch) {
+        queue.drainTo(batch);
+        spoolAll(batch);
+        spoolUnspooled();
+        nextDeliveryNanos = System.nanoTime();
+        while (!spool.isEmpty() && System.nanoTime() - nextDeliveryNanos >= 0) {
+            deliverIfDue();
+        }
+        if (!unspooled.isEmpty()) {
+            log.error("Event spool full at shutdown; {} events lost", unspooled.size());
+            for (int i = 0; i < unspooled.size(); i++) {
+                paymentMetrics.recordEventDropped(policy, "spool_full");
+            }
+            unspooled.clear();
+        }
+        if (!spool.isEmpty()) {
+            log.info("{} undelivered events left in the event spool for the next start", spool.pendingEvents());
+        }
+        try {
+            spool.close();
+        } catch (IOException e) {
+            log.warn("Failed to close event spool: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.paynow.payments.events;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination for published events. Each event is one serialized JSON document. A batch is removed
+ * from the spool only after {@link #write} returns, so a sink that throws sees the same batch again.
+ */
+public interface EventSink {
+
+    void write(List<byte[]> events) throws IOException;
+
+    /**
+     * Short name used in logs and metric tags
+     */
+    String name();
+}
@@ -0,0 +1,23 @@
+package com.paynow.payments.events;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Picks the event sink from {@code payments.events.sink}. Any other {@link EventSink} bean, such as
+ * an {@link InMemoryEventSink} registered by a test, takes precedence.
+ */
+@Configuration
+public class EventSinkConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(EventSink.class)
+    public EventSink eventSink(EventProperties properties) {
+        return switch (properties.getSink()) {
+            case LOG -> new LogEventSink();
+            case FILE -> new FileEventSink(properties.getFile().getPath());
+            case MEMORY -> new InMemoryEventSink();
+        };
+    }
+}
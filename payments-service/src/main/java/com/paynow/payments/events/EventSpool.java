@@ -0,0 +1,212 @@
+package com.paynow.payments.events;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped file of events accepted by the publisher but not yet delivered to the
+ * sink. Used by the publisher's flusher thread only.
+ * <p>
+ * The file starts with a magic number and one 8-byte word packing the read and write offsets, so both
+ * move together in a single store. Records are {@code [length][crc32][json]}. Appends go at the write
+ * offset; delivered records are released by moving the read offset, and once everything is delivered
+ * both offsets go back to the start. On startup, records between the two offsets are delivered again;
+ * a record whose checksum does not match ends the replay.
+ */
+@Slf4j
+class EventSpool implements AutoCloseable {
+
+    private static final int MAGIC = 0x45565350; // "EVSP"
+    private static final int OFFSETS_AT = 8;
+    private static final int DATA_START = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final boolean force;
+    private final CRC32 crc = new CRC32();
+
+    private int readOffset;
+    private int writeOffset;
+    private volatile int pendingBytes;
+    private volatile int pendingEvents;
+
+    EventSpool(EventProperties.Spool properties) throws IOException {
+        this.path = Paths.get(properties.getPath()).toAbsolutePath();
+        this.capacity = properties.getSizeBytes();
+        this.force = properties.isForce();
+        Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        recover();
+    }
+
+    /**
+     * Append the event in {@code event[0..length)}, or return false if the spool has no room for it
+     * even after compaction
+     */
+    boolean append(byte[] event, int length) {
+        int size = RECORD_HEADER_BYTES + length;
+        if (writeOffset + size > capacity && !compact(size)) {
+            return false;
+        }
+        crc.reset();
+        crc.update(event, 0, length);
+        buffer.putInt(writeOffset, length);
+        buffer.putInt(writeOffset + 4, (int) crc.getValue());
+        buffer.put(writeOffset + RECORD_HEADER_BYTES, event, 0, length);
+        writeOffset += size;
+        storeOffsets();
+        pendingBytes = writeOffset - readOffset;
+        pendingEvents++;
+        return true;
+    }
+
+    /**
+     * Up to {@code max} undelivered events, oldest first, without releasing them
+     */
+    Pending peek(int max) {
+        List<byte[]> events = new ArrayList<>(Math.min(max, pendingEvents));
+        int offset = readOffset;
+        while (events.size() < max && offset < writeOffset) {
+            int length = buffer.getInt(offset);
+            byte[] event = new byte[length];
+            buffer.get(offset + RECORD_HEADER_BYTES, event);
+            events.add(event);
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        return new Pending(events, offset);
+    }
+
+    /**
+     * Release the events returned by {@link #peek} after the sink accepted them
+     */
+    void release(Pending delivered) {
+        readOffset = delivered.end();
+        if (readOffset == writeOffset) {
+            readOffset = DATA_START;
+            writeOffset = DATA_START;
+        }
+        storeOffsets();
+        pendingBytes = writeOffset - readOffset;
+        pendingEvents -= delivered.events().size();
+        if (force) {
+            buffer.force();
+        }
+    }
+
+    /**
+     * Flush appended records to disk if {@code force} is set; called once per appended batch
+     */
+    void sync() {
+        if (force) {
+            buffer.force();
+        }
+    }
+
+    boolean isEmpty() {
+        return pendingEvents == 0;
+    }
+
+    int pendingBytes() {
+        return pendingBytes;
+    }
+
+    int pendingEvents() {
+        return pendingEvents;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Move undelivered records to the start of the file. Only done when they fit entirely before their
+     * current position, so a crash mid-copy leaves the originals, which the offsets still point to, intact.
+     */
+    private boolean compact(int needed) {
+        int pending = writeOffset - readOffset;
+        if (readOffset - DATA_START < pending || DATA_START + pending + needed > capacity) {
+            return false;
+        }
+        byte[] records = new byte[pending];
+        buffer.get(readOffset, records);
+        buffer.put(DATA_START, records);
+        readOffset = DATA_START;
+        writeOffset = DATA_START + pending;
+        storeOffsets();
+        return true;
+    }
+
+    private void storeOffsets() {
+        buffer.putLong(OFFSETS_AT, ((long) readOffset << 32) | (writeOffset & 0xFFFFFFFFL));
+    }
+
+    private void recover() {
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            readOffset = DATA_START;
+            writeOffset = DATA_START;
+            storeOffsets();
+            return;
+        }
+        long offsets = buffer.getLong(OFFSETS_AT);
+        readOffset = (int) (offsets >>> 32);
+        int storedWrite = (int) offsets;
+        if (readOffset < DATA_START || storedWrite < readOffset || storedWrite > capacity) {
+            log.warn("Event spool {} has invalid offsets {}..{}; discarding it", path, readOffset, storedWrite);
+            readOffset = DATA_START;
+            storedWrite = DATA_START;
+        }
+
+        int offset = readOffset;
+        int events = 0;
+        while (offset + RECORD_HEADER_BYTES <= storedWrite) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_BYTES + length > storedWrite) {
+                break;
+            }
+            byte[] event = new byte[length];
+            buffer.get(offset + RECORD_HEADER_BYTES, event);
+            crc.reset();
+            crc.update(event);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += RECORD_HEADER_BYTES + length;
+            events++;
+        }
+        if (offset < storedWrite) {
+            log.warn("Event spool {} has {} unreadable bytes after offset {}; dropping them",
+                    path, storedWrite - offset, offset);
+        }
+        writeOffset = offset;
+        storeOffsets();
+        pendingBytes = writeOffset - readOffset;
+        pendingEvents = events;
+        if (events > 0) {
+            log.info("Event spool recovered {} undelivered events from {}", events, path);
+        }
+    }
+
+    /**
+     * Events read from the spool and the offset just past the last of them
+     */
+    record Pending(List<byte[]> events, int end) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.paynow.payments.events;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends events to a newline-delimited JSON file, one gathering write and one fsync per batch.
+ */
+public class FileEventSink implements EventSink, AutoCloseable {
+
+    private static final ByteBuffer NEWLINE = ByteBuffer.wrap(new byte[]{'\n'});
+
+    private final Path path;
+    private final FileChannel channel;
+
+    public FileEventSink(String path) {
+        this.path = Paths.get(path).toAbsolutePath();
+        try {
+            Files.createDirectories(this.path.getParent());
+            this.channel = FileChannel.open(this.path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open event file " + this.path, e);
+        }
+    }
+
+    @Override
+    public void write(List<byte[]> events) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[events.size() * 2];
+        long total = 0;
+        for (int i = 0; i < events.size(); i++) {
+            byte[] event = events.get(i);
+            buffers[2 * i] = ByteBuffer.wrap(event);
+            buffers[2 * i + 1] = NEWLINE.duplicate();
+            total += event.length + 1;
+        }
+        long written = 0;
+        while (written < total) {
+            written += channel.write(buffers);
+        }
+        channel.force(false);
+    }
+
+    @Override
+    public String name() {
+        return "file";
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FileEventSink{" + path + '}';
+    }
+}
@@ -0,0 +1,36 @@
+package com.paynow.payments.events;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps delivered events in memory so tests can assert on what was published
+ */
+public class InMemoryEventSink implements EventSink {
+
+    private final List<String> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void write(List<byte[]> batch) {
+        for (byte[] event : batch) {
+            events.add(new String(event, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    /**
+     * Events delivered so far, oldest first
+     */
+    public List<String> events() {
+        return List.copyOf(events);
+    }
+
+    public void clear() {
+        events.clear();
+    }
+}
@@ -0,0 +1,25 @@
+package com.paynow.payments.events;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes each event to the application log, where Logstash picks it up. The default sink.
+ */
+@Slf4j
+public class LogEventSink implements EventSink {
+
+    @Override
+    public void write(List<byte[]> events) {
+        for (byte[] event : events) {
+            log.info("PAYMENT_EVENT: {}", new String(event, StandardCharsets.UTF_8));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "log";
+    }
+}
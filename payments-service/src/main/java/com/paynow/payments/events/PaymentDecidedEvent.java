@@ -0,0 +1,16 @@
+package com.paynow.payments.events;
+
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+
+/**
+ * payment.decided: a decision was returned for a payment request
+ */
+public record PaymentDecidedEvent(long timestampMillis, PaymentDecisionRequest request,
+                                  PaymentDecisionResponse response) implements PaymentEvent {
+
+    @Override
+    public String requestId() {
+        return response.getRequestId();
+    }
+}
@@ -0,0 +1,15 @@
+package com.paynow.payments.events;
+
+/**
+ * Event queued by the {@link EventPublisher}. Events only hold references to the request and response
+ * they describe; {@link PaymentEventWriter} turns them into JSON on the flusher thread.
+ */
+public sealed interface PaymentEvent permits PaymentDecidedEvent, BalanceReservedEvent {
+
+    String requestId();
+
+    /**
+     * Wall-clock time the event happened, in epoch milliseconds
+     */
+    long timestampMillis();
+}
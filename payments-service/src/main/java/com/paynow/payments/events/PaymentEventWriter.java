@@ -0,0 +1,252 @@
+package com.paynow.payments.events;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams {@link PaymentEvent}s as JSON into one reusable buffer. Field names are pre-encoded
+ * {@link SerializedString}s, the event id and timestamp are written from a reused char array, and one
+ * {@link JsonGenerator} is kept for every event, so writing an event allocates nothing in the steady state.
+ * <p>
+ * Not thread-safe: the {@link EventPublisher}'s flusher thread owns one instance. The bytes of the last
+ * event are {@code buffer()[0..size())} until the next {@link #write}.
+ */
+public class PaymentEventWriter {
+
+    private static final SerializedString EVENT_TYPE = new SerializedString("eventType");
+    private static final SerializedString EVENT_ID = new SerializedString("eventId");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString REQUEST_ID = new SerializedString("requestId");
+    private static final SerializedString PAYLOAD = new SerializedString("payload");
+    private static final SerializedString CUSTOMER_ID = new SerializedString("customerId");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+    private static final SerializedString CURRENCY = new SerializedString("currency");
+    private static final SerializedString PAYEE_ID = new SerializedString("payeeId");
+    private static final SerializedString DECISION = new SerializedString("decision");
+    private static final SerializedString REASONS = new SerializedString("reasons");
+    private static final SerializedString IDEMPOTENCY_KEY = new SerializedString("idempotencyKey");
+
+    private static final SerializedString PAYMENT_DECIDED = new SerializedString("payment.decided");
+    private static final SerializedString BALANCE_RESERVED = new SerializedString("balance.reserved");
+
+    // Matches the @JsonProperty names of DecisionType
+    private static final SerializedString[] DECISIONS = new SerializedString[PaymentDecisionResponse.DecisionType.values().length];
+
+    static {
+        for (PaymentDecisionResponse.DecisionType type : PaymentDecisionResponse.DecisionType.values()) {
+            DECISIONS[type.ordinal()] = new SerializedString(type.name().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    private static final String EVENT_ID_PREFIX = "evt_";
+    private static final int REQUEST_ID_PREFIX_LENGTH = 4; // "req_"
+
+    private final JsonFactory jsonFactory;
+    private final Buffer out = new Buffer(512);
+    private JsonGenerator generator;
+
+    private char[] chars = new char[64];
+    private final char[] timestamp = new char[24]; // yyyy-MM-ddTHH:mm:ss.SSSZ
+    private long timestampSecond = Long.MIN_VALUE;
+
+    public PaymentEventWriter(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+        this.generator = newGenerator();
+    }
+
+    /**
+     * Serialize {@code event}, replacing the previous contents of the buffer
+     */
+    public void write(PaymentEvent event) throws IOException {
+        out.reset();
+        try {
+            switch (event) {
+                case PaymentDecidedEvent decided -> writeDecided(decided);
+                case BalanceReservedEvent reserved -> writeReserved(reserved);
+            }
+            generator.flush();
+        } catch (IOException | RuntimeException e) {
+            // The generator may be left inside an object; start over with a fresh one
+            generator = newGenerator();
+            out.reset();
+            throw e;
+        }
+    }
+
+    public byte[] buffer() {
+        return out.array();
+    }
+
+    public int size() {
+        return out.size();
+    }
+
+    private void writeDecided(PaymentDecidedEvent event) throws IOException {
+        PaymentDecisionRequest request = event.request();
+        PaymentDecisionResponse response = event.response();
+
+        writeHeader(PAYMENT_DECIDED, event);
+        generator.writeFieldName(PAYLOAD);
+        generator.writeStartObject();
+        writeString(CUSTOMER_ID, request.getCustomerId());
+        writeAmount(request.getAmount());
+        writeString(CURRENCY, request.getCurrency());
+        writeString(PAYEE_ID, request.getPayeeId());
+        generator.writeFieldName(DECISION);
+        if (response.getDecision() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(DECISIONS[response.getDecision().ordinal()]);
+        }
+        generator.writeFieldName(REASONS);
+        List<String> reasons = response.getReasons();
+        if (reasons == null) {
+            generator.writeNull();
+        } else {
+            generator.writeStartArray();
+            for (int i = 0; i < reasons.size(); i++) {
+                generator.writeString(reasons.get(i));
+            }
+            generator.writeEndArray();
+        }
+        writeString(IDEMPOTENCY_KEY, request.getIdempotencyKey());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private void writeReserved(BalanceReservedEvent event) throws IOException {
+        PaymentDecisionRequest request = event.request();
+
+        writeHeader(BALANCE_RESERVED, event);
+        generator.writeFieldName(PAYLOAD);
+        generator.writeStartObject();
+        writeString(CUSTOMER_ID, request.getCustomerId());
+        writeAmount(request.getAmount());
+        writeString(CURRENCY, request.getCurrency());
+        writeString(IDEMPOTENCY_KEY, request.getIdempotencyKey());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    /**
+     * Opens the event object and writes eventType, eventId, timestamp and requestId
+     */
+    private void writeHeader(SerializableString eventType, PaymentEvent event) throws IOException {
+        String requestId = event.requestId();
+        generator.writeStartObject();
+        generator.writeFieldName(EVENT_TYPE);
+        generator.writeString(eventType);
+        writeEventId(requestId);
+        generator.writeFieldName(TIMESTAMP);
+        generator.writeString(timestamp(event.timestampMillis()), 0, timestamp.length);
+        writeString(REQUEST_ID, requestId);
+    }
+
+    /**
+     * "evt_" followed by the requestId without its "req_" prefix
+     */
+    private void writeEventId(String requestId) throws IOException {
+        generator.writeFieldName(EVENT_ID);
+        if (requestId == null || requestId.length() < REQUEST_ID_PREFIX_LENGTH) {
+            generator.writeNull();
+            return;
+        }
+        int length = EVENT_ID_PREFIX.length() + requestId.length() - REQUEST_ID_PREFIX_LENGTH;
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        EVENT_ID_PREFIX.getChars(0, EVENT_ID_PREFIX.length(), chars, 0);
+        requestId.getChars(REQUEST_ID_PREFIX_LENGTH, requestId.length(), chars, EVENT_ID_PREFIX.length());
+        generator.writeString(chars, 0, length);
+    }
+
+    private void writeString(SerializableString name, String value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    private void writeAmount(BigDecimal amount) throws IOException {
+        generator.writeFieldName(AMOUNT);
+        if (amount == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(amount);
+        }
+    }
+
+    /**
+     * ISO-8601 UTC with millisecond precision. The date and time up to the second are recomputed only
+     * when the second changes.
+     */
+    private char[] timestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != timestampSecond) {
+            LocalDateTime time = LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+            digits(time.getYear(), 0, 4);
+            timestamp[4] = '-';
+            digits(time.getMonthValue(), 5, 2);
+            timestamp[7] = '-';
+            digits(time.getDayOfMonth(), 8, 2);
+            timestamp[10] = 'T';
+            digits(time.getHour(), 11, 2);
+            timestamp[13] = ':';
+            digits(time.getMinute(), 14, 2);
+            timestamp[16] = ':';
+            digits(time.getSecond(), 17, 2);
+            timestamp[19] = '.';
+            timestamp[23] = 'Z';
+            timestampSecond = second;
+        }
+        digits((int) Math.floorMod(epochMillis, 1000), 20, 3);
+        return timestamp;
+    }
+
+    private void digits(int value, int offset, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            timestamp[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private JsonGenerator newGenerator() {
+        try {
+            JsonGenerator created = jsonFactory.createGenerator(out);
+            // One JSON document per write; no separator between them
+            created.setRootValueSeparator(null);
+            return created;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * ByteArrayOutputStream exposing its backing array instead of copying it out
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+
+        Buffer(int size) {
+            super(size);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.paynow.payments.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Per-stage latency histograms. Every {@code interval} each stage's recording is closed and kept; a
+ * window's percentiles are computed over the intervals it spans, so each window must be a multiple of
+ * {@code interval}. Latencies above {@code highestTrackable} are recorded as that value.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.latency")
+public class LatencyProperties {
+
+    private Duration interval = Duration.ofSeconds(10);
+    private List<Duration> windows = List.of(Duration.ofMinutes(1), Duration.ofMinutes(5));
+    private Duration highestTrackable = Duration.ofMinutes(1);
+    private int significantDigits = 2;
+}
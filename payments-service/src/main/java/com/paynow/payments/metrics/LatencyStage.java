@@ -0,0 +1,26 @@
+package com.paynow.payments.metrics;
+
+/**
+ * Stages of a payment decision whose latency is recorded in {@code payment.stage.latency} and reported
+ * by {@code /metrics/latency}
+ */
+public enum LatencyStage {
+
+    IDEMPOTENCY_CHECK("idempotency_check"),
+    GET_BALANCE("get_balance"),
+    GET_RISK_SIGNALS("get_risk_signals"),
+    DECISION("decision"),
+    RESERVE("reserve"),
+    CASE_CREATION("case_creation"),
+    TOTAL("total");
+
+    private final String tag;
+
+    LatencyStage(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -1,14 +1,22 @@
 package com.paynow.payments.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Custom metrics for payment processing
@@ -24,8 +32,34 @@ public class PaymentMetrics {
     private final Counter rateLimitedCounter;
     private final Counter cachedResponseCounter;
     private final Timer requestLatencyTimer;
+    private final Timer redisPoolWaitTimer;
+    private final Timer redisQueueWaitTimer;
+    private final DistributionSummary redisBatchSize;
+    private final Counter redisBypassCounter;
+    private final Timer deadlineRemainingTimer;
+    private final Counter nearCacheSavedCounter;
+    private final Timer outboxAppendTimer;
+    private final Counter outboxDeliveredCounter;
+    private final Counter outboxDroppedCounter;
+    private final Counter outboxDeliveryFailureCounter;
+    private final StageLatencyRecorder stageLatencies;
+    private final MeterRegistry meterRegistry;
+
+    // Meters tagged per tool, operation, policy or sink
+    private final TaggedMeters<Counter> hedgeSentCounters;
+    private final TaggedMeters<Counter> hedgeWonCounters;
+    private final TaggedMeters<TaggedMeters<Counter>> toolRejectedCounters;
+    private final TaggedMeters<Counter> fallbackCounters;
+    private final TaggedMeters<DistributionSummary> toolAttemptSummaries;
+    private final TaggedMeters<Counter> retrySkippedCounters;
+    private final TaggedMeters<Counter> coalescedCounters;
+    private final TaggedMeters<TaggedMeters<Counter>> eventDroppedCounters;
+    private final TaggedMeters<DistributionSummary> eventBatchSummaries;
+    private final TaggedMeters<Counter> eventSinkFailureCounters;
+
+    public PaymentMetrics(MeterRegistry meterRegistry, LatencyProperties latencyProperties) {
+        this.meterRegistry = meterRegistry;
 
-    public PaymentMetrics(MeterRegistry meterRegistry) {
         // Total requests counter
         this.totalRequestsCounter = Counter.builder("payment.requests.total")
                 .description("Total number of payment decision requests")
@@ -60,7 +94,121 @@ public class PaymentMetrics {
         // Latency timer
         this.requestLatencyTimer = Timer.builder("payment.requests.duration")
                 .description("Request processing time")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+
+        // Redis command pipelining
+        this.redisPoolWaitTimer = Timer.builder("payment.redis.pool.wait")
+                .description("Time to borrow a pooled Redis connection for a pipeline")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.redisQueueWaitTimer = Timer.builder("payment.redis.pipeline.queue.wait")
+                .description("Time a Redis command waited before its pipeline was sent")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.redisBatchSize = DistributionSummary.builder("payment.redis.pipeline.batch.size")
+                .description("Redis commands sent per pipeline")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        this.redisBypassCounter = Counter.builder("payment.redis.pipeline.bypassed.total")
+                .description("Redis commands run outside the pipeline")
+                .register(meterRegistry);
+
+        // Deadlines and the near-cache
+        this.deadlineRemainingTimer = Timer.builder("payment.deadline.remaining")
+                .description("Deadline budget left when a decision was returned")
+                .register(meterRegistry);
+
+        this.nearCacheSavedCounter = Counter.builder("payment.near_cache.latency_saved")
+                .description("Accounts call latency avoided by near-cache hits")
+                .baseUnit("milliseconds")
+                .tag("cache", "account-balance")
+                .register(meterRegistry);
+
+        // Case outbox
+        this.outboxAppendTimer = Timer.builder("payment.outbox.append.duration")
+                .description("Outbox append latency including fsync")
+                .register(meterRegistry);
+
+        this.outboxDeliveredCounter = Counter.builder("payment.outbox.delivered.total")
+                .description("Cases delivered from the outbox to case-service")
+                .register(meterRegistry);
+
+        this.outboxDroppedCounter = Counter.builder("payment.outbox.dropped.total")
+                .description("Outbox cases rejected by case-service and dropped")
                 .register(meterRegistry);
+
+        this.outboxDeliveryFailureCounter = Counter.builder("payment.outbox.delivery.failures.total")
+                .description("Failed outbox delivery attempts; the batch is retried")
+                .register(meterRegistry);
+
+        // Tool calls
+        this.hedgeSentCounters = new TaggedMeters<>(tool -> Counter.builder("payment.tools.hedge.sent.total")
+                .description("Hedge requests sent for slow tool calls")
+                .tag("tool", tool)
+                .register(meterRegistry));
+
+        this.hedgeWonCounters = new TaggedMeters<>(tool -> Counter.builder("payment.tools.hedge.won.total")
+                .description("Hedge requests that answered before the original attempt")
+                .tag("tool", tool)
+                .register(meterRegistry));
+
+        this.toolRejectedCounters = new TaggedMeters<>(tool -> new TaggedMeters<>(reason ->
+                Counter.builder("payment.tools.rejected.total")
+                        .description("Tool calls rejected by a circuit breaker or bulkhead")
+                        .tag("tool", tool)
+                        .tag("reason", reason)
+                        .register(meterRegistry)));
+
+        this.fallbackCounters = new TaggedMeters<>(tool -> Counter.builder("payment.decisions.fallback.total")
+                .description("Decisions answered with the fallback because a tool was unavailable")
+                .tag("tool", tool)
+                .register(meterRegistry));
+
+        this.toolAttemptSummaries = new TaggedMeters<>(operation -> DistributionSummary.builder("payment.tools.attempts")
+                .description("Attempts per logical tool call (retry amplification)")
+                .tag("operation", operation)
+                .register(meterRegistry));
+
+        this.retrySkippedCounters = new TaggedMeters<>(operation -> Counter.builder("payment.tools.retries.skipped.total")
+                .description("Retries not sent because the deadline had too little budget left")
+                .tag("operation", operation)
+                .register(meterRegistry));
+
+        this.coalescedCounters = new TaggedMeters<>(operation -> Counter.builder("payment.tools.coalesced.total")
+                .description("Tool calls served by an identical call already in flight")
+                .tag("operation", operation)
+                .register(meterRegistry));
+
+        // Event publisher
+        this.eventDroppedCounters = new TaggedMeters<>(policy -> new TaggedMeters<>(reason ->
+                Counter.builder("payment.events.dropped.total")
+                        .description("Events dropped by the publisher")
+                        .tag("policy", policy)
+                        .tag("reason", reason)
+                        .register(meterRegistry)));
+
+        this.eventBatchSummaries = new TaggedMeters<>(sink -> DistributionSummary.builder("payment.events.batch.size")
+                .description("Events per batch delivered to the sink")
+                .tag("sink", sink)
+                .register(meterRegistry));
+
+        this.eventSinkFailureCounters = new TaggedMeters<>(sink -> Counter.builder("payment.events.sink.failures.total")
+                .description("Failed sink writes; the batch stays in the spool and is retried")
+                .tag("sink", sink)
+                .register(meterRegistry));
+
+        // Per-stage latency percentiles over sliding windows
+        this.stageLatencies = new StageLatencyRecorder(latencyProperties);
+        registerStageLatencyGauges();
+    }
+
+    @PreDestroy
+    void close() {
+        stageLatencies.close();
     }
 
     /**
@@ -87,6 +235,235 @@ public class PaymentMetrics {
         requestLatencyTimer.record(duration);
     }
 
+    /**
+     * Record the latency of one decision, from a {@link System#nanoTime()} taken when it arrived, in the
+     * request timer and as the {@link LatencyStage#TOTAL} stage
+     */
+    public void recordDecisionLatency(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        requestLatencyTimer.record(nanos, TimeUnit.NANOSECONDS);
+        stageLatencies.record(LatencyStage.TOTAL, nanos);
+    }
+
+    /**
+     * Record how long one stage of a decision took; lock-free and allocation-free
+     */
+    public void recordStage(LatencyStage stage, long nanos) {
+        stageLatencies.record(stage, nanos);
+    }
+
+    /**
+     * Stage latency percentiles per window (e.g. {@code 1m}), then per stage
+     */
+    public Map<String, Map<String, StagePercentiles>> getStageLatencies() {
+        return stageLatencies.snapshot();
+    }
+
+    private void registerStageLatencyGauges() {
+        Map<String, ToDoubleFunction<StagePercentiles>> quantiles = Map.of(
+                "0.5", StagePercentiles::p50Ms,
+                "0.9", StagePercentiles::p90Ms,
+                "0.99", StagePercentiles::p99Ms,
+                "0.999", StagePercentiles::p999Ms);
+        String[] windows = stageLatencies.windowLabels();
+        for (int w = 0; w < windows.length; w++) {
+            int window = w;
+            for (LatencyStage stage : LatencyStage.values()) {
+                quantiles.forEach((quantile, value) ->
+                        Gauge.builder("payment.stage.latency",
+                                        () -> value.applyAsDouble(stageLatencies.percentiles(window, stage)))
+                                .description("Decision stage latency percentile over a sliding window")
+                                .baseUnit("milliseconds")
+                                .tag("stage", stage.tag())
+                                .tag("window", windows[window])
+                                .tag("quantile", quantile)
+                                .register(meterRegistry));
+            }
+        }
+    }
+
+    /**
+     * A hedge request was sent because the first attempt at a tool call was slower than its p95
+     */
+    public void recordHedgeSent(String tool) {
+        hedgeSentCounters.get(tool).increment();
+    }
+
+    /**
+     * The hedge answered before the original attempt
+     */
+    public void recordHedgeWon(String tool) {
+        hedgeWonCounters.get(tool).increment();
+    }
+
+    /**
+     * Expose a tool's circuit breaker state: 0 closed, 1 open, 2 half-open
+     */
+    public void registerCircuitState(String tool, Supplier<Number> state) {
+        Gauge.builder("payment.tools.circuit.state", state)
+                .description("Circuit breaker state per tool (0 closed, 1 open, 2 half-open)")
+                .tag("tool", tool)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A tool call was rejected without being sent, because its circuit is open or its bulkhead is full
+     */
+    public void recordToolRejected(String tool, String reason) {
+        toolRejectedCounters.get(tool).get(reason).increment();
+    }
+
+    /**
+     * A decision was answered with the configured fallback because a tool was unavailable
+     */
+    public void recordFallbackDecision(String tool) {
+        fallbackCounters.get(tool).increment();
+    }
+
+    /**
+     * Time left in a decision's deadline when the decision was returned
+     */
+    public void recordDeadlineRemaining(Duration remaining) {
+        deadlineRemainingTimer.record(remaining);
+    }
+
+    /**
+     * Attempts made for one logical tool call; the mean over all calls is the retry amplification
+     */
+    public void recordToolAttempts(String operation, int attempts) {
+        toolAttemptSummaries.get(operation).record(attempts);
+    }
+
+    /**
+     * A retryable failure was not retried because the deadline had too little budget left
+     */
+    public void recordRetrySkipped(String operation) {
+        retrySkippedCounters.get(operation).increment();
+    }
+
+    /**
+     * Share of balance lookups answered by the near-cache since startup
+     */
+    public void registerNearCacheHitRatio(Supplier<Number> hitRatio) {
+        Gauge.builder("payment.near_cache.hit_ratio", hitRatio)
+                .description("Share of account balance lookups served from the near-cache")
+                .tag("cache", "account-balance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A near-cache hit avoided an accounts call; credited with the latency of the call that loaded the entry
+     */
+    public void recordNearCacheSaved(Duration latency) {
+        nearCacheSavedCounter.increment(latency.toNanos() / 1_000_000.0);
+    }
+
+    /**
+     * A tool call joined an identical call already in flight instead of being sent
+     */
+    public void recordCoalesced(String operation) {
+        coalescedCounters.get(operation).increment();
+    }
+
+    /**
+     * Cases appended to the outbox and not yet delivered to case-service
+     */
+    public void registerOutboxPending(Supplier<Number> pending) {
+        Gauge.builder("payment.outbox.pending", pending)
+                .description("Cases in the outbox waiting for delivery to case-service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Time to append one case to the outbox, fsync included; this is what a REVIEW/BLOCK decision waits for
+     */
+    public void recordOutboxAppend(Duration duration) {
+        outboxAppendTimer.record(duration);
+    }
+
+    public void recordOutboxDelivered(int cases) {
+        outboxDeliveredCounter.increment(cases);
+    }
+
+    /**
+     * Cases case-service rejected as invalid, which the relay skips instead of retrying forever
+     */
+    public void recordOutboxDropped(int cases) {
+        outboxDroppedCounter.increment(cases);
+    }
+
+    public void recordOutboxDeliveryFailure() {
+        outboxDeliveryFailureCounter.increment();
+    }
+
+    /**
+     * Depth of the event publisher's ring buffer, tagged with its capacity and overflow policy
+     */
+    public void registerEventQueue(Supplier<Number> depth, int capacity, String policy) {
+        Gauge.builder("payment.events.queue.depth", depth)
+                .description("Events waiting in the publisher's ring buffer")
+                .tag("policy", policy)
+                .register(meterRegistry);
+        Gauge.builder("payment.events.queue.capacity", () -> capacity)
+                .description("Size of the publisher's ring buffer")
+                .tag("policy", policy)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Events written to the spool and not yet accepted by the sink
+     */
+    public void registerEventSpool(Supplier<Number> events, Supplier<Number> bytes) {
+        Gauge.builder("payment.events.spool.pending", events)
+                .description("Events in the spool waiting for the sink")
+                .register(meterRegistry);
+        Gauge.builder("payment.events.spool.bytes", bytes)
+                .description("Spool bytes held by undelivered events")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * An event was not published: the ring buffer was full (queue_full), it was evicted by a newer
+     * one (evicted), or it could not be serialized or spooled
+     */
+    public void recordEventDropped(String policy, String reason) {
+        eventDroppedCounters.get(policy).get(reason).increment();
+    }
+
+    public void recordEventBatch(String sink, int events) {
+        eventBatchSummaries.get(sink).record(events);
+    }
+
+    public void recordEventSinkFailure(String sink) {
+        eventSinkFailureCounters.get(sink).increment();
+    }
+
+    public void registerRedisPipelineQueue(Supplier<Number> depth) {
+        Gauge.builder("payment.redis.pipeline.queue.depth", depth)
+                .description("Redis commands waiting to be pipelined")
+                .register(meterRegistry);
+    }
+
+    public void recordRedisPoolWait(long nanos) {
+        redisPoolWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRedisQueueWait(long nanos) {
+        redisQueueWaitTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordRedisPipelineBatch(int commands) {
+        redisBatchSize.record(commands);
+    }
+
+    /**
+     * A command ran on its own connection because the pipeline queue was full or stopped
+     */
+    public void recordRedisPipelineBypass() {
+        redisBypassCounter.increment();
+    }
+
     public double getP95Latency() {
         // Get a snapshot of the current timer statistics
         return Arrays.stream(requestLatencyTimer.takeSnapshot()
@@ -103,4 +480,23 @@ public class PaymentMetrics {
                 // If no 95th percentile was found, return 0.0 as a default
                 .orElse(0.0);
     }
-}
\ No newline at end of file
+
+    /**
+     * Meters of one name, one per value of a tag, registered on first use; after that a lookup is a plain
+     * map read, with no builder, registry lookup or allocation
+     */
+    private static final class TaggedMeters<M> {
+
+        private final Map<String, M> meters = new ConcurrentHashMap<>();
+        private final Function<String, M> register;
+
+        TaggedMeters(Function<String, M> register) {
+            this.register = register;
+        }
+
+        M get(String tag) {
+            M meter = meters.get(tag);
+            return meter != null ? meter : meters.computeIfAbsent(tag, register);
+        }
+    }
+}
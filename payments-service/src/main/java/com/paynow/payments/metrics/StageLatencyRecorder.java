@@ -0,0 +1,166 @@
+package com.paynow.payments.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HdrHistogram-backed latency of each {@link LatencyStage} over sliding windows.
+ * <p>
+ * {@link #record} writes into the stage's {@link Recorder}, which is wait-free and allocates nothing:
+ * the histograms are sized up front and values above the highest trackable latency are clamped. Every
+ * interval a background thread swaps each stage's active histogram for a recycled one, keeps the closed
+ * interval in a ring, and recomputes every window's percentiles by merging the intervals it spans.
+ * Readers get that snapshot, so reported percentiles lag by at most one interval.
+ */
+@Slf4j
+class StageLatencyRecorder implements AutoCloseable {
+
+    private static final LatencyStage[] STAGES = LatencyStage.values();
+
+    private final long highestTrackableMicros;
+    private final String[] windowLabels;
+    private final int[] windowIntervals;
+    private final Stage[] stages = new Stage[STAGES.length];
+    private final ScheduledExecutorService scheduler;
+
+    // [window][stage], replaced as a whole on every rotation
+    private volatile StagePercentiles[][] current;
+
+    StageLatencyRecorder(LatencyProperties properties) {
+        this.highestTrackableMicros = TimeUnit.NANOSECONDS.toMicros(properties.getHighestTrackable().toNanos());
+        long intervalNanos = properties.getInterval().toNanos();
+
+        List<Duration> windows = properties.getWindows();
+        this.windowLabels = new String[windows.size()];
+        this.windowIntervals = new int[windows.size()];
+        int ringSize = 1;
+        for (int w = 0; w < windows.size(); w++) {
+            windowLabels[w] = label(windows.get(w));
+            windowIntervals[w] = (int) Math.max(1, windows.get(w).toNanos() / intervalNanos);
+            ringSize = Math.max(ringSize, windowIntervals[w]);
+        }
+        for (int s = 0; s < stages.length; s++) {
+            stages[s] = new Stage(ringSize, properties.getSignificantDigits());
+        }
+
+        StagePercentiles[][] empty = new StagePercentiles[windows.size()][STAGES.length];
+        for (StagePercentiles[] window : empty) {
+            Arrays.fill(window, StagePercentiles.EMPTY);
+        }
+        this.current = empty;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("latency-histograms").daemon().factory());
+        scheduler.scheduleAtFixedRate(this::rotate, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void record(LatencyStage stage, long nanos) {
+        long micros = Math.min(Math.max(nanos, 0) / 1000, highestTrackableMicros);
+        stages[stage.ordinal()].recorder.recordValue(micros);
+    }
+
+    String[] windowLabels() {
+        return windowLabels;
+    }
+
+    StagePercentiles percentiles(int window, LatencyStage stage) {
+        return current[window][stage.ordinal()];
+    }
+
+    /**
+     * Percentiles per window label, then per stage tag
+     */
+    Map<String, Map<String, StagePercentiles>> snapshot() {
+        StagePercentiles[][] percentiles = current;
+        Map<String, Map<String, StagePercentiles>> windows = new LinkedHashMap<>();
+        for (int w = 0; w < windowLabels.length; w++) {
+            Map<String, StagePercentiles> byStage = new LinkedHashMap<>();
+            for (LatencyStage stage : STAGES) {
+                byStage.put(stage.tag(), percentiles[w][stage.ordinal()]);
+            }
+            windows.put(windowLabels[w], Collections.unmodifiableMap(byStage));
+        }
+        return Collections.unmodifiableMap(windows);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private void rotate() {
+        try {
+            StagePercentiles[][] next = new StagePercentiles[windowIntervals.length][STAGES.length];
+            for (int s = 0; s < stages.length; s++) {
+                stages[s].rotate();
+                for (int w = 0; w < windowIntervals.length; w++) {
+                    next[w][s] = stages[s].percentiles(windowIntervals[w]);
+                }
+            }
+            current = next;
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule
+            log.error("Failed to rotate latency histograms: {}", e.getMessage(), e);
+        }
+    }
+
+    private static String label(Duration window) {
+        return window.toSecondsPart() == 0 && window.toMinutes() > 0
+                ? window.toMinutes() + "m"
+                : window.toSeconds() + "s";
+    }
+
+    /**
+     * One stage's active recording and its last closed intervals; only the rotation thread touches the ring
+     */
+    private final class Stage {
+
+        private final Recorder recorder;
+        private final Histogram[] ring;
+        private final Histogram merged;
+        private int newest = -1;
+        private int filled;
+
+        private Stage(int ringSize, int significantDigits) {
+            this.recorder = new Recorder(highestTrackableMicros, significantDigits);
+            this.ring = new Histogram[ringSize];
+            this.merged = new Histogram(highestTrackableMicros, significantDigits);
+        }
+
+        private void rotate() {
+            int slot = (newest + 1) % ring.length;
+            // The interval dropping out of the ring becomes the next active histogram
+            ring[slot] = recorder.getIntervalHistogram(ring[slot]);
+            newest = slot;
+            filled = Math.min(filled + 1, ring.length);
+        }
+
+        private StagePercentiles percentiles(int intervals) {
+            merged.reset();
+            for (int i = 0; i < Math.min(intervals, filled); i++) {
+                merged.add(ring[Math.floorMod(newest - i, ring.length)]);
+            }
+            return new StagePercentiles(merged.getTotalCount(),
+                    millis(merged.getValueAtPercentile(50.0)),
+                    millis(merged.getValueAtPercentile(90.0)),
+                    millis(merged.getValueAtPercentile(99.0)),
+                    millis(merged.getValueAtPercentile(99.9)),
+                    millis(merged.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
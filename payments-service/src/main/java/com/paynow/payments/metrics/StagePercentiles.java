@@ -0,0 +1,17 @@
+package com.paynow.payments.metrics;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Latency percentiles of one stage over one window, in milliseconds
+ */
+public record StagePercentiles(
+        @JsonProperty("count") long count,
+        @JsonProperty("p50_ms") double p50Ms,
+        @JsonProperty("p90_ms") double p90Ms,
+        @JsonProperty("p99_ms") double p99Ms,
+        @JsonProperty("p99_9_ms") double p999Ms,
+        @JsonProperty("max_ms") double maxMs) {
+
+    static final StagePercentiles EMPTY = new StagePercentiles(0, 0, 0, 0, 0, 0);
+}
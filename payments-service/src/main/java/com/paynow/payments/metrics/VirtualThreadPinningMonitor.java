@@ -0,0 +1,96 @@
+package com.paynow.payments.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Streams the JFR {@code jdk.VirtualThreadPinned} event in-process and turns it into metrics, so
+ * {@code synchronized} blocks that pin a carrier thread while blocking show up on the dashboard.
+ * <p>
+ * Every pin longer than {@code payments.executor.pinned-threshold} increments
+ * {@code payment.virtual_threads.pinned.total} and records into
+ * {@code payment.virtual_threads.pinned.duration}, both tagged with the first application frame
+ * ({@code site}) so the hot spot can be found without opening a recording.
+ */
+@Component
+@ConditionalOnProperty(name = "payments.executor.mode", havingValue = "virtual")
+@RequiredArgsConstructor
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.paynow.";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${payments.executor.pinned-threshold:20ms}")
+    private Duration pinnedThreshold;
+
+    private RecordingStream recordingStream;
+
+    @PostConstruct
+    void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(pinnedThreshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+        recordingStream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {}ms", pinnedThreshold.toMillis());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = pinnedSite(event.getStackTrace());
+
+        Counter.builder("payment.virtual_threads.pinned.total")
+                .description("Virtual thread pinning events over the configured threshold")
+                .tag("site", site)
+                .register(meterRegistry)
+                .increment();
+
+        Timer.builder("payment.virtual_threads.pinned.duration")
+                .description("Time a virtual thread stayed pinned to its carrier")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        log.debug("Virtual thread pinned for {}ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    /**
+     * Prefer the first frame in our own code, falling back to the top frame when the pin happens
+     * entirely inside a library.
+     */
+    private static String pinnedSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        RecordedFrame site = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APP_PACKAGE))
+                .findFirst()
+                .orElse(frames.get(0));
+        return site.getMethod().getType().getName() + "." + site.getMethod().getName();
+    }
+}
@@ -0,0 +1,460 @@
+package com.paynow.payments.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.metrics.PaymentMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only log of cases waiting to be sent to case-service.
+ * <p>
+ * Records are {@code [length][crc32][json]} appended to numbered segment files. {@link #append} returns
+ * only once the record is fsynced; concurrent appenders share fsyncs (group commit), so one force
+ * covers every record written before it. A torn record at the tail, left by a crash mid-write, is
+ * truncated on startup.
+ * <p>
+ * The single reader ({@link CaseOutboxRelay}) reads from a cursor and {@link #commit commits} it after
+ * delivery. The cursor file is replaced atomically, and segments behind it are deleted. A crash
+ * between delivery and commit redelivers the batch, which case-service dedupes by requestId.
+ */
+@Component
+@Slf4j
+public class CaseOutbox implements DisposableBean {
+
+    private static final String SEGMENT_PREFIX = "cases-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CURSOR_FILE = "cursor";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    private final ObjectMapper objectMapper;
+    private final PaymentMetrics paymentMetrics;
+    private final Path directory;
+    private final long segmentBytes;
+
+    // Locks rather than synchronized, so a virtual thread blocked in a write or fsync does not pin its carrier
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    // Guarded by writeLock; activeSegment and activeEnd are also read by the relay
+    private FileChannel active;
+    private volatile long activeSegment;
+    private volatile long activeEnd;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong durable = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile Cursor committed;
+
+    public CaseOutbox(ObjectMapper objectMapper, PaymentMetrics paymentMetrics, OutboxProperties properties) {
+        this.objectMapper = objectMapper;
+        this.paymentMetrics = paymentMetrics;
+        this.directory = Paths.get(properties.getDirectory()).toAbsolutePath();
+        this.segmentBytes = properties.getSegmentBytes();
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open case outbox in " + directory, e);
+        }
+        paymentMetrics.registerOutboxPending(() -> appended.get() - delivered.get());
+    }
+
+    /**
+     * Append a case and wait until it is on disk.
+     *
+     * @throws PaymentException with code OUTBOX_ERROR if the case could not be written durably
+     */
+    public void append(CaseCreationRequest request) {
+        long start = System.nanoTime();
+        ByteBuffer record = encode(request);
+        try {
+            long sequence;
+            writeLock.lock();
+            try {
+                if (activeEnd > 0 && activeEnd + record.remaining() > segmentBytes) {
+                    roll();
+                }
+                write(record);
+                sequence = appended.incrementAndGet();
+            } finally {
+                writeLock.unlock();
+            }
+            sync(sequence);
+        } catch (IOException e) {
+            throw new PaymentException("OUTBOX_ERROR", "Failed to append case to outbox", request.getRequestId(), e);
+        }
+        paymentMetrics.recordOutboxAppend(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Append several cases and wait until all are on disk, with one fsync for the lot. Cases written
+     * before a failure stay in the outbox.
+     *
+     * @throws PaymentException with code OUTBOX_ERROR if the cases could not be written durably
+     */
+    public void appendAll(List<CaseCreationRequest> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<ByteBuffer> records = new ArrayList<>(requests.size());
+        for (CaseCreationRequest request : requests) {
+            records.add(encode(request));
+        }
+        try {
+            long sequence = 0;
+            writeLock.lock();
+            try {
+                for (ByteBuffer record : records) {
+                    if (activeEnd > 0 && activeEnd + record.remaining() > segmentBytes) {
+                        roll();
+                    }
+                    write(record);
+                    sequence = appended.incrementAndGet();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            sync(sequence);
+        } catch (IOException e) {
+            throw new PaymentException("OUTBOX_ERROR", "Failed to append " + requests.size()
+                    + " cases to outbox", requests.get(0).getRequestId(), e);
+        }
+        paymentMetrics.recordOutboxAppend(Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Cursor of the last committed delivery; where the relay resumes after a restart
+     */
+    public Cursor committedCursor() {
+        return committed;
+    }
+
+    /**
+     * Read up to {@code max} complete records after {@code from}. Moves past finished segments even
+     * when no record is returned, so the returned cursor may differ from {@code from} with an empty batch.
+     */
+    public Batch read(Cursor from, int max) throws IOException {
+        List<CaseCreationRequest> cases = new ArrayList<>();
+        long segment = from.segment();
+        long position = from.position();
+
+        while (cases.size() < max) {
+            long currentSegment;
+            long currentEnd;
+            writeLock.lock();
+            try {
+                currentSegment = activeSegment;
+                currentEnd = activeEnd;
+            } finally {
+                writeLock.unlock();
+            }
+            Path file = segmentPath(segment);
+            long end = segment == currentSegment ? currentEnd : Files.size(file);
+            if (position >= end) {
+                if (segment < currentSegment) {
+                    segment++;
+                    position = 0;
+                    continue;
+                }
+                break;
+            }
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (cases.size() < max && position < end) {
+                    byte[] payload = readRecord(channel, position, end);
+                    if (payload == null) {
+                        // Only possible in a sealed segment if it was corrupted on disk; skip the rest of it
+                        log.error("Corrupt case outbox record in {} at offset {}; skipping {} bytes",
+                                file, position, end - position);
+                        position = end;
+                        break;
+                    }
+                    cases.add(objectMapper.readValue(payload, CaseCreationRequest.class));
+                    position += HEADER_BYTES + payload.length;
+                }
+            }
+        }
+        return new Batch(cases, new Cursor(segment, position));
+    }
+
+    /**
+     * Record that everything before {@code batch.next()} was delivered
+     */
+    public void commit(Batch batch) throws IOException {
+        Cursor next = batch.next();
+        writeCursor(next);
+        committed = next;
+        delivered.addAndGet(batch.cases().size());
+
+        for (long segment : segments()) {
+            if (segment < next.segment()) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        writeLock.lock();
+        try {
+            if (active != null && active.isOpen()) {
+                active.force(false);
+                active.close();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private ByteBuffer encode(CaseCreationRequest request) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            throw new PaymentException("OUTBOX_ERROR", "Failed to serialize case", request.getRequestId(), e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        return record.flip();
+    }
+
+    /**
+     * Write one record at the end of the active segment. A partial write is cut off again, so a later
+     * record never follows a torn one.
+     */
+    private void write(ByteBuffer record) throws IOException {
+        int size = record.remaining();
+        try {
+            while (record.hasRemaining()) {
+                active.write(record, activeEnd + (size - record.remaining()));
+            }
+        } catch (IOException e) {
+            try {
+                active.truncate(activeEnd);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+        activeEnd += size;
+    }
+
+    /**
+     * Block until record {@code sequence} is forced to disk. Whoever holds the sync lock forces for
+     * everyone queued behind it.
+     */
+    private void sync(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            if (durable.get() >= sequence) {
+                return;
+            }
+            FileChannel channel;
+            long target;
+            writeLock.lock();
+            try {
+                channel = active;
+                target = appended.get();
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException e) {
+                // The segment was rolled meanwhile, and rolling forces it first
+            }
+            durable.accumulateAndGet(target, Math::max);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        active.force(false);
+        durable.accumulateAndGet(appended.get(), Math::max);
+        active.close();
+
+        activeSegment++;
+        active = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        activeEnd = 0;
+        syncDirectory();
+        log.info("Case outbox rolled to segment {}", activeSegment);
+    }
+
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = segments();
+
+        Cursor cursor = readCursor();
+        if (cursor == null) {
+            cursor = new Cursor(segments.isEmpty() ? 1 : segments.get(0), 0);
+        }
+        for (long segment : segments) {
+            if (segment < cursor.segment()) {
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+
+        long pending = 0;
+        long lastSegment = cursor.segment();
+        long lastEnd = 0;
+        for (long segment : segments()) {
+            long from = segment == cursor.segment() ? cursor.position() : 0;
+            try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                long end = channel.size();
+                long position = 0;
+                // Walk from the start so the cursor is known to sit on a record boundary
+                while (position < end) {
+                    byte[] payload = readRecord(channel, position, end);
+                    if (payload == null) {
+                        break;
+                    }
+                    if (position >= from) {
+                        pending++;
+                    }
+                    position += HEADER_BYTES + payload.length;
+                }
+                if (position < end) {
+                    log.warn("Case outbox segment {} ends in {} unreadable bytes after offset {}",
+                            segment, end - position, position);
+                }
+                lastSegment = segment;
+                lastEnd = position;
+            }
+        }
+
+        active = FileChannel.open(segmentPath(lastSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // Drop a torn tail left by a crash mid-append; it was never acknowledged
+        active.truncate(lastEnd);
+        active.force(false);
+        syncDirectory();
+        activeSegment = lastSegment;
+        activeEnd = lastEnd;
+
+        committed = cursor;
+        appended.set(pending);
+        durable.set(pending);
+        if (pending > 0) {
+            log.info("Case outbox recovered {} undelivered cases from {}", pending, directory);
+        }
+    }
+
+    /**
+     * The payload of the record at {@code position}, or {@code null} if there is no complete, intact
+     * record there
+     */
+    private static byte[] readRecord(FileChannel channel, long position, long end) throws IOException {
+        if (end - position < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, position);
+        int length = header.getInt(0);
+        int checksum = header.getInt(4);
+        if (length <= 0 || length > MAX_RECORD_BYTES || end - position - HEADER_BYTES < length) {
+            return null;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, position + HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        return (int) crc.getValue() == checksum ? payload.array() : null;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of case outbox segment");
+            }
+        }
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private Cursor readCursor() throws IOException {
+        Path file = directory.resolve(CURSOR_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        String[] parts = Files.readString(file, StandardCharsets.US_ASCII).trim().split(" ");
+        return new Cursor(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    private void writeCursor(Cursor cursor) throws IOException {
+        Path tmp = directory.resolve(CURSOR_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap((cursor.segment() + " " + cursor.position())
+                    .getBytes(StandardCharsets.US_ASCII)));
+            channel.force(false);
+        }
+        Files.move(tmp, directory.resolve(CURSOR_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Make a new segment file's directory entry durable. Not supported on every platform, so best effort.
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync not supported for {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Position in the outbox: a segment number and a byte offset within it
+     */
+    public record Cursor(long segment, long position) {
+    }
+
+    public record Batch(List<CaseCreationRequest> cases, Cursor next) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.paynow.payments.outbox;
+
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.Deadline;
+import com.paynow.payments.agent.tools.CaseTool;
+import com.paynow.payments.metrics.PaymentMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Background worker delivering the case outbox to case-service in batches, at least once. A batch is
+ * committed only after case-service accepted it; on failure the same batch is retried after
+ * {@code payments.outbox.retry-backoff}. A case case-service rejects as invalid, which {@link CaseTool}
+ * reports as a {@link PaymentException.ValidationException} over either binding, would be retried
+ * forever, so it is logged and dropped instead; the valid cases batched with it are delivered.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CaseOutboxRelay implements SmartLifecycle {
+
+    private final CaseOutbox outbox;
+    private final CaseTool caseTool;
+    private final OutboxProperties properties;
+    private final PaymentMetrics paymentMetrics;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform().name("case-outbox-relay").daemon().start(this::run);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(properties.getDeliveryTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        CaseOutbox.Cursor cursor = outbox.committedCursor();
+        while (running) {
+            try {
+                CaseOutbox.Batch batch = outbox.read(cursor, properties.getBatchSize());
+                if (batch.cases().isEmpty()) {
+                    if (!batch.next().equals(cursor)) {
+                        outbox.commit(batch);
+                        cursor = batch.next();
+                    }
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                    continue;
+                }
+
+                deliver(batch.cases());
+                outbox.commit(batch);
+                cursor = batch.next();
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+
+            } catch (Exception e) {
+                log.warn("Case outbox delivery failed, retrying in {}ms: {}",
+                        properties.getRetryBackoff().toMillis(), e.getMessage());
+                paymentMetrics.recordOutboxDeliveryFailure();
+                try {
+                    Thread.sleep(properties.getRetryBackoff().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * case-service validates a batch as a whole, so one invalid case gets the whole batch rejected. A
+     * rejected batch is split in halves and each half delivered again, until the invalid cases are
+     * isolated and dropped on their own; the rest are delivered. Any other failure propagates, and the
+     * whole batch is retried (case-service dedupes the cases it already created).
+     */
+    private void deliver(List<CaseCreationRequest> cases) {
+        try {
+            caseTool.createCases(cases, Deadline.after(properties.getDeliveryTimeout()));
+            paymentMetrics.recordOutboxDelivered(cases.size());
+        } catch (Exception e) {
+            if (!isRejected(e)) {
+                throw e;
+            }
+            if (cases.size() == 1) {
+                log.error("case-service rejected outbox case {}, dropping it: {}",
+                        cases.get(0).getRequestId(), e.getMessage());
+                paymentMetrics.recordOutboxDropped(1);
+                return;
+            }
+            int half = cases.size() / 2;
+            deliver(cases.subList(0, half));
+            deliver(cases.subList(half, cases.size()));
+        }
+    }
+
+    private static boolean isRejected(Throwable e) {
+        for (Throwable current = e; current != null && current.getCause() != current; current = current.getCause()) {
+            if (current instanceof PaymentException.ValidationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
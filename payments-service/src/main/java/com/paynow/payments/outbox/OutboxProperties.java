@@ -0,0 +1,23 @@
+package com.paynow.payments.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * File-backed case outbox. Records are appended to segment files under {@code directory}; a new
+ * segment is started once the active one exceeds {@code segmentBytes}. The relay sends up to
+ * {@code batchSize} cases per call to case-service.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.outbox")
+public class OutboxProperties {
+
+    private String directory = "data/case-outbox";
+    private long segmentBytes = 64L * 1024 * 1024;
+    private int batchSize = 100;
+    private Duration pollInterval = Duration.ofMillis(50);
+    private Duration deliveryTimeout = Duration.ofSeconds(5);
+    private Duration retryBackoff = Duration.ofSeconds(1);
+}
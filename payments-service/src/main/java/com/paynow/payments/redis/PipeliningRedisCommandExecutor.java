@@ -0,0 +1,240 @@
+package com.paynow.payments.redis;
+
+import com.paynow.common.service.DirectRedisCommandExecutor;
+import com.paynow.common.service.RedisCommandExecutor;
+import com.paynow.payments.metrics.PaymentMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisConnectionUtils;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Sends the Redis commands of many request threads over a few connections, as pipelines.
+ * <p>
+ * {@link #execute} queues the command and waits for its reply. Each flusher thread takes the first
+ * queued command, collects more until {@code maxBatch} is reached or {@code flushInterval} has passed
+ * since the first, then borrows one pooled connection and sends the whole batch as a single pipeline.
+ * Under load, commands share round trips instead of queueing for a connection each.
+ * <p>
+ * A command that fails gets its own error; the others in the batch are unaffected. While stopped, or when
+ * the queue is full, commands run on a connection of their own.
+ */
+@Component
+@ConditionalOnProperty(prefix = "payments.redis.pipeline", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PipeliningRedisCommandExecutor implements RedisCommandExecutor, SmartLifecycle {
+
+    private static final long IDLE_WAIT_MILLIS = 1000;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final DirectRedisCommandExecutor direct;
+    private final PaymentMetrics paymentMetrics;
+    private final RedisPipelineProperties properties;
+    private final BlockingQueue<Pending<?>> queue;
+    private final List<Thread> flushers = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public PipeliningRedisCommandExecutor(RedisConnectionFactory connectionFactory,
+                                          RedisTemplate<String, String> redisTemplate,
+                                          PaymentMetrics paymentMetrics,
+                                          RedisPipelineProperties properties) {
+        this.connectionFactory = connectionFactory;
+        this.direct = new DirectRedisCommandExecutor(redisTemplate);
+        this.paymentMetrics = paymentMetrics;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        paymentMetrics.registerRedisPipelineQueue(queue::size);
+        log.info("Redis pipelining over {} connections, batches of up to {} commands",
+                properties.getConnections(), properties.getMaxBatch());
+    }
+
+    @Override
+    public <T> T execute(Command<T> command) {
+        if (!running) {
+            return direct.execute(command);
+        }
+        Pending<T> pending = new Pending<>(command, System.nanoTime());
+        if (!queue.offer(pending) || (!running && queue.remove(pending))) {
+            paymentMetrics.recordRedisPipelineBypass();
+            return direct.execute(command);
+        }
+
+        try {
+            return pending.result.get(properties.getTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RedisSystemException("Pipelined Redis command failed", e.getCause());
+        } catch (TimeoutException e) {
+            // Not sent yet: the flusher skips it. Already sent: its reply is ignored.
+            pending.result.cancel(false);
+            throw new QueryTimeoutException("No reply to pipelined Redis command within " + properties.getTimeout());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.cancel(false);
+            throw new RedisSystemException("Interrupted waiting for Redis reply", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (int i = 0; i < properties.getConnections(); i++) {
+            flushers.add(Thread.ofPlatform().name("redis-pipeline-" + i).daemon().start(this::run));
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        for (Thread flusher : flushers) {
+            try {
+                flusher.join(properties.getTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        flushers.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<Pending<?>> batch = new ArrayList<>(properties.getMaxBatch());
+        // Keep going after stop until the queue is empty, so no caller is left waiting
+        while (running || !queue.isEmpty()) {
+            try {
+                fill(batch);
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Redis pipeline flusher failed: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.fail(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Wait for a first command, then collect more until the batch is full or the flush interval,
+     * counted from when the first was queued, has passed
+     */
+    private void fill(List<Pending<?>> batch) throws InterruptedException {
+        Pending<?> first = queue.poll(IDLE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        int maxBatch = properties.getMaxBatch();
+        queue.drainTo(batch, maxBatch - batch.size());
+
+        long flushAt = first.enqueuedNanos + properties.getFlushInterval().toNanos();
+        while (batch.size() < maxBatch) {
+            long remaining = flushAt - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            Pending<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatch - batch.size());
+        }
+    }
+
+    private void flush(List<Pending<?>> batch) {
+        long borrowStart = System.nanoTime();
+        RedisConnection connection = RedisConnectionUtils.getConnection(connectionFactory);
+        long sent = System.nanoTime();
+        paymentMetrics.recordRedisPoolWait(sent - borrowStart);
+        try {
+            Jedis jedis = (Jedis) connection.getNativeConnection();
+            int commands = 0;
+            try (Pipeline pipeline = jedis.pipelined()) {
+                for (Pending<?> pending : batch) {
+                    // Skip commands whose caller gave up while they were queued
+                    if (!pending.result.isDone()) {
+                        paymentMetrics.recordRedisQueueWait(sent - pending.enqueuedNanos);
+                        pending.issue(pipeline);
+                        commands++;
+                    }
+                }
+            }
+            for (Pending<?> pending : batch) {
+                pending.complete();
+            }
+            paymentMetrics.recordRedisPipelineBatch(commands);
+        } finally {
+            RedisConnectionUtils.releaseConnection(connection, connectionFactory);
+        }
+    }
+
+    /**
+     * A queued command and the future its caller waits on
+     */
+    private static final class Pending<T> {
+
+        private final Command<T> command;
+        private final long enqueuedNanos;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private Response<T> response;
+
+        private Pending(Command<T> command, long enqueuedNanos) {
+            this.command = command;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        private void issue(Pipeline pipeline) {
+            try {
+                response = command.issue(pipeline);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void complete() {
+            if (response == null || result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(response.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        private void fail(Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.paynow.payments.redis;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Automatic pipelining of per-request Redis commands. Commands wait in a queue of {@code queueCapacity}
+ * slots; each of {@code connections} flusher threads takes up to {@code maxBatch} of them, waiting at most
+ * {@code flushInterval} after the first for more to arrive, and sends them as one pipeline.
+ */
+@Data
+@ConfigurationProperties(prefix = "payments.redis.pipeline")
+public class RedisPipelineProperties {
+
+    private boolean enabled = true;
+    private int connections = 2;
+    private int maxBatch = 128;
+    private Duration flushInterval = Duration.ofNanos(50_000);
+    private int queueCapacity = 4096;
+    private Duration timeout = Duration.ofSeconds(2);
+}
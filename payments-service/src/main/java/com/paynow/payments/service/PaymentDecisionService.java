@@ -1,16 +1,36 @@
 package com.paynow.payments.service;
 
+import com.paynow.common.dto.AccountBalanceResponse;
 import com.paynow.common.dto.PaymentDecisionRequest;
 import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.RiskSignalsQuery;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.common.dto.TraceVerbosity;
+import com.paynow.common.service.AdmissionService;
 import com.paynow.common.service.IdempotencyService;
+import com.paynow.payments.agent.Deadline;
 import com.paynow.payments.agent.PaymentAgent;
+import com.paynow.payments.agent.tools.AccountTool;
+import com.paynow.payments.agent.tools.RiskTool;
+import com.paynow.payments.config.ToolExecutor;
+import com.paynow.payments.metrics.LatencyStage;
 import com.paynow.payments.metrics.PaymentMetrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -22,21 +42,29 @@ import java.util.concurrent.CompletableFuture;
 public class PaymentDecisionService {
 
     private final IdempotencyService idempotencyService;
+    private final AdmissionService admissionService;
     private final PaymentAgent paymentAgent;
     private final PaymentMetrics paymentMetrics;
     private final EventPublishingService eventPublishingService;
+    private final AccountTool accountTool;
+    private final RiskTool riskTool;
+    private final ToolExecutor toolExecutor;
 
-    public PaymentDecisionResponse processPayment(PaymentDecisionRequest request, String requestId) {
-        Instant startTime = Instant.now();
+    public PaymentDecisionResponse processPayment(PaymentDecisionRequest request, String requestId,
+                                                  TraceVerbosity verbosity, Deadline deadline) {
+        long startNanos = System.nanoTime();
         
         try {
-            // Check idempotency first
+            // Rate limit and check idempotency first; a duplicate of an in-flight request waits for its response
             Optional<PaymentDecisionResponse> cachedResponse =
-                    idempotencyService.checkAndMarkInProgress(
+                    admissionService.admit(
+                            request.getCustomerId(),
                             request.getIdempotencyKey(),
                             "in-progress",
-                            PaymentDecisionResponse.class
+                            PaymentDecisionResponse.class,
+                            deadline.remaining()
                     );
+            paymentMetrics.recordStage(LatencyStage.IDEMPOTENCY_CHECK, System.nanoTime() - startNanos);
 
             if (cachedResponse.isPresent()) {
                 log.info("Returning cached response for idempotencyKey: {}", request.getIdempotencyKey());
@@ -44,24 +72,25 @@ public class PaymentDecisionService {
                 return cachedResponse.get();
             }
 
-            // Process payment using agent
-            PaymentDecisionResponse response = paymentAgent.processPayment(request, requestId);
+            // Process payment using agent; give the key up on failure so waiting duplicates can retry it
+            PaymentDecisionResponse response;
+            try {
+                response = paymentAgent.processPayment(request, requestId, verbosity, deadline);
+            } catch (Exception e) {
+                idempotencyService.removeIdempotencyKey(request.getIdempotencyKey());
+                throw e;
+            }
+            paymentMetrics.recordDeadlineRemaining(deadline.remaining());
 
             // Cache the response for idempotency
             idempotencyService.cacheResponse(request.getIdempotencyKey(), response);
 
             // Record metrics
             paymentMetrics.recordRequest(response.getDecision().toString().toLowerCase());
-            paymentMetrics.recordLatency(startTime);
+            paymentMetrics.recordDecisionLatency(startNanos);
 
             // Publish event asynchronously
-            CompletableFuture.runAsync(() -> {
-                try {
-                    eventPublishingService.publishPaymentDecided(request, response);
-                } catch (Exception e) {
-                    log.warn("Failed to publish payment.decided event: {}", e.getMessage(), e);
-                }
-            });
+            eventPublishingService.publishPaymentDecided(request, response);
 
             return response;
         } catch (Exception e) {
@@ -69,4 +98,186 @@ public class PaymentDecisionService {
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Non-blocking variant of {@link #processPayment}. The agent pipeline runs on the WebClient event loop;
+     * the idempotency calls use the blocking Jedis client, so they are moved onto the bounded elastic
+     * scheduler instead of running on an event-loop thread.
+     */
+    public Mono<PaymentDecisionResponse> processPaymentReactive(PaymentDecisionRequest request, String requestId,
+                                                                TraceVerbosity verbosity, Deadline deadline) {
+        long startNanos = System.nanoTime();
+
+        return Mono.fromCallable(() -> {
+                    long admitStart = System.nanoTime();
+                    Optional<PaymentDecisionResponse> cachedResponse = admissionService.admit(
+                            request.getCustomerId(),
+                            request.getIdempotencyKey(),
+                            "in-progress",
+                            PaymentDecisionResponse.class,
+                            deadline.remaining());
+                    paymentMetrics.recordStage(LatencyStage.IDEMPOTENCY_CHECK, System.nanoTime() - admitStart);
+                    return cachedResponse;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cachedResponse -> {
+                    if (cachedResponse.isPresent()) {
+                        log.info("Returning cached response for idempotencyKey: {}", request.getIdempotencyKey());
+                        paymentMetrics.recordRequest("cached");
+                        return Mono.just(cachedResponse.get());
+                    }
+
+                    return paymentAgent.processPaymentReactive(request, requestId, verbosity, deadline)
+                            .publishOn(Schedulers.boundedElastic())
+                            .doOnError(e -> idempotencyService.removeIdempotencyKey(request.getIdempotencyKey()))
+                            .map(response -> {
+                                paymentMetrics.recordDeadlineRemaining(deadline.remaining());
+
+                                // Cache the response for idempotency
+                                idempotencyService.cacheResponse(request.getIdempotencyKey(), response);
+
+                                paymentMetrics.recordRequest(response.getDecision().toString().toLowerCase());
+                                paymentMetrics.recordDecisionLatency(startNanos);
+
+                                eventPublishingService.publishPaymentDecided(request, response);
+                                return response;
+                            });
+                })
+                .doOnError(e -> paymentMetrics.recordRequest("error"));
+    }
+
+    /**
+     * Decide a batch of payments. Idempotency checks and response caching each take one pipelined
+     * Redis round trip, and balance/risk lookups are coalesced into multi-get calls, so the per-payment
+     * cost is only the decision itself plus reservation or case creation where needed.
+     * Results are returned in request order; repeated idempotency keys within a batch share one decision.
+     */
+    public List<PaymentDecisionResponse> processBatch(List<PaymentDecisionRequest> requests, String requestId,
+                                                      TraceVerbosity verbosity, Deadline deadline) {
+        Instant startTime = Instant.now();
+
+        try {
+            // Index the first occurrence of each idempotency key
+            Map<String, PaymentDecisionRequest> requestsByKey = new LinkedHashMap<>();
+            for (PaymentDecisionRequest request : requests) {
+                requestsByKey.putIfAbsent(request.getIdempotencyKey(), request);
+            }
+
+            // One token per payment, as if each had been sent on its own; a no-op unless admission is enabled
+            Map<String, Integer> paymentsByCustomer = new LinkedHashMap<>();
+            requestsByKey.values().forEach(request -> paymentsByCustomer.merge(request.getCustomerId(), 1, Integer::sum));
+            admissionService.admitBatch(paymentsByCustomer);
+
+            Map<String, Optional<PaymentDecisionResponse>> cachedResponses =
+                    idempotencyService.checkAndMarkInProgressBatch(
+                            new ArrayList<>(requestsByKey.keySet()),
+                            "in-progress",
+                            PaymentDecisionResponse.class,
+                            deadline.remaining()
+                    );
+
+            Map<String, PaymentDecisionResponse> responsesByKey = new LinkedHashMap<>();
+            List<PaymentDecisionRequest> pending = new ArrayList<>();
+            for (Map.Entry<String, PaymentDecisionRequest> entry : requestsByKey.entrySet()) {
+                Optional<PaymentDecisionResponse> cached = cachedResponses.getOrDefault(entry.getKey(), Optional.empty());
+                if (cached.isPresent()) {
+                    paymentMetrics.recordRequest("cached");
+                    responsesByKey.put(entry.getKey(), cached.get());
+                } else {
+                    pending.add(entry.getValue());
+                }
+            }
+            log.info("Batch {}: {} payments, {} served from cache, {} to decide",
+                    requestId, requests.size(), responsesByKey.size(), pending.size());
+
+            Map<String, PaymentDecisionResponse> decided;
+            try {
+                decided = decideBatch(pending, requestId, verbosity, deadline);
+            } catch (Exception e) {
+                pending.forEach(request -> idempotencyService.removeIdempotencyKey(request.getIdempotencyKey()));
+                throw e;
+            }
+            paymentMetrics.recordDeadlineRemaining(deadline.remaining());
+            responsesByKey.putAll(decided);
+
+            // Cache all new responses for idempotency in one pipeline
+            idempotencyService.cacheResponses(decided);
+
+            List<PaymentDecisionResponse> results = new ArrayList<>(requests.size());
+            for (PaymentDecisionRequest request : requests) {
+                results.add(responsesByKey.get(request.getIdempotencyKey()));
+            }
+
+            paymentMetrics.recordLatency(startTime);
+            return results;
+        } catch (Exception e) {
+            paymentMetrics.recordRequest("error");
+            throw e;
+        }
+    }
+
+    private Map<String, PaymentDecisionResponse> decideBatch(List<PaymentDecisionRequest> pending, String requestId,
+                                                             TraceVerbosity verbosity, Deadline deadline) {
+        Map<String, PaymentDecisionResponse> decided = new LinkedHashMap<>();
+        if (pending.isEmpty()) {
+            return decided;
+        }
+
+        Set<String> customerIds = new LinkedHashSet<>();
+        List<RiskSignalsQuery> riskQueries = new ArrayList<>(pending.size());
+        for (PaymentDecisionRequest request : pending) {
+            customerIds.add(request.getCustomerId());
+            riskQueries.add(new RiskSignalsQuery(request.getCustomerId(), request.getAmount()));
+        }
+
+        // Coalesced downstream lookups, issued in parallel
+        CompletableFuture<Map<String, AccountBalanceResponse>> balancesFuture =
+                toolExecutor.supplyAsync(() -> accountTool.getBalances(customerIds, deadline));
+        CompletableFuture<List<RiskSignalsResponse>> risksFuture =
+                toolExecutor.supplyAsync(() -> riskTool.getRiskSignalsBatch(riskQueries, deadline));
+
+        // A failed lookup degrades every affected item to the agent's safe REVIEW fallback,
+        // the same outcome a single decision gets when a tool call fails
+        Map<String, AccountBalanceResponse> balances = balancesFuture
+                .exceptionally(e -> {
+                    log.error("Batch balance lookup failed: {}", e.getMessage());
+                    return Map.of();
+                })
+                .join();
+        List<RiskSignalsResponse> risks = risksFuture
+                .exceptionally(e -> {
+                    log.error("Batch risk lookup failed: {}", e.getMessage());
+                    return null;
+                })
+                .join();
+
+        List<String> itemRequestIds = new ArrayList<>(pending.size());
+        for (PaymentDecisionRequest request : pending) {
+            itemRequestIds.add(itemRequestId(request.getIdempotencyKey()));
+        }
+        List<PaymentDecisionResponse> responses = paymentAgent.processWithSnapshots(
+                pending, itemRequestIds, balances, risks, verbosity, deadline);
+
+        for (int i = 0; i < pending.size(); i++) {
+            PaymentDecisionRequest request = pending.get(i);
+            PaymentDecisionResponse response = responses.get(i);
+            decided.put(request.getIdempotencyKey(), response);
+
+            paymentMetrics.recordRequest(response.getDecision().toString().toLowerCase());
+
+            eventPublishingService.publishPaymentDecided(request, response);
+        }
+        return decided;
+    }
+
+    /**
+     * The request ID a batch item's reservation and case are recorded under downstream, where it is the
+     * dedupe key. Derived from the item's idempotency key, not from the batch's request ID (which the
+     * client may reuse) or the item's position, so a retried payment maps to the same ID in any batch and
+     * two different payments never share one.
+     */
+    static String itemRequestId(String idempotencyKey) {
+        return "req_" + UUID.nameUUIDFromBytes(idempotencyKey.getBytes(StandardCharsets.UTF_8))
+                .toString().replace("-", "");
+    }
+}
@@ -0,0 +1,215 @@
+package com.paynow.payments.agent;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.common.dto.PaymentDecisionRequest;
+import com.paynow.common.dto.PaymentDecisionResponse;
+import com.paynow.common.dto.RiskSignalsResponse;
+import com.paynow.common.dto.TraceVerbosity;
+import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.rules.DecisionRuleEngine;
+import com.paynow.payments.agent.rules.RuleOutcome;
+import com.paynow.payments.agent.tools.AccountTool;
+import com.paynow.payments.agent.tools.ResilienceProperties;
+import com.paynow.payments.agent.tools.RiskTool;
+import com.paynow.payments.agent.tools.ToolGuard;
+import com.paynow.payments.config.ToolExecutor;
+import com.paynow.payments.metrics.PaymentMetrics;
+import com.paynow.payments.outbox.CaseOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PaymentAgentTest {
+
+    private final AccountTool accountTool = mock(AccountTool.class);
+    private final RiskTool riskTool = mock(RiskTool.class);
+    private final CaseOutbox caseOutbox = mock(CaseOutbox.class);
+    private final DecisionRuleEngine ruleEngine = mock(DecisionRuleEngine.class);
+    private PaymentAgent paymentAgent;
+
+    @BeforeEach
+    void setUp() {
+        paymentAgent = new PaymentAgent(accountTool, riskTool, caseOutbox, new ToolExecutor("platform"),
+                ruleEngine, mock(ToolGuard.class), new ResilienceProperties(), mock(PaymentMetrics.class));
+        // Customers named cust_block are blocked by the rules; everyone else is allowed
+        when(ruleEngine.evaluate(any(), any(), any(), any())).thenAnswer(invocation -> {
+            PaymentDecisionRequest request = invocation.getArgument(0);
+            return request.getCustomerId().startsWith("cust_block")
+                    ? new RuleOutcome(PaymentDecisionResponse.DecisionType.BLOCK, "blocked")
+                    : new RuleOutcome(PaymentDecisionResponse.DecisionType.ALLOW, "allowed");
+        });
+    }
+
+    @Test
+    void batchReservationCutOffByTheDeadlineIsReviewedAndReleased() {
+        when(accountTool.reserveBalanceReactive(eq("cust_ok"), any(), anyString(), any())).thenReturn(Mono.empty());
+        when(accountTool.reserveBalanceReactive(eq("cust_late"), any(), anyString(), any()))
+                .thenReturn(Mono.error(new PaymentException(Deadline.EXCEEDED, "Deadline of 5000ms exceeded")));
+
+        List<PaymentDecisionResponse> responses = decide("cust_ok", "cust_late", "cust_block");
+
+        assertThat(responses).extracting(PaymentDecisionResponse::getDecision).containsExactly(
+                PaymentDecisionResponse.DecisionType.ALLOW,
+                PaymentDecisionResponse.DecisionType.REVIEW,
+                PaymentDecisionResponse.DecisionType.BLOCK);
+        assertThat(responses.get(1).getReasons()).contains("deadline_exceeded").doesNotContain("reserve_failed");
+        verify(accountTool, timeout(1000)).releaseReservation("cust_late", "req_cust_late");
+        verify(accountTool, never()).releaseReservation(eq("cust_ok"), anyString());
+    }
+
+    @Test
+    void batchReservationRefusedByAccountsIsBlocked() {
+        when(accountTool.reserveBalanceReactive(anyString(), any(), anyString(), any()))
+                .thenReturn(Mono.error(new PaymentException("INSUFFICIENT_FUNDS", "Insufficient funds")));
+
+        List<PaymentDecisionResponse> responses = decide("cust_poor");
+
+        assertThat(responses.get(0).getDecision()).isEqualTo(PaymentDecisionResponse.DecisionType.BLOCK);
+        assertThat(responses.get(0).getReasons()).contains("reserve_failed");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchAppendsAllCasesWithOneCall() {
+        when(accountTool.reserveBalanceReactive(anyString(), any(), anyString(), any())).thenReturn(Mono.empty());
+
+        decide("cust_block_1", "cust_ok", "cust_block_2");
+
+        ArgumentCaptor<List<CaseCreationRequest>> cases = ArgumentCaptor.forClass(List.class);
+        verify(caseOutbox).appendAll(cases.capture());
+        assertThat(cases.getValue()).extracting(CaseCreationRequest::getRequestId)
+                .containsExactly("req_cust_block_1", "req_cust_block_2");
+        verify(caseOutbox, never()).append(any());
+    }
+
+    @Test
+    void batchReservationsRunConcurrentlyUpToALimit() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(accountTool.reserveBalanceReactive(anyString(), any(), anyString(), any())).thenAnswer(invocation ->
+                Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    // Counted out before completing, as completion lets the next reservation start
+                    return Mono.delay(Duration.ofMillis(20)).doOnNext(tick -> inFlight.decrementAndGet()).then();
+                }));
+        String[] customers = new String[64];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = "cust_" + i;
+        }
+
+        List<PaymentDecisionResponse> responses = decide(customers);
+
+        assertThat(responses).allMatch(response -> response.getDecision() == PaymentDecisionResponse.DecisionType.ALLOW);
+        assertThat(maxInFlight.get()).isBetween(2, 16);
+    }
+
+    @Test
+    void reactiveAllowKeepsTheSpeculativeHold() {
+        givenReactiveTools("cust_ok", true);
+
+        PaymentDecisionResponse response = decideReactive("cust_ok");
+
+        assertThat(response.getDecision()).isEqualTo(PaymentDecisionResponse.DecisionType.ALLOW);
+        verify(accountTool, never()).getBalanceReactive(anyString(), any());
+        verify(accountTool, never()).reserveBalanceReactive(anyString(), any(), anyString(), any());
+        verify(accountTool, never()).releaseReservation(anyString(), anyString());
+        verify(caseOutbox, never()).append(any());
+    }
+
+    @Test
+    void reactiveBlockReleasesTheSpeculativeHoldAndCreatesACase() {
+        givenReactiveTools("cust_block", true);
+
+        PaymentDecisionResponse response = decideReactive("cust_block");
+
+        assertThat(response.getDecision()).isEqualTo(PaymentDecisionResponse.DecisionType.BLOCK);
+        verify(accountTool).releaseReservation("cust_block", "req_cust_block");
+        verify(caseOutbox).append(any());
+    }
+
+    @Test
+    void reactiveAllowWithoutAHoldIsBlocked() {
+        givenReactiveTools("cust_ok", false);
+
+        PaymentDecisionResponse response = decideReactive("cust_ok");
+
+        assertThat(response.getDecision()).isEqualTo(PaymentDecisionResponse.DecisionType.BLOCK);
+        assertThat(response.getReasons()).contains("reserve_failed");
+        verify(accountTool, never()).releaseReservation(anyString(), anyString());
+    }
+
+    @Test
+    void reactiveRiskFailureReleasesAPlacedHold() {
+        givenReactiveTools("cust_ok", true);
+        when(riskTool.getRiskSignalsReactive(anyString(), any(), any()))
+                .thenReturn(Mono.error(new PaymentException("RISK_SERVICE_ERROR", "Risk signals unavailable")));
+
+        PaymentDecisionResponse response = decideReactive("cust_ok");
+
+        assertThat(response.getDecision()).isEqualTo(PaymentDecisionResponse.DecisionType.REVIEW);
+        verify(accountTool, timeout(1000)).releaseReservation("cust_ok", "req_cust_ok");
+    }
+
+    private void givenReactiveTools(String customerId, boolean reserved) {
+        AccountBalanceResponse balance = balance(customerId);
+        when(accountTool.reserveIfAvailableReactive(eq(customerId), any(), anyString(), any()))
+                .thenReturn(Mono.just(reserved
+                        ? BalanceReservationResponse.reserved(balance, "req_" + customerId)
+                        : BalanceReservationResponse.notReserved(balance, "insufficient_funds", "req_" + customerId)));
+        when(riskTool.getRiskSignalsReactive(eq(customerId), any(), any())).thenReturn(Mono.just(risk(customerId)));
+    }
+
+    private PaymentDecisionResponse decideReactive(String customerId) {
+        return paymentAgent.processPaymentReactive(request(customerId), "req_" + customerId, TraceVerbosity.FULL,
+                Deadline.after(Duration.ofSeconds(5))).block();
+    }
+
+    private List<PaymentDecisionResponse> decide(String... customerIds) {
+        List<PaymentDecisionRequest> requests = new ArrayList<>();
+        List<String> requestIds = new ArrayList<>();
+        Map<String, AccountBalanceResponse> balances = new HashMap<>();
+        List<RiskSignalsResponse> risks = new ArrayList<>();
+        for (String customerId : customerIds) {
+            requests.add(request(customerId));
+            requestIds.add("req_" + customerId);
+            balances.put(customerId, balance(customerId));
+            risks.add(risk(customerId));
+        }
+        return paymentAgent.processWithSnapshots(requests, requestIds, balances, risks, TraceVerbosity.FULL,
+                Deadline.after(Duration.ofSeconds(5)));
+    }
+
+    private static PaymentDecisionRequest request(String customerId) {
+        return new PaymentDecisionRequest(customerId, new BigDecimal("25.00"), "USD", "payee_1", "key_" + customerId);
+    }
+
+    private static AccountBalanceResponse balance(String customerId) {
+        return new AccountBalanceResponse(customerId, new BigDecimal("500.00"), new BigDecimal("500.00"), "USD",
+                "ACTIVE");
+    }
+
+    private static RiskSignalsResponse risk(String customerId) {
+        return new RiskSignalsResponse(customerId, 10, List.of(), RiskSignalsResponse.RiskLevel.LOW);
+    }
+}
@@ -0,0 +1,79 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.common.dto.BalanceReservationResponse;
+import com.paynow.payments.agent.Deadline;
+import com.paynow.payments.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.paynow.payments.agent.tools.BalanceNearCacheTest.balance;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountToolTest {
+
+    private final AccountsClient accountsClient = mock(AccountsClient.class);
+    private final BalanceNearCache nearCache = spy(new BalanceNearCache(new NearCacheProperties(),
+            mock(PaymentMetrics.class), new SimpleMeterRegistry()));
+    private AccountTool accountTool;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        // Hedging, retries and the breaker pass calls straight through
+        Hedger hedger = mock(Hedger.class);
+        when(hedger.call(anyString(), any(), any())).thenAnswer(invocation ->
+                invocation.<Function<Duration, Mono<?>>>getArgument(2).apply(Duration.ofSeconds(1)));
+        BudgetedRetry budgetedRetry = mock(BudgetedRetry.class);
+        when(budgetedRetry.call(anyString(), any(), anyInt(), any())).thenAnswer(invocation -> invocation.getArgument(3));
+        ToolGuard toolGuard = mock(ToolGuard.class);
+        when(toolGuard.guard(anyString(), any(Mono.class), any(Duration.class)))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        accountTool = new AccountTool(accountsClient, hedger, toolGuard, budgetedRetry, nearCache,
+                new SingleFlight(mock(PaymentMetrics.class)));
+    }
+
+    @Test
+    void reserveIfAvailableNeverReadsTheNearCacheAndEvictsIt() {
+        nearCache.put("cust_1", balance("cust_1"), nearCache.generation("cust_1"), Duration.ofMillis(5));
+        when(accountsClient.reserveIfAvailable("cust_1", new BigDecimal("25.00"), "req_1"))
+                .thenReturn(Mono.just(BalanceReservationResponse.reserved(balance("cust_1"), "req_1")));
+
+        BalanceReservationResponse reservation = accountTool.reserveIfAvailable(
+                "cust_1", new BigDecimal("25.00"), "req_1", Deadline.after(Duration.ofSeconds(5)));
+
+        assertThat(reservation.isReserved()).isTrue();
+        verify(accountsClient).reserveIfAvailable("cust_1", new BigDecimal("25.00"), "req_1");
+        verify(nearCache, never()).get(anyString());
+        assertThat(nearCache.get("cust_1")).isNull();
+    }
+
+    @Test
+    void getBalancesLooksUpOnlyCustomersMissingFromTheNearCache() {
+        nearCache.put("cust_1", balance("cust_1"), nearCache.generation("cust_1"), Duration.ofMillis(5));
+        when(accountsClient.getBalances(List.of("cust_2"))).thenReturn(Mono.just(List.of(balance("cust_2"))));
+
+        Map<String, AccountBalanceResponse> balances = accountTool.getBalances(
+                List.of("cust_1", "cust_2"), Deadline.after(Duration.ofSeconds(5)));
+
+        assertThat(balances).containsOnlyKeys("cust_1", "cust_2");
+        verify(accountsClient).getBalances(List.of("cust_2"));
+        assertThat(nearCache.get("cust_2")).isNotNull();
+    }
+}
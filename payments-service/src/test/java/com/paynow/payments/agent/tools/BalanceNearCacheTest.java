@@ -0,0 +1,63 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.dto.AccountBalanceResponse;
+import com.paynow.payments.metrics.PaymentMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BalanceNearCacheTest {
+
+    private final BalanceNearCache nearCache = open(true);
+
+    @Test
+    void servesASnapshotPutUnderTheCurrentGeneration() {
+        nearCache.put("cust_1", balance("cust_1"), nearCache.generation("cust_1"), Duration.ofMillis(5));
+
+        assertThat(nearCache.get("cust_1")).isNotNull();
+    }
+
+    @Test
+    void invalidateEvictsTheSnapshot() {
+        nearCache.put("cust_1", balance("cust_1"), nearCache.generation("cust_1"), Duration.ofMillis(5));
+
+        nearCache.invalidate("cust_1");
+
+        assertThat(nearCache.get("cust_1")).isNull();
+    }
+
+    @Test
+    void dropsALookupThatStartedBeforeAnInvalidation() {
+        long generation = nearCache.generation("cust_1");
+        nearCache.invalidate("cust_1");
+
+        nearCache.put("cust_1", balance("cust_1"), generation, Duration.ofMillis(5));
+
+        assertThat(nearCache.get("cust_1")).isNull();
+    }
+
+    @Test
+    void cachesNothingWhenDisabled() {
+        BalanceNearCache disabled = open(false);
+
+        disabled.put("cust_1", balance("cust_1"), disabled.generation("cust_1"), Duration.ofMillis(5));
+
+        assertThat(disabled.get("cust_1")).isNull();
+    }
+
+    private static BalanceNearCache open(boolean enabled) {
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setEnabled(enabled);
+        return new BalanceNearCache(properties, mock(PaymentMetrics.class), new SimpleMeterRegistry());
+    }
+
+    static AccountBalanceResponse balance(String customerId) {
+        return new AccountBalanceResponse(customerId, new BigDecimal("500.00"), new BigDecimal("500.00"), "USD",
+                "ACTIVE");
+    }
+}
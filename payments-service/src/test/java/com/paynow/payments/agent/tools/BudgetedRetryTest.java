@@ -0,0 +1,75 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.Deadline;
+import com.paynow.payments.metrics.PaymentMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class BudgetedRetryTest {
+
+    private final PaymentMetrics paymentMetrics = mock(PaymentMetrics.class);
+    private final BudgetedRetry retry = new BudgetedRetry(paymentMetrics, Duration.ofMillis(100));
+
+    @Test
+    void retriesServerErrorsWithinTheBudget() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> attempts.incrementAndGet() < 2
+                ? Mono.error(status(HttpStatus.SERVICE_UNAVAILABLE))
+                : Mono.just("ok"));
+
+        String result = retry.call("balance", Deadline.after(Duration.ofSeconds(5)), 2, call).block();
+
+        assertThat(result).isEqualTo("ok");
+        assertThat(attempts).hasValue(2);
+        verify(paymentMetrics).recordToolAttempts("balance", 2);
+    }
+
+    @Test
+    void skipsARetryTheDeadlineCannotFit() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(status(HttpStatus.SERVICE_UNAVAILABLE));
+        });
+
+        assertThatThrownBy(() -> retry.call("balance", Deadline.after(Duration.ofMillis(250)), 2, call).block())
+                .isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+        assertThat(attempts).hasValue(1);
+        verify(paymentMetrics).recordRetrySkipped("balance");
+    }
+
+    @Test
+    void neverRetriesClientErrorsOrPaymentExceptions() {
+        AtomicInteger attempts = new AtomicInteger();
+        Mono<String> badRequest = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(status(HttpStatus.BAD_REQUEST));
+        });
+        Mono<String> unavailable = Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new PaymentException.ToolUnavailableException("risk", "circuit open", null));
+        });
+        Deadline deadline = Deadline.after(Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> retry.call("risk", deadline, 2, badRequest).block())
+                .isInstanceOf(WebClientResponseException.BadRequest.class);
+        assertThatThrownBy(() -> retry.call("risk", deadline, 2, unavailable).block())
+                .isInstanceOf(PaymentException.ToolUnavailableException.class);
+        assertThat(attempts).hasValue(2);
+    }
+
+    private static WebClientResponseException status(HttpStatus status) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), null, null, null);
+    }
+}
@@ -0,0 +1,73 @@
+package com.paynow.payments.agent.tools;
+
+import com.paynow.payments.metrics.PaymentMetrics;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SingleFlightTest {
+
+    private final PaymentMetrics paymentMetrics = mock(PaymentMetrics.class);
+    private final SingleFlight singleFlight = new SingleFlight(paymentMetrics);
+
+    @Test
+    void coalescesConcurrentCallsForTheSameKey() {
+        Sinks.One<String> reply = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        Mono<String> first = singleFlight.call("balance", "cust_1", () -> {
+            calls.incrementAndGet();
+            return reply.asMono();
+        });
+        Mono<String> second = singleFlight.call("balance", "cust_1", () -> {
+            calls.incrementAndGet();
+            return Mono.just("unused");
+        });
+        Mono<String> both = Mono.zip(first, second, (a, b) -> a + "," + b).cache();
+        both.subscribe();
+        reply.tryEmitValue("100.00");
+
+        assertThat(both.block()).isEqualTo("100.00,100.00");
+        assertThat(calls).hasValue(1);
+        verify(paymentMetrics).recordCoalesced("balance");
+    }
+
+    @Test
+    void sendsAFreshCallOnceTheFirstFinished() {
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.call("balance", "cust_1", () -> Mono.just(calls.incrementAndGet())).block();
+        Integer second = singleFlight.call("balance", "cust_1", () -> Mono.just(calls.incrementAndGet())).block();
+
+        assertThat(second).isEqualTo(2);
+        verify(paymentMetrics, times(0)).recordCoalesced("balance");
+    }
+
+    @Test
+    void keepsDifferentKeysApart() {
+        Sinks.One<String> reply = Sinks.one();
+        singleFlight.call("balance", "cust_1", reply::asMono).subscribe();
+
+        String other = singleFlight.call("balance", "cust_2", () -> Mono.just("other")).block();
+
+        assertThat(other).isEqualTo("other");
+        reply.tryEmitValue("done");
+    }
+
+    @Test
+    void sharesErrorsAndDropsTheEntry() {
+        assertThatThrownBy(() -> singleFlight.call("risk", "cust_1",
+                () -> Mono.<String>error(new IllegalStateException("down"))).block())
+                .hasMessage("down");
+
+        assertThat(singleFlight.call("risk", "cust_1", () -> Mono.just("up")).block()).isEqualTo("up");
+    }
+}
@@ -0,0 +1,98 @@
+package com.paynow.payments.events;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void redeliversUnreleasedEventsAfterReopen() throws Exception {
+        EventProperties.Spool properties = properties(4096);
+        try (EventSpool spool = new EventSpool(properties)) {
+            append(spool, "e1");
+            append(spool, "e2");
+            append(spool, "e3");
+            spool.release(spool.peek(1));
+        }
+
+        try (EventSpool spool = new EventSpool(properties)) {
+            assertThat(spool.pendingEvents()).isEqualTo(2);
+            assertThat(events(spool.peek(10))).containsExactly("e2", "e3");
+        }
+    }
+
+    @Test
+    void stopsRecoveryAtACorruptRecord() throws Exception {
+        EventProperties.Spool properties = properties(4096);
+        try (EventSpool spool = new EventSpool(properties)) {
+            append(spool, "e1");
+            append(spool, "e2");
+        }
+        // First byte of the second record's payload: 16-byte file header, then "e1" with its 8-byte header
+        try (RandomAccessFile file = new RandomAccessFile(properties.getPath(), "rw")) {
+            file.seek(16 + 8 + 2 + 8);
+            file.write('x');
+        }
+
+        try (EventSpool spool = new EventSpool(properties)) {
+            assertThat(events(spool.peek(10))).containsExactly("e1");
+            append(spool, "e3");
+            assertThat(events(spool.peek(10))).containsExactly("e1", "e3");
+        }
+    }
+
+    @Test
+    void compactsToMakeRoom() throws Exception {
+        try (EventSpool spool = new EventSpool(properties(16 + 3 * 18))) {
+            append(spool, "0123456789");
+            append(spool, "abcdefghij");
+            append(spool, "ABCDEFGHIJ");
+            spool.release(spool.peek(2));
+
+            assertThat(append(spool, "KLMNOPQRST")).isTrue();
+            assertThat(append(spool, "klmnopqrst")).isTrue();
+            assertThat(append(spool, "overflow!!")).isFalse();
+            assertThat(events(spool.peek(10))).containsExactly("ABCDEFGHIJ", "KLMNOPQRST", "klmnopqrst");
+        }
+    }
+
+    @Test
+    void resetsOffsetsOnceEverythingIsReleased() throws Exception {
+        try (EventSpool spool = new EventSpool(properties(16 + 2 * 18))) {
+            append(spool, "0123456789");
+            append(spool, "abcdefghij");
+            spool.release(spool.peek(10));
+
+            assertThat(spool.isEmpty()).isTrue();
+            assertThat(spool.pendingBytes()).isZero();
+            assertThat(append(spool, "ABCDEFGHIJ")).isTrue();
+            assertThat(append(spool, "KLMNOPQRST")).isTrue();
+        }
+    }
+
+    private EventProperties.Spool properties(int sizeBytes) {
+        EventProperties.Spool properties = new EventProperties.Spool();
+        properties.setPath(directory.resolve("events.spool").toString());
+        properties.setSizeBytes(sizeBytes);
+        return properties;
+    }
+
+    private static boolean append(EventSpool spool, String event) {
+        byte[] bytes = event.getBytes(StandardCharsets.UTF_8);
+        return spool.append(bytes, bytes.length);
+    }
+
+    private static List<String> events(EventSpool.Pending pending) {
+        return pending.events().stream().map(event -> new String(event, StandardCharsets.UTF_8)).toList();
+    }
+}
@@ -0,0 +1,58 @@
+package com.paynow.payments.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PaymentMetrics paymentMetrics = new PaymentMetrics(registry, new LatencyProperties());
+
+    @AfterEach
+    void tearDown() {
+        paymentMetrics.close();
+    }
+
+    @Test
+    void reusesTaggedMetersAcrossCalls() {
+        paymentMetrics.recordToolRejected("risk", "circuit_open");
+        paymentMetrics.recordToolRejected("risk", "circuit_open");
+        paymentMetrics.recordToolRejected("risk", "bulkhead_full");
+        paymentMetrics.recordToolRejected("accounts", "circuit_open");
+
+        assertThat(registry.get("payment.tools.rejected.total").counters()).hasSize(3);
+        assertThat(registry.get("payment.tools.rejected.total")
+                .tag("tool", "risk").tag("reason", "circuit_open").counter().count()).isEqualTo(2);
+        assertThat(registry.get("payment.tools.rejected.total")
+                .tag("tool", "accounts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsIntoMetersRegisteredUpFront() {
+        assertThat(registry.find("payment.outbox.delivered.total").counter()).isNotNull();
+
+        paymentMetrics.recordOutboxDelivered(3);
+        paymentMetrics.recordOutboxDelivered(2);
+        paymentMetrics.recordDeadlineRemaining(Duration.ofMillis(40));
+
+        assertThat(registry.get("payment.outbox.delivered.total").counter().count()).isEqualTo(5);
+        assertThat(registry.get("payment.deadline.remaining").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsPerOperationSummariesApart() {
+        paymentMetrics.recordToolAttempts("balance", 1);
+        paymentMetrics.recordToolAttempts("balance", 3);
+        paymentMetrics.recordToolAttempts("risk", 2);
+
+        assertThat(registry.get("payment.tools.attempts").tag("operation", "balance").summary().totalAmount())
+                .isEqualTo(4);
+        assertThat(registry.get("payment.tools.attempts").tag("operation", "risk").summary().count())
+                .isEqualTo(1);
+    }
+}
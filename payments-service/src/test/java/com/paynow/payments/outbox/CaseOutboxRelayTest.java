@@ -0,0 +1,130 @@
+package com.paynow.payments.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.common.exception.PaymentException;
+import com.paynow.payments.agent.tools.CaseTool;
+import com.paynow.payments.metrics.PaymentMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.paynow.payments.outbox.CaseOutboxTest.caseFor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CaseOutboxRelayTest {
+
+    @TempDir
+    Path directory;
+
+    private final CaseTool caseTool = mock(CaseTool.class);
+    private final PaymentMetrics paymentMetrics = mock(PaymentMetrics.class);
+    private final Queue<String> delivered = new ConcurrentLinkedQueue<>();
+    private CaseOutbox outbox;
+    private CaseOutboxRelay relay;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (relay != null) {
+            relay.stop();
+        }
+        if (outbox != null) {
+            outbox.destroy();
+        }
+    }
+
+    @Test
+    void deliversAndCommitsAppendedCases() throws Exception {
+        doAnswer(invocation -> {
+            List<CaseCreationRequest> cases = invocation.getArgument(0);
+            cases.forEach(request -> delivered.add(request.getRequestId()));
+            return null;
+        }).when(caseTool).createCases(anyList(), any());
+        start();
+
+        outbox.append(caseFor("req_1"));
+        outbox.append(caseFor("req_2"));
+
+        eventually(() -> delivered.size() == 2);
+        assertThat(delivered).containsExactly("req_1", "req_2");
+        eventually(() -> outbox.read(outbox.committedCursor(), 10).cases().isEmpty());
+    }
+
+    @Test
+    void dropsOnlyTheRejectedCase() throws Exception {
+        doAnswer(invocation -> {
+            List<CaseCreationRequest> cases = invocation.getArgument(0);
+            if (cases.stream().anyMatch(request -> request.getRequestId().equals("req_bad"))) {
+                throw new PaymentException.ValidationException("case-service rejected the cases", null);
+            }
+            cases.forEach(request -> delivered.add(request.getRequestId()));
+            return null;
+        }).when(caseTool).createCases(anyList(), any());
+
+        OutboxProperties properties = properties();
+        outbox = new CaseOutbox(new ObjectMapper(), paymentMetrics, properties);
+        outbox.append(caseFor("req_1"));
+        outbox.append(caseFor("req_bad"));
+        outbox.append(caseFor("req_3"));
+        outbox.append(caseFor("req_4"));
+        relay = new CaseOutboxRelay(outbox, caseTool, properties, paymentMetrics);
+        relay.start();
+
+        eventually(() -> delivered.size() == 3);
+        assertThat(delivered).containsExactly("req_1", "req_3", "req_4");
+        verify(paymentMetrics).recordOutboxDropped(1);
+    }
+
+    @Test
+    void retriesTheBatchAfterOtherFailures() throws Exception {
+        doAnswer(invocation -> {
+            throw new PaymentException.ToolUnavailableException("case", "case-service is down", null);
+        }).doAnswer(invocation -> {
+            List<CaseCreationRequest> cases = invocation.getArgument(0);
+            cases.forEach(request -> delivered.add(request.getRequestId()));
+            return null;
+        }).when(caseTool).createCases(anyList(), any());
+        start();
+
+        outbox.append(caseFor("req_1"));
+
+        eventually(() -> delivered.size() == 1);
+        assertThat(delivered).containsExactly("req_1");
+        verify(paymentMetrics).recordOutboxDeliveryFailure();
+    }
+
+    private static void eventually(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.call()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void start() {
+        OutboxProperties properties = properties();
+        outbox = new CaseOutbox(new ObjectMapper(), paymentMetrics, properties);
+        relay = new CaseOutboxRelay(outbox, caseTool, properties, paymentMetrics);
+        relay.start();
+    }
+
+    private OutboxProperties properties() {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setDirectory(directory.toString());
+        properties.setPollInterval(Duration.ofMillis(10));
+        properties.setRetryBackoff(Duration.ofMillis(10));
+        return properties;
+    }
+}
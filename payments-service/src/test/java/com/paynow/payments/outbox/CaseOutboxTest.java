@@ -0,0 +1,143 @@
+package com.paynow.payments.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.CaseCreationRequest;
+import com.paynow.payments.metrics.PaymentMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CaseOutboxTest {
+
+    @TempDir
+    Path directory;
+
+    private final PaymentMetrics paymentMetrics = mock(PaymentMetrics.class);
+    private CaseOutbox outbox;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (outbox != null) {
+            outbox.destroy();
+        }
+    }
+
+    @Test
+    void readsAppendedCasesInOrder() throws Exception {
+        outbox = open(1024 * 1024);
+        outbox.append(caseFor("req_1"));
+        outbox.append(caseFor("req_2"));
+
+        CaseOutbox.Batch batch = outbox.read(outbox.committedCursor(), 10);
+
+        assertThat(requestIds(batch)).containsExactly("req_1", "req_2");
+    }
+
+    @Test
+    void appendAllWritesEveryCaseInOrderAcrossSegments() throws Exception {
+        outbox = open(1024);
+        List<CaseCreationRequest> cases = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            cases.add(caseFor("req_" + i));
+        }
+        outbox.append(caseFor("req_first"));
+        outbox.appendAll(cases);
+
+        List<String> read = new ArrayList<>();
+        CaseOutbox.Cursor cursor = outbox.committedCursor();
+        for (int i = 0; i < 100 && read.size() < 21; i++) {
+            CaseOutbox.Batch batch = outbox.read(cursor, 50);
+            read.addAll(requestIds(batch));
+            cursor = batch.next();
+        }
+
+        assertThat(read).hasSize(21).first().isEqualTo("req_first");
+        assertThat(read.subList(1, 21)).containsExactlyElementsOf(cases.stream()
+                .map(CaseCreationRequest::getRequestId).toList());
+    }
+
+    @Test
+    void resumesAfterTheCommittedCursorOnReopen() throws Exception {
+        outbox = open(1024 * 1024);
+        outbox.append(caseFor("req_1"));
+        outbox.append(caseFor("req_2"));
+        outbox.append(caseFor("req_3"));
+        outbox.commit(outbox.read(outbox.committedCursor(), 2));
+        outbox.destroy();
+
+        outbox = open(1024 * 1024);
+        CaseOutbox.Batch batch = outbox.read(outbox.committedCursor(), 10);
+
+        assertThat(requestIds(batch)).containsExactly("req_3");
+    }
+
+    @Test
+    void readsAcrossSegments() throws Exception {
+        outbox = open(256);
+        for (int i = 1; i <= 5; i++) {
+            outbox.append(caseFor("req_" + i));
+        }
+
+        CaseOutbox.Cursor cursor = outbox.committedCursor();
+        List<String> delivered = new ArrayList<>();
+        for (int i = 0; i < 20 && delivered.size() < 5; i++) {
+            CaseOutbox.Batch batch = outbox.read(cursor, 10);
+            delivered.addAll(requestIds(batch));
+            outbox.commit(batch);
+            cursor = batch.next();
+        }
+
+        assertThat(delivered).containsExactly("req_1", "req_2", "req_3", "req_4", "req_5");
+    }
+
+    @Test
+    void keepsEveryCaseAppendedConcurrentlyFromVirtualThreads() throws Exception {
+        outbox = open(4096);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                String requestId = "req_" + i;
+                executor.submit(() -> outbox.append(caseFor(requestId)));
+            }
+        }
+        outbox.destroy();
+
+        outbox = open(4096);
+        Set<String> recovered = new HashSet<>();
+        CaseOutbox.Cursor cursor = outbox.committedCursor();
+        for (int i = 0; i < 1000 && recovered.size() < 200; i++) {
+            CaseOutbox.Batch batch = outbox.read(cursor, 50);
+            recovered.addAll(requestIds(batch));
+            cursor = batch.next();
+        }
+
+        assertThat(recovered).hasSize(200);
+    }
+
+    private CaseOutbox open(long segmentBytes) {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setDirectory(directory.toString());
+        properties.setSegmentBytes(segmentBytes);
+        return new CaseOutbox(new ObjectMapper(), paymentMetrics, properties);
+    }
+
+    private static List<String> requestIds(CaseOutbox.Batch batch) {
+        return batch.cases().stream().map(CaseCreationRequest::getRequestId).toList();
+    }
+
+    static CaseCreationRequest caseFor(String requestId) {
+        return new CaseCreationRequest("cust_1", new BigDecimal("125.00"), "USD", "payee_1",
+                CaseCreationRequest.CaseType.REVIEW, List.of("high_risk"), 80, requestId);
+    }
+}
@@ -0,0 +1,37 @@
+package com.paynow.risk.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.paynow.common.dto.RiskSignalsQuery;
+import com.paynow.common.rpc.RpcMethods;
+import com.paynow.common.rpc.RpcServer;
+import com.paynow.risk.service.RiskService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Serves {@link RiskService} over the binary RPC transport on {@code rpc.server.port}, next to the REST API
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "rpc.server", name = "enabled", havingValue = "true")
+public class RiskRpcConfig {
+
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public RpcServer riskRpcServer(RiskService riskService,
+                                   ObjectMapper objectMapper,
+                                   @Value("${rpc.server.port:9082}") int port,
+                                   @Value("${app.api.keys}") Set<String> apiKeys) {
+        return new RpcServer("risk", port, objectMapper, apiKeys)
+                .register(RpcMethods.RISK_GET_SIGNALS,
+                        args -> riskService.getRiskSignals((String) args[0], (BigDecimal) args[1]),
+                        String.class, BigDecimal.class)
+                .register(RpcMethods.RISK_GET_SIGNALS_BATCH,
+                        args -> riskService.getRiskSignalsBatch(Arrays.asList((RiskSignalsQuery[]) args[0])),
+                        RiskSignalsQuery[].class);
+    }
+}
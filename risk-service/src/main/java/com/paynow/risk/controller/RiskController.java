@@ -1,5 +1,6 @@
 package com.paynow.risk.controller;
 
+import com.paynow.common.dto.RiskSignalsQuery;
 import com.paynow.common.dto.RiskSignalsResponse;
 import com.paynow.common.error.PaymentError;
 import com.paynow.common.util.CorrelationUtils;
@@ -11,11 +12,14 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 /**
  * REST controller for risk assessment operations
@@ -56,6 +60,35 @@ public class RiskController {
         }
     }
 
+    /**
+     * Batched risk lookups; results are returned in request order
+     */
+    @PostMapping("/signals/batch")
+    public ResponseEntity<?> getRiskSignalsBatch(
+            @RequestBody List<RiskSignalsQuery> queries,
+            HttpServletRequest request) {
+
+        String propagated = request.getHeader(CorrelationUtils.REQUEST_ID_HEADER);
+        String requestId = (propagated != null && !propagated.isBlank()) ? propagated : "req_missing";
+
+        try {
+            log.info("Getting risk signals for {} lookups", queries.size());
+
+            List<RiskSignalsResponse> response = riskService.getRiskSignalsBatch(queries);
+
+            return ResponseEntity.ok()
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(response);
+
+        } catch (Exception e) {
+            log.error("Error getting batch risk signals: {}", e.getMessage(), e);
+            PaymentError error = PaymentError.internalError("Failed to get risk signals", requestId, request.getRequestURI());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .header(CorrelationUtils.REQUEST_ID_HEADER, requestId)
+                    .body(error);
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("OK");
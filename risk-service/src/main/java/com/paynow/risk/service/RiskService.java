@@ -1,5 +1,6 @@
 package com.paynow.risk.service;
 
+import com.paynow.common.dto.RiskSignalsQuery;
 import com.paynow.common.dto.RiskSignalsResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -57,6 +58,17 @@ public class RiskService {
         return response;
     }
 
+    /**
+     * Evaluate several lookups in one call; results are returned in request order
+     */
+    public List<RiskSignalsResponse> getRiskSignalsBatch(List<RiskSignalsQuery> queries) {
+        List<RiskSignalsResponse> responses = new ArrayList<>(queries.size());
+        for (RiskSignalsQuery query : queries) {
+            responses.add(getRiskSignals(query.getCustomerId(), query.getAmount()));
+        }
+        return responses;
+    }
+
     private int calculateBaseRisk(String customerId) {
         // Simulate customer history-based risk
         int hash = Math.abs(customerId.hashCode());